@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.communication.kafka;
+
+import com.waves_rsp.ikb4stream.core.communication.ICommunication;
+import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
+import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka communication connector : {@link com.waves_rsp.ikb4stream.core.communication.model.Request Request} are
+ * consumed from the request topic and responses are produced to the response topic, with the key of the request so
+ * that all responses of a requester are in the same partition.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see com.waves_rsp.ikb4stream.core.communication.ICommunication
+ * @see RequestConsumer
+ */
+public class KafkaCommunication implements ICommunication {
+    /**
+     * Properties of this module
+     *
+     * @see PropertiesManager
+     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#getInstance(Class, String)
+     */
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(KafkaCommunication.class,
+            "resources/communication/kafka/config.properties");
+    /**
+     * Logger used to log all information in this module
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaCommunication.class);
+    /**
+     * Producer shared by all {@link RequestConsumer}
+     *
+     * @see KafkaCommunication#start(IDatabaseReader)
+     * @see KafkaCommunication#close()
+     */
+    private KafkaProducer<String, String> producer;
+    /**
+     * {@link RequestConsumer} of this module, one by Thread
+     *
+     * @see KafkaCommunication#start(IDatabaseReader)
+     * @see KafkaCommunication#close()
+     */
+    private final List<RequestConsumer> consumers = new ArrayList<>();
+    /**
+     * Threads running {@link KafkaCommunication#consumers}
+     *
+     * @see KafkaCommunication#close()
+     */
+    private final List<Thread> threads = new ArrayList<>();
+    /**
+     * Permits of requests in flight, shared by all {@link RequestConsumer}
+     *
+     * @see KafkaCommunication#close()
+     */
+    private Semaphore inFlight;
+    /**
+     * Maximum number of requests in flight
+     *
+     * @see KafkaCommunication#close()
+     */
+    private int maxInFlight;
+    /**
+     * Time in milliseconds to wait pending responses when closing
+     *
+     * @see KafkaCommunication#close()
+     */
+    private long closeTimeout;
+
+    /**
+     * Overrides default constructor
+     *
+     * @see KafkaCommunication
+     */
+    public KafkaCommunication() {
+        // Do nothing
+    }
+
+    /**
+     * Start consumers of the request topic, they share a budget of requests in flight
+     *
+     * @param databaseReader {@link IDatabaseReader} is the connection to database to get Event
+     * @throws NullPointerException  if databaseReader is null
+     * @throws IllegalStateException if configuration is invalid
+     * @see KafkaCommunication#PROPERTIES_MANAGER
+     */
+    @Override
+    public void start(IDatabaseReader databaseReader) {
+        Objects.requireNonNull(databaseReader);
+        LOGGER.info("Starting KafkaCommunication module");
+        String server;
+        String applicationId;
+        String requestTopic;
+        String responseTopic;
+        try {
+            server = PROPERTIES_MANAGER.getProperty("communications.kafka.server");
+            applicationId = PROPERTIES_MANAGER.getProperty("communications.kafka.application_id");
+            requestTopic = PROPERTIES_MANAGER.getProperty("communications.kafka.request_topic");
+            responseTopic = PROPERTIES_MANAGER.getProperty("communications.kafka.response_topic");
+        } catch (IllegalArgumentException e) {
+            LOGGER.error(e.getMessage());
+            throw new IllegalStateException(e.getMessage());
+        }
+        int threadNumber = getIntProperty("communications.kafka.stream_thread_nb", 1);
+        maxInFlight = getIntProperty("communications.kafka.max_in_flight", 64);
+        closeTimeout = getIntProperty("communications.kafka.close_timeout", 10000);
+        inFlight = new Semaphore(maxInFlight);
+        producer = new KafkaProducer<>(createProducerProperties(server, applicationId,
+                PROPERTIES_MANAGER.getPropertyOrDefault("communications.kafka.compression", "lz4"),
+                getIntProperty("communications.kafka.linger_ms", 20),
+                getIntProperty("communications.kafka.batch_size", 65536)));
+        for (int i = 0; i < threadNumber; i++) {
+            KafkaConsumer<String, String> consumer = new KafkaConsumer<>(createConsumerProperties(server, applicationId, maxInFlight));
+            RequestConsumer requestConsumer = new RequestConsumer(consumer, producer, requestTopic, responseTopic, databaseReader, inFlight);
+            Thread thread = new Thread(requestConsumer, "KafkaCommunication-" + i);
+            consumers.add(requestConsumer);
+            threads.add(thread);
+            thread.start();
+        }
+        LOGGER.info("KafkaCommunication listens {} with {} threads", requestTopic, threadNumber);
+    }
+
+    /**
+     * Get a positive integer property
+     *
+     * @param property     Name of the property
+     * @param defaultValue Value used if property is not set
+     * @return Value of the property
+     * @throws IllegalStateException if property is invalid
+     */
+    private static int getIntProperty(String property, int defaultValue) {
+        try {
+            int value = Integer.parseInt(PROPERTIES_MANAGER.getProperty(property));
+            if (value <= 0) {
+                throw new IllegalStateException("Invalid '" + property + "' value");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid '" + property + "' value");
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for {}", property);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Create configuration of the producer of responses : records are batched and compressed
+     *
+     * @param server        Kafka bootstrap servers
+     * @param clientId      Client id of the producer
+     * @param compression   Compression codec of batches (none, gzip, snappy or lz4)
+     * @param lingerMs      Time to wait for other responses before sending a batch
+     * @param batchSize     Maximum size of a batch in bytes
+     * @return Configuration of a {@link KafkaProducer}
+     * @throws NullPointerException if server, clientId or compression is null
+     */
+    static Properties createProducerProperties(String server, String clientId, String compression, int lingerMs, int batchSize) {
+        Objects.requireNonNull(server);
+        Objects.requireNonNull(clientId);
+        Objects.requireNonNull(compression);
+        Properties properties = new Properties();
+        properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, server);
+        properties.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        properties.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        properties.put(ProducerConfig.ACKS_CONFIG, "1");
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        return properties;
+    }
+
+    /**
+     * Create configuration of consumers of requests, they are in the same group so partitions are shared between them.
+     * Offsets are committed by {@link RequestConsumer} once responses are acked, not automatically.
+     *
+     * @param server      Kafka bootstrap servers
+     * @param groupId     Group of consumers
+     * @param maxInFlight Maximum number of requests in flight, also used as maximum number of records by poll
+     * @return Configuration of a {@link KafkaConsumer}
+     * @throws NullPointerException if server or groupId is null
+     */
+    static Properties createConsumerProperties(String server, String groupId, int maxInFlight) {
+        Objects.requireNonNull(server);
+        Objects.requireNonNull(groupId);
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, server);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxInFlight);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        return properties;
+    }
+
+    /**
+     * Stop consumers, wait until responses of requests in flight are acked, then flush and close the producer. Each
+     * wait lasts at most communications.kafka.close_timeout.
+     *
+     * @see KafkaCommunication#consumers
+     * @see KafkaCommunication#inFlight
+     * @see KafkaCommunication#producer
+     */
+    @Override
+    public void close() {
+        consumers.forEach(consumer -> consumer.close(closeTimeout));
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        consumers.clear();
+        threads.clear();
+        if (inFlight != null) {
+            try {
+                if (inFlight.tryAcquire(maxInFlight, closeTimeout, TimeUnit.MILLISECONDS)) {
+                    inFlight.release(maxInFlight);
+                } else {
+                    LOGGER.warn("{} requests are still in flight after {} ms", maxInFlight - inFlight.availablePermits(), closeTimeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (producer != null) {
+            producer.close();
+            producer = null;
+        }
+        LOGGER.info("KafkaCommunication module stopped");
+    }
+
+    /**
+     * Check if this jar is active
+     *
+     * @return True if it should be started
+     * @see KafkaCommunication#PROPERTIES_MANAGER
+     */
+    @Override
+    public boolean isActive() {
+        try {
+            return Boolean.valueOf(PROPERTIES_MANAGER.getProperty("communications.kafka.enable"));
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.communication.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Offsets of requests whose response has not been acked yet, by partition. An offset can be committed only once all
+ * requests before it have been answered, so a request is never skipped if its consumer stops : it is consumed again
+ * and may be answered twice.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see RequestConsumer
+ */
+class PendingOffsets {
+    /**
+     * State of each partition of the request topic
+     *
+     * @see PendingOffsets#add(TopicPartition, long)
+     * @see PendingOffsets#ack(TopicPartition, long)
+     */
+    private final Map<TopicPartition, Partition> partitions = new HashMap<>();
+    /**
+     * Number of offsets not acked yet, all partitions included
+     *
+     * @see PendingOffsets#await(long)
+     */
+    private int pending;
+
+    /**
+     * Record a request which is going to be answered
+     *
+     * @param partition Partition of the request
+     * @param offset    Offset of the request
+     * @throws NullPointerException if partition is null
+     */
+    synchronized void add(TopicPartition partition, long offset) {
+        Objects.requireNonNull(partition);
+        Partition state = partitions.computeIfAbsent(partition, p -> new Partition());
+        if (state.pending.add(offset)) {
+            pending++;
+        }
+        state.next = Math.max(state.next, offset + 1);
+    }
+
+    /**
+     * Record that the response of a request has been acked
+     *
+     * @param partition Partition of the request
+     * @param offset    Offset of the request
+     * @throws NullPointerException if partition is null
+     */
+    synchronized void ack(TopicPartition partition, long offset) {
+        Objects.requireNonNull(partition);
+        Partition state = partitions.get(partition);
+        if (state != null && state.pending.remove(offset)) {
+            pending--;
+            if (pending == 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Get offsets to commit : for each partition, the first request not answered yet. Offsets already returned are
+     * not returned again.
+     *
+     * @return Offsets to commit, empty if nothing has changed
+     */
+    synchronized Map<TopicPartition, OffsetAndMetadata> committable() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        partitions.forEach((partition, state) -> {
+            long offset = state.pending.isEmpty() ? state.next : state.pending.first();
+            if (offset > state.committed) {
+                state.committed = offset;
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        });
+        return offsets;
+    }
+
+    /**
+     * Forget partitions which are no longer assigned, their requests not answered yet will be consumed again
+     *
+     * @param revoked Partitions revoked
+     * @throws NullPointerException if revoked is null
+     */
+    synchronized void revoke(Collection<TopicPartition> revoked) {
+        Objects.requireNonNull(revoked);
+        revoked.forEach(partition -> {
+            Partition state = partitions.remove(partition);
+            if (state != null) {
+                pending -= state.pending.size();
+            }
+        });
+        if (pending == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait until all responses are acked, at most timeout
+     *
+     * @param timeout Time in milliseconds to wait
+     * @return true if all responses are acked
+     * @throws InterruptedException if Thread is interrupted while waiting
+     */
+    synchronized boolean await(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (pending > 0 && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return pending == 0;
+    }
+
+    /**
+     * Offsets of a partition
+     */
+    private static class Partition {
+        /**
+         * Offsets not acked yet
+         */
+        private final TreeSet<Long> pending = new TreeSet<>();
+        /**
+         * Offset following the last request added
+         */
+        private long next;
+        /**
+         * Last offset returned by {@link PendingOffsets#committable()}
+         */
+        private long committed = -1;
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.communication.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.waves_rsp.ikb4stream.core.communication.model.BoundingBox;
+import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
+import com.waves_rsp.ikb4stream.core.communication.model.Request;
+import com.waves_rsp.ikb4stream.core.util.Geocoder;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Poll {@link Request} from the request topic and answer them. Requests are sent to the {@link IDatabaseReader} without
+ * waiting for previous responses, the number of requests in flight is bounded by a {@link Semaphore} shared by all
+ * consumers. When no permit is left, partitions are paused and polling goes on, so heartbeats are still sent.
+ * A request is the same JSON object as the web module ("start", "end", "search", "location", "source") with an
+ * optional "id". The response is produced with the key of the request, it contains the "offset" of the request and its
+ * "id" if any, because responses of a requester may be sent out of order. Offsets are committed once responses are
+ * acked, so delivery is at least once : a request whose response was not acked before a stop or a rebalance is
+ * answered again.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see KafkaCommunication
+ */
+class RequestConsumer implements Runnable {
+    /**
+     * Logger used to log all information in this module
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestConsumer.class);
+    /**
+     * Object used to read requests and write responses
+     *
+     * @see RequestConsumer#parseRequest(String)
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /**
+     * Consumer of the request topic
+     *
+     * @see RequestConsumer#run()
+     */
+    private final Consumer<String, String> consumer;
+    /**
+     * Producer of the response topic, shared by all {@link RequestConsumer}
+     *
+     * @see RequestConsumer#respond(String, String)
+     */
+    private final Producer<String, String> producer;
+    /**
+     * Topic of requests
+     */
+    private final String requestTopic;
+    /**
+     * Topic of responses
+     */
+    private final String responseTopic;
+    /**
+     * Connection to database to get Event
+     */
+    private final IDatabaseReader databaseReader;
+    /**
+     * Permits of requests in flight
+     *
+     * @see RequestConsumer#handle(ConsumerRecord)
+     */
+    private final Semaphore inFlight;
+    /**
+     * Offsets of requests not answered yet
+     *
+     * @see RequestConsumer#commit(boolean)
+     */
+    private final PendingOffsets offsets = new PendingOffsets();
+    /**
+     * Requests polled and waiting for a permit, their partitions are paused while it is not empty
+     *
+     * @see RequestConsumer#handleWaiting()
+     */
+    private final Deque<ConsumerRecord<String, String>> waiting = new ArrayDeque<>();
+    /**
+     * False when {@link RequestConsumer#close(long)} has been called
+     */
+    private volatile boolean running = true;
+    /**
+     * Time in milliseconds to wait pending responses before the last commit
+     *
+     * @see RequestConsumer#close(long)
+     */
+    private volatile long closeTimeout;
+
+    /**
+     * Create a consumer of requests
+     *
+     * @param consumer       Consumer of the request topic, owned by this object
+     * @param producer       Producer of the response topic
+     * @param requestTopic   Topic of requests
+     * @param responseTopic  Topic of responses
+     * @param databaseReader Connection to database to get Event
+     * @param inFlight       Permits of requests in flight
+     * @throws NullPointerException if a param is null
+     */
+    RequestConsumer(Consumer<String, String> consumer, Producer<String, String> producer, String requestTopic,
+                    String responseTopic, IDatabaseReader databaseReader, Semaphore inFlight) {
+        this.consumer = Objects.requireNonNull(consumer);
+        this.producer = Objects.requireNonNull(producer);
+        this.requestTopic = Objects.requireNonNull(requestTopic);
+        this.responseTopic = Objects.requireNonNull(responseTopic);
+        this.databaseReader = Objects.requireNonNull(databaseReader);
+        this.inFlight = Objects.requireNonNull(inFlight);
+    }
+
+    /**
+     * Poll requests until {@link RequestConsumer#close(long)} is called, then wait pending responses and commit them
+     */
+    @Override
+    public void run() {
+        try {
+            consumer.subscribe(Collections.singletonList(requestTopic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    commit(true);
+                    offsets.revoke(partitions);
+                    waiting.removeIf(record -> partitions.contains(new TopicPartition(record.topic(), record.partition())));
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    // Do nothing
+                }
+            });
+            while (running) {
+                consumer.poll(100).forEach(waiting::add);
+                handleWaiting();
+                commit(false);
+            }
+        } catch (WakeupException e) {
+            LOGGER.debug("Consumer of {} woken up", requestTopic);
+        } finally {
+            try {
+                if (!offsets.await(closeTimeout)) {
+                    LOGGER.warn("Responses of {} are not acked, they will be answered again", requestTopic);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            commit(true);
+            consumer.close();
+        }
+    }
+
+    /**
+     * Commit offsets of requests whose response has been acked, and of all requests before them
+     *
+     * @param sync true to wait for the commit (e.g. before closing or losing partitions)
+     * @see RequestConsumer#offsets
+     */
+    private void commit(boolean sync) {
+        Map<TopicPartition, OffsetAndMetadata> committable = offsets.committable();
+        if (committable.isEmpty()) {
+            return;
+        }
+        if (!sync) {
+            consumer.commitAsync(committable, (committed, e) -> {
+                if (e != null) {
+                    LOGGER.warn("Can't commit offsets of {} : {}", requestTopic, e.getMessage());
+                }
+            });
+            return;
+        }
+        try {
+            consumer.commitSync(committable);
+        } catch (KafkaException e) {
+            LOGGER.warn("Can't commit offsets of {} : {}", requestTopic, e.getMessage());
+        }
+    }
+
+    /**
+     * Send waiting requests while permits are available. Partitions are paused while requests are waiting, so that
+     * poll only sends heartbeats, and resumed once all of them have been sent.
+     *
+     * @see RequestConsumer#waiting
+     */
+    private void handleWaiting() {
+        while (!waiting.isEmpty() && inFlight.tryAcquire()) {
+            handle(waiting.poll());
+        }
+        if (!waiting.isEmpty()) {
+            consumer.pause(consumer.assignment());
+        } else if (!consumer.paused().isEmpty()) {
+            consumer.resume(consumer.paused());
+        }
+    }
+
+    /**
+     * Send a request to the database, its permit is already acquired and is released when its response is acked
+     *
+     * @param record Request consumed
+     * @see RequestConsumer#offsets
+     */
+    private void handle(ConsumerRecord<String, String> record) {
+        offsets.add(new TopicPartition(record.topic(), record.partition()), record.offset());
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("offset", record.offset());
+        Request request;
+        try {
+            JsonNode json = readJson(record.value());
+            if (json.hasNonNull("id")) {
+                response.set("id", json.get("id"));
+            }
+            request = parseRequest(json);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.info("Received an invalid format request : {}", e.getMessage());
+            respond(record, response.put("error", "Invalid request"));
+            return;
+        }
+        if (request == null) {
+            respond(record, response.put("error", "Invalid address"));
+            return;
+        }
+        try {
+            databaseReader.getEvent(request, (t, result) -> {
+                if (t != null) {
+                    LOGGER.error("DatabaseReader error: {}", t.getMessage());
+                    respond(record, response.put("error", "Database error"));
+                } else {
+                    respond(record, response.putRawValue("events", new RawValue(result)));
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Produce a response, then release its permit and mark its request as answered once Kafka acked it. A response
+     * which can't be sent is logged and its request is not consumed again.
+     *
+     * @param record   Request answered, its key identifies the requester
+     * @param response Response
+     * @see RequestConsumer#offsets
+     */
+    private void respond(ConsumerRecord<String, String> record, ObjectNode response) {
+        String value;
+        try {
+            value = MAPPER.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Can't write response to {} : {}", record.key(), e.getMessage());
+            value = createError(record, "Invalid response");
+        }
+        producer.send(new ProducerRecord<>(responseTopic, record.key(), value), (metadata, e) -> {
+            if (e != null) {
+                LOGGER.error("Can't send response to {} : {}", record.key(), e.getMessage());
+            }
+            offsets.ack(new TopicPartition(record.topic(), record.partition()), record.offset());
+            inFlight.release();
+        });
+    }
+
+    /**
+     * Create an error response
+     *
+     * @param record  Request answered
+     * @param message Error message
+     * @return JSON response
+     */
+    private static String createError(ConsumerRecord<String, String> record, String message) {
+        ObjectNode error = MAPPER.createObjectNode();
+        error.put("offset", record.offset());
+        error.put("error", message);
+        return error.toString();
+    }
+
+    /**
+     * Read a request as JSON
+     *
+     * @param value JSON formatted request
+     * @return JSON object
+     * @throws IOException              if value is not JSON
+     * @throws IllegalArgumentException if value is empty
+     */
+    private static JsonNode readJson(String value) throws IOException {
+        if (value == null) {
+            throw new IllegalArgumentException("Request is empty");
+        }
+        JsonNode json = MAPPER.readTree(value);
+        if (json == null) {
+            throw new IllegalArgumentException("Request is empty");
+        }
+        return json;
+    }
+
+    /**
+     * Convert a request from Json to Java object
+     *
+     * @param value JSON formatted request
+     * @return {@link Request}, or null if location can't be geocoded
+     * @throws IOException              if value is not JSON
+     * @throws IllegalArgumentException if a field is missing
+     */
+    static Request parseRequest(String value) throws IOException {
+        return parseRequest(readJson(value));
+    }
+
+    /**
+     * Convert a request from Json to Java object
+     *
+     * @param json JSON request
+     * @return {@link Request}, or null if location can't be geocoded
+     * @throws IllegalArgumentException if a field is missing
+     */
+    private static Request parseRequest(JsonNode json) {
+        if (!json.has("start") || !json.has("end")) {
+            throw new IllegalArgumentException("start and end are required");
+        }
+        Date start = new Date(json.get("start").asLong());
+        Date end = new Date(json.get("end").asLong());
+        String search = json.path("search").asText("");
+        String source = json.path("source").asText("");
+        String location = json.path("location").asText("");
+        if (location.isEmpty()) {
+            return new Request(start, end, search, source, new Date());
+        }
+        Geocoder geocoder = Geocoder.geocode(location);
+        if (geocoder.getLatLong() == null) {
+            LOGGER.warn("Can't geocode this address {}", location);
+            return null;
+        }
+        return new Request(start, end, search, source, new BoundingBox(geocoder.getBbox()), new Date());
+    }
+
+    /**
+     * Stop polling, the consumer commits acked responses and is closed by the polling Thread
+     *
+     * @param timeout Time in milliseconds to wait pending responses before the last commit
+     */
+    void close(long timeout) {
+        closeTimeout = timeout;
+        running = false;
+        consumer.wakeup();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.communication.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Encode compact documents in the format negotiated with the client : compact JSON, or CBOR if the client accepts
+ * {@value CBOR}
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see VertxServer
+ */
+enum ResponseEncoder {
+    /**
+     * JSON without extended JSON wrappers
+     */
+    JSON("application/json", new ObjectMapper()),
+    /**
+     * Concise Binary Object Representation, see RFC 7049
+     */
+    CBOR("application/cbor", new ObjectMapper(new CBORFactory()));
+
+    /**
+     * Content type of this format
+     */
+    private final String contentType;
+    /**
+     * Object used to write this format
+     */
+    private final ObjectMapper mapper;
+
+    ResponseEncoder(String contentType, ObjectMapper mapper) {
+        this.contentType = contentType;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Choose format from the Accept header of a request
+     *
+     * @param accept Accept header, can be null
+     * @return {@link ResponseEncoder#CBOR} if the client accepts it, {@link ResponseEncoder#JSON} otherwise
+     */
+    static ResponseEncoder negotiate(String accept) {
+        return accept != null && accept.contains(CBOR.contentType) ? CBOR : JSON;
+    }
+
+    /**
+     * Get content type of this format
+     *
+     * @return Content type
+     */
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Encode a response
+     *
+     * @param field     Name of the field which contains documents
+     * @param documents Compact documents
+     * @return Encoded response
+     * @throws NullPointerException     if field or documents is null
+     * @throws IllegalArgumentException if a document can't be encoded
+     */
+    byte[] encode(String field, List<Map<String, Object>> documents) {
+        Objects.requireNonNull(field);
+        Objects.requireNonNull(documents);
+        try {
+            return mapper.writeValueAsBytes(Collections.singletonMap(field, documents));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.communication.web;
+
+import com.waves_rsp.ikb4stream.core.communication.model.Request;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Standing {@link Request} of a client : each new {@link Event} which matches it is sent to the client
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see SubscriptionIndex
+ */
+class Subscription {
+    /**
+     * Area of the request, null if the whole world is requested
+     *
+     * @see Subscription#matches(Event)
+     */
+    private final Geometry area;
+    /**
+     * Beginning of the time window in milliseconds
+     */
+    private final long start;
+    /**
+     * End of the time window in milliseconds
+     */
+    private final long end;
+    /**
+     * Terms searched in lower case, an {@link Event} matches if its description contains one of them
+     */
+    private final String[] terms;
+    /**
+     * Requested sources, empty for all sources
+     *
+     * @see Request#getSources()
+     */
+    private final Set<String> sources;
+    /**
+     * Lowest score of requested {@link Event}
+     */
+    private final int minScore;
+    /**
+     * Send a matching {@link Event} to the client
+     *
+     * @see Subscription#send(String)
+     */
+    private final Consumer<String> sender;
+
+    /**
+     * Create a subscription
+     *
+     * @param request  {@link Request} of the client
+     * @param minScore Lowest score of requested {@link Event}
+     * @param sender   Send the JSON of a matching {@link Event} to the client
+     * @throws NullPointerException if request or sender is null
+     */
+    Subscription(Request request, int minScore, Consumer<String> sender) {
+        Objects.requireNonNull(request);
+        this.sender = Objects.requireNonNull(sender);
+        this.area = request.getBoundingBox() == null ? null : Geometry.fromLatLongs(request.getBoundingBox().getLatLongs());
+        this.start = request.getStart().getTime();
+        this.end = request.getEnd().getTime();
+        String search = request.getSearch() == null ? "" : request.getSearch().trim().toLowerCase(Locale.ROOT);
+        this.terms = search.isEmpty() ? new String[0] : search.split("\\s+");
+        this.sources = request.getSources();
+        this.minScore = minScore;
+    }
+
+    /**
+     * Get area of the request
+     *
+     * @return {@link Geometry}, or null if the whole world is requested
+     */
+    Geometry getArea() {
+        return area;
+    }
+
+    /**
+     * Check if an {@link Event} matches this subscription, like {@link Request} do in database : the event overlaps
+     * the time window and the area, and its description contains one of the searched terms
+     *
+     * @param event {@link Event} to check
+     * @return true if the {@link Event} must be sent to the client
+     */
+    boolean matches(Event event) {
+        if (event.getScore() < minScore
+                || event.getStart().getTime() > end || event.getEnd().getTime() < start
+                || (!sources.isEmpty() && !sources.contains(event.getSource()))
+                || (area != null && !area.intersectsBoundingBox(event.getGeometry()))) {
+            return false;
+        }
+        if (terms.length == 0) {
+            return true;
+        }
+        String description = event.getDescription().toLowerCase(Locale.ROOT);
+        return Arrays.stream(terms).anyMatch(description::contains);
+    }
+
+    /**
+     * Send an {@link Event} to the client
+     *
+     * @param json JSON of the {@link Event}
+     */
+    void send(String json) {
+        sender.accept(json);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.communication.web;
+
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of active {@link Subscription}. Subscriptions are registered in every cell of a regular grid covered by their
+ * area, so a new {@link Event} is only checked against subscriptions of the cells it covers. Subscriptions without
+ * area, or covering too many cells, are checked for every {@link Event}.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see Subscription
+ */
+class SubscriptionIndex {
+    /**
+     * Logger used to log all information in this module
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionIndex.class);
+    /**
+     * Maximum number of cells a {@link Subscription} is registered in
+     *
+     * @see SubscriptionIndex#add(Subscription)
+     */
+    private static final int MAX_CELLS = 1024;
+    /**
+     * Size of a cell in degrees
+     */
+    private final double cellSize;
+    /**
+     * Subscriptions registered in each cell
+     *
+     * @see SubscriptionIndex#candidates(Geometry)
+     */
+    private final Map<Long, Set<Subscription>> cells = new ConcurrentHashMap<>();
+    /**
+     * Subscriptions checked for every {@link Event}
+     */
+    private final Set<Subscription> global = ConcurrentHashMap.newKeySet();
+    /**
+     * Cells of each registered {@link Subscription}, empty for {@link SubscriptionIndex#global} subscriptions
+     *
+     * @see SubscriptionIndex#remove(Subscription)
+     */
+    private final Map<Subscription, List<Long>> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * Create an empty index
+     *
+     * @param cellSize Size of a cell in degrees
+     * @throws IllegalArgumentException if cellSize is not positive
+     */
+    SubscriptionIndex(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Register a {@link Subscription}
+     *
+     * @param subscription {@link Subscription} to register
+     * @throws NullPointerException if subscription is null
+     */
+    void add(Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        Geometry area = subscription.getArea();
+        List<Long> keys = area == null ? null : cellsOf(area);
+        if (keys == null) {
+            registrations.put(subscription, Collections.emptyList());
+            global.add(subscription);
+            return;
+        }
+        registrations.put(subscription, keys);
+        keys.forEach(key -> cells.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription));
+    }
+
+    /**
+     * Unregister a {@link Subscription}
+     *
+     * @param subscription {@link Subscription} to unregister
+     * @throws NullPointerException if subscription is null
+     */
+    void remove(Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        List<Long> keys = registrations.remove(subscription);
+        if (keys == null) {
+            return;
+        }
+        global.remove(subscription);
+        for (Long key : keys) {
+            cells.computeIfPresent(key, (k, subscriptions) -> {
+                subscriptions.remove(subscription);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+        }
+    }
+
+    /**
+     * Get number of registered {@link Subscription}
+     *
+     * @return Number of {@link Subscription}
+     */
+    int size() {
+        return registrations.size();
+    }
+
+    /**
+     * Get subscriptions matching an {@link Event}
+     *
+     * @param event New {@link Event}
+     * @return Matching {@link Subscription}
+     * @throws NullPointerException if event is null
+     */
+    List<Subscription> match(Event event) {
+        Objects.requireNonNull(event);
+        List<Subscription> matches = new ArrayList<>();
+        for (Subscription subscription : candidates(event.getGeometry())) {
+            if (subscription.matches(event)) {
+                matches.add(subscription);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Send an {@link Event} to all matching subscriptions
+     *
+     * @param event New {@link Event}
+     * @param json  JSON of the {@link Event}
+     * @throws NullPointerException if event or json is null
+     */
+    void publish(Event event, String json) {
+        Objects.requireNonNull(json);
+        for (Subscription subscription : match(event)) {
+            try {
+                subscription.send(json);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Can't send event to subscriber : {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get subscriptions registered in cells covered by the bounding box of a {@link Geometry}
+     *
+     * @param geometry {@link Geometry} of an {@link Event}
+     * @return Candidate subscriptions
+     */
+    private Set<Subscription> candidates(Geometry geometry) {
+        Set<Subscription> candidates = new HashSet<>(global);
+        List<Long> keys = cellsOf(geometry);
+        if (keys == null) {
+            candidates.addAll(registrations.keySet());
+            return candidates;
+        }
+        for (Long key : keys) {
+            Set<Subscription> subscriptions = cells.get(key);
+            if (subscriptions != null) {
+                candidates.addAll(subscriptions);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Get cells covered by the bounding box of a {@link Geometry}
+     *
+     * @param geometry {@link Geometry}
+     * @return Keys of cells, or null if there are more than {@link SubscriptionIndex#MAX_CELLS}
+     */
+    private List<Long> cellsOf(Geometry geometry) {
+        int minColumn = column(geometry.getMinLongitude());
+        int maxColumn = column(geometry.getMaxLongitude());
+        int minRow = row(geometry.getMinLatitude());
+        int maxRow = row(geometry.getMaxLatitude());
+        if ((long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1) > MAX_CELLS) {
+            return null;
+        }
+        List<Long> keys = new ArrayList<>();
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                keys.add(((long) column << 32) | (row & 0xffffffffL));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Get column of a longitude in the grid
+     *
+     * @param longitude Longitude
+     * @return Column
+     */
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellSize);
+    }
+
+    /**
+     * Get row of a latitude in the grid
+     *
+     * @param latitude Latitude
+     * @return Row
+     */
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellSize);
+    }
+}
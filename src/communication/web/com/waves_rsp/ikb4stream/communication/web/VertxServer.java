@@ -25,9 +25,14 @@ import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
 import com.waves_rsp.ikb4stream.core.communication.model.Request;
 import com.waves_rsp.ikb4stream.core.util.Geocoder;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.ServerWebSocket;
 import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
@@ -37,8 +42,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This server relies on Vertx, to handle the REST requests. It is instanciated by the web communication connector.
@@ -58,10 +69,35 @@ public class VertxServer extends AbstractVerticle {
      *
      * @see VertxServer#getEvent(Request, DatabaseReaderCallback)
      */
-    private final IDatabaseReader databaseReader = WebCommunication.databaseReader;
+    private final IDatabaseReader databaseReader;
+    /**
+     * Subscriptions of clients connected to /subscribe
+     *
+     * @see VertxServer#subscribe(ServerWebSocket)
+     */
+    private final SubscriptionIndex subscriptions;
+    /**
+     * Fields of compact documents when the request doesn't list them, internal fields (language, attributes) are
+     * omitted
+     *
+     * @see VertxServer#getFields(JsonObject)
+     */
+    private static final List<String> DEFAULT_FIELDS = Arrays.asList("description", "source", "score", "start", "end", "location");
 
     /**
-     * Server starting behaviour
+     * Create a server, instances are created by {@link VertxServerFactory} and share its dependencies
+     *
+     * @param databaseReader {@link IDatabaseReader} object to read data from database
+     * @param subscriptions  Subscriptions of clients connected to /subscribe
+     * @throws NullPointerException if databaseReader or subscriptions is null
+     */
+    VertxServer(IDatabaseReader databaseReader, SubscriptionIndex subscriptions) {
+        this.databaseReader = Objects.requireNonNull(databaseReader);
+        this.subscriptions = Objects.requireNonNull(subscriptions);
+    }
+
+    /**
+     * Server starting behaviour, every instance listens on the same port and Vert.x balances connections between them
      *
      * @param fut Future that handles the start status
      * @throws NullPointerException if fut is null
@@ -82,11 +118,18 @@ public class VertxServer extends AbstractVerticle {
         router.get("/anomaly").handler(this::getAnomalies);
         router.post("/anomaly").handler(this::getAnomalies);
 
+        router.route("/heatmap*").handler(BodyHandler.create()); // enable reading of request's body
+        router.get("/heatmap").handler(this::getHeatmap);
+        router.post("/heatmap").handler(this::getHeatmap);
+
         router.route("/delete*").handler(BodyHandler.create()); // enable reading of request's body
         router.get("/delete").handler(this::deleteEventById);
         router.post("/delete").handler(this::deleteEventById);
+        HttpServerOptions options = new HttpServerOptions()
+                .setCompressionSupported(config().getBoolean("http.compression", false));
         vertx
-                .createHttpServer()
+                .createHttpServer(options)
+                .websocketHandler(this::subscribe)
                 .requestHandler(router::accept)
                 .listen(
                         config().getInteger("http.port", 8081), // default value: 8081
@@ -102,6 +145,86 @@ public class VertxServer extends AbstractVerticle {
     }
 
 
+    /**
+     * Register the standing request of a WebSocket client. The first message is a request like /anomaly, with an
+     * optional "minScore"; "end" can be omitted to receive all future events. Then each new event matching the
+     * request is pushed as {"event": ...} until the WebSocket is closed. Events are dropped while the client doesn't
+     * read fast enough, see {@link VertxServer#push(ServerWebSocket, String, AtomicInteger)}.
+     *
+     * @param ws {@link ServerWebSocket} of the client
+     * @see VertxServer#subscriptions
+     */
+    private void subscribe(ServerWebSocket ws) {
+        if (!"/subscribe".equals(ws.path())) {
+            ws.reject();
+            return;
+        }
+        Context context = vertx.getOrCreateContext();
+        AtomicReference<Subscription> subscription = new AtomicReference<>();
+        AtomicInteger dropped = new AtomicInteger();
+        ws.handler(buffer -> {
+            if (subscription.get() != null) {
+                return;
+            }
+            Request request;
+            int minScore;
+            try {
+                JsonObject body = new JsonObject(buffer.toString());
+                if (!body.containsKey("end")) {
+                    body.put("end", Long.MAX_VALUE);
+                }
+                minScore = body.getInteger("minScore", 0);
+                request = parseRequest(body);
+            } catch (DecodeException | NullPointerException | ClassCastException e) {
+                LOGGER.info("Received an invalid format subscription : {} ", e.getMessage());
+                ws.writeFinalTextFrame("{\"error\": \"Invalid request\"}");
+                return;
+            }
+            if (request == null) {
+                ws.writeFinalTextFrame("{\"error\": \"Invalid address\"}");
+                return;
+            }
+            Subscription created = new Subscription(request, minScore,
+                    json -> context.runOnContext(v -> push(ws, json, dropped)));
+            subscription.set(created);
+            subscriptions.add(created);
+            LOGGER.info("Subscription : {}, {} active", request, subscriptions.size());
+        });
+        ws.closeHandler(v -> {
+            Subscription created = subscription.get();
+            if (created != null) {
+                subscriptions.remove(created);
+            }
+        });
+    }
+
+    /**
+     * Push an event to a WebSocket client. The event is dropped if the write queue of the WebSocket is full, so a slow
+     * client can't make the server buffer events without limit. Once the queue has room again, {"dropped": n} is sent
+     * before the next event.
+     *
+     * @param ws      {@link ServerWebSocket} of the client
+     * @param json    Event to push
+     * @param dropped Number of events dropped since the last push to this client
+     */
+    private static void push(ServerWebSocket ws, String json, AtomicInteger dropped) {
+        try {
+            if (ws.writeQueueFull()) {
+                if (dropped.getAndIncrement() == 0) {
+                    LOGGER.info("Client {} is too slow, events are dropped", ws.remoteAddress());
+                }
+                return;
+            }
+            int count = dropped.getAndSet(0);
+            if (count > 0) {
+                ws.writeFinalTextFrame("{\"dropped\":" + count + "}");
+            }
+            ws.writeFinalTextFrame("{\"event\":" + json + "}");
+        } catch (IllegalStateException e) {
+            LOGGER.debug("WebSocket closed before push : {}", e.getMessage());
+        }
+    }
+
     private void deleteEventById(RoutingContext rc){
         String objectID;
         try {
@@ -128,16 +251,21 @@ public class VertxServer extends AbstractVerticle {
     }
     /**
      * Reads a request from a routing context, and attach the response to it. It requests the database
-     * with DatabaseReader.
+     * with DatabaseReader. Compact documents are returned if the client accepts CBOR, or if the request contains
+     * "compact": true or a list of "fields".
      *
      * @param rc {@link RoutingContext}, which contains the request, and the response
      * @throws NullPointerException if rc is null
      */
     private void getAnomalies(RoutingContext rc) {
         Request request;
+        boolean compact;
+        Set<String> fields;
         try {
-            LOGGER.info("Received web request: {}", rc.getBodyAsJson());
-            request = parseRequest(rc.getBodyAsJson());
+            JsonObject body;
+            body = rc.getBodyAsJson();
+            LOGGER.info("Received web request: {}", body);
+            request = parseRequest(body);
             if (request == null) {
                 rc.response()
                         .setStatusCode(400)
@@ -145,7 +273,9 @@ public class VertxServer extends AbstractVerticle {
                         .end("{\"error\": \"Invalid address\"}");
                 return;
             }
-        } catch (DecodeException | NullPointerException e) {
+            compact = body.getBoolean("compact", false) || body.containsKey("fields");
+            fields = getFields(body);
+        } catch (DecodeException | NullPointerException | ClassCastException e) {
             LOGGER.info("Received an invalid format request : {} ", e.getMessage());
             LOGGER.debug("DecodeException: {}", e);
             rc.fail(400);
@@ -153,6 +283,11 @@ public class VertxServer extends AbstractVerticle {
         }
         LOGGER.info("Request : {}", request);
         LOGGER.info("rc= {}", rc);
+        ResponseEncoder encoder = ResponseEncoder.negotiate(rc.request().getHeader("Accept"));
+        if (encoder == ResponseEncoder.CBOR || compact) {
+            getCompactEvents(rc, request, fields, encoder);
+            return;
+        }
         rc.response().putHeader("content-type", "application/json");
 
         getEvent(request, (t, result) -> {
@@ -166,6 +301,97 @@ public class VertxServer extends AbstractVerticle {
         });
     }
 
+    /**
+     * Get fields of compact documents listed in "fields" of a request
+     *
+     * @param body Body of the request
+     * @return Requested fields, {@link VertxServer#DEFAULT_FIELDS} if the request doesn't list them
+     * @throws ClassCastException if "fields" is not an array
+     */
+    private static Set<String> getFields(JsonObject body) {
+        Set<String> fields = new LinkedHashSet<>();
+        JsonArray requestedFields = body.getJsonArray("fields");
+        if (requestedFields == null) {
+            fields.addAll(DEFAULT_FIELDS);
+        } else {
+            requestedFields.forEach(field -> fields.add(String.valueOf(field)));
+        }
+        return fields;
+    }
+
+    /**
+     * Answer a request with compact documents, only requested fields are returned
+     *
+     * @param rc      {@link RoutingContext}, which contains the request, and the response
+     * @param request {@link Request} parsed from the body
+     * @param fields  Fields of compact documents
+     * @param encoder Format negotiated with the client
+     * @see ResponseEncoder
+     * @see VertxServer#getFields(JsonObject)
+     */
+    private void getCompactEvents(RoutingContext rc, Request request, Set<String> fields, ResponseEncoder encoder) {
+        databaseReader.getEvents(request, fields, (t, documents) -> {
+            if (t != null) {
+                LOGGER.error("DatabaseReader error: " + t.getMessage());
+                rc.fail(500);
+                return;
+            }
+            byte[] response;
+            try {
+                response = encoder.encode("events", documents);
+            } catch (RuntimeException e) {
+                LOGGER.error("Can't encode events : {}", e.getMessage());
+                rc.fail(500);
+                return;
+            }
+            rc.response()
+                    .putHeader("content-type", encoder.getContentType())
+                    .end(Buffer.buffer(response));
+        });
+    }
+
+    /**
+     * Reads a heatmap request from a routing context, and attach the response to it. The request is the same as
+     * an anomaly request with the precision (length of geohash) of cells, 5 by default.
+     *
+     * @param rc {@link RoutingContext}, which contains the request, and the response
+     * @throws NullPointerException if rc is null
+     */
+    private void getHeatmap(RoutingContext rc) {
+        Request request;
+        int precision;
+        try {
+            JsonObject body = rc.getBodyAsJson();
+            LOGGER.info("Received web request: {}", body);
+            precision = body.getInteger("precision", 5);
+            request = parseRequest(body);
+            if (request == null) {
+                rc.response()
+                        .setStatusCode(400)
+                        .putHeader("Content-type", "application/json;charset:utf-8")
+                        .end("{\"error\": \"Invalid address\"}");
+                return;
+            }
+        } catch (DecodeException | NullPointerException | ClassCastException e) {
+            LOGGER.info("Received an invalid format request : {} ", e.getMessage());
+            LOGGER.debug("DecodeException: {}", e);
+            rc.fail(400);
+            return;
+        }
+        LOGGER.info("Request : {} at precision {}", request, precision);
+        rc.response().putHeader("content-type", "application/json");
+
+        databaseReader.getHeatmap(request, precision, (t, result) -> {
+            if (t != null) {
+                LOGGER.error("DatabaseReader error: " + t.getMessage());
+                rc.fail(500);
+                return;
+            }
+            JsonObject response = new JsonObject("{\"cells\":" + result + "}");
+            rc.response().end(response.encode());
+        });
+    }
+
     /**
      * Convert a request from Json to Java object
      *
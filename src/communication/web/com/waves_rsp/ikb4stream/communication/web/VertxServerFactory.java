@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.communication.web;
+
+import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
+import io.vertx.core.Verticle;
+import io.vertx.core.spi.VerticleFactory;
+
+import java.util.Objects;
+
+/**
+ * Create each deployed instance of {@link VertxServer} with the dependencies of the {@link WebCommunication} which
+ * deploys them. These dependencies are thread-safe, so instances running on different event loops share them.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see VertxServer
+ */
+class VertxServerFactory implements VerticleFactory {
+    /**
+     * Prefix of verticles created by this factory
+     */
+    private static final String PREFIX = "ikb4stream-web";
+    /**
+     * Name to give to {@link io.vertx.core.Vertx#deployVerticle(String, io.vertx.core.DeploymentOptions)}
+     */
+    static final String VERTICLE_NAME = PREFIX + ":" + VertxServer.class.getName();
+    /**
+     * Connection to database shared by all instances
+     */
+    private final IDatabaseReader databaseReader;
+    /**
+     * Subscriptions shared by all instances
+     */
+    private final SubscriptionIndex subscriptions;
+
+    /**
+     * Create a factory of {@link VertxServer}
+     *
+     * @param databaseReader Connection to database to get Event
+     * @param subscriptions  Subscriptions of clients connected to /subscribe
+     * @throws NullPointerException if databaseReader or subscriptions is null
+     */
+    VertxServerFactory(IDatabaseReader databaseReader, SubscriptionIndex subscriptions) {
+        this.databaseReader = Objects.requireNonNull(databaseReader);
+        this.subscriptions = Objects.requireNonNull(subscriptions);
+    }
+
+    /**
+     * Get prefix of verticles created by this factory
+     *
+     * @return {@value PREFIX}
+     */
+    @Override
+    public String prefix() {
+        return PREFIX;
+    }
+
+    /**
+     * Create an instance of {@link VertxServer}
+     *
+     * @param verticleName Name of the verticle
+     * @param classLoader  ClassLoader of the deployment
+     * @return New {@link VertxServer}
+     */
+    @Override
+    public Verticle createVerticle(String verticleName, ClassLoader classLoader) {
+        return new VertxServer(databaseReader, subscriptions);
+    }
+}
@@ -18,6 +18,7 @@
 
 package com.waves_rsp.ikb4stream.communication.web;
 
+import com.waves_rsp.ikb4stream.core.communication.EventListener;
 import com.waves_rsp.ikb4stream.core.communication.ICommunication;
 import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
@@ -54,9 +55,22 @@ public class WebCommunication implements ICommunication {
      * Connection to database to get Event
      *
      * @see WebCommunication#start(IDatabaseReader)
-     * @see WebCommunication#configureDatabaseReader(IDatabaseReader)
+     * @see WebCommunication#close()
+     */
+    private IDatabaseReader databaseReader;
+    /**
+     * Subscriptions of clients connected to /subscribe, shared by all {@link VertxServer}
+     *
+     * @see WebCommunication#start(IDatabaseReader)
      */
-    static IDatabaseReader databaseReader;
+    private final SubscriptionIndex subscriptions = new SubscriptionIndex(getSubscriptionCellSize());
+    /**
+     * Listener of new Event which fills {@link WebCommunication#subscriptions}
+     *
+     * @see WebCommunication#start(IDatabaseReader)
+     * @see WebCommunication#close()
+     */
+    private final EventListener eventListener = subscriptions::publish;
     /**
      * VertX use to do Web API in Java
      *
@@ -85,37 +99,58 @@ public class WebCommunication implements ICommunication {
     @Override
     public void start(IDatabaseReader databaseReader) {
         Objects.requireNonNull(databaseReader);
-        configureDatabaseReader(databaseReader);
+        this.databaseReader = databaseReader;
         LOGGER.info("Starting WebCommunication module");
-        server = Vertx.vertx();
-        DeploymentOptions deploymentOptions = new DeploymentOptions();
         int port = 8081;
         try {
-            PROPERTIES_MANAGER.getProperty("communications.web.port");
             port = Integer.parseInt(PROPERTIES_MANAGER.getProperty("communications.web.port"));
             LOGGER.info("WebCommunication Server set on port {}", port);
         } catch (NumberFormatException e) {
             LOGGER.error("Invalid 'communications.web.port' value");
             return;
         } catch (IllegalArgumentException e) {
-            LOGGER.info("Property 'communications.web.port' not set. Use default value for score.target");
+            LOGGER.info("Property 'communications.web.port' not set. Use default value for communications.web.port");
         }
+        int instances = Runtime.getRuntime().availableProcessors();
+        try {
+            instances = Integer.parseInt(PROPERTIES_MANAGER.getProperty("communications.web.instances"));
+        } catch (NumberFormatException e) {
+            LOGGER.error("Invalid 'communications.web.instances' value");
+            return;
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("Use default value for communications.web.instances");
+        }
+        boolean compression = Boolean.valueOf(PROPERTIES_MANAGER.getPropertyOrDefault("communications.web.compression", "true"));
         JsonObject jsonObject = new JsonObject();
         jsonObject.put("http.port", port);
-        deploymentOptions.setConfig(jsonObject);
-        server.deployVerticle(VertxServer.class.getName(), deploymentOptions);
+        jsonObject.put("http.compression", compression);
+        DeploymentOptions deploymentOptions = new DeploymentOptions()
+                .setConfig(jsonObject)
+                .setInstances(Math.max(1, instances));
+        server = Vertx.vertx();
+        server.registerVerticleFactory(new VertxServerFactory(databaseReader, subscriptions));
+        server.deployVerticle(VertxServerFactory.VERTICLE_NAME, deploymentOptions, result -> {
+            if (result.succeeded()) {
+                LOGGER.info("{} VertxServer deployed", deploymentOptions.getInstances());
+            } else {
+                LOGGER.error("Can't deploy VertxServer : {}", result.cause().getMessage());
+            }
+        });
+        databaseReader.addEventListener(eventListener);
     }
 
     /**
-     * Set the static databaseReader of WebCommunication
+     * Get size of cells of {@link WebCommunication#subscriptions}
      *
-     * @param dbReader IDatabaseReader to set in WebCommunication
-     * @throws NullPointerException if dbReader is null
-     * @see WebCommunication#databaseReader
+     * @return Size in degrees, 1 by default
      */
-    private static void configureDatabaseReader(IDatabaseReader dbReader) {
-        Objects.requireNonNull(dbReader);
-        databaseReader = dbReader;
+    private static double getSubscriptionCellSize() {
+        try {
+            return Double.parseDouble(PROPERTIES_MANAGER.getProperty("communications.web.subscription.cellsize"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("Use default value for communications.web.subscription.cellsize");
+            return 1;
+        }
     }
 
     /**
@@ -125,6 +160,9 @@ public class WebCommunication implements ICommunication {
      */
     @Override
     public void close() {
+        if (databaseReader != null) {
+            databaseReader.removeEventListener(eventListener);
+        }
         if (server != null) {
             server.close();
         }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.consumer.database;
+
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Compact representation of {@link Document} of events : the identifier is a plain string instead of an extended
+ * JSON "$oid" object, and the GeoJSON location is replaced by its coordinates ([longitude, latitude] for a point, the
+ * exterior ring for a polygon).
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see DatabaseReader#getEvents(com.waves_rsp.ikb4stream.core.communication.model.Request, Set,
+ * com.waves_rsp.ikb4stream.core.communication.DatabaseDocumentsCallback)
+ */
+final class CompactDocument {
+    /**
+     * Private constructor to block instantiation
+     */
+    private CompactDocument() {
+
+    }
+
+    /**
+     * Create the projection of requested fields
+     *
+     * @param fields Fields to return, the identifier is always returned
+     * @return Projection, or null if fields is empty
+     * @throws NullPointerException if fields is null
+     */
+    static Bson projection(Set<String> fields) {
+        Objects.requireNonNull(fields);
+        return fields.isEmpty() ? null : Projections.include(new ArrayList<>(fields));
+    }
+
+    /**
+     * Convert a {@link Document} into its compact representation
+     *
+     * @param document {@link Document} read from database
+     * @return Map of fields, values are only numbers, booleans, strings, lists and maps
+     * @throws NullPointerException if document is null
+     */
+    static Map<String, Object> compact(Document document) {
+        Objects.requireNonNull(document);
+        Map<String, Object> compact = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : document.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof ObjectId) {
+                compact.put(entry.getKey(), ((ObjectId) value).toHexString());
+            } else if ("location".equals(entry.getKey()) && value instanceof Document) {
+                compact.put(entry.getKey(), compactLocation((Document) value));
+            } else {
+                compact.put(entry.getKey(), value);
+            }
+        }
+        return compact;
+    }
+
+    /**
+     * Get coordinates of a GeoJSON location
+     *
+     * @param location GeoJSON Point or Polygon
+     * @return [longitude, latitude] of a Point, list of [longitude, latitude] of the exterior ring of a Polygon
+     */
+    private static Object compactLocation(Document location) {
+        Object coordinates = location.get("coordinates");
+        if ("Polygon".equals(location.getString("type")) && coordinates instanceof List && !((List<?>) coordinates).isEmpty()) {
+            return ((List<?>) coordinates).get(0);
+        }
+        return coordinates;
+    }
+}
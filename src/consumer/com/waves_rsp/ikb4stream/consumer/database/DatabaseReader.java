@@ -23,15 +23,23 @@ import com.mongodb.async.client.MongoClient;
 import com.mongodb.async.client.MongoClients;
 import com.mongodb.async.client.MongoCollection;
 import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.TextSearchOptions;
 import com.mongodb.client.model.geojson.Polygon;
 import com.mongodb.client.model.geojson.Position;
+import com.waves_rsp.ikb4stream.core.communication.DatabaseDocumentsCallback;
 import com.waves_rsp.ikb4stream.core.communication.DatabaseReaderCallback;
+import com.waves_rsp.ikb4stream.core.communication.EventListener;
 import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReaderB;
 import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
 import com.waves_rsp.ikb4stream.core.communication.model.Request;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import org.bson.Document;
 import org.bson.conversions.Bson;
@@ -41,8 +49,16 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import static com.mongodb.client.model.Filters.*;
@@ -87,12 +103,56 @@ public class DatabaseReader implements IDatabaseReader {
      * @see DatabaseReader#getEvent(Request, DatabaseReaderCallback)
      */
     private final MongoCollection<Document> mongoCollection;
+    /**
+     * Object use to read pre-aggregated cells of the heatmap
+     *
+     * @see DatabaseReader#getHeatmap(Request, int, DatabaseReaderCallback)
+     */
+    private final MongoCollection<Document> heatmapCollection;
     /**
      * Result limit of request
      *
      * @see DatabaseReader#getEvent(Request, DatabaseReaderCallback)
      */
     private final int limit;
+    /**
+     * Interval time in milliseconds between two reads of new {@link Event}
+     *
+     * @see DatabaseReader#addEventListener(EventListener)
+     */
+    private final long watchInterval;
+    /**
+     * Listeners of new {@link Event}
+     *
+     * @see DatabaseReader#addEventListener(EventListener)
+     * @see DatabaseReader#pollNewEvents()
+     */
+    private final List<EventListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Time in milliseconds re-read before the most recent {@link Event} at each read of new {@link Event}
+     *
+     * @see NewEventsWindow
+     */
+    private final long watchOverlap;
+    /**
+     * True while a read of new {@link Event} is running, reads never overlap
+     *
+     * @see DatabaseReader#pollNewEvents()
+     */
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+    /**
+     * Background Thread which reads new {@link Event}, started with the first listener
+     *
+     * @see DatabaseReader#addEventListener(EventListener)
+     */
+    private ScheduledExecutorService watcher;
+    /**
+     * Identifiers of {@link Event} already given to listeners. Identifiers are not created in commit order, so each
+     * read overlaps the previous one and skips identifiers already seen.
+     *
+     * @see DatabaseReader#pollNewEvents()
+     */
+    private volatile NewEventsWindow window;
 
     /**
      * The constructor of {@link DatabaseReader}
@@ -111,6 +171,9 @@ public class DatabaseReader implements IDatabaseReader {
             this.mongoCollection = mongoDatabase.getCollection(PROPERTIES_MANAGER.getProperty("database.collection"));
 
             this.mongoCollection.createIndex(Indexes.text("description"), callbackWhenFinished);
+            this.heatmapCollection = mongoDatabase.getCollection(getHeatmapCollectionName());
+            this.heatmapCollection.createIndex(Indexes.ascending("precision", "hour"), callbackWhenFinished);
+            this.heatmapCollection.createIndex(Indexes.geo2dsphere("location"), new IndexOptions(), callbackWhenFinished);
         } catch (IllegalArgumentException e) {
             LOGGER.error(e.getMessage());
             throw new IllegalStateException(e);
@@ -122,6 +185,20 @@ public class DatabaseReader implements IDatabaseReader {
             LOGGER.warn("Use default database.limit");
         }
         this.limit = tmp;
+        long interval = 1000;
+        try {
+            interval = Long.parseLong(PROPERTIES_MANAGER.getProperty("database.watch.interval"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for database.watch.interval");
+        }
+        this.watchInterval = interval;
+        long overlap = 10000;
+        try {
+            overlap = Long.parseLong(PROPERTIES_MANAGER.getProperty("database.watch.overlap"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for database.watch.overlap");
+        }
+        this.watchOverlap = overlap;
         LOGGER.info("DatabaseReader has been instantiate");
     }
 
@@ -136,6 +213,20 @@ public class DatabaseReader implements IDatabaseReader {
         PROPERTIES_MANAGER.getProperty("database.collection");
     }
 
+    /**
+     * Get name of the heatmap collection
+     *
+     * @return Value of database.heatmap.collection, "heatmap" by default
+     */
+    private static String getHeatmapCollectionName() {
+        try {
+            return PROPERTIES_MANAGER.getProperty("database.heatmap.collection");
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for database.heatmap.collection");
+            return "heatmap";
+        }
+    }
+
     /**
      * Get instance of Singleton DatabaseReader
      *
@@ -173,6 +264,220 @@ public class DatabaseReader implements IDatabaseReader {
                         });
     }
 
+    /**
+     * This method requests events like {@link DatabaseReader#getEvent(Request, DatabaseReaderCallback)}, only
+     * requested fields are read and documents are returned in their compact representation
+     *
+     * @param request  Request to apply to Mongo
+     * @param fields   Fields to return, all fields if empty
+     * @param callback Callback method call after select operation
+     * @throws NullPointerException if a param is null
+     * @see CompactDocument
+     */
+    @Override
+    public void getEvents(Request request, Set<String> fields, DatabaseDocumentsCallback callback) {
+        Objects.requireNonNull(fields);
+        Objects.requireNonNull(callback);
+        final long start = System.currentTimeMillis();
+        this.mongoCollection
+                .find(createFilter(request))
+                .projection(CompactDocument.projection(fields))
+                .limit(limit)
+                .into(new ArrayList<Document>(),
+                        (result, t) -> {
+                            METRICS_LOGGER.log("time_dbreader", System.currentTimeMillis() - start);
+                            List<Map<String, Object>> documents = t != null ? null
+                                    : result.stream().map(CompactDocument::compact).collect(Collectors.toList());
+                            callback.onResult(t, documents);
+                        });
+    }
+
+    /**
+     * This method requests cells of the heatmap at a precision, hourly buckets of a cell are merged : counts are
+     * summed, the highest score is kept and sources are joined. If there are more cells than the limit, the busiest
+     * ones are returned.
+     *
+     * @param request   Request to apply to Mongo, its search is ignored
+     * @param precision Length of geohash of cells
+     * @param callback  Callback method call after select operation
+     * @throws NullPointerException if request or callback is null
+     * @see DatabaseReader#heatmapCollection
+     */
+    @Override
+    public void getHeatmap(Request request, int precision, DatabaseReaderCallback callback) {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(callback);
+        final long start = System.currentTimeMillis();
+        List<Bson> filters = new ArrayList<>();
+        filters.add(eq("precision", precision));
+        filters.add(gte("hour", request.getStart().getTime() / 3600000L * 3600000L));
+        filters.add(lte("hour", request.getEnd().getTime()));
+        Bson filterGeo = getFilterGeo(request);
+        if (filterGeo != null) {
+            filters.add(filterGeo);
+        }
+        if (!request.getSources().isEmpty()) {
+            filters.add(in("sources", request.getSources()));
+        }
+        this.heatmapCollection
+                .aggregate(Arrays.asList(
+                        Aggregates.match(and(filters)),
+                        Aggregates.group("$geohash",
+                                Accumulators.sum("count", "$count"),
+                                Accumulators.max("maxScore", "$maxScore"),
+                                Accumulators.first("location", "$location"),
+                                Accumulators.addToSet("sources", "$sources")),
+                        Aggregates.sort(Sorts.descending("count")),
+                        Aggregates.limit(limit)))
+                .into(new ArrayList<Document>(),
+                        (result, t) -> {
+                            long time = System.currentTimeMillis() - start;
+                            METRICS_LOGGER.log("time_dbreader_heatmap", time);
+                            callback.onResult(
+                                    t,
+                                    t != null ? null : "[" + result.stream().map(DatabaseReader::flattenSources).map(Document::toJson).collect(Collectors.joining(", ")) + "]"
+                            );
+                        });
+    }
+
+    /**
+     * Merge sources of a cell, they are grouped as a list of lists by the aggregation
+     *
+     * @param cell Cell of the heatmap
+     * @return the same cell with a flat list of sources
+     */
+    @SuppressWarnings("unchecked")
+    private static Document flattenSources(Document cell) {
+        Set<Object> sources = new LinkedHashSet<>();
+        for (Object value : (List<Object>) cell.get("sources", List.class)) {
+            if (value instanceof List) {
+                sources.addAll((List<Object>) value);
+            }
+        }
+        cell.put("sources", new ArrayList<>(sources));
+        return cell;
+    }
+
+    /**
+     * Register a listener of new {@link Event}. One read of the collection is shared by all listeners : documents
+     * inserted since the previous read are read periodically, so clients don't have to poll themselves.
+     *
+     * @param listener {@link EventListener} to register
+     * @throws NullPointerException if listener is null
+     * @see DatabaseReader#watchInterval
+     */
+    @Override
+    public synchronized void addEventListener(EventListener listener) {
+        Objects.requireNonNull(listener);
+        listeners.add(listener);
+        if (watcher == null) {
+            window = new NewEventsWindow(watchOverlap);
+            watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setName("DatabaseReader watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watcher.scheduleWithFixedDelay(this::pollNewEvents, 0, watchInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Unregister a listener of new {@link Event}, reads stop with the last listener
+     *
+     * @param listener {@link EventListener} to unregister
+     * @throws NullPointerException if listener is null
+     */
+    @Override
+    public synchronized void removeEventListener(EventListener listener) {
+        Objects.requireNonNull(listener);
+        listeners.remove(listener);
+        if (listeners.isEmpty() && watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Read {@link Event} inserted since last read and give them to listeners. The first read only gets the most recent
+     * identifier of the collection, {@link Event} already stored are not given to listeners.
+     *
+     * @see DatabaseReader#window
+     * @see DatabaseReader#listeners
+     */
+    private void pollNewEvents() {
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final NewEventsWindow current = window;
+            if (!current.isPrimed()) {
+                this.mongoCollection
+                        .find()
+                        .sort(Sorts.descending("_id"))
+                        .first((document, t) -> {
+                            if (t != null) {
+                                LOGGER.error("Can't read last event : {}", t.getMessage());
+                            } else {
+                                current.prime(document == null ? null : document.getObjectId("_id"));
+                            }
+                            polling.set(false);
+                        });
+                return;
+            }
+            final long start = System.currentTimeMillis();
+            ObjectId lowerBound = current.getLowerBound();
+            this.mongoCollection
+                    .find(lowerBound == null ? new Document() : gte("_id", lowerBound))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(current.getQueryLimit(limit))
+                    .into(new ArrayList<Document>(), (result, t) -> {
+                        try {
+                            if (t != null) {
+                                LOGGER.error("Can't read new events : {}", t.getMessage());
+                                return;
+                            }
+                            for (Document document : result) {
+                                if (current.accept(document.getObjectId("_id"))) {
+                                    notifyListeners(document);
+                                }
+                            }
+                            current.prune();
+                            METRICS_LOGGER.log("time_dbreader_watch", System.currentTimeMillis() - start);
+                        } finally {
+                            polling.set(false);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            LOGGER.error("Can't watch new events : {}", e.getMessage());
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Give a new {@link Event} to all listeners
+     *
+     * @param document {@link Document} of the {@link Event}
+     * @see DatabaseReader#listeners
+     */
+    private void notifyListeners(Document document) {
+        Event event;
+        try {
+            event = EventDecoder.decode(document);
+        } catch (IllegalArgumentException | NullPointerException | ClassCastException e) {
+            LOGGER.warn("Can't read event {} : {}", document.get("_id"), e.getMessage());
+            return;
+        }
+        String json = document.toJson();
+        for (EventListener listener : listeners) {
+            try {
+                listener.onEvent(event, json);
+            } catch (RuntimeException e) {
+                LOGGER.error("EventListener error : {}", e.getMessage());
+            }
+        }
+    }
+
     @Override
     public void deleteEvent(String id) {
         ObjectId idToCompare = new ObjectId(id);
@@ -200,10 +505,15 @@ public class DatabaseReader implements IDatabaseReader {
 
     private Bson getFilterGeo(Request request) {
         if (request.getBoundingBox() != null) {
-            List<Position> polygon = Arrays.stream(request.getBoundingBox().getLatLongs())
-                    .map(l -> new Position(l.getLongitude(), l.getLatitude()))
-                    .collect(Collectors.toList());
-            return geoIntersects("location", new Polygon(polygon));
+            Geometry geometry = Geometry.fromLatLongs(request.getBoundingBox().getLatLongs());
+            List<Position> polygon = new ArrayList<>(geometry.size());
+            for (int i = 0; i < geometry.size(); i++) {
+                polygon.add(new Position(geometry.getLongitude(i), geometry.getLatitude(i)));
+            }
+            // Polygon takes its holes as varargs of List<Position>, the empty generic array it creates is never exposed
+            @SuppressWarnings("unchecked")
+            Polygon boundingBox = new Polygon(polygon);
+            return geoIntersects("location", boundingBox);
         }
         return null;
     }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.consumer.database;
+
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.bson.Document;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Convert a {@link Document} written by {@link com.waves_rsp.ikb4stream.producer.DatabaseWriter DatabaseWriter} back
+ * into an {@link Event}
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see DatabaseReader
+ */
+final class EventDecoder {
+    /**
+     * Private constructor to block instantiation
+     */
+    private EventDecoder() {
+
+    }
+
+    /**
+     * Create the {@link Event} of a {@link Document}
+     *
+     * @param document {@link Document} read from database
+     * @return {@link Event}
+     * @throws NullPointerException     if document or one of its fields is null
+     * @throws IllegalArgumentException if document is not a valid {@link Event}
+     * @throws ClassCastException       if a field has not the expected type
+     */
+    static Event decode(Document document) {
+        Objects.requireNonNull(document);
+        Geometry geometry = decodeGeometry((Document) Objects.requireNonNull(document.get("location")));
+        Date start = new Date(((Number) document.get("start")).longValue());
+        Date end = new Date(((Number) document.get("end")).longValue());
+        Number score = (Number) document.get("score");
+        return new Event(geometry, start, end,
+                document.getString("description"),
+                score == null ? 0 : score.byteValue(),
+                document.getString("source"),
+                decodeLang(document.getString("lang")),
+                decodeAttributes((Document) document.get("attributes")));
+    }
+
+    /**
+     * Convert a GeoJSON Point or Polygon into a {@link Geometry}
+     *
+     * @param location GeoJSON {@link Document}
+     * @return {@link Geometry}
+     * @throws IllegalArgumentException if location is not a Point or a Polygon
+     */
+    @SuppressWarnings("unchecked")
+    private static Geometry decodeGeometry(Document location) {
+        String type = location.getString("type");
+        if ("Point".equals(type)) {
+            List<Number> coordinates = (List<Number>) location.get("coordinates");
+            return Geometry.point(coordinates.get(1).doubleValue(), coordinates.get(0).doubleValue());
+        }
+        if ("Polygon".equals(type)) {
+            List<List<Number>> exterior = ((List<List<List<Number>>>) location.get("coordinates")).get(0);
+            double[] coordinates = new double[exterior.size() * 2];
+            for (int i = 0; i < exterior.size(); i++) {
+                coordinates[2 * i] = exterior.get(i).get(0).doubleValue();
+                coordinates[2 * i + 1] = exterior.get(i).get(1).doubleValue();
+            }
+            return Geometry.polygon(coordinates);
+        }
+        throw new IllegalArgumentException("Unsupported location " + type);
+    }
+
+    /**
+     * Get language of an {@link Event}
+     *
+     * @param lang Name of the language, can be null
+     * @return Language, {@link OpenNLP.langOptions#DEFAULT} if it is unknown
+     */
+    private static OpenNLP.langOptions decodeLang(String lang) {
+        if (lang != null) {
+            try {
+                return OpenNLP.langOptions.valueOf(lang);
+            } catch (IllegalArgumentException e) {
+                // Written by an older version, use default
+            }
+        }
+        return OpenNLP.langOptions.DEFAULT;
+    }
+
+    /**
+     * Convert the attributes sub-document into {@link EventAttributes}
+     *
+     * @param attributes Sub-document, can be null
+     * @return {@link EventAttributes}
+     */
+    private static EventAttributes decodeAttributes(Document attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return EventAttributes.EMPTY;
+        }
+        EventAttributes eventAttributes = new EventAttributes();
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Boolean) {
+                eventAttributes.put(entry.getKey(), (boolean) value);
+            } else if (value instanceof Integer || value instanceof Long) {
+                eventAttributes.put(entry.getKey(), ((Number) value).longValue());
+            } else if (value instanceof Number) {
+                eventAttributes.put(entry.getKey(), ((Number) value).doubleValue());
+            } else if (value != null) {
+                eventAttributes.put(entry.getKey(), value.toString());
+            }
+        }
+        return eventAttributes;
+    }
+}
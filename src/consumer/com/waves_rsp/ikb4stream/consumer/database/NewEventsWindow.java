@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.consumer.database;
+
+import org.bson.types.ObjectId;
+
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Window of identifiers read by {@link DatabaseReader} to find new {@link com.waves_rsp.ikb4stream.core.model.Event
+ * Event}. ObjectIds are created by writers with their own clock and are not committed in their order, so an id lower
+ * than the last one read can still appear. Each read starts overlap milliseconds before the most recent id seen, and
+ * ids already seen in this window are skipped.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see DatabaseReader
+ */
+class NewEventsWindow {
+    /**
+     * Time in milliseconds re-read before the most recent id seen
+     *
+     * @see NewEventsWindow#getLowerBound()
+     */
+    private final long overlap;
+    /**
+     * Ids seen which are still in the window
+     *
+     * @see NewEventsWindow#accept(ObjectId)
+     * @see NewEventsWindow#prune()
+     */
+    private final TreeSet<ObjectId> seen = new TreeSet<>();
+    /**
+     * Most recent id when reads started, it and older ids already existed and are never accepted
+     *
+     * @see NewEventsWindow#prime(ObjectId)
+     */
+    private ObjectId start;
+    /**
+     * True once {@link NewEventsWindow#prime(ObjectId)} has been called
+     */
+    private boolean primed;
+
+    /**
+     * Create an empty window, it must be primed before use
+     *
+     * @param overlap Time in milliseconds re-read before the most recent id seen
+     * @throws IllegalArgumentException if overlap is negative
+     */
+    NewEventsWindow(long overlap) {
+        if (overlap < 0) {
+            throw new IllegalArgumentException("Overlap must be positive");
+        }
+        this.overlap = overlap;
+    }
+
+    /**
+     * Start the window from the most recent id of the collection, so that the clock of the reader is never used
+     *
+     * @param latest Most recent id of the collection, or null if it is empty
+     */
+    void prime(ObjectId latest) {
+        start = latest;
+        seen.clear();
+        primed = true;
+    }
+
+    /**
+     * Check if the window has been started
+     *
+     * @return true if {@link NewEventsWindow#prime(ObjectId)} has been called
+     */
+    boolean isPrimed() {
+        return primed;
+    }
+
+    /**
+     * Get the lowest id to read
+     *
+     * @return Lowest id of the window, or null to read the whole collection
+     * @throws IllegalStateException if window has not been primed
+     */
+    ObjectId getLowerBound() {
+        if (!primed) {
+            throw new IllegalStateException("Window has not been primed");
+        }
+        ObjectId newest = seen.isEmpty() ? start : seen.last();
+        if (newest != null && start != null && start.compareTo(newest) > 0) {
+            newest = start;
+        }
+        if (newest == null) {
+            return null;
+        }
+        long second = Math.max(0, newest.getTimestamp() - (overlap + 999) / 1000);
+        return new ObjectId((int) second, 0, (short) 0, 0);
+    }
+
+    /**
+     * Get maximum number of documents to read so that ids already seen don't hide new ones
+     *
+     * @param limit Maximum number of new documents
+     * @return limit plus number of ids seen in the window
+     */
+    int getQueryLimit(int limit) {
+        return limit + seen.size();
+    }
+
+    /**
+     * Record an id read, ids must be given in ascending order
+     *
+     * @param id Id of a document read
+     * @return true if it is a new document
+     * @throws NullPointerException if id is null
+     */
+    boolean accept(ObjectId id) {
+        Objects.requireNonNull(id);
+        if (!seen.add(id)) {
+            return false;
+        }
+        return start == null || id.compareTo(start) > 0;
+    }
+
+    /**
+     * Forget ids which are before the window
+     *
+     * @see NewEventsWindow#getLowerBound()
+     */
+    void prune() {
+        ObjectId lowerBound = getLowerBound();
+        if (lowerBound != null) {
+            seen.headSet(lowerBound).clear();
+        }
+    }
+
+    /**
+     * Get number of ids in the window
+     *
+     * @return Number of ids seen and not pruned
+     */
+    int size() {
+        return seen.size();
+    }
+}
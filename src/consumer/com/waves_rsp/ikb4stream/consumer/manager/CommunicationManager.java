@@ -22,22 +22,12 @@ import com.waves_rsp.ikb4stream.consumer.database.DatabaseReader;
 import com.waves_rsp.ikb4stream.core.communication.ICommunication;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import com.waves_rsp.ikb4stream.core.util.ClassManager;
-import com.waves_rsp.ikb4stream.core.util.JarLoader;
+import com.waves_rsp.ikb4stream.core.util.PluginRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 /**
  * CommunicationManager class ensure the communication between IKB4Stream module and external services
@@ -66,14 +56,10 @@ public class CommunicationManager {
      * Object Map to associate a thread to a ICommunication
      *
      * @see ICommunication
-     * @see CommunicationManager#launchModule(JarLoader)
+     * @see CommunicationManager#launchModule(PluginRegistry.Plugin)
      * @see CommunicationManager#stop()
      */
     private final Map<Thread, ICommunication> threadCommunications = new HashMap<>();
-    /**
-     * ClassLoader of {@link CommunicationManager}
-     */
-    private final ClassLoader parent = CommunicationManager.class.getClassLoader();
     /**
      * {@link DatabaseReader} to read event from Database
      */
@@ -104,49 +90,33 @@ public class CommunicationManager {
     public void start() {
         String stringPath = getPathCommunication();
         if (stringPath == null) return;
-        try (Stream<Path> paths = Files.walk(Paths.get(stringPath))) {
-            paths.filter(Files::isRegularFile)
-                    .filter(file -> file.toString().endsWith(".jar"))
-                    .forEach((Path filePath) -> {
-                        JarLoader jarLoader = JarLoader.createJarLoader(filePath.toString());
-                        launchModule(jarLoader);
-                    });
-        } catch (IOException e) {
-            LOGGER.error(e.getMessage());
-        }
+        PluginRegistry.getInstance().getPlugins(stringPath).forEach(this::launchModule);
         LOGGER.info("All ICommunication has been launched");
     }
 
     /**
      * Launch module
      *
-     * @param jarLoader JarLoader that represents module
+     * @param plugin {@link PluginRegistry.Plugin} that represents module
      * @see CommunicationManager#databaseReader
      * @see CommunicationManager#threadCommunications
-     * @see CommunicationManager#parent
      */
-    private void launchModule(JarLoader jarLoader) {
-        if (jarLoader != null) {
-            List<URL> urls = jarLoader.getUrls();
-            ClassLoader classLoader = AccessController.doPrivileged((PrivilegedAction<ClassLoader>) () -> new URLClassLoader(urls.toArray(new URL[urls.size()]), parent));
-            jarLoader.getClasses().stream()
-                    .map(c -> ClassManager.loadClass(c, classLoader))
-                    .filter(c -> ClassManager.implementInterface(c, ICommunication.class))
-                    .forEach(clazz -> {
-                        try {
-                            ICommunication iCommunication = (ICommunication) ClassManager.newInstance(clazz);
-                            if (iCommunication.isActive()) {
-                                Thread thread = new Thread(() -> iCommunication.start(databaseReader));
-                                thread.setContextClassLoader(classLoader);
-                                thread.setName(iCommunication.getClass().getName());
-                                thread.start();
-                                threadCommunications.put(thread, iCommunication);
-                            }
-                        } catch (Exception e) {
-                            LOGGER.error("Error during instantiate {} : {}", clazz.getName(), e.getMessage());
-                        }
-                    });
-        }
+    private void launchModule(PluginRegistry.Plugin plugin) {
+        ClassLoader classLoader = plugin.getClassLoader();
+        plugin.getClasses(ICommunication.class).forEach(clazz -> {
+            try {
+                ICommunication iCommunication = (ICommunication) ClassManager.newInstance(clazz);
+                if (iCommunication.isActive()) {
+                    Thread thread = new Thread(() -> iCommunication.start(databaseReader));
+                    thread.setContextClassLoader(classLoader);
+                    thread.setName(iCommunication.getClass().getName());
+                    thread.start();
+                    threadCommunications.put(thread, iCommunication);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error during instantiate {} : {}", clazz.getName(), e.getMessage());
+            }
+        });
     }
 
 
@@ -1,6 +1,44 @@
 package com.waves_rsp.ikb4stream.core.communication.model;
 
+import com.waves_rsp.ikb4stream.core.communication.DatabaseDocumentsCallback;
+import com.waves_rsp.ikb4stream.core.communication.DatabaseReaderCallback;
+import com.waves_rsp.ikb4stream.core.communication.EventListener;
+
+import java.util.Set;
 
 public interface IDatabaseReader extends IDatabaseReaderB {
     void deleteEvent(String id);
+
+    /**
+     * Get Event based on {@link Request} as compact documents : identifiers are plain strings and locations are only
+     * their coordinates
+     *
+     * @param request  {@link Request} Request to execute on database
+     * @param fields   Fields to return, all fields of an Event if empty
+     * @param callback {@link DatabaseDocumentsCallback} Callback use after response of request
+     */
+    void getEvents(Request request, Set<String> fields, DatabaseDocumentsCallback callback);
+
+    /**
+     * Get cells of the heatmap based on {@link Request}, hourly buckets are merged over the requested period
+     *
+     * @param request   {@link Request} Request to execute on database
+     * @param precision Length of geohash of cells
+     * @param callback  {@link DatabaseReaderCallback} Callback use after response of request
+     */
+    void getHeatmap(Request request, int precision, DatabaseReaderCallback callback);
+
+    /**
+     * Register an {@link EventListener} called for each Event written in database from now on
+     *
+     * @param listener {@link EventListener} to register
+     */
+    void addEventListener(EventListener listener);
+
+    /**
+     * Unregister an {@link EventListener}
+     *
+     * @param listener {@link EventListener} to unregister
+     */
+    void removeEventListener(EventListener listener);
 }
\ No newline at end of file
@@ -23,8 +23,13 @@ import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Request class which represents an anomaly
@@ -152,6 +157,22 @@ public class Request {
     public String getSource() {
         return source;
     }
+
+    /**
+     * Get requested sources : {@link Request#source} is a list of sources separated by commas
+     *
+     * @return Set of requested sources, empty for all sources
+     * @see Request#source
+     */
+    public Set<String> getSources() {
+        if (source == null) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(source.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
     /**
      * Represent that object in string
      *
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.datasource;
+
+import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+/**
+ * Shared scheduler of polling modules : the interval of a feed is shortened while it yields new items and grows
+ * exponentially while it is idle or failing. All feeds share a global budget of requests per minute.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see Schedule
+ */
+public class AdaptivePollingScheduler {
+    /**
+     * Properties of this class
+     *
+     * @see PropertiesManager
+     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#getInstance(Class)
+     */
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(AdaptivePollingScheduler.class);
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptivePollingScheduler.class);
+    /**
+     * Single instance of {@link AdaptivePollingScheduler}
+     *
+     * @see AdaptivePollingScheduler#getInstance()
+     */
+    private static final AdaptivePollingScheduler SCHEDULER = createScheduler();
+    /**
+     * Lowest interval of a feed is its configured interval divided by this factor
+     *
+     * @see Schedule#success(int)
+     */
+    private final int speedup;
+    /**
+     * Highest interval of a feed is its configured interval multiplied by this factor
+     *
+     * @see Schedule#failure()
+     * @see Schedule#success(int)
+     */
+    private final int backoff;
+    /**
+     * Maximum number of requests per minute of all feeds, 0 if unlimited
+     *
+     * @see AdaptivePollingScheduler#tryAcquire()
+     */
+    private final int budget;
+    /**
+     * Available requests in the budget
+     *
+     * @see AdaptivePollingScheduler#tryAcquire()
+     */
+    private double tokens;
+    /**
+     * Last time {@link AdaptivePollingScheduler#tokens} has been refilled
+     *
+     * @see AdaptivePollingScheduler#refill(long)
+     */
+    private long lastRefill;
+
+    /**
+     * Constructor, you should use {@link AdaptivePollingScheduler#getInstance()}
+     *
+     * @param speedup Factor to get the lowest interval of a feed
+     * @param backoff Factor to get the highest interval of a feed
+     * @param budget  Maximum number of requests per minute, 0 if unlimited
+     * @throws IllegalArgumentException if a factor is lower than 1 or budget is negative
+     */
+    AdaptivePollingScheduler(int speedup, int backoff, int budget) {
+        if (speedup < 1 || backoff < 1 || budget < 0) {
+            throw new IllegalArgumentException("Invalid adaptive polling configuration");
+        }
+        this.speedup = speedup;
+        this.backoff = backoff;
+        this.budget = budget;
+        this.tokens = budget;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    /**
+     * Create the single instance with {@link AdaptivePollingScheduler#PROPERTIES_MANAGER}
+     *
+     * @return {@link AdaptivePollingScheduler}
+     */
+    private static AdaptivePollingScheduler createScheduler() {
+        int speedup = 4;
+        int backoff = 8;
+        int budget = 0;
+        try {
+            speedup = Integer.parseInt(PROPERTIES_MANAGER.getProperty("producer.polling.speedup"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.polling.speedup");
+        }
+        try {
+            backoff = Integer.parseInt(PROPERTIES_MANAGER.getProperty("producer.polling.backoff"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.polling.backoff");
+        }
+        try {
+            budget = Integer.parseInt(PROPERTIES_MANAGER.getProperty("producer.polling.budget"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.polling.budget");
+        }
+        return new AdaptivePollingScheduler(speedup, backoff, budget);
+    }
+
+    /**
+     * Get single instance of {@link AdaptivePollingScheduler}
+     *
+     * @return Single instance of {@link AdaptivePollingScheduler}
+     * @see AdaptivePollingScheduler#SCHEDULER
+     */
+    public static AdaptivePollingScheduler getInstance() {
+        return SCHEDULER;
+    }
+
+    /**
+     * Create the {@link Schedule} of a feed, it is due immediately
+     *
+     * @param name     Name of the feed, used in logs
+     * @param interval Configured interval of the feed in milliseconds
+     * @return {@link Schedule}
+     * @throws NullPointerException     if name is null
+     * @throws IllegalArgumentException if interval is not positive
+     */
+    public Schedule createSchedule(String name, long interval) {
+        Objects.requireNonNull(name);
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        return new Schedule(name, interval);
+    }
+
+    /**
+     * Take a request from the global budget
+     *
+     * @return true if the request can be sent
+     * @see AdaptivePollingScheduler#budget
+     */
+    synchronized boolean tryAcquire() {
+        if (budget == 0) {
+            return true;
+        }
+        refill(System.currentTimeMillis());
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get time to wait before a request is available in the global budget
+     *
+     * @return Delay in milliseconds
+     * @see AdaptivePollingScheduler#budget
+     */
+    synchronized long getBudgetDelay() {
+        if (budget == 0) {
+            return 0;
+        }
+        refill(System.currentTimeMillis());
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * 60000 / budget);
+    }
+
+    /**
+     * Add requests earned since last refill to the budget
+     *
+     * @param now Current time in milliseconds
+     * @see AdaptivePollingScheduler#tokens
+     */
+    private void refill(long now) {
+        tokens = Math.min(budget, tokens + (now - lastRefill) * budget / 60000.0);
+        lastRefill = now;
+    }
+
+    /**
+     * Schedule of one feed
+     *
+     * @see AdaptivePollingScheduler#createSchedule(String, long)
+     */
+    public class Schedule {
+        /**
+         * Name of the feed
+         */
+        private final String name;
+        /**
+         * Lowest interval in milliseconds
+         */
+        private final long minInterval;
+        /**
+         * Highest interval in milliseconds
+         */
+        private final long maxInterval;
+        /**
+         * Current interval in milliseconds
+         */
+        private volatile long interval;
+        /**
+         * Time in milliseconds of next request
+         */
+        private volatile long nextPoll;
+
+        /**
+         * Create a schedule due immediately
+         *
+         * @param name     Name of the feed
+         * @param interval Configured interval in milliseconds
+         */
+        private Schedule(String name, long interval) {
+            this.name = name;
+            this.interval = interval;
+            this.minInterval = Math.max(1, interval / speedup);
+            this.maxInterval = interval * backoff;
+        }
+
+        /**
+         * Take a request from the global budget, if none is available next request is delayed
+         *
+         * @return true if the request can be sent
+         * @see AdaptivePollingScheduler#tryAcquire()
+         */
+        public boolean tryAcquire() {
+            if (AdaptivePollingScheduler.this.tryAcquire()) {
+                return true;
+            }
+            nextPoll = System.currentTimeMillis() + Math.max(1000, getBudgetDelay());
+            LOGGER.info("Budget of requests is exhausted, {} is delayed", name);
+            return false;
+        }
+
+        /**
+         * Record a successful request : interval is halved if it yields new items, doubled otherwise
+         *
+         * @param newItems Number of new items
+         */
+        public void success(int newItems) {
+            long previous = interval;
+            interval = newItems > 0 ? Math.max(minInterval, interval / 2) : Math.min(maxInterval, interval * 2);
+            nextPoll = System.currentTimeMillis() + interval;
+            if (previous != interval) {
+                LOGGER.debug("Interval of {} is now {} ms", name, interval);
+            }
+        }
+
+        /**
+         * Record a failed request : interval is doubled
+         */
+        public void failure() {
+            interval = Math.min(maxInterval, interval * 2);
+            nextPoll = System.currentTimeMillis() + interval;
+            LOGGER.debug("Interval of {} is now {} ms", name, interval);
+        }
+
+        /**
+         * Check if the feed must be requested
+         *
+         * @param now Current time in milliseconds
+         * @return true if the feed must be requested
+         */
+        public boolean isDue(long now) {
+            return now >= nextPoll;
+        }
+
+        /**
+         * Get time of next request
+         *
+         * @return Time in milliseconds
+         */
+        public long getNextPoll() {
+            return nextPoll;
+        }
+
+        /**
+         * Get delay until next request
+         *
+         * @return Delay in milliseconds
+         */
+        public long getDelay() {
+            return Math.max(0, nextPoll - System.currentTimeMillis());
+        }
+
+        /**
+         * Get current interval
+         *
+         * @return Interval in milliseconds
+         */
+        public long getInterval() {
+            return interval;
+        }
+    }
+}
@@ -34,4 +34,17 @@ public interface IDataProducer {
      * @param event {@link Event} to push in process
      */
     void push(Event event);
+
+    /**
+     * Push an {@link Event} if the pipeline can accept it within timeout. A streaming module should call this method
+     * instead of {@link IDataProducer#push(Event)} to pause, or keep the {@link Event}, while the pipeline is busy.
+     *
+     * @param event   {@link Event} to push in process
+     * @param timeout Time in milliseconds to wait for capacity
+     * @return true if the {@link Event} has been accepted, false if there was no capacity before timeout
+     */
+    default boolean offer(Event event, long timeout) {
+        push(event);
+        return true;
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.datasource.model;
+
+import java.util.Objects;
+
+/**
+ * Interface to implement if your module fetches its data periodically. Such a module doesn't need its own Thread :
+ * the producer schedules each fetch cycle on a shared executor.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see IProducerConnector
+ */
+public interface IPollingProducerConnector extends IProducerConnector {
+    /**
+     * Run a single fetch cycle and push every new {@link com.waves_rsp.ikb4stream.core.model.Event Event}
+     *
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @return Number of {@link com.waves_rsp.ikb4stream.core.model.Event Event} pushed during this cycle
+     */
+    int poll(IDataProducer dataProducer);
+
+    /**
+     * Delay to wait between two fetch cycles
+     *
+     * @return Delay in milliseconds
+     */
+    long getInterval();
+
+    /**
+     * Called once before the first fetch cycle
+     */
+    default void start() {
+        // Nothing to do by default
+    }
+
+    /**
+     * Called once when the module is stopped
+     */
+    default void stop() {
+        // Nothing to do by default
+    }
+
+    /**
+     * This method indicates whether the module is able to fetch data
+     *
+     * @return true if the module works correctly
+     */
+    default boolean isHealthy() {
+        return true;
+    }
+
+    /**
+     * Fallback when the module is run in its own Thread : fetch data until the Thread is interrupted
+     *
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @throws NullPointerException if dataProducer is null
+     * @see IPollingProducerConnector#poll(IDataProducer)
+     * @see IPollingProducerConnector#getInterval()
+     */
+    @Override
+    default void load(IDataProducer dataProducer) {
+        Objects.requireNonNull(dataProducer);
+        start();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                poll(dataProducer);
+                Thread.sleep(getInterval());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stop();
+        }
+    }
+}
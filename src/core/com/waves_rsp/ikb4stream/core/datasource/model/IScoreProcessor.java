@@ -20,7 +20,9 @@ package com.waves_rsp.ikb4stream.core.datasource.model;
 
 import com.waves_rsp.ikb4stream.core.model.Event;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Interface to implement if you want to use your class as module of ScoreProcessor
@@ -37,6 +39,46 @@ public interface IScoreProcessor {
      */
     Event processScore(Event event);
 
+    /**
+     * Score a batch of {@link Event}, processors which can share work between events (rules matching, NLP, ...)
+     * should override this method. By default, each {@link Event} is given to {@link IScoreProcessor#processScore(Event)}.
+     *
+     * @param events List of {@link Event} without score
+     * @return List of {@link Event} with score, in the same order
+     * @throws NullPointerException if events is null
+     */
+    default List<Event> processScores(List<Event> events) {
+        Objects.requireNonNull(events);
+        List<Event> scored = new ArrayList<>(events.size());
+        events.forEach(event -> scored.add(processScore(event)));
+        return scored;
+    }
+
+    /**
+     * Contribute to the score of an {@link Event} shared by all processors of its source. By default, the
+     * {@link Event} is created and given to {@link IScoreProcessor#processScore(Event)}, processors should override
+     * this method to avoid creating an {@link Event} each time.
+     *
+     * @param context {@link ScoringContext} of the {@link Event}
+     * @throws NullPointerException if context is null
+     */
+    default void process(ScoringContext context) {
+        Objects.requireNonNull(context);
+        context.update(processScore(context.toEvent()));
+    }
+
+    /**
+     * Contribute to the score of a batch of {@link Event} of the same source. By default, each {@link ScoringContext}
+     * is given to {@link IScoreProcessor#process(ScoringContext)}.
+     *
+     * @param contexts List of {@link ScoringContext}
+     * @throws NullPointerException if contexts is null
+     */
+    default void process(List<ScoringContext> contexts) {
+        Objects.requireNonNull(contexts);
+        contexts.forEach(this::process);
+    }
+
     /**
      * List all sources that ScoreProcessor can be use
      *
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.datasource.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * State of an {@link Event} while it goes through all its {@link IScoreProcessor}. Each processor reads and updates
+ * the same context, only one {@link Event} is created at the end. The JSON payload of the description and the lemmas
+ * are computed once and shared by all processors. A context is used by a single Thread.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see IScoreProcessor#process(ScoringContext)
+ */
+public class ScoringContext {
+    /**
+     * Object used to parse the payload of all contexts
+     *
+     * @see ScoringContext#getPayload()
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /**
+     * {@link Event} to score
+     *
+     * @see ScoringContext#getEvent()
+     */
+    private final Event event;
+    /**
+     * Current description, a processor can replace it (e.g. by the text extracted from the payload)
+     *
+     * @see ScoringContext#setDescription(String)
+     */
+    private String description;
+    /**
+     * Current score, -1 if no processor gave a score
+     *
+     * @see ScoringContext#setScore(int)
+     * @see ScoringContext#addScore(int)
+     */
+    private int score;
+    /**
+     * Original description parsed as JSON, null until requested
+     *
+     * @see ScoringContext#getPayload()
+     */
+    private JsonNode payload;
+    /**
+     * True if {@link ScoringContext#payload} has been computed
+     *
+     * @see ScoringContext#getPayload()
+     */
+    private boolean payloadParsed;
+    /**
+     * Lemmas of {@link ScoringContext#lemmasText}
+     *
+     * @see ScoringContext#getLemmas(OpenNLP)
+     */
+    private List<String> lemmas;
+    /**
+     * Text whose lemmas are in {@link ScoringContext#lemmas}
+     *
+     * @see ScoringContext#getLemmas(OpenNLP)
+     */
+    private String lemmasText;
+
+    /**
+     * Create a context from an {@link Event}
+     *
+     * @param event {@link Event} to score
+     * @throws NullPointerException if event is null
+     */
+    public ScoringContext(Event event) {
+        this.event = Objects.requireNonNull(event);
+        this.description = event.getDescription();
+        this.score = event.getScore();
+    }
+
+    /**
+     * Get the {@link Event} given to this context
+     *
+     * @return Original {@link Event}
+     * @see ScoringContext#event
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Get current description
+     *
+     * @return Description
+     * @see ScoringContext#description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Replace description, lemmas will be computed again
+     *
+     * @param description New description
+     * @throws NullPointerException if description is null
+     * @see ScoringContext#description
+     */
+    public void setDescription(String description) {
+        this.description = Objects.requireNonNull(description);
+    }
+
+    /**
+     * Get current score
+     *
+     * @return Score, or -1 if no processor gave a score
+     * @see ScoringContext#score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Replace score
+     *
+     * @param score New score, it is bounded by {@link Event#getScoreMin()} and {@link Event#getScoreMax()} when the
+     *              {@link Event} is created
+     * @see ScoringContext#score
+     */
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    /**
+     * Add points to current score, an {@link Event} without score starts from 0
+     *
+     * @param points Points to add, can be negative
+     * @see ScoringContext#score
+     */
+    public void addScore(int points) {
+        this.score = Math.max(0, score) + points;
+    }
+
+    /**
+     * Get original description of the {@link Event} parsed as JSON (e.g. payload of a module), parsing is done once
+     * and only tried if the description starts with '{', so plain texts (e.g. tweets) are never given to the parser
+     *
+     * @return {@link JsonNode}, or null if original description is not a JSON object
+     * @see ScoringContext#payload
+     */
+    public JsonNode getPayload() {
+        if (!payloadParsed) {
+            payloadParsed = true;
+            if (!isJsonObject(event.getDescription())) {
+                return null;
+            }
+            try {
+                JsonNode node = MAPPER.readTree(event.getDescription());
+                payload = node != null && node.isObject() ? node : null;
+            } catch (IOException e) {
+                payload = null;
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * Check if a text may be a JSON object, only its first character which is not a whitespace is read
+     *
+     * @param text Text to check
+     * @return true if text starts with '{'
+     */
+    private static boolean isJsonObject(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get lemmas of current description, they are computed once for all processors
+     *
+     * @param openNLP {@link OpenNLP} used if lemmas are not known yet
+     * @return Lemmas of description
+     * @throws NullPointerException if openNLP is null
+     * @see ScoringContext#lemmas
+     */
+    public List<String> getLemmas(OpenNLP openNLP) {
+        Objects.requireNonNull(openNLP);
+        if (lemmas == null || !description.equals(lemmasText)) {
+            lemmas = openNLP.applyNLPlemma(description, event.getLang());
+            lemmasText = description;
+        }
+        return lemmas;
+    }
+
+    /**
+     * Update this context with an {@link Event} returned by a processor which doesn't use {@link ScoringContext}
+     *
+     * @param scored {@link Event} returned by {@link IScoreProcessor#processScore(Event)}
+     * @throws NullPointerException if scored is null
+     * @see IScoreProcessor#process(ScoringContext)
+     */
+    void update(Event scored) {
+        Objects.requireNonNull(scored);
+        this.description = scored.getDescription();
+        this.score = scored.getScore();
+    }
+
+    /**
+     * Create the {@link Event} with current description and score. The original {@link Event} is returned if
+     * nothing has changed.
+     *
+     * @return Scored {@link Event}
+     * @see Event#getScoreMin()
+     * @see Event#getScoreMax()
+     */
+    public Event toEvent() {
+        if (score == event.getScore() && description.equals(event.getDescription())) {
+            return event;
+        }
+        if (score < 0) {
+            return new Event(event.getGeometry(), event.getStart(), event.getEnd(), description, event.getSource(),
+                    event.getLang(), event.getAttributes());
+        }
+        byte bounded = (byte) Math.max(Event.getScoreMin(), Math.min(Event.getScoreMax(), score));
+        return new Event(event.getGeometry(), event.getStart(), event.getEnd(), description, bounded, event.getSource(),
+                event.getLang(), event.getAttributes());
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable content of a configuration file at a given time. Typed values are parsed once per snapshot, so they can be
+ * read on hot paths without parsing again.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see PropertiesManager#getSnapshot()
+ */
+public class ConfigSnapshot {
+    /**
+     * Value of each property
+     *
+     * @see ConfigSnapshot#getProperty(String)
+     */
+    private final Map<String, String> values;
+    /**
+     * Version of this snapshot, incremented on each reload of the same file
+     *
+     * @see ConfigSnapshot#getVersion()
+     */
+    private final long version;
+    /**
+     * Modification time of the file when it has been read
+     */
+    private final long lastModified;
+    /**
+     * Size of the file when it has been read
+     */
+    private final long size;
+    /**
+     * Values already parsed, by type and property
+     *
+     * @see ConfigSnapshot#parse(String, Class, Function)
+     */
+    private final Map<String, Object> parsed = new ConcurrentHashMap<>();
+
+    /**
+     * Create a snapshot
+     *
+     * @param properties   Properties read from the file
+     * @param version      Version of this snapshot
+     * @param lastModified Modification time of the file
+     * @param size         Size of the file
+     * @throws NullPointerException if properties is null
+     */
+    ConfigSnapshot(Properties properties, long version, long lastModified, long size) {
+        Objects.requireNonNull(properties);
+        Map<String, String> map = new HashMap<>();
+        properties.stringPropertyNames().forEach(key -> map.put(key, properties.getProperty(key)));
+        this.values = Collections.unmodifiableMap(map);
+        this.version = version;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * Get raw value of a property
+     *
+     * @param property Name of the property
+     * @return Value of property, or null if it is not set
+     * @throws NullPointerException if property is null
+     */
+    public String getProperty(String property) {
+        Objects.requireNonNull(property);
+        return values.get(property);
+    }
+
+    /**
+     * Get a property as an int
+     *
+     * @param property     Name of the property
+     * @param defaultValue Value returned if the property is not set or invalid
+     * @return Value of property
+     * @throws NullPointerException if property is null
+     */
+    public int getInt(String property, int defaultValue) {
+        Integer value = parse(property, Integer.class, Integer::valueOf);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Get a property as a long
+     *
+     * @param property     Name of the property
+     * @param defaultValue Value returned if the property is not set or invalid
+     * @return Value of property
+     * @throws NullPointerException if property is null
+     */
+    public long getLong(String property, long defaultValue) {
+        Long value = parse(property, Long.class, Long::valueOf);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Get a property as a double
+     *
+     * @param property     Name of the property
+     * @param defaultValue Value returned if the property is not set or invalid
+     * @return Value of property
+     * @throws NullPointerException if property is null
+     */
+    public double getDouble(String property, double defaultValue) {
+        Double value = parse(property, Double.class, Double::valueOf);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Get a property as a byte
+     *
+     * @param property     Name of the property
+     * @param defaultValue Value returned if the property is not set or invalid
+     * @return Value of property
+     * @throws NullPointerException if property is null
+     */
+    public byte getByte(String property, byte defaultValue) {
+        Byte value = parse(property, Byte.class, Byte::valueOf);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Get a property as a boolean, only "true" and "false" are valid values
+     *
+     * @param property     Name of the property
+     * @param defaultValue Value returned if the property is not set or invalid
+     * @return Value of property
+     * @throws NullPointerException if property is null
+     */
+    public boolean getBoolean(String property, boolean defaultValue) {
+        Boolean value = parse(property, Boolean.class, v -> {
+            if ("true".equalsIgnoreCase(v) || "false".equalsIgnoreCase(v)) {
+                return Boolean.valueOf(v);
+            }
+            throw new IllegalArgumentException("Not a boolean : " + v);
+        });
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Parse a property once, next calls get the parsed value
+     *
+     * @param property Name of the property
+     * @param type     Type of the value
+     * @param parser   Function to parse the raw value
+     * @param <T>      Type of the value
+     * @return Parsed value, or null if the property is not set or invalid
+     * @see ConfigSnapshot#parsed
+     */
+    private <T> T parse(String property, Class<T> type, Function<String, T> parser) {
+        Objects.requireNonNull(property);
+        String key = type.getSimpleName() + ':' + property;
+        Object value = parsed.get(key);
+        if (value == null) {
+            String raw = values.get(property);
+            if (raw == null) {
+                return null;
+            }
+            try {
+                value = parser.apply(raw.trim());
+            } catch (IllegalArgumentException e) {
+                value = Void.class;
+            }
+            parsed.put(key, value);
+        }
+        return value == Void.class ? null : type.cast(value);
+    }
+
+    /**
+     * Get all properties
+     *
+     * @return Unmodifiable map of properties
+     */
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    /**
+     * Get version of this snapshot
+     *
+     * @return Version, incremented on each reload of the same file
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get modification time of the file when it has been read
+     *
+     * @return Time in milliseconds
+     */
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Get size of the file when it has been read
+     *
+     * @return Size in bytes
+     */
+    long getSize() {
+        return size;
+    }
+}
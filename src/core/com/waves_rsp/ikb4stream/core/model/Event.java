@@ -18,12 +18,11 @@
 
 package com.waves_rsp.ikb4stream.core.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
 
-import java.util.Arrays;
 import java.util.Date;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * Event class represents an event with starting date and end date
@@ -41,11 +40,18 @@ public class Event {
      */
     private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(Event.class);
     /**
-     * Position of the {@link Event} represented by a BoundingBox
+     * Bounds of score parsed from the last {@link ConfigSnapshot} read
      *
+     * @see Event#getScoreBounds()
+     */
+    private static volatile ScoreBounds scoreBounds;
+    /**
+     * Position of the {@link Event}, a point or a closed polygon
+     *
+     * @see Event#getGeometry()
      * @see Event#getLocation()
      */
-    private final LatLong[] location;
+    private final Geometry geometry;
     /**
      * Description of an {@link Event}
      *
@@ -77,6 +83,12 @@ public class Event {
      */
     private final Date end;
     private OpenNLP.langOptions lang;
+    /**
+     * Typed fields attached by the module which created this {@link Event}
+     *
+     * @see Event#getAttributes()
+     */
+    private final EventAttributes attributes;
 
     /**
      * Create an Event without score
@@ -90,25 +102,59 @@ public class Event {
      * @throws IllegalArgumentException if source is empty
      */
     public Event(LatLong[] location, Date start, Date end, String description, String source, OpenNLP.langOptions lang) {
-        Objects.requireNonNull(location);
+        this(location, start, end, description, source, lang, EventAttributes.EMPTY);
+    }
+
+    /**
+     * Create an Event without score, with typed fields
+     *
+     * @param location    the location of the event, defined by a BondingBox (LatLong[])
+     * @param start       The moment when the event begins
+     * @param end         End of the event, or the current date
+     * @param description the event content. For instance, the message of a tweet.
+     * @param source      from which datasource the event is provided
+     * @param attributes  typed fields of the event, they can't be modified afterwards
+     * @throws NullPointerException     if a param is null
+     * @throws IllegalArgumentException if source is empty
+     */
+    public Event(LatLong[] location, Date start, Date end, String description, String source, OpenNLP.langOptions lang, EventAttributes attributes) {
+        this(Geometry.fromLatLongs(location), start, end, description, source, lang, attributes);
+    }
+
+    /**
+     * Create an Event without score, with typed fields
+     *
+     * @param geometry    the location of the event, a point or a closed polygon
+     * @param start       The moment when the event begins
+     * @param end         End of the event, or the current date
+     * @param description the event content. For instance, the message of a tweet.
+     * @param source      from which datasource the event is provided
+     * @param attributes  typed fields of the event, they can't be modified afterwards
+     * @throws NullPointerException     if a param is null
+     * @throws IllegalArgumentException if source is empty or geometry is not closed
+     */
+    public Event(Geometry geometry, Date start, Date end, String description, String source, OpenNLP.langOptions lang, EventAttributes attributes) {
+        Objects.requireNonNull(geometry);
         Objects.requireNonNull(start);
         Objects.requireNonNull(end);
         Objects.requireNonNull(description);
         Objects.requireNonNull(source);
         Objects.requireNonNull(lang);
+        Objects.requireNonNull(attributes);
         if (source.isEmpty()) {
             throw new IllegalArgumentException("Source argument cannot be empty.");
         }
-        if (!location[0].equals(location[location.length - 1])) {
+        if (!geometry.isClosed()) {
             throw new IllegalArgumentException("BoundingBox is not closed.");
         }
-        this.location = location;
+        this.geometry = geometry;
         this.start = start;
         this.end = end;
         this.description = description;
         this.lang = lang;
         this.score = -1;
         this.source = source;
+        this.attributes = attributes.seal();
     }
 
     /**
@@ -124,28 +170,64 @@ public class Event {
      * @throws IllegalArgumentException If source is empty or score is not between 0 and 100
      */
     public Event(LatLong[] location, Date start, Date end, String description, byte score, String source, OpenNLP.langOptions lang) {
-        Objects.requireNonNull(location);
+        this(location, start, end, description, score, source, lang, EventAttributes.EMPTY);
+    }
+
+    /**
+     * Create an Event with a score and typed fields
+     *
+     * @param location    the location of the event, defined by a BondingBox (LatLong[])
+     * @param start       The moment when the event begins
+     * @param end         End of the event, or the current date
+     * @param description the event content. For instance, the message of a tweet.
+     * @param score       Score of this event between 0 and 100
+     * @param source      from which datasource the event is provided
+     * @param attributes  typed fields of the event, they can't be modified afterwards
+     * @throws NullPointerException     If one params is null
+     * @throws IllegalArgumentException If source is empty or score is not between 0 and 100
+     */
+    public Event(LatLong[] location, Date start, Date end, String description, byte score, String source, OpenNLP.langOptions lang, EventAttributes attributes) {
+        this(Geometry.fromLatLongs(location), start, end, description, score, source, lang, attributes);
+    }
+
+    /**
+     * Create an Event with a score and typed fields
+     *
+     * @param geometry    the location of the event, a point or a closed polygon
+     * @param start       The moment when the event begins
+     * @param end         End of the event, or the current date
+     * @param description the event content. For instance, the message of a tweet.
+     * @param score       Score of this event between 0 and 100
+     * @param source      from which datasource the event is provided
+     * @param attributes  typed fields of the event, they can't be modified afterwards
+     * @throws NullPointerException     If one params is null
+     * @throws IllegalArgumentException If source is empty, score is not between 0 and 100 or geometry is not closed
+     */
+    public Event(Geometry geometry, Date start, Date end, String description, byte score, String source, OpenNLP.langOptions lang, EventAttributes attributes) {
+        Objects.requireNonNull(geometry);
         Objects.requireNonNull(start);
         Objects.requireNonNull(end);
         Objects.requireNonNull(description);
         Objects.requireNonNull(source);
         Objects.requireNonNull(lang);
+        Objects.requireNonNull(attributes);
         if (source.isEmpty()) {
             throw new IllegalArgumentException("Source argument cannot be empty.");
         }
         if (score < 0 || score > 100) {
             throw new IllegalArgumentException("Score need to be between 0 and 100.");
         }
-        if (!location[0].equals(location[location.length - 1])) {
+        if (!geometry.isClosed()) {
             throw new IllegalArgumentException("BoundingBox is not closed.");
         }
-        this.location = location;
+        this.geometry = geometry;
         this.start = start;
         this.end = end;
         this.description = description;
         this.score = score;
         this.source = source;
         this.lang = lang;
+        this.attributes = attributes.seal();
     }
 
     /**
@@ -160,7 +242,23 @@ public class Event {
      * @throws IllegalArgumentException If source is empty
      */
     public Event(LatLong location, Date start, Date end, String description,  String source, OpenNLP.langOptions lang) {
-        this(new LatLong[]{location}, start, end, description, source, lang);
+        this(location, start, end, description, source, lang, EventAttributes.EMPTY);
+    }
+
+    /**
+     * Create an Event without score, with typed fields
+     *
+     * @param location    the location of the event, defined by a LatLong
+     * @param start       The moment when the event begins
+     * @param end         End of the event, or the current date
+     * @param description the event content. For instance, the message of a tweet.
+     * @param source      from which datasource the event is provided
+     * @param attributes  typed fields of the event, they can't be modified afterwards
+     * @throws NullPointerException     If a param is null
+     * @throws IllegalArgumentException If source is empty
+     */
+    public Event(LatLong location, Date start, Date end, String description, String source, OpenNLP.langOptions lang, EventAttributes attributes) {
+        this(Geometry.point(Objects.requireNonNull(location).getLatitude(), location.getLongitude()), start, end, description, source, lang, attributes);
     }
 
     /**
@@ -176,17 +274,29 @@ public class Event {
      * @throws IllegalArgumentException If source is empty or score is not between 0 and 100
      */
     public Event(LatLong location, Date start, Date end, String description, byte score, String source, OpenNLP.langOptions lang) {
-        this(new LatLong[]{location}, start, end, description, score, source, lang);
+        this(Geometry.point(Objects.requireNonNull(location).getLatitude(), location.getLongitude()), start, end, description, score, source, lang, EventAttributes.EMPTY);
     }
 
     /**
-     * Get location of this event
+     * Get location of this event, a new array is created on each call
      *
      * @return LatLong[] to represent the position of this Event
-     * @see Event#location
+     * @see Event#geometry
+     * @see Event#getGeometry()
      */
     public LatLong[] getLocation() {
-        return location;
+        return geometry.toLatLongs();
+    }
+
+    /**
+     * Get location of this event without creating any object
+     *
+     * @return {@link Geometry} of this Event
+     * @see Event#geometry
+     */
+    @JsonIgnore
+    public Geometry getGeometry() {
+        return geometry;
     }
 
     /**
@@ -240,6 +350,18 @@ public class Event {
     }
 
     public OpenNLP.langOptions getLang(){ return lang;}
+
+    /**
+     * Get typed fields attached to this event
+     *
+     * @return {@link EventAttributes}, empty if the module attached nothing
+     * @see Event#attributes
+     */
+    @JsonIgnore
+    public EventAttributes getAttributes() {
+        return attributes;
+    }
+
     /**
      * Generated method to test if {@link Event} are same
      *
@@ -252,10 +374,11 @@ public class Event {
         if (o == null || getClass() != o.getClass()) return false;
         Event event = (Event) o;
         if (score != event.score) return false;
-        if (!Arrays.equals(location, event.location)) return false;
+        if (!geometry.equals(event.geometry)) return false;
         if (start != null ? !start.equals(event.start) : event.start != null) return false;
         if (end != null ? !end.equals(event.end) : event.end != null) return false;
         if (description != null ? !description.equals(event.description) : event.description != null) return false;
+        if (!attributes.equals(event.attributes)) return false;
         return source != null ? source.equals(event.source) : event.source == null;
     }
 
@@ -266,12 +389,13 @@ public class Event {
      */
     @Override
     public int hashCode() {
-        int result = Arrays.hashCode(location);
+        int result = geometry.hashCode();
         result = 31 * result + (start != null ? start.hashCode() : 0);
         result = 31 * result + (end != null ? end.hashCode() : 0);
         result = 31 * result + (description != null ? description.hashCode() : 0);
         result = 31 * result + (int) score;
         result = 31 * result + (source != null ? source.hashCode() : 0);
+        result = 31 * result + attributes.hashCode();
         return result;
     }
 
@@ -279,23 +403,25 @@ public class Event {
      * Represent this {@link Event} as a String
      *
      * @return a string which contains information about an event
-     * @see Event#location
+     * @see Event#geometry
      * @see Event#start
      * @see Event#end
      * @see Event#description
      * @see Event#score
      * @see Event#source
+     * @see Event#attributes
      */
     @Override
     public String toString() {
         return "Event{" +
-                "location=" + Arrays.stream(location).map(LatLong::toString).collect(Collectors.joining(",", "[", "]")) +
+                "location=" + geometry +
                 ", start=" + start +
                 ", end=" + end +
                 ", description='" + description + '\'' +
                 ", score=" + score +
                 ", source = " + source +
                 ", lang = " + lang +
+                (attributes.isEmpty() ? "" : ", attributes = " + attributes) +
                 '}';
     }
 
@@ -303,27 +429,60 @@ public class Event {
      * Get score min for an event
      *
      * @return Score min to apply to an event
-     * @see Event#PROPERTIES_MANAGER
+     * @see Event#getScoreBounds()
      */
     public static byte getScoreMin() {
-        try {
-            return Byte.parseByte(PROPERTIES_MANAGER.getProperty("score.min"));
-        } catch (IllegalArgumentException e) {
-            return 0;
-        }
+        return getScoreBounds().min;
     }
 
     /**
      * Get score max for an event
      *
      * @return Score max to apply to an event
-     * @see Event#PROPERTIES_MANAGER
+     * @see Event#getScoreBounds()
      */
     public static byte getScoreMax() {
-        try {
-            return Byte.parseByte(PROPERTIES_MANAGER.getProperty("score.max"));
-        } catch (IllegalArgumentException e) {
-            return 100;
+        return getScoreBounds().max;
+    }
+
+    /**
+     * Get bounds of score, they are parsed again only when configuration is reloaded
+     *
+     * @return {@link ScoreBounds} of current configuration
+     * @see Event#PROPERTIES_MANAGER
+     * @see Event#scoreBounds
+     */
+    private static ScoreBounds getScoreBounds() {
+        ConfigSnapshot snapshot = PROPERTIES_MANAGER.getSnapshot();
+        ScoreBounds bounds = scoreBounds;
+        if (bounds == null || bounds.snapshot != snapshot) {
+            bounds = new ScoreBounds(snapshot);
+            scoreBounds = bounds;
+        }
+        return bounds;
+    }
+
+    /**
+     * Score min and max parsed from a {@link ConfigSnapshot}
+     */
+    private static class ScoreBounds {
+        /**
+         * {@link ConfigSnapshot} where bounds have been read
+         */
+        private final ConfigSnapshot snapshot;
+        /**
+         * Value of score.min, 0 by default
+         */
+        private final byte min;
+        /**
+         * Value of score.max, 100 by default
+         */
+        private final byte max;
+
+        private ScoreBounds(ConfigSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.min = snapshot.getByte("score.min", (byte) 0);
+            this.max = snapshot.getByte("score.max", (byte) 100);
         }
     }
 }
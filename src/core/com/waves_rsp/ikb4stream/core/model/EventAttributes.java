@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Typed fields attached to an {@link Event} by a module, so that score processors read them without parsing the
+ * description. Values are only numbers, booleans or strings. Attributes can't be modified once given to an
+ * {@link Event}.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see Event#getAttributes()
+ */
+public class EventAttributes {
+    /**
+     * {@link EventAttributes} without any field
+     *
+     * @see Event
+     */
+    public static final EventAttributes EMPTY = new EventAttributes().seal();
+    /**
+     * Value of each field
+     *
+     * @see EventAttributes#asMap()
+     */
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    /**
+     * True if fields can't be modified anymore
+     *
+     * @see EventAttributes#seal()
+     */
+    private volatile boolean sealed;
+
+    /**
+     * Add a field
+     *
+     * @param key   Name of the field
+     * @param value Value of the field
+     * @return this {@link EventAttributes}
+     * @throws NullPointerException  if key or value is null
+     * @throws IllegalStateException if attributes are already used by an {@link Event}
+     */
+    private EventAttributes putValue(String key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        if (sealed) {
+            throw new IllegalStateException("Attributes are already used by an Event");
+        }
+        values.put(key, value);
+        return this;
+    }
+
+    /**
+     * Add a numeric field
+     *
+     * @param key   Name of the field
+     * @param value Value of the field
+     * @return this {@link EventAttributes}
+     * @throws NullPointerException  if key is null
+     * @throws IllegalStateException if attributes are already used by an {@link Event}
+     */
+    public EventAttributes put(String key, double value) {
+        return putValue(key, value);
+    }
+
+    /**
+     * Add an integral field
+     *
+     * @param key   Name of the field
+     * @param value Value of the field
+     * @return this {@link EventAttributes}
+     * @throws NullPointerException  if key is null
+     * @throws IllegalStateException if attributes are already used by an {@link Event}
+     */
+    public EventAttributes put(String key, long value) {
+        return putValue(key, value);
+    }
+
+    /**
+     * Add a boolean field
+     *
+     * @param key   Name of the field
+     * @param value Value of the field
+     * @return this {@link EventAttributes}
+     * @throws NullPointerException  if key is null
+     * @throws IllegalStateException if attributes are already used by an {@link Event}
+     */
+    public EventAttributes put(String key, boolean value) {
+        return putValue(key, value);
+    }
+
+    /**
+     * Add a text field
+     *
+     * @param key   Name of the field
+     * @param value Value of the field
+     * @return this {@link EventAttributes}
+     * @throws NullPointerException  if key or value is null
+     * @throws IllegalStateException if attributes are already used by an {@link Event}
+     */
+    public EventAttributes put(String key, String value) {
+        return putValue(key, value);
+    }
+
+    /**
+     * Check if a field exists
+     *
+     * @param key Name of the field
+     * @return true if the field exists
+     */
+    public boolean has(String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * Get a numeric field
+     *
+     * @param key          Name of the field
+     * @param defaultValue Value returned if the field doesn't exist or is not a number
+     * @return Value of the field
+     */
+    public double getDouble(String key, double defaultValue) {
+        Object value = values.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    /**
+     * Get an integral field
+     *
+     * @param key          Name of the field
+     * @param defaultValue Value returned if the field doesn't exist or is not a number
+     * @return Value of the field
+     */
+    public long getLong(String key, long defaultValue) {
+        Object value = values.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    /**
+     * Get a boolean field
+     *
+     * @param key          Name of the field
+     * @param defaultValue Value returned if the field doesn't exist or is not a boolean
+     * @return Value of the field
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Object value = values.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    /**
+     * Get a text field
+     *
+     * @param key          Name of the field
+     * @param defaultValue Value returned if the field doesn't exist
+     * @return Value of the field as text
+     */
+    public String getString(String key, String defaultValue) {
+        Object value = values.get(key);
+        return value == null ? defaultValue : value.toString();
+    }
+
+    /**
+     * Check if there is no field
+     *
+     * @return true if there is no field
+     */
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Get all fields
+     *
+     * @return Unmodifiable view of fields, in insertion order
+     */
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Create a modifiable copy, used to add fields to attributes of an existing {@link Event}
+     *
+     * @return New {@link EventAttributes} with same fields
+     */
+    public EventAttributes copy() {
+        EventAttributes copy = new EventAttributes();
+        copy.values.putAll(values);
+        return copy;
+    }
+
+    /**
+     * Forbid any modification, called when attributes are given to an {@link Event}
+     *
+     * @return this {@link EventAttributes}
+     * @see EventAttributes#sealed
+     */
+    EventAttributes seal() {
+        sealed = true;
+        return this;
+    }
+
+    /**
+     * Generated method to test if {@link EventAttributes} are same
+     *
+     * @param o Other {@link EventAttributes} to compare
+     * @return true if there are equals
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return values.equals(((EventAttributes) o).values);
+    }
+
+    /**
+     * Generated method
+     *
+     * @return hashcode of {@link EventAttributes}
+     */
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    /**
+     * Represent these {@link EventAttributes} as a String
+     *
+     * @return a string which contains all fields
+     */
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
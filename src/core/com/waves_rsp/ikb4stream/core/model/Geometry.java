@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable position of an {@link Event} : a point or a polygon stored as a flat array of longitude/latitude pairs,
+ * in GeoJSON order, with its bounding box
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see Event#getGeometry()
+ */
+public final class Geometry {
+    /**
+     * Longitude and latitude of each vertex, interleaved
+     *
+     * @see Geometry#getLongitude(int)
+     * @see Geometry#getLatitude(int)
+     */
+    private final double[] coordinates;
+    /**
+     * Lowest latitude of all vertices
+     *
+     * @see Geometry#getMinLatitude()
+     */
+    private final double minLatitude;
+    /**
+     * Lowest longitude of all vertices
+     *
+     * @see Geometry#getMinLongitude()
+     */
+    private final double minLongitude;
+    /**
+     * Highest latitude of all vertices
+     *
+     * @see Geometry#getMaxLatitude()
+     */
+    private final double maxLatitude;
+    /**
+     * Highest longitude of all vertices
+     *
+     * @see Geometry#getMaxLongitude()
+     */
+    private final double maxLongitude;
+
+    /**
+     * Private constructor, you must use {@link Geometry#point(double, double)}, {@link Geometry#polygon(double[])},
+     * {@link Geometry#box(double, double, double, double)} or {@link Geometry#fromLatLongs(LatLong[])}
+     *
+     * @param coordinates Longitude and latitude of each vertex, interleaved, owned by this {@link Geometry}
+     * @throws IllegalArgumentException if a coordinate is out of range
+     */
+    private Geometry(double[] coordinates) {
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            double longitude = coordinates[i];
+            double latitude = coordinates[i + 1];
+            if (latitude < -90 || latitude > 90) {
+                throw new IllegalArgumentException("Latitude must be between -90° and +90° inclusive.");
+            } else if (longitude < -180 || longitude > 180) {
+                throw new IllegalArgumentException("Longitude must be between -180° and +180° inclusive.");
+            }
+            minLat = Math.min(minLat, latitude);
+            minLon = Math.min(minLon, longitude);
+            maxLat = Math.max(maxLat, latitude);
+            maxLon = Math.max(maxLon, longitude);
+        }
+        this.coordinates = coordinates;
+        this.minLatitude = minLat;
+        this.minLongitude = minLon;
+        this.maxLatitude = maxLat;
+        this.maxLongitude = maxLon;
+    }
+
+    /**
+     * Create a point
+     *
+     * @param latitude  Latitude of the point
+     * @param longitude Longitude of the point
+     * @return {@link Geometry} with one vertex
+     * @throws IllegalArgumentException if latitude is not between -90 an 90, or longitude is not between -180 and 180
+     */
+    public static Geometry point(double latitude, double longitude) {
+        return new Geometry(new double[]{longitude, latitude});
+    }
+
+    /**
+     * Create a polygon from interleaved longitude/latitude pairs
+     *
+     * @param coordinates Longitude and latitude of each vertex, the array is copied
+     * @return {@link Geometry}
+     * @throws NullPointerException     if coordinates is null
+     * @throws IllegalArgumentException if coordinates has an odd or null length, or a coordinate is out of range
+     */
+    public static Geometry polygon(double[] coordinates) {
+        Objects.requireNonNull(coordinates);
+        if (coordinates.length == 0 || coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must be pairs of longitude and latitude.");
+        }
+        return new Geometry(Arrays.copyOf(coordinates, coordinates.length));
+    }
+
+    /**
+     * Create a closed rectangle
+     *
+     * @param latitudeMin  Lowest latitude
+     * @param longitudeMin Lowest longitude
+     * @param latitudeMax  Highest latitude
+     * @param longitudeMax Highest longitude
+     * @return {@link Geometry} with five vertices
+     * @throws IllegalArgumentException if a coordinate is out of range
+     */
+    public static Geometry box(double latitudeMin, double longitudeMin, double latitudeMax, double longitudeMax) {
+        return new Geometry(new double[]{
+                longitudeMin, latitudeMin,
+                longitudeMin, latitudeMax,
+                longitudeMax, latitudeMax,
+                longitudeMax, latitudeMin,
+                longitudeMin, latitudeMin
+        });
+    }
+
+    /**
+     * Create a {@link Geometry} from an array of {@link LatLong}
+     *
+     * @param latLongs Vertices of the {@link Geometry}
+     * @return {@link Geometry}
+     * @throws NullPointerException     if latLongs or one of its elements is null
+     * @throws IllegalArgumentException if latLongs is empty
+     */
+    public static Geometry fromLatLongs(LatLong[] latLongs) {
+        Objects.requireNonNull(latLongs);
+        if (latLongs.length == 0) {
+            throw new IllegalArgumentException("We need at least 1 point in a geometry.");
+        }
+        double[] coordinates = new double[latLongs.length * 2];
+        for (int i = 0; i < latLongs.length; i++) {
+            coordinates[2 * i] = latLongs[i].getLongitude();
+            coordinates[2 * i + 1] = latLongs[i].getLatitude();
+        }
+        return new Geometry(coordinates);
+    }
+
+    /**
+     * Check if this {@link Geometry} is a single point
+     *
+     * @return true if there is only one vertex
+     */
+    public boolean isPoint() {
+        return coordinates.length == 2;
+    }
+
+    /**
+     * Check if last vertex is the first one, as GeoJSON polygons require. A point is always closed.
+     *
+     * @return true if this {@link Geometry} is closed
+     */
+    public boolean isClosed() {
+        int last = coordinates.length - 2;
+        return Double.compare(coordinates[0], coordinates[last]) == 0
+                && Double.compare(coordinates[1], coordinates[last + 1]) == 0;
+    }
+
+    /**
+     * Get number of vertices
+     *
+     * @return Number of vertices
+     */
+    public int size() {
+        return coordinates.length / 2;
+    }
+
+    /**
+     * Get latitude of a vertex
+     *
+     * @param index Index of the vertex
+     * @return Latitude
+     * @throws IndexOutOfBoundsException if index is invalid
+     */
+    public double getLatitude(int index) {
+        return coordinates[checkIndex(index) * 2 + 1];
+    }
+
+    /**
+     * Get longitude of a vertex
+     *
+     * @param index Index of the vertex
+     * @return Longitude
+     * @throws IndexOutOfBoundsException if index is invalid
+     */
+    public double getLongitude(int index) {
+        return coordinates[checkIndex(index) * 2];
+    }
+
+    /**
+     * Check index of a vertex
+     *
+     * @param index Index of the vertex
+     * @return index
+     * @throws IndexOutOfBoundsException if index is invalid
+     */
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Invalid vertex " + index);
+        }
+        return index;
+    }
+
+    /**
+     * Get lowest latitude of the bounding box
+     *
+     * @return Latitude
+     * @see Geometry#minLatitude
+     */
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    /**
+     * Get lowest longitude of the bounding box
+     *
+     * @return Longitude
+     * @see Geometry#minLongitude
+     */
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    /**
+     * Get highest latitude of the bounding box
+     *
+     * @return Latitude
+     * @see Geometry#maxLatitude
+     */
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    /**
+     * Get highest longitude of the bounding box
+     *
+     * @return Longitude
+     * @see Geometry#maxLongitude
+     */
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    /**
+     * Check if bounding boxes of two {@link Geometry} intersect
+     *
+     * @param other Other {@link Geometry}
+     * @return true if bounding boxes intersect
+     * @throws NullPointerException if other is null
+     */
+    public boolean intersectsBoundingBox(Geometry other) {
+        Objects.requireNonNull(other);
+        return minLatitude <= other.maxLatitude && other.minLatitude <= maxLatitude
+                && minLongitude <= other.maxLongitude && other.minLongitude <= maxLongitude;
+    }
+
+    /**
+     * Create an array of {@link LatLong}, one for each vertex
+     *
+     * @return New array of {@link LatLong}
+     */
+    public LatLong[] toLatLongs() {
+        LatLong[] latLongs = new LatLong[size()];
+        for (int i = 0; i < latLongs.length; i++) {
+            latLongs[i] = new LatLong(coordinates[2 * i + 1], coordinates[2 * i]);
+        }
+        return latLongs;
+    }
+
+    /**
+     * Generated method to test if {@link Geometry} are same
+     *
+     * @param o Other {@link Geometry} to compare
+     * @return true if there are equals
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(coordinates, ((Geometry) o).coordinates);
+    }
+
+    /**
+     * Generated method
+     *
+     * @return hashcode of {@link Geometry}
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coordinates);
+    }
+
+    /**
+     * Represent this {@link Geometry} as a String, with the same format as {@link LatLong#toString()}
+     *
+     * @return this {@link Geometry} as String
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < coordinates.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('{').append(coordinates[i + 1]).append(',').append(coordinates[i]).append('}');
+        }
+        return builder.append(']').toString();
+    }
+}
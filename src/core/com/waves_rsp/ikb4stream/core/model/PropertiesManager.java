@@ -18,35 +18,46 @@
 
 package com.waves_rsp.ikb4stream.core.model;
 
+import com.waves_rsp.ikb4stream.core.util.AtomicFileWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Load configuration for a class
+ * Load configuration for a class. Each configuration file is read once and shared by all classes which use it : its
+ * content is an immutable {@link ConfigSnapshot}, replaced when the file changes, so reading a property never locks.
  *
  * @author ikb4stream
  * @version 1.0
  */
 public class PropertiesManager {
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertiesManager.class);
     /**
      * @see PropertiesManager#getInstance(Class, String)
      */
-    private static final Map<Class, PropertiesManager> PROPERTIES_MANAGER_HASH_MAP = new HashMap<>();
+    private static final Map<Class, PropertiesManager> PROPERTIES_MANAGER_HASH_MAP = new ConcurrentHashMap<>();
     /**
-     * Logger used to log all information in this class
+     * Single {@link PropertiesManager} of each configuration file, by absolute path
+     *
+     * @see PropertiesManager#getInstance(Class, String)
+     * @see PropertiesManager#WATCHER
      */
-    private static final Logger LOGGER = LoggerFactory.getLogger(PropertiesManager.class);
+    private static final Map<Path, PropertiesManager> PROPERTIES_MANAGER_BY_PATH = new ConcurrentHashMap<>();
     /**
      * Constant value {@value DEFAULT_PATH}
      *
@@ -54,12 +65,30 @@ public class PropertiesManager {
      */
     private static final String DEFAULT_PATH = "resources/config.properties";
     /**
-     * Objects which store value of configuration file
+     * Interval time in milliseconds between two checks of configuration files, {@value RELOAD_INTERVAL}
+     *
+     * @see PropertiesManager#WATCHER
+     */
+    private static final long RELOAD_INTERVAL = 2000;
+    /**
+     * Background Thread which reloads modified configuration files and writes properties set by
+     * {@link PropertiesManager#setProperty(String, String)}
      *
-     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#reload()
+     * @see PropertiesManager#write()
+     */
+    private static final ScheduledExecutorService WATCHER = createWatcher();
+    /**
+     * Location of configuration file
      */
-    private final Properties config = new Properties();
     private final Path configLocation;
+    /**
+     * Current content of configuration file
+     *
+     * @see PropertiesManager#getSnapshot()
+     * @see PropertiesManager#reload()
+     */
+    private volatile ConfigSnapshot snapshot;
 
     /**
      * Singleton {@link PropertiesManager}
@@ -67,16 +96,32 @@ public class PropertiesManager {
      * @param path Path to config file
      * @throws NullPointerException if path is null
      */
-    private PropertiesManager(String path) {
+    private PropertiesManager(Path path) {
         Objects.requireNonNull(path);
-        this.configLocation = Paths.get(path);
-        try (InputStream stream = Files.newInputStream(this.configLocation)) {
-            config.load(stream);
-        } catch (IOException e) {
-            LOGGER.error(e.getMessage());
+        this.configLocation = path;
+        this.snapshot = new ConfigSnapshot(new Properties(), 0, -1, -1);
+        if (!reload()) {
+            LOGGER.error("Can't read configuration {}", path);
         }
     }
 
+    /**
+     * Create the Thread which checks configuration files every {@link PropertiesManager#RELOAD_INTERVAL}
+     *
+     * @return ScheduledExecutorService with a daemon Thread
+     */
+    private static ScheduledExecutorService createWatcher() {
+        ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("Configuration watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(() -> PROPERTIES_MANAGER_BY_PATH.values().forEach(PropertiesManager::reload),
+                RELOAD_INTERVAL, RELOAD_INTERVAL, TimeUnit.MILLISECONDS);
+        return watcher;
+    }
+
     /**
      * Get instance for {@link PropertiesManager}, one per class
      *
@@ -91,24 +136,30 @@ public class PropertiesManager {
     }
 
     /**
-     * Get instance for {@link PropertiesManager}, one per class
+     * Get instance for {@link PropertiesManager}, classes which use the same file share the same instance
      *
      * @param clazz Class in which {@link PropertiesManager} will be instantiate
      * @param path  Path to load configuration for this clazz
      * @return An instance of {@link PropertiesManager} for clazz
      * @throws NullPointerException if clazz or path is null
      * @see PropertiesManager#PROPERTIES_MANAGER_HASH_MAP
+     * @see PropertiesManager#PROPERTIES_MANAGER_BY_PATH
      */
     public static PropertiesManager getInstance(Class clazz, String path) {
         Objects.requireNonNull(clazz);
         Objects.requireNonNull(path);
-        PropertiesManager propertiesManager = PROPERTIES_MANAGER_HASH_MAP.get(clazz);
-        if (propertiesManager == null) {
-            PropertiesManager pm = new PropertiesManager(path);
-            PROPERTIES_MANAGER_HASH_MAP.put(clazz, pm);
-            return pm;
-        }
-        return propertiesManager;
+        return PROPERTIES_MANAGER_HASH_MAP.computeIfAbsent(clazz, c ->
+                PROPERTIES_MANAGER_BY_PATH.computeIfAbsent(Paths.get(path).toAbsolutePath().normalize(), PropertiesManager::new));
+    }
+
+    /**
+     * Get current content of configuration file, values read from the same snapshot are consistent
+     *
+     * @return Current {@link ConfigSnapshot}
+     * @see PropertiesManager#snapshot
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
@@ -118,11 +169,11 @@ public class PropertiesManager {
      * @return Value of property
      * @throws NullPointerException     if property is null
      * @throws IllegalArgumentException if property is not set in property file
-     * @see PropertiesManager#config
+     * @see PropertiesManager#snapshot
      */
     public String getProperty(String property) {
         Objects.requireNonNull(property);
-        String value = config.getProperty(property);
+        String value = snapshot.getProperty(property);
         if (value == null) {
             throw new IllegalArgumentException("Property not found : " + property);
         }
@@ -139,7 +190,7 @@ public class PropertiesManager {
      */
     public String getPropertyOrDefault(String property, String defaultValue) {
         Objects.requireNonNull(property);
-        String value = config.getProperty(property);
+        String value = snapshot.getProperty(property);
         if (value == null) {
             return defaultValue;
         }
@@ -147,22 +198,76 @@ public class PropertiesManager {
     }
 
     /**
-     * Set property
+     * Set property, the new value is visible immediately and written to the configuration file in background
      *
      * @param property Property to set from configuration file
      * @param key      Key value to set
-     * @see PropertiesManager#config
+     * @see PropertiesManager#snapshot
+     * @see PropertiesManager#write()
      */
-    public void setProperty(String key, String property) {
+    public synchronized void setProperty(String key, String property) {
         Objects.requireNonNull(property);
         Objects.requireNonNull(key);
-        config.setProperty(key, property);
-        try (OutputStream stream = Files.newOutputStream(this.configLocation)) {
-            config.store(stream, property);
+        ConfigSnapshot current = snapshot;
+        Properties properties = new Properties();
+        properties.putAll(current.asMap());
+        properties.setProperty(key, property);
+        snapshot = new ConfigSnapshot(properties, current.getVersion() + 1, current.getLastModified(), current.getSize());
+        WATCHER.execute(this::write);
+    }
+
+    /**
+     * Read configuration file again if its modification time or size changed, and publish a new snapshot
+     *
+     * @return true if a new snapshot has been published
+     * @see PropertiesManager#snapshot
+     */
+    synchronized boolean reload() {
+        long lastModified;
+        long size;
+        try {
+            lastModified = Files.getLastModifiedTime(configLocation).toMillis();
+            size = Files.size(configLocation);
+        } catch (IOException e) {
+            return false;
+        }
+        ConfigSnapshot current = snapshot;
+        if (current.getLastModified() == lastModified && current.getSize() == size) {
+            return false;
+        }
+        Properties properties = new Properties();
+        try (InputStream stream = Files.newInputStream(configLocation)) {
+            properties.load(stream);
         } catch (IOException e) {
             LOGGER.error(e.getMessage());
+            return false;
         }
-
+        snapshot = new ConfigSnapshot(properties, current.getVersion() + 1, lastModified, size);
+        if (current.getVersion() > 0) {
+            LOGGER.info("Configuration {} has been reloaded", configLocation);
+        }
+        return true;
     }
 
+    /**
+     * Write current snapshot into the configuration file with {@link AtomicFileWriter}. Modification time and size of
+     * the written file are recorded in the snapshot, so that {@link PropertiesManager#reload()} does not read it again.
+     *
+     * @see PropertiesManager#setProperty(String, String)
+     */
+    synchronized void write() {
+        ConfigSnapshot current = snapshot;
+        Properties properties = new Properties();
+        properties.putAll(current.asMap());
+        try {
+            AtomicFileWriter.write(configLocation, stream -> properties.store(stream, null));
+            long lastModified = Files.getLastModifiedTime(configLocation).toMillis();
+            long size = Files.size(configLocation);
+            if (snapshot == current) {
+                snapshot = new ConfigSnapshot(properties, current.getVersion(), lastModified, size);
+            }
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+/**
+ * Write files atomically : content is written into a temporary file of the same directory which then replaces the
+ * file, so a crash never leaves a truncated file.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see WatermarkStore
+ * @see com.waves_rsp.ikb4stream.core.model.PropertiesManager
+ */
+public class AtomicFileWriter {
+    /**
+     * Private constructor to block instantiation
+     * This class provides only static method
+     */
+    private AtomicFileWriter() {
+
+    }
+
+    /**
+     * Replace a file by new content, the temporary file is deleted if it can't replace the file
+     *
+     * @param path    File to replace, its directory is created if needed
+     * @param content Write the new content
+     * @throws IOException          if the file can't be written
+     * @throws NullPointerException if path or content is null
+     */
+    public static void write(Path path, Content content) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(content);
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(tmp)) {
+                content.write(stream);
+            }
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Write content of a file
+     */
+    @FunctionalInterface
+    public interface Content {
+        /**
+         * Write content into a stream
+         *
+         * @param stream Stream of the temporary file, closed by {@link AtomicFileWriter}
+         * @throws IOException if content can't be written
+         */
+        void write(OutputStream stream) throws IOException;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util;
+
+import java.util.Objects;
+
+/**
+ * This class provides only static methods to encode and decode geohashes
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see GeoHash#encode(double, double, int)
+ */
+public class GeoHash {
+    /**
+     * Characters of geohashes, each one encodes 5 bits
+     */
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    /**
+     * Maximum precision of a geohash
+     */
+    public static final int MAX_PRECISION = 12;
+
+    /**
+     * Private constructor to block instantiation
+     */
+    private GeoHash() {
+
+    }
+
+    /**
+     * Encode a position
+     *
+     * @param latitude  Latitude between -90 and 90
+     * @param longitude Longitude between -180 and 180
+     * @param precision Number of characters, between 1 and {@link GeoHash#MAX_PRECISION}
+     * @return Geohash of the cell which contains the position
+     * @throws IllegalArgumentException if a param is out of range
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid position");
+        }
+        checkPrecision(precision);
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double middle = (minLon + maxLon) / 2;
+                if (longitude >= middle) {
+                    index = index * 2 + 1;
+                    minLon = middle;
+                } else {
+                    index = index * 2;
+                    maxLon = middle;
+                }
+            } else {
+                double middle = (minLat + maxLat) / 2;
+                if (latitude >= middle) {
+                    index = index * 2 + 1;
+                    minLat = middle;
+                } else {
+                    index = index * 2;
+                    maxLat = middle;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(index));
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Decode the cell of a geohash
+     *
+     * @param hash Geohash
+     * @return Bounds of the cell : {minLatitude, minLongitude, maxLatitude, maxLongitude}
+     * @throws NullPointerException     if hash is null
+     * @throws IllegalArgumentException if hash is invalid
+     */
+    public static double[] decodeBounds(String hash) {
+        Objects.requireNonNull(hash);
+        checkPrecision(hash.length());
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int index = BASE32.indexOf(hash.charAt(i));
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid geohash " + hash);
+            }
+            for (int n = 4; n >= 0; n--) {
+                int bitN = (index >> n) & 1;
+                if (evenBit) {
+                    double middle = (minLon + maxLon) / 2;
+                    if (bitN == 1) {
+                        minLon = middle;
+                    } else {
+                        maxLon = middle;
+                    }
+                } else {
+                    double middle = (minLat + maxLat) / 2;
+                    if (bitN == 1) {
+                        minLat = middle;
+                    } else {
+                        maxLat = middle;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{minLat, minLon, maxLat, maxLon};
+    }
+
+    /**
+     * Check a precision
+     *
+     * @param precision Number of characters
+     * @throws IllegalArgumentException if precision is not between 1 and {@link GeoHash#MAX_PRECISION}
+     */
+    private static void checkPrecision(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between 1 and " + MAX_PRECISION);
+        }
+    }
+}
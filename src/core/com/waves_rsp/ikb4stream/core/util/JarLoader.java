@@ -180,12 +180,7 @@ public class JarLoader {
      */
     private static String getModuleClassName(JarFile jarFile) {
         Objects.requireNonNull(jarFile);
-        String manifestField = "Module-Class";
-        try {
-            manifestField = PROPERTIES_MANAGER.getProperty("jar.manifest");
-        } catch (IllegalArgumentException e) {
-            LOGGER.warn("Use default value for jar.manifest");
-        }
+        String manifestField = PROPERTIES_MANAGER.getPropertyOrDefault("jar.manifest", "Module-Class");
         try {
             Manifest manifest = jarFile.getManifest();
             return manifest.getMainAttributes().getValue(manifestField);
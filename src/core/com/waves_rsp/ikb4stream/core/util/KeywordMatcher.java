@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Find many keywords in a text in a single pass (Aho-Corasick automaton). Matching ignores case and doesn't care about
+ * word boundaries, so a keyword can be a stem (e.g. "inond" matches "inondation").
+ *
+ * @author ikb4stream
+ * @version 1.0
+ */
+public class KeywordMatcher {
+    /**
+     * Keywords of this matcher, in lower case
+     *
+     * @see KeywordMatcher#find(String)
+     */
+    private final String[] keywords;
+    /**
+     * Transitions of the automaton, the key is the source state and the character
+     *
+     * @see KeywordMatcher#key(int, char)
+     */
+    private final Map<Long, Integer> transitions = new HashMap<>();
+    /**
+     * State to go when a character has no transition from a state
+     */
+    private final int[] failure;
+    /**
+     * Index of the keyword which ends at each state, -1 if none
+     */
+    private final int[] output;
+    /**
+     * Nearest state reachable by {@link KeywordMatcher#failure} where a keyword ends, -1 if none
+     */
+    private final int[] outputLink;
+
+    /**
+     * Build the automaton, you should use {@link KeywordMatcher#create(Collection)}
+     *
+     * @param keywords Distinct keywords in lower case, not empty
+     */
+    private KeywordMatcher(List<String> keywords) {
+        this.keywords = keywords.toArray(new String[keywords.size()]);
+        List<Integer> outputs = new ArrayList<>();
+        outputs.add(-1);
+        for (int i = 0; i < this.keywords.length; i++) {
+            int state = 0;
+            for (char c : this.keywords[i].toCharArray()) {
+                Integer next = transitions.get(key(state, c));
+                if (next == null) {
+                    next = outputs.size();
+                    outputs.add(-1);
+                    transitions.put(key(state, c), next);
+                }
+                state = next;
+            }
+            outputs.set(state, i);
+        }
+        int size = outputs.size();
+        this.output = new int[size];
+        for (int i = 0; i < size; i++) {
+            output[i] = outputs.get(i);
+        }
+        this.failure = new int[size];
+        this.outputLink = new int[size];
+        outputLink[0] = -1;
+        buildFailures();
+    }
+
+    /**
+     * Create a {@link KeywordMatcher}, blank keywords are ignored
+     *
+     * @param keywords Keywords to find
+     * @return {@link KeywordMatcher}
+     * @throws NullPointerException if keywords is null
+     */
+    public static KeywordMatcher create(Collection<String> keywords) {
+        Objects.requireNonNull(keywords);
+        Set<String> distinct = new LinkedHashSet<>();
+        keywords.stream().filter(Objects::nonNull).map(k -> k.trim().toLowerCase(Locale.ROOT)).filter(k -> !k.isEmpty()).forEach(distinct::add);
+        return new KeywordMatcher(new ArrayList<>(distinct));
+    }
+
+    /**
+     * Compute {@link KeywordMatcher#failure} and {@link KeywordMatcher#outputLink} of each state, breadth first
+     */
+    private void buildFailures() {
+        Map<Integer, List<Map.Entry<Long, Integer>>> children = new HashMap<>();
+        transitions.entrySet().forEach(e -> children.computeIfAbsent((int) (e.getKey() >>> 16), s -> new ArrayList<>()).add(e));
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Long, Integer> child : children.getOrDefault(state, Collections.emptyList())) {
+                char c = (char) (child.getKey() & 0xFFFF);
+                int next = child.getValue();
+                int fail = 0;
+                if (state != 0) {
+                    fail = failure[state];
+                    while (fail != 0 && !transitions.containsKey(key(fail, c))) {
+                        fail = failure[fail];
+                    }
+                    fail = transitions.getOrDefault(key(fail, c), 0);
+                }
+                failure[next] = fail;
+                outputLink[next] = output[fail] >= 0 ? fail : outputLink[fail];
+                queue.add(next);
+            }
+        }
+    }
+
+    /**
+     * Key of a transition in {@link KeywordMatcher#transitions}
+     *
+     * @param state Source state
+     * @param c     Character read
+     * @return Key of the transition
+     */
+    private static long key(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+
+    /**
+     * Read text and call visitor for each keyword found
+     *
+     * @param text    Text to read
+     * @param visitor Called with index of each keyword found, returns false to stop reading
+     */
+    private void scan(String text, KeywordVisitor visitor) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            Integer next = transitions.get(key(state, c));
+            while (next == null && state != 0) {
+                state = failure[state];
+                next = transitions.get(key(state, c));
+            }
+            state = next == null ? 0 : next;
+            for (int match = output[state] >= 0 ? state : outputLink[state]; match > 0; match = outputLink[match]) {
+                if (!visitor.visit(output[match])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Count occurrences of keywords in a text
+     *
+     * @param text Text to read
+     * @return Number of occurrences, a keyword can be counted several times
+     * @throws NullPointerException if text is null
+     */
+    public int count(String text) {
+        return count(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Count occurrences of keywords in a text, reading stops as soon as limit is reached
+     *
+     * @param text  Text to read
+     * @param limit Number of occurrences from which reading can stop
+     * @return Number of occurrences, at most limit
+     * @throws NullPointerException if text is null
+     */
+    public int count(String text, int limit) {
+        Objects.requireNonNull(text);
+        if (limit <= 0) {
+            return 0;
+        }
+        int[] count = new int[1];
+        scan(text, keyword -> {
+            count[0]++;
+            return count[0] < limit;
+        });
+        return count[0];
+    }
+
+    /**
+     * Check if a text contains at least one keyword
+     *
+     * @param text Text to read
+     * @return true if a keyword has been found
+     * @throws NullPointerException if text is null
+     */
+    public boolean matches(String text) {
+        Objects.requireNonNull(text);
+        boolean[] found = new boolean[1];
+        scan(text, keyword -> {
+            found[0] = true;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Find distinct keywords contained in a text
+     *
+     * @param text Text to read
+     * @return Keywords found, in order of first occurrence
+     * @throws NullPointerException if text is null
+     */
+    public Set<String> find(String text) {
+        Objects.requireNonNull(text);
+        Set<String> found = new LinkedHashSet<>();
+        scan(text, keyword -> {
+            found.add(keywords[keyword]);
+            return true;
+        });
+        return found;
+    }
+
+    /**
+     * Sum weights of keywords found in a text, each occurrence is counted. Reading stops as soon as limit is reached.
+     *
+     * @param text   Text to read
+     * @param weight Weight of a keyword
+     * @param limit  Sum from which reading can stop
+     * @return Sum of weights, it can exceed limit
+     * @throws NullPointerException if text or weight is null
+     */
+    public int sum(String text, ToIntFunction<String> weight, int limit) {
+        Objects.requireNonNull(text);
+        Objects.requireNonNull(weight);
+        int[] sum = new int[1];
+        scan(text, keyword -> {
+            sum[0] += weight.applyAsInt(keywords[keyword]);
+            return sum[0] < limit;
+        });
+        return sum[0];
+    }
+
+    /**
+     * Get number of keywords
+     *
+     * @return Number of distinct keywords
+     */
+    public int size() {
+        return keywords.length;
+    }
+
+    /**
+     * Receive keywords found by {@link KeywordMatcher#scan(String, KeywordVisitor)}
+     */
+    @FunctionalInterface
+    private interface KeywordVisitor {
+        boolean visit(int keyword);
+    }
+}
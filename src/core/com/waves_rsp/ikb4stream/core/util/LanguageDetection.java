@@ -15,66 +15,151 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 /**
- * https://github.com/optimaize/language-detector
+ * Single detector shared by all Threads, see https://github.com/optimaize/language-detector. Only French and English
+ * are routed, a few other languages are loaded so that foreign texts are not forced into French or English.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see LanguageDetection#getLanguageDetection()
  */
 public class LanguageDetection {
     /**
      * Logger used to log all information in this class
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(LanguageDetection.class);
+    /**
+     * Languages detected as {@link OpenNLP.langOptions#DEFAULT}, they keep close texts out of French and English
+     *
+     * @see LanguageDetection#LanguageDetection()
+     */
+    private static final List<String> OTHER_LANGUAGES = Arrays.asList("es", "it", "de", "pt", "nl", "ar");
+    /**
+     * Texts shorter than this length (e.g. tweets) use {@link LanguageDetection#shortTextFactory}
+     *
+     * @see LanguageDetection#detectLanguage(String)
+     */
+    private static final int SHORT_TEXT_LENGTH = 200;
+    /**
+     * Maximum number of texts kept in {@link LanguageDetection#cache}
+     */
+    private static final int CACHE_SIZE = 1024;
+    /**
+     * Single instance of {@link LanguageDetection}
+     *
+     * @see LanguageDetection#getLanguageDetection()
+     */
+    private static final LanguageDetection LANGUAGE_DETECTION = new LanguageDetection();
+    /**
+     * Detector, it holds no state between two detections so it is shared by all Threads
+     *
+     * @see LanguageDetection#detectLanguage(String)
+     */
     private final LanguageDetector languageDetector;
-    private final TextObjectFactory textObjectFactory;
-    private static final Map<Thread, LanguageDetection> INSTANCE_LANGUAGE = new HashMap<>();
+    /**
+     * Factory used for long texts
+     *
+     * @see LanguageDetection#detectLanguage(String)
+     */
+    private final TextObjectFactory largeTextFactory;
+    /**
+     * Factory used for short texts
+     *
+     * @see LanguageDetection#SHORT_TEXT_LENGTH
+     */
+    private final TextObjectFactory shortTextFactory;
+    /**
+     * Last detected languages, texts are often repeated (e.g. retweets, mocks)
+     *
+     * @see LanguageDetection#CACHE_SIZE
+     */
+    private final Map<String, OpenNLP.langOptions> cache = Collections.synchronizedMap(new LanguageCache());
 
+    /**
+     * Private constructor, you must use {@link LanguageDetection#getLanguageDetection()}
+     *
+     * @throws IllegalStateException if profiles can't be loaded
+     */
     private LanguageDetection() {
         try {
-            //load all languages:
-            List<LanguageProfile> languageProfiles = new LanguageProfileReader().readAllBuiltIn();
-            //build language detector:
+            List<LdLocale> locales = new ArrayList<>();
+            locales.add(LdLocale.fromString("fr"));
+            locales.add(LdLocale.fromString("en"));
+            OTHER_LANGUAGES.forEach(language -> locales.add(LdLocale.fromString(language)));
+            List<LanguageProfile> languageProfiles = new LanguageProfileReader().readBuiltIn(locales);
             languageDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
                     .withProfiles(languageProfiles)
                     .build();
-            //create a text object factory
-            textObjectFactory = CommonTextObjectFactories.forDetectingOnLargeText();
+            largeTextFactory = CommonTextObjectFactories.forDetectingOnLargeText();
+            shortTextFactory = CommonTextObjectFactories.forDetectingShortCleanText();
         } catch (IOException e) {
             LOGGER.error("Language detection failed " + e.getMessage());
             throw new IllegalStateException(e);
         }
     }
 
-    public static LanguageDetection getLanguageDetection(Thread thread) {
-        Objects.requireNonNull(thread);
-        return INSTANCE_LANGUAGE.computeIfAbsent(thread, t -> new LanguageDetection());
+    /**
+     * Get single instance of {@link LanguageDetection}
+     *
+     * @return Single instance of {@link LanguageDetection}, which can be used by several Threads
+     * @see LanguageDetection#LANGUAGE_DETECTION
+     */
+    public static LanguageDetection getLanguageDetection() {
+        return LANGUAGE_DETECTION;
     }
 
-
     /**
-     * @param text
-     * @return fr = french
-     * en = english
-     * ar = arabic
-     * es = spanish
+     * Detect language of a text
+     *
+     * @param text Text to analyse
+     * @return {@link OpenNLP.langOptions#FRENCH}, {@link OpenNLP.langOptions#ENGLISH} or
+     * {@link OpenNLP.langOptions#DEFAULT} for any other language
+     * @throws NullPointerException if text is null
      */
     public OpenNLP.langOptions detectLanguage(String text) {
-        TextObject textObject = this.textObjectFactory.forText(text);
+        Objects.requireNonNull(text);
+        OpenNLP.langOptions cached = cache.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        TextObjectFactory factory = text.length() < SHORT_TEXT_LENGTH ? shortTextFactory : largeTextFactory;
+        TextObject textObject = factory.forText(text);
         com.google.common.base.Optional<LdLocale> lang = this.languageDetector.detect(textObject);
+        OpenNLP.langOptions result = OpenNLP.langOptions.DEFAULT;
         if (lang.isPresent()) {
             if (lang.get().getLanguage().equals("fr")) {
-                return OpenNLP.langOptions.FRENCH;
+                result = OpenNLP.langOptions.FRENCH;
             } else if (lang.get().getLanguage().equals("en")) {
-                return OpenNLP.langOptions.ENGLISH;
-            } else {
-                return OpenNLP.langOptions.DEFAULT;
+                result = OpenNLP.langOptions.ENGLISH;
             }
         }
-        //not recognize the language
-        return OpenNLP.langOptions.DEFAULT;
+        cache.put(text, result);
+        return result;
     }
 
+    /**
+     * Map backing {@link LanguageDetection#cache}, the least recently used text is removed when it is full
+     *
+     * @see LanguageDetection#CACHE_SIZE
+     */
+    private static class LanguageCache extends LinkedHashMap<String, OpenNLP.langOptions> {
+        private static final long serialVersionUID = 1L;
+
+        private LanguageCache() {
+            super(CACHE_SIZE, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, OpenNLP.langOptions> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    }
 }
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Registry of plugins (JAR files of modules) shared by all managers. Directories are scanned in parallel, and the
+ * manifest of each JAR is read once as long as its modification time and size don't change. Each plugin has a single
+ * ClassLoader, so a module class is loaded once even if several managers or threads use it.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see JarLoader
+ */
+public class PluginRegistry {
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PluginRegistry.class);
+    /**
+     * Single instance of {@link PluginRegistry}
+     *
+     * @see PluginRegistry#getInstance()
+     */
+    private static final PluginRegistry PLUGIN_REGISTRY = new PluginRegistry(PluginRegistry.class.getClassLoader());
+    /**
+     * Known plugins by absolute path of their JAR
+     *
+     * @see PluginRegistry#getPlugin(Path)
+     */
+    private final Map<Path, Plugin> plugins = new ConcurrentHashMap<>();
+    /**
+     * Parent of ClassLoader of plugins
+     */
+    private final ClassLoader parent;
+
+    /**
+     * Create an empty registry, you should use {@link PluginRegistry#getInstance()}
+     *
+     * @param parent Parent of ClassLoader of plugins
+     * @throws NullPointerException if parent is null
+     */
+    PluginRegistry(ClassLoader parent) {
+        this.parent = Objects.requireNonNull(parent);
+    }
+
+    /**
+     * Get single instance of {@link PluginRegistry}
+     *
+     * @return Single instance of {@link PluginRegistry}
+     * @see PluginRegistry#PLUGIN_REGISTRY
+     */
+    public static PluginRegistry getInstance() {
+        return PLUGIN_REGISTRY;
+    }
+
+    /**
+     * Get plugins of a directory and its sub-directories. JAR files are read in parallel, unchanged JAR files are not
+     * read again.
+     *
+     * @param directory Directory of JAR files
+     * @return {@link Plugin} with at least one module class, ordered by path
+     * @throws NullPointerException if directory is null
+     */
+    public List<Plugin> getPlugins(String directory) {
+        Objects.requireNonNull(directory);
+        long start = System.currentTimeMillis();
+        List<Path> jars;
+        try (Stream<Path> paths = Files.walk(Paths.get(directory))) {
+            jars = paths.filter(Files::isRegularFile)
+                    .filter(path -> path.toString().toLowerCase().endsWith(".jar"))
+                    .map(path -> path.toAbsolutePath().normalize())
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+            return Collections.emptyList();
+        }
+        List<Plugin> result = jars.parallelStream()
+                .map(this::getPlugin)
+                .filter(Objects::nonNull)
+                .filter(plugin -> !plugin.getModuleClasses().isEmpty())
+                .collect(Collectors.toList());
+        LOGGER.info("{} plugins found in {} in {} ms", result.size(), directory, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Get the {@link Plugin} of a JAR file, from cache if the file has not been modified. The ClassLoader of a
+     * modified plugin is closed once the new one is registered.
+     *
+     * @param jar Absolute path of the JAR file
+     * @return {@link Plugin}, or null if the file can't be read
+     */
+    private Plugin getPlugin(Path jar) {
+        long lastModified;
+        long size;
+        try {
+            lastModified = Files.getLastModifiedTime(jar).toMillis();
+            size = Files.size(jar);
+        } catch (IOException e) {
+            LOGGER.error("Can't read {} : {}", jar, e.getMessage());
+            return null;
+        }
+        Plugin[] replaced = new Plugin[1];
+        Plugin result = plugins.compute(jar, (path, plugin) -> {
+            if (plugin != null && plugin.lastModified == lastModified && plugin.size == size) {
+                return plugin;
+            }
+            replaced[0] = plugin;
+            try {
+                JarLoader jarLoader = JarLoader.createJarLoader(path.toString());
+                List<String> classes = jarLoader == null ? Collections.emptyList() : new ArrayList<>(jarLoader.getClasses());
+                return new Plugin(path, lastModified, size, classes, parent);
+            } catch (IllegalArgumentException e) {
+                LOGGER.error("Can't load plugin {} : {}", path, e.getMessage());
+                return null;
+            }
+        });
+        if (replaced[0] != null) {
+            replaced[0].close();
+        }
+        return result;
+    }
+
+    /**
+     * JAR file of a module with its shared ClassLoader
+     */
+    public static class Plugin {
+        /**
+         * Path of the JAR file
+         */
+        private final Path path;
+        /**
+         * Modification time of the JAR file when it has been read
+         */
+        private final long lastModified;
+        /**
+         * Size of the JAR file when it has been read
+         */
+        private final long size;
+        /**
+         * Module classes declared in the manifest
+         */
+        private final List<String> moduleClasses;
+        /**
+         * Parent of {@link Plugin#classLoader}
+         */
+        private final ClassLoader parent;
+        /**
+         * ClassLoader of this plugin, created on first use
+         *
+         * @see Plugin#getClassLoader()
+         */
+        private volatile ClassLoader classLoader;
+        /**
+         * Loaded module classes, null for a class which can't be loaded
+         *
+         * @see Plugin#getClasses(Class)
+         */
+        private final Map<String, Class<?>> loadedClasses = new ConcurrentHashMap<>();
+
+        private Plugin(Path path, long lastModified, long size, List<String> moduleClasses, ClassLoader parent) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.moduleClasses = Collections.unmodifiableList(moduleClasses);
+            this.parent = parent;
+        }
+
+        /**
+         * Get path of the JAR file
+         *
+         * @return Path of the JAR file
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Get module classes declared in the manifest
+         *
+         * @return Unmodifiable list of class names
+         */
+        public List<String> getModuleClasses() {
+            return moduleClasses;
+        }
+
+        /**
+         * Get ClassLoader of this plugin, it is created once and shared by all users of this plugin
+         *
+         * @return ClassLoader
+         */
+        public ClassLoader getClassLoader() {
+            ClassLoader loader = classLoader;
+            if (loader == null) {
+                synchronized (this) {
+                    loader = classLoader;
+                    if (loader == null) {
+                        URL[] urls;
+                        try {
+                            urls = new URL[]{path.toUri().toURL()};
+                        } catch (IOException e) {
+                            throw new IllegalStateException(path + " cannot be load");
+                        }
+                        loader = AccessController.doPrivileged((PrivilegedAction<ClassLoader>) () -> new URLClassLoader(urls, parent));
+                        classLoader = loader;
+                    }
+                }
+            }
+            return loader;
+        }
+
+        /**
+         * Close the ClassLoader of this plugin if it has been created, its JAR file is released
+         */
+        synchronized void close() {
+            if (classLoader instanceof URLClassLoader) {
+                try {
+                    ((URLClassLoader) classLoader).close();
+                } catch (IOException e) {
+                    LOGGER.warn("Can't close {} : {}", path, e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Get module classes which implement an interface, each class is loaded once
+         *
+         * @param interfaceClass Interface to implement
+         * @param <T>            Type of the interface
+         * @return Module classes implementing interfaceClass
+         * @throws NullPointerException if interfaceClass is null
+         * @see ClassManager#loadClass(String, ClassLoader)
+         */
+        @SuppressWarnings("unchecked")
+        public <T> List<Class<? extends T>> getClasses(Class<T> interfaceClass) {
+            Objects.requireNonNull(interfaceClass);
+            List<Class<? extends T>> classes = new ArrayList<>();
+            for (String className : moduleClasses) {
+                Class<?> clazz = loadedClasses.computeIfAbsent(className, name -> {
+                    Class<?> loaded = ClassManager.loadClass(name, getClassLoader());
+                    return loaded == null ? Void.class : loaded;
+                });
+                if (clazz != Void.class && ClassManager.implementInterface(clazz, interfaceClass)) {
+                    classes.add((Class<? extends T>) clazz);
+                }
+            }
+            return classes;
+        }
+
+        /**
+         * Represent this plugin as a String
+         *
+         * @return Path of the JAR file
+         */
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+}
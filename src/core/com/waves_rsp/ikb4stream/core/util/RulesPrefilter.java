@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util;
+
+import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
+import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Cheap first pass of a rules based score processor : the raw text is scanned for stems of the rules, which estimates
+ * the highest score that lemmas could reach. When this estimate is below score.target, the event would most likely be
+ * dropped anyway, so sentence detection, tokenization, POS tagging and lemmatization can be skipped. Stems drop the
+ * last two characters of each word, so that regular inflections and spelling changes (city / cities, knife / knives,
+ * cheval / chevaux) still match; suppletive forms (mouse / mice, aller / va) don't and may be skipped.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see KeywordMatcher
+ * @see RulesReader
+ */
+public class RulesPrefilter {
+    /**
+     * Properties of this class
+     *
+     * @see PropertiesManager
+     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#getInstance(Class)
+     */
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(RulesPrefilter.class);
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RulesPrefilter.class);
+    /**
+     * Object to add metrics from this class
+     *
+     * @see MetricsLogger#log(String, long)
+     * @see MetricsLogger#getMetricsLogger()
+     */
+    private static final MetricsLogger METRICS_LOGGER = MetricsLogger.getMetricsLogger();
+    /**
+     * Statistics are reported each time this number of texts has been checked
+     *
+     * @see RulesPrefilter#report(long)
+     */
+    private static final int REPORT_INTERVAL = 1000;
+    /**
+     * Combining marks removed by {@link RulesPrefilter#normalize(String)}
+     */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    /**
+     * Name used in logs and metrics
+     */
+    private final String name;
+    /**
+     * Minimum number of characters of a stem, shorter words are kept whole
+     *
+     * @see RulesPrefilter#stem(String, int)
+     */
+    private static final int MIN_STEM_LENGTH = 2;
+    /**
+     * Number of trailing characters of a word which are never part of its stem, they change with inflections
+     *
+     * @see RulesPrefilter#stem(String, int)
+     */
+    private static final int INFLECTION_LENGTH = 2;
+    /**
+     * Highest score of rules sharing each stem
+     *
+     * @see RulesPrefilter#isBelowTarget(String, int)
+     */
+    private final Map<String, Integer> stemScores = new HashMap<>();
+    /**
+     * Automaton which finds stems of {@link RulesPrefilter#stemScores}
+     */
+    private final KeywordMatcher matcher;
+    /**
+     * Score an event must reach to be kept
+     */
+    private final int target;
+    /**
+     * Number of texts checked
+     */
+    private final LongAdder checked = new LongAdder();
+    /**
+     * Number of texts below target
+     */
+    private final LongAdder skipped = new LongAdder();
+    /**
+     * Number of full NLP processings recorded
+     *
+     * @see RulesPrefilter#recordNLP(long)
+     */
+    private final LongAdder nlpCount = new LongAdder();
+    /**
+     * Time spent in full NLP processings, in nanoseconds
+     *
+     * @see RulesPrefilter#recordNLP(long)
+     */
+    private final LongAdder nlpTime = new LongAdder();
+
+    /**
+     * Constructor, you should use {@link RulesPrefilter#create(String, Map, int)}
+     *
+     * @param name       Name used in logs and metrics
+     * @param rules      Rules word, score
+     * @param stemLength Maximum number of characters kept from each word of rules
+     * @param target     Score an event must reach to be kept
+     * @throws NullPointerException     if name or rules is null
+     * @throws IllegalArgumentException if stemLength is not positive
+     */
+    RulesPrefilter(String name, Map<String, Integer> rules, int stemLength, int target) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(rules);
+        if (stemLength <= 0) {
+            throw new IllegalArgumentException("Stem length must be positive");
+        }
+        this.name = name;
+        this.target = target;
+        rules.forEach((word, score) -> {
+            String normalized = normalize(word.trim());
+            if (score > 0 && !normalized.isEmpty()) {
+                stemScores.merge(stem(normalized, stemLength), score, Math::max);
+            }
+        });
+        this.matcher = KeywordMatcher.create(stemScores.keySet());
+    }
+
+    /**
+     * Create a {@link RulesPrefilter} for rules, target is score.target of {@link RulesPrefilter#PROPERTIES_MANAGER}
+     *
+     * @param name       Name used in logs and metrics
+     * @param rules      Rules word, score
+     * @param stemLength Maximum number of characters kept from each word of rules
+     * @return {@link RulesPrefilter}
+     * @throws NullPointerException     if name or rules is null
+     * @throws IllegalArgumentException if stemLength is not positive
+     */
+    public static RulesPrefilter create(String name, Map<String, Integer> rules, int stemLength) {
+        int target = 25;
+        try {
+            target = Integer.parseInt(PROPERTIES_MANAGER.getProperty("score.target"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for score.target");
+        }
+        return new RulesPrefilter(name, rules, stemLength, target);
+    }
+
+    /**
+     * Lower case text without accents, so that surface forms match stems of rules
+     *
+     * @param text Text to normalize
+     * @return Normalized text
+     * @throws NullPointerException if text is null
+     */
+    static String normalize(String text) {
+        Objects.requireNonNull(text);
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+    }
+
+    /**
+     * Get the stem of a normalized word : at most stemLength characters, and never its last
+     * {@link RulesPrefilter#INFLECTION_LENGTH} characters unless the stem would be shorter than
+     * {@link RulesPrefilter#MIN_STEM_LENGTH}
+     *
+     * @param word       Normalized word of a rule
+     * @param stemLength Maximum number of characters kept
+     * @return Stem of word
+     */
+    static String stem(String word, int stemLength) {
+        int length = Math.min(stemLength, Math.max(MIN_STEM_LENGTH, word.length() - INFLECTION_LENGTH));
+        return word.length() > length ? word.substring(0, length) : word;
+    }
+
+    /**
+     * Check if a text can't reach target. Each occurrence of a stem counts for the highest score of rules sharing it,
+     * multiplied by coefficient. This over-estimates the score of all forms sharing the stem of a rule, but a form
+     * which doesn't start with it (e.g. a suppletive plural or conjugation) is not counted.
+     *
+     * @param text        Raw text of the event
+     * @param coefficient Highest coefficient the score processor can apply to a word
+     * @return true if full NLP processing can be skipped
+     * @throws NullPointerException if text is null
+     */
+    public boolean isBelowTarget(String text, int coefficient) {
+        Objects.requireNonNull(text);
+        boolean below = target > 0
+                && matcher.sum(normalize(text), stem -> stemScores.get(stem) * coefficient, target) < target;
+        checked.increment();
+        if (below) {
+            skipped.increment();
+        }
+        report(checked.sum());
+        return below;
+    }
+
+    /**
+     * Record time spent in a full NLP processing, used to estimate time saved
+     *
+     * @param time Time in nanoseconds
+     */
+    public void recordNLP(long time) {
+        nlpCount.increment();
+        nlpTime.add(time);
+    }
+
+    /**
+     * Get number of texts checked
+     *
+     * @return Number of texts checked
+     */
+    public long getChecked() {
+        return checked.sum();
+    }
+
+    /**
+     * Get number of texts below target
+     *
+     * @return Number of texts whose NLP processing has been skipped
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Estimate time saved : average time of a full NLP processing multiplied by number of skipped texts
+     *
+     * @return Time in milliseconds
+     */
+    public long getSavedTime() {
+        long count = nlpCount.sum();
+        return count == 0 ? 0 : nlpTime.sum() / count * skipped.sum() / 1_000_000;
+    }
+
+    /**
+     * Log skip ratio and time saved every {@link RulesPrefilter#REPORT_INTERVAL} texts
+     *
+     * @param count Number of texts checked
+     */
+    private void report(long count) {
+        if (count % REPORT_INTERVAL != 0) {
+            return;
+        }
+        long skippedCount = skipped.sum();
+        long saved = getSavedTime();
+        LOGGER.info("{} : {} / {} events skipped before NLP, about {} ms saved", name, skippedCount, count, saved);
+        METRICS_LOGGER.log("prefilter_skip_ratio_" + name, skippedCount * 100 / count);
+        METRICS_LOGGER.log("prefilter_saved_" + name, saved);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent watermarks of incremental sources : for each key (e.g. url of a feed), the last published date seen and
+ * the identifiers of the last entries seen. Identifiers are recorded entry by entry with
+ * {@link WatermarkStore#markSeen(String, String)}, the date is raised once a whole fetch has been processed with
+ * {@link WatermarkStore#advance(String, Date)}, so entries of the same fetch are all compared to the same date whatever
+ * their order. Updates are kept in memory and written to disk periodically by a background Thread, the file is replaced
+ * atomically.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ */
+public class WatermarkStore {
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatermarkStore.class);
+    /**
+     * Object used to read and write the file of watermarks
+     *
+     * @see WatermarkStore#load()
+     * @see WatermarkStore#flush()
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /**
+     * File where watermarks are stored
+     *
+     * @see WatermarkStore#flush()
+     */
+    private final Path path;
+    /**
+     * Maximum number of identifiers kept by key
+     *
+     * @see Watermark#add(String, int)
+     */
+    private final int maxIds;
+    /**
+     * Watermark of each key
+     *
+     * @see WatermarkStore#isNew(String, String, Date)
+     * @see WatermarkStore#markSeen(String, String)
+     * @see WatermarkStore#advance(String, Date)
+     */
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+    /**
+     * True if watermarks have been updated since last write
+     *
+     * @see WatermarkStore#flush()
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    /**
+     * Background Thread which writes watermarks
+     *
+     * @see WatermarkStore#close()
+     */
+    private final ScheduledExecutorService writer;
+
+    /**
+     * Private constructor, you must use {@link WatermarkStore#createWatermarkStore(String, int, long)}
+     *
+     * @param path          File where watermarks are stored
+     * @param maxIds        Maximum number of identifiers kept by key
+     * @param flushInterval Interval time in milliseconds between two writes
+     */
+    private WatermarkStore(Path path, int maxIds, long flushInterval) {
+        this.path = path;
+        this.maxIds = maxIds;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("Watermark writer " + path.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a {@link WatermarkStore} and load watermarks already stored in path
+     *
+     * @param path          File where watermarks are stored
+     * @param maxIds        Maximum number of identifiers kept by key
+     * @param flushInterval Interval time in milliseconds between two writes
+     * @return {@link WatermarkStore}
+     * @throws NullPointerException     if path is null
+     * @throws IllegalArgumentException if maxIds or flushInterval is not positive
+     */
+    public static WatermarkStore createWatermarkStore(String path, int maxIds, long flushInterval) {
+        Objects.requireNonNull(path);
+        if (maxIds <= 0 || flushInterval <= 0) {
+            throw new IllegalArgumentException("maxIds and flushInterval must be positive");
+        }
+        WatermarkStore watermarkStore = new WatermarkStore(Paths.get(path), maxIds, flushInterval);
+        watermarkStore.load();
+        return watermarkStore;
+    }
+
+    /**
+     * Read watermarks from {@link WatermarkStore#path}, nothing is loaded if file doesn't exist or is invalid
+     *
+     * @see WatermarkStore#path
+     */
+    private void load() {
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            JsonNode root = MAPPER.readTree(path.toFile());
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Watermark watermark = new Watermark(field.getValue().path("lastPublished").asLong(0));
+                field.getValue().path("ids").forEach(id -> watermark.ids.add(id.asText()));
+                watermarks.put(field.getKey(), watermark);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Can't read watermarks {} : {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Check if an entry has not been seen yet. The published date is compared to the date given to the last call of
+     * {@link WatermarkStore#advance(String, Date)}, which doesn't move while a fetch is processed.
+     *
+     * @param key       Key of the source (e.g. url of a feed)
+     * @param id        Identifier of the entry
+     * @param published Published date of the entry, can be null
+     * @return true if the entry is unknown and not older than the last published date of previous fetches
+     * @throws NullPointerException if key or id is null
+     */
+    public boolean isNew(String key, String id, Date published) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(id);
+        Watermark watermark = watermarks.get(key);
+        return watermark == null || watermark.isNew(id, published == null ? Long.MAX_VALUE : published.getTime());
+    }
+
+    /**
+     * Get the last published date seen for a key
+     *
+     * @param key Key of the source (e.g. url of a feed)
+     * @return Last published date, or null if nothing has been seen for this key
+     * @throws NullPointerException if key is null
+     */
+    public Date getLastPublished(String key) {
+        Objects.requireNonNull(key);
+        Watermark watermark = watermarks.get(key);
+        return watermark == null ? null : new Date(watermark.lastPublished);
+    }
+
+    /**
+     * Record the identifier of an entry as seen, it will be written on disk later. The published date of the key is not
+     * changed, see {@link WatermarkStore#advance(String, Date)}.
+     *
+     * @param key Key of the source (e.g. url of a feed)
+     * @param id  Identifier of the entry
+     * @throws NullPointerException if key or id is null
+     * @see WatermarkStore#dirty
+     */
+    public void markSeen(String key, String id) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(id);
+        watermarks.computeIfAbsent(key, k -> new Watermark(0)).add(id, maxIds);
+        dirty.set(true);
+    }
+
+    /**
+     * Raise the last published date of a key, must be called once all entries of a fetch have been processed
+     *
+     * @param key       Key of the source (e.g. url of a feed)
+     * @param published Most recent published date of the fetch, nothing is changed if null
+     * @throws NullPointerException if key is null
+     * @see WatermarkStore#dirty
+     */
+    public void advance(String key, Date published) {
+        Objects.requireNonNull(key);
+        if (published == null) {
+            return;
+        }
+        watermarks.computeIfAbsent(key, k -> new Watermark(0)).advance(published.getTime());
+        dirty.set(true);
+    }
+
+    /**
+     * Write all watermarks if they have been updated. Data is written with {@link AtomicFileWriter}, so a crash never
+     * leaves a truncated file.
+     *
+     * @see WatermarkStore#dirty
+     * @see WatermarkStore#path
+     */
+    public void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        ObjectNode root = MAPPER.createObjectNode();
+        watermarks.forEach((key, watermark) -> {
+            ObjectNode node = root.putObject(key);
+            synchronized (watermark) {
+                node.put("lastPublished", watermark.lastPublished);
+                ArrayNode ids = node.putArray("ids");
+                watermark.ids.forEach(ids::add);
+            }
+        });
+        try {
+            AtomicFileWriter.write(path, stream -> MAPPER.writeValue(stream, root));
+        } catch (IOException e) {
+            dirty.set(true);
+            LOGGER.error("Can't write watermarks {} : {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Stop background Thread and write pending updates
+     *
+     * @see WatermarkStore#writer
+     * @see WatermarkStore#flush()
+     */
+    public void close() {
+        writer.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Watermark of one key
+     */
+    private static class Watermark {
+        /**
+         * Last published date seen, in milliseconds
+         */
+        private long lastPublished;
+        /**
+         * Identifiers of last entries seen, in insertion order
+         */
+        private final LinkedHashSet<String> ids = new LinkedHashSet<>();
+
+        private Watermark(long lastPublished) {
+            this.lastPublished = lastPublished;
+        }
+
+        private synchronized boolean isNew(String id, long published) {
+            return published >= lastPublished && !ids.contains(id);
+        }
+
+        private synchronized void advance(long published) {
+            lastPublished = Math.max(lastPublished, published);
+        }
+
+        private synchronized void add(String id, int maxIds) {
+            ids.remove(id);
+            ids.add(id);
+            Iterator<String> iterator = ids.iterator();
+            while (ids.size() > maxIds && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * In-memory spatial index of monitored zones, loaded from a GeoJSON FeatureCollection of Polygon or MultiPolygon.
+ * Zones are registered in every cell of a regular grid they cover, so a lookup only tests the zones of the cells
+ * covered by a {@link Geometry}.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see ZoneIndex#createZoneIndex(String, double)
+ */
+public class ZoneIndex {
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZoneIndex.class);
+    /**
+     * Size of a cell of the grid in degrees
+     *
+     * @see ZoneIndex#cell(double, double)
+     */
+    private final double cellSize;
+    /**
+     * All zones
+     *
+     * @see ZoneIndex#size()
+     */
+    private final List<Zone> zones;
+    /**
+     * Zones of each cell of the grid
+     *
+     * @see ZoneIndex#candidates(Geometry)
+     */
+    private final Map<Long, List<Zone>> grid = new HashMap<>();
+
+    /**
+     * Private constructor, you must use {@link ZoneIndex#createZoneIndex(String, double)}
+     *
+     * @param zones    All zones
+     * @param cellSize Size of a cell of the grid in degrees
+     */
+    private ZoneIndex(List<Zone> zones, double cellSize) {
+        this.zones = zones;
+        this.cellSize = cellSize;
+        for (Zone zone : zones) {
+            int minX = column(zone.minLongitude);
+            int maxX = column(zone.maxLongitude);
+            int minY = row(zone.minLatitude);
+            int maxY = row(zone.maxLatitude);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    grid.computeIfAbsent(cell(x, y), k -> new ArrayList<>()).add(zone);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load zones from a GeoJSON file. Only outer rings of Polygon and MultiPolygon features are used, the name of a
+     * zone is its "name" property or its position in the file.
+     *
+     * @param path     GeoJSON file
+     * @param cellSize Size of a cell of the grid in degrees
+     * @return {@link ZoneIndex}
+     * @throws NullPointerException     if path is null
+     * @throws IllegalArgumentException if cellSize is not positive
+     * @throws IllegalStateException    if file can't be read
+     */
+    public static ZoneIndex createZoneIndex(String path, double cellSize) {
+        Objects.requireNonNull(path);
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        List<Zone> zones = new ArrayList<>();
+        try {
+            JsonNode root = new ObjectMapper().readTree(new File(path));
+            for (JsonNode feature : root.path("features")) {
+                String name = feature.path("properties").path("name").asText(String.valueOf(zones.size()));
+                JsonNode geometry = feature.path("geometry");
+                String type = geometry.path("type").asText();
+                if ("Polygon".equals(type)) {
+                    zones.add(new Zone(name, readRing(geometry.path("coordinates").path(0))));
+                } else if ("MultiPolygon".equals(type)) {
+                    for (JsonNode polygon : geometry.path("coordinates")) {
+                        zones.add(new Zone(name, readRing(polygon.path(0))));
+                    }
+                } else {
+                    LOGGER.warn("Zone {} is ignored, {} is not supported", name, type);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.error("Can't read zones {} : {}", path, e.getMessage());
+            throw new IllegalStateException("Invalid zones file " + path);
+        }
+        LOGGER.info("{} zones loaded from {}", zones.size(), path);
+        return new ZoneIndex(zones, cellSize);
+    }
+
+    /**
+     * Read a GeoJSON ring
+     *
+     * @param ring Array of [longitude, latitude]
+     * @return Interleaved longitude/latitude pairs
+     * @throws IllegalArgumentException if ring has less than 3 vertices
+     */
+    private static double[] readRing(JsonNode ring) {
+        if (ring.size() < 3) {
+            throw new IllegalArgumentException("A zone needs at least 3 vertices");
+        }
+        double[] coordinates = new double[ring.size() * 2];
+        for (int i = 0; i < ring.size(); i++) {
+            coordinates[2 * i] = ring.path(i).path(0).asDouble();
+            coordinates[2 * i + 1] = ring.path(i).path(1).asDouble();
+        }
+        return coordinates;
+    }
+
+    /**
+     * Get number of zones
+     *
+     * @return Number of zones
+     */
+    public int size() {
+        return zones.size();
+    }
+
+    /**
+     * Find zones which intersect a {@link Geometry}
+     *
+     * @param geometry {@link Geometry} of an event
+     * @return Names of zones, empty if the geometry is outside every zone
+     * @throws NullPointerException if geometry is null
+     */
+    public Set<String> findZones(Geometry geometry) {
+        Objects.requireNonNull(geometry);
+        Set<String> names = new LinkedHashSet<>();
+        for (Zone zone : candidates(geometry)) {
+            if (!names.contains(zone.name) && zone.intersects(geometry)) {
+                names.add(zone.name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Check if a {@link Geometry} intersects at least one zone
+     *
+     * @param geometry {@link Geometry} of an event
+     * @return true if a zone intersects geometry
+     * @throws NullPointerException if geometry is null
+     */
+    public boolean intersects(Geometry geometry) {
+        Objects.requireNonNull(geometry);
+        for (Zone zone : candidates(geometry)) {
+            if (zone.intersects(geometry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get zones registered in cells covered by the bounding box of a {@link Geometry}. All zones are returned if the
+     * bounding box covers more cells than there are zones.
+     *
+     * @param geometry {@link Geometry} of an event
+     * @return Zones which may intersect geometry, a zone can be returned several times
+     */
+    private Iterable<Zone> candidates(Geometry geometry) {
+        int minX = column(geometry.getMinLongitude());
+        int maxX = column(geometry.getMaxLongitude());
+        int minY = row(geometry.getMinLatitude());
+        int maxY = row(geometry.getMaxLatitude());
+        if (minX == maxX && minY == maxY) {
+            return grid.getOrDefault(cell(minX, minY), Collections.emptyList());
+        }
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > zones.size()) {
+            return zones;
+        }
+        List<Zone> candidates = new ArrayList<>();
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                candidates.addAll(grid.getOrDefault(cell(x, y), Collections.emptyList()));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Get column of a longitude in the grid
+     *
+     * @param longitude Longitude
+     * @return Column
+     */
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellSize);
+    }
+
+    /**
+     * Get row of a latitude in the grid
+     *
+     * @param latitude Latitude
+     * @return Row
+     */
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellSize);
+    }
+
+    /**
+     * Get key of a cell of the grid
+     *
+     * @param column Column of the cell
+     * @param row    Row of the cell
+     * @return Key of the cell
+     */
+    private static long cell(int column, int row) {
+        return ((long) column << 32) | (row & 0xffffffffL);
+    }
+
+    /**
+     * Monitored polygon
+     */
+    private static class Zone {
+        /**
+         * Name of the zone
+         */
+        private final String name;
+        /**
+         * Interleaved longitude/latitude pairs of the outer ring
+         */
+        private final double[] ring;
+        private final double minLatitude;
+        private final double minLongitude;
+        private final double maxLatitude;
+        private final double maxLongitude;
+
+        private Zone(String name, double[] ring) {
+            this.name = name;
+            this.ring = ring;
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLon = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLon = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < ring.length; i += 2) {
+                minLon = Math.min(minLon, ring[i]);
+                maxLon = Math.max(maxLon, ring[i]);
+                minLat = Math.min(minLat, ring[i + 1]);
+                maxLat = Math.max(maxLat, ring[i + 1]);
+            }
+            this.minLatitude = minLat;
+            this.minLongitude = minLon;
+            this.maxLatitude = maxLat;
+            this.maxLongitude = maxLon;
+        }
+
+        /**
+         * Check if this zone intersects a {@link Geometry}
+         *
+         * @param geometry {@link Geometry} of an event
+         * @return true if they intersect
+         */
+        private boolean intersects(Geometry geometry) {
+            if (geometry.getMinLatitude() > maxLatitude || geometry.getMaxLatitude() < minLatitude
+                    || geometry.getMinLongitude() > maxLongitude || geometry.getMaxLongitude() < minLongitude) {
+                return false;
+            }
+            for (int i = 0; i < geometry.size(); i++) {
+                if (contains(ring, geometry.getLongitude(i), geometry.getLatitude(i))) {
+                    return true;
+                }
+            }
+            if (geometry.isPoint()) {
+                return false;
+            }
+            double[] other = new double[geometry.size() * 2];
+            for (int i = 0; i < geometry.size(); i++) {
+                other[2 * i] = geometry.getLongitude(i);
+                other[2 * i + 1] = geometry.getLatitude(i);
+            }
+            if (contains(other, ring[0], ring[1])) {
+                return true;
+            }
+            for (int i = 0; i < ring.length; i += 2) {
+                int j = (i + 2) % ring.length;
+                for (int k = 0; k < other.length; k += 2) {
+                    int l = (k + 2) % other.length;
+                    if (segmentsIntersect(ring[i], ring[i + 1], ring[j], ring[j + 1], other[k], other[k + 1], other[l], other[l + 1])) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Check if a point is inside a ring, with ray casting
+         *
+         * @param ring      Interleaved longitude/latitude pairs
+         * @param longitude Longitude of the point
+         * @param latitude  Latitude of the point
+         * @return true if the point is inside
+         */
+        private static boolean contains(double[] ring, double longitude, double latitude) {
+            boolean inside = false;
+            for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                double xi = ring[i];
+                double yi = ring[i + 1];
+                double xj = ring[j];
+                double yj = ring[j + 1];
+                if ((yi > latitude) != (yj > latitude) && longitude < (xj - xi) * (latitude - yi) / (yj - yi) + xi) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        /**
+         * Check if segments [a, b] and [c, d] intersect
+         *
+         * @return true if they intersect
+         */
+        private static boolean segmentsIntersect(double ax, double ay, double bx, double by,
+                                                 double cx, double cy, double dx, double dy) {
+            double d1 = cross(cx, cy, dx, dy, ax, ay);
+            double d2 = cross(cx, cy, dx, dy, bx, by);
+            double d3 = cross(ax, ay, bx, by, cx, cy);
+            double d4 = cross(ax, ay, bx, by, dx, dy);
+            return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+        }
+
+        /**
+         * Cross product of (b - a) and (c - a)
+         *
+         * @return Cross product
+         */
+        private static double cross(double ax, double ay, double bx, double by, double cx, double cy) {
+            return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util.nlp;
+
+import opennlp.tools.lemmatizer.DictionaryLemmatizer;
+import opennlp.tools.namefind.NameFinderME;
+import opennlp.tools.postag.POSTaggerME;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.tokenize.Tokenizer;
+import opennlp.tools.tokenize.TokenizerME;
+import opennlp.tools.util.Span;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * OpenNLP tools of one language : sentence detector, tokenizer, part-of-speech tagger, lemmatizer and name finders.
+ * Like {@link OpenNLP}, it must be used by a single Thread.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see OpenNLP
+ * @see LoaderNLP
+ */
+class LanguagePipeline {
+    /**
+     * Code of the language in properties (e.g. fr)
+     *
+     * @see LoaderNLP
+     */
+    private final String code;
+    /**
+     * Use to do sentence detection
+     *
+     * @see LanguagePipeline#detectSentences(String)
+     */
+    private final SentenceDetectorME detector;
+    /**
+     * Use to apply tokenization
+     *
+     * @see LanguagePipeline#tokenize(String)
+     */
+    private final Tokenizer tokenizer;
+    /**
+     * Use to apply part-of-speech tagger
+     *
+     * @see LanguagePipeline#tag(String[])
+     */
+    private final POSTaggerME tagger;
+    /**
+     * Lemmatizer shared by all Threads
+     *
+     * @see LanguagePipeline#lemmatize(String, String)
+     */
+    private final DictionaryLemmatizer lemmatizer;
+    /**
+     * Name finders, created on first use except the location one
+     *
+     * @see LanguagePipeline#findNames(String[], OpenNLP.nerOptions)
+     */
+    private final Map<OpenNLP.nerOptions, NameFinderME> nameFinders = new EnumMap<>(OpenNLP.nerOptions.class);
+
+    /**
+     * Create the tools of a language, its models are loaded by {@link LoaderNLP} if needed
+     *
+     * @param code Code of the language in properties (e.g. fr)
+     * @throws NullPointerException  if code is null
+     * @throws IllegalStateException if a model can't be loaded
+     */
+    LanguagePipeline(String code) {
+        this.code = Objects.requireNonNull(code);
+        this.detector = new SentenceDetectorME(LoaderNLP.getSentenceModel(code));
+        this.tokenizer = new TokenizerME(LoaderNLP.getTokenizerModel(code));
+        this.tagger = new POSTaggerME(LoaderNLP.getPosModel(code));
+        this.lemmatizer = LoaderNLP.getLemmatizer(code);
+        getNameFinder(OpenNLP.nerOptions.LOCATION);
+    }
+
+    /**
+     * Split a text in sentences
+     *
+     * @param text to analyze
+     * @return an array of sentences
+     */
+    String[] detectSentences(String text) {
+        return detector.sentDetect(text);
+    }
+
+    /**
+     * Tokenize a sentence
+     *
+     * @param sentence to tokenize
+     * @return an array of words
+     */
+    String[] tokenize(String sentence) {
+        return tokenizer.tokenize(sentence);
+    }
+
+    /**
+     * Affect a tag to each word (V, NC, NP, ADJ...)
+     *
+     * @param tokens is a tokenize text
+     * @return an array of posTag
+     */
+    String[] tag(String[] tokens) {
+        return tagger.tag(tokens);
+    }
+
+    /**
+     * Get lemma of a word
+     *
+     * @param token word to lemmatize
+     * @param tag   posTag of the word
+     * @return lemma of the word
+     */
+    String lemmatize(String token, String tag) {
+        return lemmatizer.lemmatize(token, tag);
+    }
+
+    /**
+     * Name entity recognizer function
+     *
+     * @param tokens are an array of string to analyze
+     * @param ner    type of entity to detect
+     * @return an array of entity detected
+     * @throws IllegalStateException if the model can't be loaded
+     */
+    Span[] findNames(String[] tokens, OpenNLP.nerOptions ner) {
+        return getNameFinder(ner).find(tokens);
+    }
+
+    /**
+     * Check if the name finder of a type of entity has been created
+     *
+     * @param ner type of entity
+     * @return true if it is in {@link LanguagePipeline#nameFinders}
+     */
+    boolean hasNameFinder(OpenNLP.nerOptions ner) {
+        return nameFinders.containsKey(ner);
+    }
+
+    /**
+     * Get the name finder of a type of entity, its model is nlp.code.tokenname.type
+     *
+     * @param ner type of entity
+     * @return {@link NameFinderME}
+     * @see LanguagePipeline#nameFinders
+     */
+    private NameFinderME getNameFinder(OpenNLP.nerOptions ner) {
+        return nameFinders.computeIfAbsent(ner, n ->
+                new NameFinderME(LoaderNLP.getTokenNameFinderModel(code, n.name().toLowerCase())));
+    }
+}
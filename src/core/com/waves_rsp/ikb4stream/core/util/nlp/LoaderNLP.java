@@ -18,7 +18,10 @@
 
 package com.waves_rsp.ikb4stream.core.util.nlp;
 
+import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import opennlp.tools.lemmatizer.DictionaryLemmatizer;
+import opennlp.tools.lemmatizer.SimpleLemmatizer;
 import opennlp.tools.namefind.TokenNameFinderModel;
 import opennlp.tools.postag.POSModel;
 import opennlp.tools.sentdetect.SentenceModel;
@@ -26,18 +29,26 @@ import opennlp.tools.tokenize.TokenizerModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Load NLP binaries to permit to library OpenNLP to be executed in multiple thread
+ * Load NLP binaries to permit to library OpenNLP to be executed in multiple thread. Each model is read once, on first
+ * use of its language and type, and models requested together are read in parallel.
  *
  * @author ikb4stream
  * @version 1.0
  */
 class LoaderNLP {
-
     /**
      * Properties of this class
      *
@@ -45,55 +56,42 @@ class LoaderNLP {
      * @see PropertiesManager#getProperty(String)
      * @see PropertiesManager#getInstance(Class)
      */
-    static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(LoaderNLP.class);
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(LoaderNLP.class);
     /**
      * Logger used to log all information in this class
      */
-    static final Logger LOGGER = LoggerFactory.getLogger(LoaderNLP.class);
-
-    /**
-     * Load model to apply person name finder
-     *
-     * @see LoaderNLP#getFrTokenNameFinderModelPers()
-     */
-    static final TokenNameFinderModel FR_TOKEN_NAME_FINDER_MODEL_PERS;
-    static final TokenNameFinderModel EN_TOKEN_NAME_FINDER_MODEL_PERS;
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoaderNLP.class);
     /**
-     * Load model to apply organization name finder
+     * Object to add metrics from this class
      *
-     * @see LoaderNLP#getFrTokenNameFinderModelOrg()
+     * @see MetricsLogger#log(String, long)
+     * @see MetricsLogger#getMetricsLogger()
      */
-    static final TokenNameFinderModel FR_TOKEN_NAME_FINDER_MODEL_ORG;
-    static final TokenNameFinderModel EN_TOKEN_NAME_FINDER_MODEL_ORG;
+    private static final MetricsLogger METRICS_LOGGER = MetricsLogger.getMetricsLogger();
     /**
-     * Load model to apply localisation name finder
+     * Size of the buffer used to read a model, {@value BUFFER_SIZE} bytes
      *
-     * @see LoaderNLP#getFrTokenNameFinderModelLoc()
+     * @see LoaderNLP#read(String, ModelReader)
      */
-    static final TokenNameFinderModel FR_TOKEN_NAME_FINDER_MODEL_LOC;
-    static final TokenNameFinderModel EN_TOKEN_NAME_FINDER_MODEL_LOC;
+    private static final int BUFFER_SIZE = 1 << 16;
     /**
-     * Load model to apply tokenization
+     * Models loaded or being loaded, by property of their file (e.g. nlp.fr.sentence)
      *
-     * @see LoaderNLP#getFrTokenizerModel()
+     * @see LoaderNLP#load(String, String, ModelReader)
      */
-    static final TokenizerModel FR_TOKENIZER_MODEL;
-    static final TokenizerModel EN_TOKENIZER_MODEL;
+    private static final Map<String, CompletableFuture<Object>> MODELS = new ConcurrentHashMap<>();
     /**
-     * Load model to apply sentence detection
+     * Threads which read models
      *
-     * @see LoaderNLP#getFrSentenceModel()
+     * @see LoaderNLP#load(String, String, ModelReader)
      */
-    static final SentenceModel FR_SENTENCE_MODEL;
-    static final SentenceModel EN_SENTENCE_MODEL;
-    /**
-     * Load model to apply part-of-speech tagger
-     *
-     * @see LoaderNLP#getFrPosModel()
-     */
-    static final POSModel FR_POS_MODEL;
-    static final POSModel EN_POS_MODEL;
-
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setName("NLP model loader");
+                thread.setDaemon(true);
+                return thread;
+            });
 
     /**
      * Private constructor to block instantiation
@@ -104,123 +102,172 @@ class LoaderNLP {
     }
 
     /**
-     * Get model to apply person name finder
+     * Start loading in parallel models used to lemmatize and to find locations in a language, without waiting
      *
-     * @return {@link LoaderNLP#FR_TOKEN_NAME_FINDER_MODEL_PERS}
-     * @see LoaderNLP#FR_TOKEN_NAME_FINDER_MODEL_PERS
+     * @param lang Code of the language in properties (e.g. fr)
      */
-    static TokenNameFinderModel getFrTokenNameFinderModelPers() {
-        return FR_TOKEN_NAME_FINDER_MODEL_PERS;
+    static void preload(String lang) {
+        load(lang, "sentence", SentenceModel::new);
+        load(lang, "tokenizer", TokenizerModel::new);
+        load(lang, "posmodel", POSModel::new);
+        load(lang, "tokenname.location", TokenNameFinderModel::new);
+        load(lang, "dictionaries.path", SimpleLemmatizer::new);
     }
-    static TokenNameFinderModel getEnTokenNameFinderModelPers() {return EN_TOKEN_NAME_FINDER_MODEL_PERS;}
 
     /**
-     * Get model to apply organization name finder
+     * Get model to apply sentence detection
      *
-     * @return {@link LoaderNLP#FR_TOKEN_NAME_FINDER_MODEL_ORG}
-     * @see LoaderNLP#FR_TOKEN_NAME_FINDER_MODEL_ORG
+     * @param lang Code of the language in properties (e.g. fr)
+     * @return {@link SentenceModel} of nlp.lang.sentence
+     * @throws IllegalStateException if the model can't be loaded
      */
-    static TokenNameFinderModel getFrTokenNameFinderModelOrg() {
-        return FR_TOKEN_NAME_FINDER_MODEL_ORG;
+    static SentenceModel getSentenceModel(String lang) {
+        return get(lang, "sentence", SentenceModel::new);
     }
-    static TokenNameFinderModel getEnTokenNameFinderModelOrg() {return EN_TOKEN_NAME_FINDER_MODEL_ORG;}
 
     /**
-     * Get model to apply location name finder
+     * Get model to apply tokenization
      *
-     * @return {@link LoaderNLP#FR_TOKEN_NAME_FINDER_MODEL_LOC}
-     * @see LoaderNLP#FR_TOKEN_NAME_FINDER_MODEL_LOC
+     * @param lang Code of the language in properties (e.g. fr)
+     * @return {@link TokenizerModel} of nlp.lang.tokenizer
+     * @throws IllegalStateException if the model can't be loaded
      */
-    static TokenNameFinderModel getFrTokenNameFinderModelLoc() {
-        return FR_TOKEN_NAME_FINDER_MODEL_LOC;
+    static TokenizerModel getTokenizerModel(String lang) {
+        return get(lang, "tokenizer", TokenizerModel::new);
     }
-    static TokenNameFinderModel getEnTokenNameFinderModelLoc() {
-        return EN_TOKEN_NAME_FINDER_MODEL_LOC;
+
+    /**
+     * Get model to apply part-of-speech tagger
+     *
+     * @param lang Code of the language in properties (e.g. fr)
+     * @return {@link POSModel} of nlp.lang.posmodel
+     * @throws IllegalStateException if the model can't be loaded
+     */
+    static POSModel getPosModel(String lang) {
+        return get(lang, "posmodel", POSModel::new);
     }
+
     /**
-     * Get model to apply tokenization
+     * Get model to apply a name finder
      *
-     * @return {@link LoaderNLP#FR_TOKENIZER_MODEL}
-     * @see LoaderNLP#FR_TOKENIZER_MODEL
+     * @param lang   Code of the language in properties (e.g. fr)
+     * @param entity Type of entity : location, organization or person
+     * @return {@link TokenNameFinderModel} of nlp.lang.tokenname.entity
+     * @throws IllegalStateException if the model can't be loaded
      */
-    static TokenizerModel getFrTokenizerModel() {
-        return FR_TOKENIZER_MODEL;
+    static TokenNameFinderModel getTokenNameFinderModel(String lang, String entity) {
+        return get(lang, "tokenname." + entity, TokenNameFinderModel::new);
     }
-    static TokenizerModel getEnTokenizerModel() {
-        return EN_TOKENIZER_MODEL;
+
+    /**
+     * Get lemmatizer, it is shared by all Threads because it is only read
+     *
+     * @param lang Code of the language in properties (e.g. fr)
+     * @return {@link DictionaryLemmatizer} of nlp.lang.dictionaries.path
+     * @throws IllegalStateException if the dictionary can't be loaded
+     */
+    static DictionaryLemmatizer getLemmatizer(String lang) {
+        return get(lang, "dictionaries.path", SimpleLemmatizer::new);
     }
 
     /**
-     * Get model to apply sentence detection
+     * Wait a model, its loading is started if needed
      *
-     * @return {@link LoaderNLP#FR_SENTENCE_MODEL}
-     * @see LoaderNLP#FR_SENTENCE_MODEL
+     * @param lang   Code of the language in properties
+     * @param model  Type of model in properties
+     * @param reader Create the model from its file
+     * @param <T>    Class of the model
+     * @return Model
+     * @throws IllegalStateException if the model can't be loaded
      */
-    static SentenceModel getFrSentenceModel() {
-        return FR_SENTENCE_MODEL;
+    @SuppressWarnings("unchecked")
+    private static <T> T get(String lang, String model, ModelReader<T> reader) {
+        CompletableFuture<Object> future = load(lang, model, reader);
+        try {
+            return (T) future.join();
+        } catch (CompletionException e) {
+            MODELS.remove(property(lang, model), future);
+            throw new IllegalStateException(e.getCause());
+        }
     }
-    static SentenceModel getEnSentenceModel() {
-        return EN_SENTENCE_MODEL;
+
+    /**
+     * Check if a model has been requested and is loaded or being loaded
+     *
+     * @param lang  Code of the language in properties
+     * @param model Type of model in properties
+     * @return true if the model is in {@link LoaderNLP#MODELS}
+     */
+    static boolean isRequested(String lang, String model) {
+        return MODELS.containsKey(property(lang, model));
     }
+
     /**
-     * Get model to apply part-of-speech tagger
+     * Start loading a model by {@link LoaderNLP#LOADER}, unless it is already loaded or being loaded. A model which
+     * can't be loaded is removed from {@link LoaderNLP#MODELS}, so it is read again on next request.
      *
-     * @return {@link LoaderNLP#FR_POS_MODEL}
-     * @see LoaderNLP#FR_POS_MODEL
+     * @param lang   Code of the language in properties
+     * @param model  Type of model in properties
+     * @param reader Create the model from its file
+     * @param <T>    Class of the model
+     * @return Model when it is loaded
+     * @see LoaderNLP#MODELS
      */
-    static POSModel getFrPosModel() {return FR_POS_MODEL;}
-    static POSModel getEnPosModel() {
-        return EN_POS_MODEL;
+    private static <T> CompletableFuture<Object> load(String lang, String model, ModelReader<T> reader) {
+        String property = property(lang, model);
+        CompletableFuture<Object> future = MODELS.computeIfAbsent(property,
+                p -> CompletableFuture.supplyAsync(() -> read(p, reader), LOADER));
+        future.whenComplete((m, t) -> {
+            if (t != null) {
+                MODELS.remove(property, future);
+            }
+        });
+        return future;
     }
 
-    static {
-        try {
+    /**
+     * Get property of the file of a model
+     *
+     * @param lang  Code of the language in properties
+     * @param model Type of model in properties
+     * @return nlp.lang.model
+     */
+    private static String property(String lang, String model) {
+        return "nlp." + lang + "." + model;
+    }
 
-            //FRENCH
-            InputStream fileFrSentBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.fr.sentence"));
-            FR_SENTENCE_MODEL = new SentenceModel(fileFrSentBin);
-            fileFrSentBin.close();
-            InputStream fileFrTokenBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.fr.tokenizer"));
-            FR_TOKENIZER_MODEL = new TokenizerModel(fileFrTokenBin);
-            fileFrTokenBin.close();
-            InputStream fileFrPosMaxent2Bin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.fr.posmodel"));
-            FR_POS_MODEL = new POSModel(fileFrPosMaxent2Bin);
-            fileFrPosMaxent2Bin.close();
-            InputStream frNerOrganizationBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.fr.tokenname.organization"));
-            FR_TOKEN_NAME_FINDER_MODEL_ORG = new TokenNameFinderModel(frNerOrganizationBin);
-            frNerOrganizationBin.close();
-            InputStream fileFrNerLocationBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.fr.tokenname.location"));
-            FR_TOKEN_NAME_FINDER_MODEL_LOC = new TokenNameFinderModel(fileFrNerLocationBin);
-            fileFrNerLocationBin.close();
-            InputStream fileFrNerPersonBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.fr.tokenname.person"));
-            FR_TOKEN_NAME_FINDER_MODEL_PERS = new TokenNameFinderModel(fileFrNerPersonBin);
-            fileFrNerPersonBin.close();
-
-
-            //ENGLISH
-            InputStream fileEnSentBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.en.sentence"));
-            EN_SENTENCE_MODEL = new SentenceModel(fileEnSentBin);
-            fileEnSentBin.close();
-            InputStream fileEnTokenBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.en.tokenizer"));
-            EN_TOKENIZER_MODEL = new TokenizerModel(fileEnTokenBin);
-            fileEnTokenBin.close();
-            InputStream fileEnPosMaxent2Bin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.en.posmodel"));
-            EN_POS_MODEL = new POSModel(fileEnPosMaxent2Bin);
-            fileEnPosMaxent2Bin.close();
-            InputStream enNerOrganizationBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.en.tokenname.organization"));
-            EN_TOKEN_NAME_FINDER_MODEL_ORG = new TokenNameFinderModel(enNerOrganizationBin);
-            enNerOrganizationBin.close();
-            InputStream fileEnNerLocationBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.en.tokenname.location"));
-            EN_TOKEN_NAME_FINDER_MODEL_LOC = new TokenNameFinderModel(fileEnNerLocationBin);
-            fileEnNerLocationBin.close();
-            InputStream fileEnNerPersonBin = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.en.tokenname.person"));
-            EN_TOKEN_NAME_FINDER_MODEL_PERS = new TokenNameFinderModel(fileEnNerPersonBin);
-            fileEnNerPersonBin.close();
-        } catch (IllegalArgumentException | IOException e) {
-            LOGGER.error(e.getMessage());
-            throw new IllegalStateException(e);
+    /**
+     * Read a model through a buffer and report time spent
+     *
+     * @param property Property of the file of the model
+     * @param reader   Create the model from its file
+     * @param <T>      Class of the model
+     * @return Model
+     * @throws IllegalArgumentException if property is not set
+     * @throws UncheckedIOException     if file can't be read
+     */
+    private static <T> T read(String property, ModelReader<T> reader) {
+        long start = System.currentTimeMillis();
+        String path = PROPERTIES_MANAGER.getProperty(property);
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(path), BUFFER_SIZE)) {
+            T model = reader.read(inputStream);
+            long time = System.currentTimeMillis() - start;
+            LOGGER.info("{} loaded in {} ms", path, time);
+            METRICS_LOGGER.log("time_nlp_load_" + property, time);
+            return model;
+        } catch (IOException e) {
+            LOGGER.error("Can't load {} : {}", path, e.getMessage());
+            throw new UncheckedIOException(e);
         }
     }
 
-
+    /**
+     * Create a model from its file
+     *
+     * @param <T> Class of the model
+     */
+    @FunctionalInterface
+    private interface ModelReader<T> {
+        T read(InputStream inputStream) throws IOException;
+    }
 }
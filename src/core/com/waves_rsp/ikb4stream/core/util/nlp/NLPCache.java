@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.core.util.nlp;
+
+import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
+import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of {@link OpenNLP} results shared by all Threads, so that retweets, syndicated items or repeated
+ * descriptions are analyzed once. Entries are keyed by operation, language and normalized text, and are split into
+ * segments evicting their least recently used entries.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see OpenNLP#applyNLPlemma(String, OpenNLP.langOptions, int)
+ * @see OpenNLP#applyNLPner(String, OpenNLP.nerOptions, OpenNLP.langOptions)
+ */
+class NLPCache {
+    /**
+     * Properties of this class
+     *
+     * @see PropertiesManager
+     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#getInstance(Class)
+     */
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(NLPCache.class);
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(NLPCache.class);
+    /**
+     * Object to add metrics from this class
+     *
+     * @see MetricsLogger#log(String, long)
+     * @see MetricsLogger#getMetricsLogger()
+     */
+    private static final MetricsLogger METRICS_LOGGER = MetricsLogger.getMetricsLogger();
+    /**
+     * Number of segments, each one has its own lock
+     *
+     * @see NLPCache#segments
+     */
+    private static final int SEGMENTS = 16;
+    /**
+     * Hit ratio is reported each time this number of lookups has been done
+     *
+     * @see NLPCache#report(long)
+     */
+    private static final int REPORT_INTERVAL = 10000;
+    /**
+     * Sequences of whitespaces replaced by {@link NLPCache#normalize(String)}
+     */
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+    /**
+     * Segments of the cache, null if the cache is disabled
+     *
+     * @see NLPCache#get(String, OpenNLP.langOptions, String, Supplier)
+     */
+    private final Segment[] segments;
+    /**
+     * Number of lookups which found a result
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * Number of lookups which computed a result
+     */
+    private final LongAdder misses = new LongAdder();
+    /**
+     * Number of lookups, a report is logged each time it reaches a multiple of {@link NLPCache#REPORT_INTERVAL}
+     *
+     * @see NLPCache#report(long)
+     */
+    private final AtomicLong lookups = new AtomicLong();
+
+    /**
+     * Constructor, you should use {@link NLPCache#createNLPCache()}
+     *
+     * @param maxSize Maximum number of results kept, 0 to disable the cache
+     * @throws IllegalArgumentException if maxSize is negative
+     */
+    NLPCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Size of the cache can't be negative");
+        }
+        if (maxSize == 0) {
+            this.segments = null;
+            return;
+        }
+        int segmentSize = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Create a {@link NLPCache} with nlp.cache.size entries
+     *
+     * @return {@link NLPCache}
+     * @throws IllegalStateException if nlp.cache.size is negative
+     */
+    static NLPCache createNLPCache() {
+        int maxSize = 10000;
+        try {
+            maxSize = Integer.parseInt(PROPERTIES_MANAGER.getProperty("nlp.cache.size"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for nlp.cache.size");
+        }
+        if (maxSize < 0) {
+            throw new IllegalStateException("nlp.cache.size can't be negative");
+        }
+        return new NLPCache(maxSize);
+    }
+
+    /**
+     * Trim text and replace each sequence of whitespaces with a single space
+     *
+     * @param text Text to normalize
+     * @return Normalized text
+     */
+    static String normalize(String text) {
+        return WHITESPACES.matcher(text.trim()).replaceAll(" ");
+    }
+
+    /**
+     * Get the result of an operation on a text, it is computed and kept if it is unknown. The computation is done
+     * without lock, so two Threads can compute the same result at the same time.
+     *
+     * @param operation Name of the operation and its parameters
+     * @param lang      Language of the text
+     * @param text      Text to analyze
+     * @param compute   Compute the result if it is unknown
+     * @return Unmodifiable result
+     * @throws NullPointerException if an argument is null
+     */
+    List<String> get(String operation, OpenNLP.langOptions lang, String text, Supplier<List<String>> compute) {
+        Objects.requireNonNull(operation);
+        Objects.requireNonNull(lang);
+        Objects.requireNonNull(text);
+        Objects.requireNonNull(compute);
+        if (segments == null) {
+            return Collections.unmodifiableList(compute.get());
+        }
+        Key key = new Key(operation, lang, normalize(text));
+        Segment segment = segments[(key.hash ^ (key.hash >>> 16)) & (SEGMENTS - 1)];
+        List<String> result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            result = Collections.unmodifiableList(compute.get());
+            synchronized (segment) {
+                segment.put(key, result);
+            }
+        }
+        report(lookups.incrementAndGet());
+        return result;
+    }
+
+    /**
+     * Get number of lookups which found a result
+     *
+     * @return Number of hits
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get number of lookups which computed a result
+     *
+     * @return Number of misses
+     */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get number of results kept
+     *
+     * @return Number of entries
+     */
+    int size() {
+        if (segments == null) {
+            return 0;
+        }
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Log hit ratio every {@link NLPCache#REPORT_INTERVAL} lookups
+     *
+     * @param count Number of lookups, including this one
+     */
+    private void report(long count) {
+        if (count % REPORT_INTERVAL != 0) {
+            return;
+        }
+        long hitCount = hits.sum();
+        long ratio = hitCount * 100 / Math.max(1, hitCount + misses.sum());
+        LOGGER.info("NLP cache : {}% hits on {} lookups, {} entries", ratio, count, size());
+        METRICS_LOGGER.log("nlp_cache_hit_ratio", ratio);
+    }
+
+    /**
+     * Key of a result : operation, language and normalized text
+     */
+    private static final class Key {
+        private final String operation;
+        private final OpenNLP.langOptions lang;
+        private final String text;
+        private final int hash;
+
+        private Key(String operation, OpenNLP.langOptions lang, String text) {
+            this.operation = operation;
+            this.lang = lang;
+            this.text = text;
+            this.hash = 31 * (31 * operation.hashCode() + lang.hashCode()) + text.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return hash == key.hash && lang == key.lang && operation.equals(key.operation) && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Segment of the cache, evicts its least recently used entry when it is full. Access must be synchronized.
+     */
+    private static final class Segment extends LinkedHashMap<Key, List<String>> {
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<String>> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
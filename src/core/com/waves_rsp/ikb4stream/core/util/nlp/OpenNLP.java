@@ -18,39 +18,18 @@
 
 package com.waves_rsp.ikb4stream.core.util.nlp;
 
-import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
-import opennlp.tools.lemmatizer.DictionaryLemmatizer;
-import opennlp.tools.lemmatizer.SimpleLemmatizer;
-import opennlp.tools.namefind.NameFinderME;
-import opennlp.tools.postag.POSTaggerME;
-import opennlp.tools.sentdetect.SentenceDetectorME;
-import opennlp.tools.tokenize.Tokenizer;
-import opennlp.tools.tokenize.TokenizerME;
 import opennlp.tools.util.Span;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
-
-import static com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP.langOptions.DEFAULT;
-import static com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP.langOptions.FRENCH;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author ikb4stream
  * @version 1.0
  */
 public class OpenNLP {
-    /**
-     * Properties of this class
-     *
-     * @see PropertiesManager
-     * @see PropertiesManager#getProperty(String)
-     * @see PropertiesManager#getInstance(Class)
-     */
-    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(OpenNLP.class);
     /**
      * Logger used to log all information in this class
      */
@@ -60,88 +39,40 @@ public class OpenNLP {
      *
      * @see OpenNLP#getOpenNLP(Thread)
      */
-    private static final Map<Thread, OpenNLP> INSTANCES = new HashMap<>();
-    /**
-     * Load lemmatizer model
-     *
-     * @see OpenNLP#lemmatize(String, langOptions)
-     */
-    private final DictionaryLemmatizer lemmatizerFR;
-    private final DictionaryLemmatizer lemmatizerEN;
-    /**
-     * Use to do sentence detection
-     *
-     * @see OpenNLP#detectSentences(String, langOptions)
-     */
-    private final SentenceDetectorME detectorFR;
-    private final SentenceDetectorME detectorEN;
+    private static final Map<Thread, OpenNLP> INSTANCES = new ConcurrentHashMap<>();
     /**
-     * Use to apply person name finder
+     * Results shared by all instances of {@link OpenNLP}
      *
-     * @see OpenNLP#findPersonName(String[], langOptions)
+     * @see OpenNLP#applyNLPlemma(String, langOptions, int)
+     * @see OpenNLP#applyNLPner(String, nerOptions, langOptions)
      */
-    private final NameFinderME nameFinderPersFR;
-    private final NameFinderME nameFinderPersEN;
+    private static final NLPCache CACHE = NLPCache.createNLPCache();
     /**
-     * Use to apply organization name finder
+     * Tools of each language, languages sharing a code share the same {@link LanguagePipeline}
      *
-     * @see OpenNLP#findOrganizationName(String[], langOptions)
+     * @see OpenNLP#getPipeline(langOptions)
      */
-    private final NameFinderME nameFinderOrgFR;
-    private final NameFinderME nameFinderOrgEN;
-    /**
-     * Use to apply location name finder
-     *
-     * @see OpenNLP#findLocationName(String[], langOptions)
-     */
-    private final NameFinderME nameFinderLocFR;
-    private final NameFinderME nameFinderLocEN;
-    /**
-     * Use to apply tokenization
-     *
-     * @see OpenNLP#learnableTokenize(String, langOptions)
-     */
-    private final Tokenizer tokenizerFR;
-    private final Tokenizer tokenizerEN;
-    /**
-     * Use to apply part-of-speech tagger
-     *
-     * @see OpenNLP#posTagging(String[], langOptions)
-     */
-    private final POSTaggerME taggerFR;
-    private final POSTaggerME taggerEN;
+    private final Map<langOptions, LanguagePipeline> pipelines = new EnumMap<>(langOptions.class);
 
     /**
-     * Private constructor to allow only one {@link OpenNLP} for each Thread
+     * Private constructor to allow only one {@link OpenNLP} for each Thread. Models of all languages are loaded in
+     * parallel by {@link LoaderNLP} the first time, then shared by all instances.
      *
-     * @throws IllegalStateException if an error occurred from {@link LoaderNLP} or {@link PropertiesManager}
+     * @throws IllegalStateException if an error occurred from {@link LoaderNLP}
      */
     private OpenNLP() {
+        long start = System.currentTimeMillis();
         try {
-            //FRENCH
-            detectorFR = new SentenceDetectorME(LoaderNLP.getFrSentenceModel());
-            tokenizerFR = new TokenizerME(LoaderNLP.getFrTokenizerModel());
-            taggerFR = new POSTaggerME(LoaderNLP.getFrPosModel());
-            nameFinderOrgFR = new NameFinderME(LoaderNLP.getFrTokenNameFinderModelOrg());
-            nameFinderLocFR = new NameFinderME(LoaderNLP.getFrTokenNameFinderModelLoc());
-            nameFinderPersFR = new NameFinderME(LoaderNLP.getFrTokenNameFinderModelPers());
-            InputStream inputStreamFR = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.fr.dictionaries.path"));
-            lemmatizerFR = new SimpleLemmatizer(inputStreamFR);
-            inputStreamFR.close();
-            //ENGLISH
-            detectorEN = new SentenceDetectorME(LoaderNLP.getEnSentenceModel());
-            tokenizerEN = new TokenizerME(LoaderNLP.getEnTokenizerModel());
-            taggerEN = new POSTaggerME(LoaderNLP.getEnPosModel());
-            nameFinderOrgEN = new NameFinderME(LoaderNLP.getEnTokenNameFinderModelOrg());
-            nameFinderLocEN = new NameFinderME(LoaderNLP.getEnTokenNameFinderModelLoc());
-            nameFinderPersEN = new NameFinderME(LoaderNLP.getEnTokenNameFinderModelPers());
-            InputStream inputStreamEN = new FileInputStream(PROPERTIES_MANAGER.getProperty("nlp.en.dictionaries.path"));
-            lemmatizerEN = new SimpleLemmatizer(inputStreamEN);
-            inputStreamEN.close();
-        } catch (IllegalArgumentException | IOException e) {
+            Arrays.stream(langOptions.values()).map(langOptions::getCode).distinct().forEach(LoaderNLP::preload);
+            Map<String, LanguagePipeline> byCode = new HashMap<>();
+            for (langOptions lang : langOptions.values()) {
+                pipelines.put(lang, byCode.computeIfAbsent(lang.getCode(), LanguagePipeline::new));
+            }
+        } catch (IllegalStateException e) {
             LOGGER.error(e.getMessage());
-            throw new IllegalStateException(e);
+            throw e;
         }
+        LOGGER.info("OpenNLP has been instantiated in {} ms", System.currentTimeMillis() - start);
     }
 
     /**
@@ -165,166 +96,41 @@ public class OpenNLP {
     }
 
     /**
-     * Enum availables languages
+     * Enum availables languages, each one is associated to the code of its models in properties (nlp.code.*). A new
+     * language only needs its constant and its models.
      */
     public enum langOptions {
-        FRENCH, ENGLISH, DEFAULT
-    }
-
-    /**
-     * OpenNLP : split a text in sentences
-     *
-     * @param text to analyze
-     * @return an array of sentences
-     * @throws NullPointerException if text is null
-     * @see OpenNLP#detectorFR
-     */
-    private String[] detectSentences(String text, langOptions lang) {
-        Objects.requireNonNull(text);
-        Objects.requireNonNull(lang);
-        String[] sentences;
-        switch (lang.toString()) {
-            case "FRENCH":
-                sentences = detectorFR.sentDetect(text);
-                break;
-            case "ENGLISH":
-                sentences = detectorEN.sentDetect(text);
-                break;
-            default:
-                sentences = detectorEN.sentDetect(text);
-                break;
-        }
-        return sentences;
-    }
-
-    /**
-     * OpenNLP : learnableTokenize. The function tokenize a text
-     *
-     * @param text to tokenize
-     * @return an array of words
-     * @throws NullPointerException if text is null
-     * @see OpenNLP#tokenizerFR
-     */
-    private String[] learnableTokenize(String text, langOptions lang) {
-        Objects.requireNonNull(text);
-        Objects.requireNonNull(lang);
-        String[] tokens;
-        switch (lang.toString()) {
-            case "FRENCH":
-                tokens = tokenizerFR.tokenize(text);
-                break;
-            case "ENGLISH":
-                tokens = tokenizerEN.tokenize(text);
-                break;
-            default:
-                tokens = tokenizerEN.tokenize(text);
-                break;
-        }
-        return tokens;
-    }
+        FRENCH("fr"), ENGLISH("en"), DEFAULT("en");
 
-    /**
-     * OpenNLP : posTagging affect a tag to each word (V, NC, NP, ADJ...)
-     *
-     * @param tokens is a tokenize text
-     * @return an array of posTag
-     * @throws NullPointerException if tokens is null
-     * @see OpenNLP#taggerFR
-     */
-    private String[] posTagging(String[] tokens, langOptions lang) {
-        Objects.requireNonNull(tokens);
-        Objects.requireNonNull(lang);
-        String[] pos;
-        switch (lang.toString()) {
-            case "FRENCH":
-                pos = taggerFR.tag(tokens);
-                break;
-            case "ENGLISH":
-                pos = taggerEN.tag(tokens);
-                break;
-            default:
-                pos = taggerEN.tag(tokens);
-                break;
-        }
-        return pos;
-    }
+        /**
+         * Code of the language in properties
+         */
+        private final String code;
 
-    /**
-     * OpenNLP : name entity recognizer function. Detect organizations names.
-     *
-     * @param tokens are an array of string to analyze
-     * @return an array of entity detected as an organization
-     * @throws NullPointerException if tokens is null
-     * @see OpenNLP#nameFinderOrgFR
-     */
-    private Span[] findOrganizationName(String[] tokens, langOptions lang) {
-        Objects.requireNonNull(tokens);
-        Objects.requireNonNull(lang);
-        Span[] org;
-        switch (lang.toString()) {
-            case "FRENCH":
-                org = nameFinderOrgFR.find(tokens);
-                break;
-            case "ENGLISH":
-                org = nameFinderOrgEN.find(tokens);
-                break;
-            default:
-                org = nameFinderOrgEN.find(tokens);
-                break;
+        langOptions(String code) {
+            this.code = code;
         }
-        return org;
-    }
 
-    /**
-     * OpenNLP : name entity recognizer function. Detect locations names.
-     *
-     * @param tokens are an array of string to analyze
-     * @return an array of entity detected as a location
-     * @throws NullPointerException if tokens is null
-     * @see OpenNLP#nameFinderLocFR
-     */
-    private Span[] findLocationName(String[] tokens, langOptions lang) {
-        Objects.requireNonNull(tokens);
-        Objects.requireNonNull(lang);
-        Span[] loc;
-        switch (lang.toString()) {
-            case "FRENCH":
-                loc = nameFinderLocFR.find(tokens);
-                break;
-            case "ENGLISH":
-                loc = nameFinderLocEN.find(tokens);
-                break;
-            default:
-                loc = nameFinderLocEN.find(tokens);
-                break;
+        /**
+         * Get code of the language in properties
+         *
+         * @return Code of the language (e.g. fr)
+         */
+        public String getCode() {
+            return code;
         }
-        return loc;
     }
 
     /**
-     * OpenNLP : name entity recognizer function. Detect persons names.
+     * Get tools of a language
      *
-     * @param tokens are an array of string to analyze
-     * @return an array of entity detected as a personnality
-     * @throws NullPointerException if tokens is null
-     * @see OpenNLP#nameFinderPersFR
+     * @param lang Language of the text
+     * @return {@link LanguagePipeline} of the language
+     * @throws NullPointerException if lang is null
+     * @see OpenNLP#pipelines
      */
-    private Span[] findPersonName(String[] tokens, langOptions lang) {
-        Objects.requireNonNull(tokens);
-        Objects.requireNonNull(lang);
-        Span[] person;
-        switch (lang.toString()) {
-            case "FRENCH":
-                person = nameFinderPersFR.find(tokens);
-                break;
-            case "ENGLISH":
-                person = nameFinderPersEN.find(tokens);
-                break;
-            default:
-                person = nameFinderPersEN.find(tokens);
-                break;
-        }
-        return person;
+    LanguagePipeline getPipeline(langOptions lang) {
+        return pipelines.get(Objects.requireNonNull(lang));
     }
 
     /**
@@ -333,51 +139,41 @@ public class OpenNLP {
      * @param text to lemmatize
      * @return Map of each lemmatize word with the POStag associate
      * @throws NullPointerException if text is null
-     * @see OpenNLP#lemmatizerFR
+     * @see OpenNLP#getPipeline(langOptions)
      */
     private Map<String, String> lemmatize(String text, langOptions lang) {
         Objects.requireNonNull(text);
-        Objects.requireNonNull(lang);
+        LanguagePipeline pipeline = getPipeline(lang);
         Map<String, String> lemmatizedTokens = new HashMap<>();
         // Split tweet text content in sentences
-        String[] sentences = detectSentences(text, lang);
+        String[] sentences = pipeline.detectSentences(text);
         // For each sentence, tokenize and tag before lemmatizing
         for (String sentence : sentences) {
             // Split each sentence in tokens
-            String[] learnableTokens = learnableTokenize(sentence, lang);
+            String[] learnableTokens = pipeline.tokenize(sentence);
             // Get tag for each token
-            String[] tags = posTagging(learnableTokens, lang);
+            String[] tags = pipeline.tag(learnableTokens);
             // Get lemmatize form of each token
             for (int i = 0; i < learnableTokens.length; i++) {
                 if (tags[i].startsWith("V") && tags[i].length() > 1) {
                     //if the POStag start with V, we just keep the tag V for simplify the lemmatization with the dictionnary
                     tags[i] = "V";
                 }
-                switch (lang.toString()) {
-                    case "FRENCH":
-                        lemmatizedTokens.put(lemmatizerFR.lemmatize(learnableTokens[i], tags[i]), tags[i]);
-                        break;
-                    case "ENGLISH":
-                        lemmatizedTokens.put(lemmatizerEN.lemmatize(learnableTokens[i], tags[i]), tags[i]);
-                        break;
-                    default:
-                        lemmatizedTokens.put(lemmatizerFR.lemmatize(learnableTokens[i], tags[i]), tags[i]);
-                        break;
-                }
-
-
+                lemmatizedTokens.put(pipeline.lemmatize(learnableTokens[i], tags[i]), tags[i]);
             }
         }
         return lemmatizedTokens;
     }
 
     /**
-     * Apply the OpenNLP Lemmatization with a dictionnary. Keep only words with the verbs and nouns.
+     * Apply the OpenNLP Lemmatization with a dictionnary. Keep only words with the verbs and nouns. Results of texts
+     * already analyzed are taken from {@link OpenNLP#CACHE}.
      *
      * @param post  is the text to lemmatize
      * @param limit is the limit to have the n first characters
-     * @return list of selected words.
+     * @return unmodifiable list of selected words.
      * @throws NullPointerException if post is null
+     * @see OpenNLP#CACHE
      */
     public List<String> applyNLPlemma(String post, langOptions lang, int limit) {
         Objects.requireNonNull(post);
@@ -386,6 +182,19 @@ public class OpenNLP {
         if (tmpPost.length() > limit) {
             tmpPost = post.substring(0, limit);
         }
+        String text = tmpPost;
+        return CACHE.get("lemma", lang, text, () -> computeLemmas(text, lang));
+    }
+
+    /**
+     * Lemmatize a text and keep only words with the verbs and nouns
+     *
+     * @param tmpPost is the text to lemmatize
+     * @param lang    language of the text
+     * @return list of selected words.
+     * @see OpenNLP#applyNLPlemma(String, langOptions, int)
+     */
+    private List<String> computeLemmas(String tmpPost, langOptions lang) {
         Map<String, String> input;
         List<String> output = new ArrayList<>();
         input = lemmatize(tmpPost, lang);
@@ -417,37 +226,38 @@ public class OpenNLP {
 
     /**
      * Apply the ÖpenNLP ner (name entity recognizer) algorithm on a text. Keep only distinct words from a text.
+     * Results of texts already analyzed are taken from {@link OpenNLP#CACHE}.
      *
      * @param post to analyze
      * @param ner  ENUM : LOCATION, ORGANIZATION or PERSON : type of NER analyse
-     * @return List of selected words by NER
+     * @return Unmodifiable list of selected words by NER
      * @throws NullPointerException if post or ner is null
+     * @see OpenNLP#CACHE
      */
     public List<String> applyNLPner(String post, nerOptions ner, langOptions lang) {
         Objects.requireNonNull(post);
         Objects.requireNonNull(ner);
         Objects.requireNonNull(lang);
+        return CACHE.get("ner_" + ner.name(), lang, post, () -> computeNER(post, ner, lang));
+    }
+
+    /**
+     * Apply the ÖpenNLP ner (name entity recognizer) algorithm on a text
+     *
+     * @param post to analyze
+     * @param ner  type of NER analyse
+     * @param lang language of the text
+     * @return List of selected words by NER
+     * @see OpenNLP#applyNLPner(String, nerOptions, langOptions)
+     */
+    private List<String> computeNER(String post, nerOptions ner, langOptions lang) {
+        LanguagePipeline pipeline = getPipeline(lang);
         List<String> words = new ArrayList<>();
-        Span[] spans;
-        String[] sentences = detectSentences(post, lang);
-        for (String sentence : sentences) {
-            String[] learnableTokens = learnableTokenize(sentence, lang);
-            switch (ner.toString()) {
-                case "LOCATION":
-                    spans = findLocationName(learnableTokens, lang);
-                    break;
-                case "ORGANIZATION":
-                    spans = findOrganizationName(learnableTokens, lang);
-                    break;
-                case "PERSON":
-                    spans = findPersonName(learnableTokens, lang);
-                    break;
-                default:
-                    LOGGER.warn("Bad NER option.\n use : 'LOCATION', 'PERSON' or 'ORGANIZATION'");
-                    return words; //return empty list
-            }
+        for (String sentence : pipeline.detectSentences(post)) {
+            String[] learnableTokens = pipeline.tokenize(sentence);
+            Span[] spans = pipeline.findNames(learnableTokens, ner);
             Arrays.asList(Span.spansToStrings(spans, learnableTokens)).forEach(words::add);
         }
         return words;
     }
-}
\ No newline at end of file
+}
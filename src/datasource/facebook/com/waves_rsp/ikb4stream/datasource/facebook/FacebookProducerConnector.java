@@ -19,9 +19,11 @@
 package com.waves_rsp.ikb4stream.datasource.facebook;
 
 import com.restfb.*;
+import com.restfb.exception.FacebookException;
 import com.restfb.types.Event;
+import com.waves_rsp.ikb4stream.core.datasource.AdaptivePollingScheduler;
 import com.waves_rsp.ikb4stream.core.datasource.model.IDataProducer;
-import com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector;
+import com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.LatLong;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
@@ -31,9 +33,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 
 /**
@@ -41,9 +47,9 @@ import java.util.Objects;
  *
  * @author ikb4stream
  * @version 1.0
- * @see com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector
+ * @see com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector
  */
-public class FacebookProducerConnector implements IProducerConnector {
+public class FacebookProducerConnector implements IPollingProducerConnector {
     /**
      * Properties of this module
      *
@@ -78,29 +84,42 @@ public class FacebookProducerConnector implements IProducerConnector {
     /**
      * Keyword to search
      *
-     * @see FacebookProducerConnector#load(IDataProducer)
+     * @see FacebookProducerConnector#poll(IDataProducer)
      */
     private final String word;
     /**
      * Latitude limit to get {@link com.waves_rsp.ikb4stream.core.model.Event Event}
      *
-     * @see FacebookProducerConnector#load(IDataProducer)
+     * @see FacebookProducerConnector#poll(IDataProducer)
      */
     private final double lat;
     /**
      * Longitude limit to get {@link com.waves_rsp.ikb4stream.core.model.Event Event}
      *
-     * @see FacebookProducerConnector#load(IDataProducer)
+     * @see FacebookProducerConnector#poll(IDataProducer)
      */
     private final double lon;
     /**
      * Limit to get {@link com.waves_rsp.ikb4stream.core.model.Event Event}
      *
-     * @see FacebookProducerConnector#load(IDataProducer)
+     * @see FacebookProducerConnector#poll(IDataProducer)
      */
     private final int limit;
     private final int interval;
-    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection(Thread.currentThread());
+    /**
+     * Adaptive schedule of searches
+     *
+     * @see FacebookProducerConnector#poll(IDataProducer)
+     * @see FacebookProducerConnector#getInterval()
+     */
+    private final AdaptivePollingScheduler.Schedule schedule;
+    /**
+     * Identifiers of last Facebook events pushed, an event is pushed only once
+     *
+     * @see FacebookProducerConnector#searchWordFromGeolocation(String, int, double, double)
+     */
+    private final Set<String> seenEvents = Collections.newSetFromMap(new SeenEvents(1000));
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
 
     /**
      * Default constructor that init all members with {@link FacebookProducerConnector#PROPERTIES_MANAGER}
@@ -112,6 +131,7 @@ public class FacebookProducerConnector implements IProducerConnector {
      * @see FacebookProducerConnector#limit
      * @see FacebookProducerConnector#lat
      * @see FacebookProducerConnector#lon
+     * @see FacebookProducerConnector#schedule
      */
     public FacebookProducerConnector() {
         try {
@@ -122,6 +142,7 @@ public class FacebookProducerConnector implements IProducerConnector {
             this.lat = Double.valueOf(PROPERTIES_MANAGER.getProperty("FacebookProducerConnector.latitude"));
             this.lon = Double.valueOf(PROPERTIES_MANAGER.getProperty("FacebookProducerConnector.longitude"));
             this.interval = Integer.parseInt(PROPERTIES_MANAGER.getProperty("FacebookProducerConnector.interval"));
+            this.schedule = AdaptivePollingScheduler.getInstance().createSchedule(source, interval);
         } catch (IllegalArgumentException e) {
             LOGGER.error("Invalid configuration {} ", e);
             throw new IllegalStateException("Invalid configuration");
@@ -136,7 +157,7 @@ public class FacebookProducerConnector implements IProducerConnector {
      * @param limit     an int which the result limit
      * @param latitude  a long
      * @param longitude a long
-     * @return a list of {@link com.waves_rsp.ikb4stream.core.model.Event Event} form Facebook events and coodinates
+     * @return a list of {@link com.waves_rsp.ikb4stream.core.model.Event Event} form Facebook events and coodinates not pushed yet
      * @throws NullPointerException if word is null
      * @see FacebookProducerConnector#pageAccessToken
      * @see FacebookProducerConnector#source
@@ -153,7 +174,7 @@ public class FacebookProducerConnector implements IProducerConnector {
               //  Parameter.with("limit", limit),
                 Parameter.with("place&center", latitude + "," + longitude));
         publicSearch.getData().forEach(eventData -> {
-            if (isValidEvent(eventData)) {
+            if (isValidEvent(eventData) && seenEvents.add(eventData.getId())) {
                 double latitudeEv = eventData.getPlace().getLocation().getLatitude();
                 double longitudeEv = eventData.getPlace().getLocation().getLongitude();
                 LatLong latLong = new LatLong(latitudeEv, longitudeEv);
@@ -198,21 +219,15 @@ public class FacebookProducerConnector implements IProducerConnector {
      *
      * @param dataProducer which allows to push {@link com.waves_rsp.ikb4stream.core.model.Event Event} in queue
      * @throws NullPointerException if dataProducer is null
-     * @see com.waves_rsp.ikb4stream.core.model.Event Event
-     * @see FacebookProducerConnector#word
-     * @see FacebookProducerConnector#limit
-     * @see FacebookProducerConnector#lat
-     * @see FacebookProducerConnector#lon
+     * @see FacebookProducerConnector#poll(IDataProducer)
      */
     @Override
     public void load(IDataProducer dataProducer) {
         Objects.requireNonNull(dataProducer);
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                List<com.waves_rsp.ikb4stream.core.model.Event> events = searchWordFromGeolocation(word, limit, lat, lon);
-                events.forEach(dataProducer::push);
-                LOGGER.info("*** Facebook loading is finish for this interval. Next time in " + ((this.interval/1000)/60)/60 + " hours *** \n");
-                Thread.sleep(this.interval);
+                poll(dataProducer);
+                Thread.sleep(getInterval());
             } catch (InterruptedException e) {
                 LOGGER.error(e.getMessage());
             } finally {
@@ -221,6 +236,49 @@ public class FacebookProducerConnector implements IProducerConnector {
         }
     }
 
+    /**
+     * Push new valid events from Facebook into the data producer object
+     *
+     * @param dataProducer which allows to push {@link com.waves_rsp.ikb4stream.core.model.Event Event} in queue
+     * @return Number of {@link com.waves_rsp.ikb4stream.core.model.Event Event} pushed
+     * @throws NullPointerException if dataProducer is null
+     * @see com.waves_rsp.ikb4stream.core.model.Event Event
+     * @see FacebookProducerConnector#word
+     * @see FacebookProducerConnector#limit
+     * @see FacebookProducerConnector#lat
+     * @see FacebookProducerConnector#lon
+     * @see FacebookProducerConnector#schedule
+     */
+    @Override
+    public int poll(IDataProducer dataProducer) {
+        Objects.requireNonNull(dataProducer);
+        if (!schedule.tryAcquire()) {
+            return 0;
+        }
+        List<com.waves_rsp.ikb4stream.core.model.Event> events;
+        try {
+            events = searchWordFromGeolocation(word, limit, lat, lon);
+        } catch (FacebookException e) {
+            schedule.failure();
+            throw e;
+        }
+        events.forEach(dataProducer::push);
+        schedule.success(events.size());
+        LOGGER.info("*** Facebook loading is finish for this interval. Next time in " + schedule.getDelay() / 60000 + " minutes *** \n");
+        return events.size();
+    }
+
+    /**
+     * Delay until next search, it depends on previous results
+     *
+     * @return Delay in milliseconds
+     * @see FacebookProducerConnector#schedule
+     */
+    @Override
+    public long getInterval() {
+        return schedule.getDelay();
+    }
+
     /**
      * Check if this jar is active
      *
@@ -235,4 +293,24 @@ public class FacebookProducerConnector implements IProducerConnector {
             return true;
         }
     }
+
+    /**
+     * Map backing {@link FacebookProducerConnector#seenEvents}, the oldest identifier is removed when it is full
+     */
+    private static class SeenEvents extends LinkedHashMap<String, Boolean> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Maximum number of identifiers kept
+         */
+        private final int maxSize;
+
+        private SeenEvents(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
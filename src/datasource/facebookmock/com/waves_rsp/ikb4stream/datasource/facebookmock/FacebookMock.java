@@ -63,7 +63,7 @@ public class FacebookMock implements IProducerConnectorMock {
      * @see FacebookMock#getEventFromJson(ObjectNode)
      */
     private static final String SOURCE = "Facebook";
-    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection(Thread.currentThread());
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
     /**
      * Override default constructor
      */
@@ -20,31 +20,46 @@ package com.waves_rsp.ikb4stream.datasource.owm;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waves_rsp.ikb4stream.core.datasource.AdaptivePollingScheduler;
 import com.waves_rsp.ikb4stream.core.datasource.model.IDataProducer;
-import com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector;
+import com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
 import com.waves_rsp.ikb4stream.core.model.LatLong;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
-import com.waves_rsp.ikb4stream.core.util.LanguageDetection;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
-import net.aksingh.owmjapis.CurrentWeather;
-import net.aksingh.owmjapis.OpenWeatherMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
- * Get weather from OpenWeatherMap API
+ * Get weather of several zones from OpenWeatherMap API. Zones are given as a list of coordinates, which are requested
+ * by groups of cities once their city is known, or as boxes which are requested in a single call.
  *
  * @author ikb4stream
  * @version 1.0
- * @see com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector
+ * @see com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector
  */
-public class OWMProducerConnector implements IProducerConnector {
+public class OWMProducerConnector implements IPollingProducerConnector {
     /**
      * Properties of this module
      *
@@ -65,61 +80,121 @@ public class OWMProducerConnector implements IProducerConnector {
      */
     private static final MetricsLogger METRICS_LOGGER = MetricsLogger.getMetricsLogger();
     /**
-     * OpenWeatherMap java API
+     * Object used to read all responses of OpenWeatherMap
      *
-     * @see OWMProducerConnector#getCurrentWeather(double, double)
+     * @see OWMProducerConnector#request(String)
      */
-    private final OpenWeatherMap openWeatherMap;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /**
+     * Maximum number of cities in one request to the group endpoint
+     *
+     * @see OWMProducerConnector#createQueries()
+     */
+    private static final int GROUP_SIZE = 20;
+    /**
+     * Timeout of a request in milliseconds
+     *
+     * @see OWMProducerConnector#request(String)
+     */
+    private static final int TIMEOUT = 10000;
+    /**
+     * Url of OpenWeatherMap API
+     *
+     * @see OWMProducerConnector#request(String)
+     */
+    private final String url;
+    /**
+     * Key to access to OpenWeatherMap API
+     *
+     * @see OWMProducerConnector#request(String)
+     */
+    private final String key;
     /**
      * Interval time between two batch
      *
-     * @see OWMProducerConnector#getCurrentWeather(double, double)
-     * @see OWMProducerConnector#load(IDataProducer)
+     * @see OWMProducerConnector#createEvent(JsonNode)
+     * @see OWMProducerConnector#poll(IDataProducer)
      */
     private final Long requestInterval;
     /**
-     * Longitude limit to get {@link Event}
+     * Coordinates (latitude, longitude) of each zone whose city is not known yet
+     *
+     * @see OWMProducerConnector#send(Query, IDataProducer)
+     */
+    private final List<double[]> coordinates;
+    /**
+     * Identifier of city of each zone, a city shared by several zones is requested once
      *
-     * @see OWMProducerConnector#getCurrentWeather(double, double)
-     * @see OWMProducerConnector#load(IDataProducer)
+     * @see OWMProducerConnector#createQueries()
+     * @see OWMProducerConnector#send(Query, IDataProducer)
      */
-    private final double longitude;
+    private final Set<Long> cities = new LinkedHashSet<>();
     /**
-     * Latitude limit to get {@link Event}
+     * Boxes to request, each one is "lonLeft,latBottom,lonRight,latTop,zoom"
      *
-     * @see OWMProducerConnector#getCurrentWeather(double, double)
-     * @see OWMProducerConnector#load(IDataProducer)
+     * @see OWMProducerConnector#createQueries()
      */
-    private final double latitude;
+    private final List<String> boxes;
     /**
      * Source name of corresponding {@link Event}
      *
-     * @see OWMProducerConnector#getCurrentWeather(double, double)
-     * @see OWMProducerConnector#load(IDataProducer)
+     * @see OWMProducerConnector#createEvent(JsonNode)
      */
     private final String source;
-
+    /**
+     * Adaptive schedule of requests to OWM
+     *
+     * @see OWMProducerConnector#poll(IDataProducer)
+     * @see OWMProducerConnector#getInterval()
+     */
+    private final AdaptivePollingScheduler.Schedule schedule;
+    /**
+     * Time of the last observation pushed for each zone, the same observation is not pushed twice
+     *
+     * @see OWMProducerConnector#push(JsonNode, IDataProducer)
+     */
+    private final Map<String, Long> lastObservations = new HashMap<>();
+    /**
+     * Requests of the current cycle not sent yet, because the budget of requests was exhausted
+     *
+     * @see OWMProducerConnector#poll(IDataProducer)
+     */
+    private final Deque<Query> pending = new ArrayDeque<>();
+    /**
+     * Number of {@link Event} pushed during the current cycle
+     *
+     * @see OWMProducerConnector#poll(IDataProducer)
+     */
+    private int cyclePushed;
+    /**
+     * Number of failed requests during the current cycle
+     *
+     * @see OWMProducerConnector#poll(IDataProducer)
+     */
+    private int cycleFailures;
 
     /**
      * Instantiate the {@link OWMProducerConnector} object with load properties
      *
      * @throws IllegalArgumentException if invalid values in configuration file
      * @see OWMProducerConnector#source
-     * @see OWMProducerConnector#latitude
-     * @see OWMProducerConnector#longitude
+     * @see OWMProducerConnector#coordinates
+     * @see OWMProducerConnector#boxes
      * @see OWMProducerConnector#requestInterval
-     * @see OWMProducerConnector#openWeatherMap
+     * @see OWMProducerConnector#schedule
      */
     public OWMProducerConnector() {
         try {
             this.source = PROPERTIES_MANAGER.getProperty("OWMProducerConnector.source");
-            final String owmKey = PROPERTIES_MANAGER.getProperty("OWMProducerConnector.key");
-            this.latitude = Double.valueOf(PROPERTIES_MANAGER.getProperty("OWMProducerConnector.latitude"));
-            this.longitude = Double.valueOf(PROPERTIES_MANAGER.getProperty("OWMProducerConnector.longitude"));
+            this.key = PROPERTIES_MANAGER.getProperty("OWMProducerConnector.key");
+            this.url = PROPERTIES_MANAGER.getPropertyOrDefault("OWMProducerConnector.url", "http://api.openweathermap.org/data/2.5/");
             this.requestInterval = Long.valueOf(PROPERTIES_MANAGER.getProperty("OWMProducerConnector.sleep"));
-            this.openWeatherMap = new OpenWeatherMap(owmKey);
-            this.openWeatherMap.setLang(OpenWeatherMap.Language.FRENCH);
-            this.openWeatherMap.setUnits(OpenWeatherMap.Units.METRIC);
+            this.coordinates = parseCoordinates(PROPERTIES_MANAGER.getPropertyOrDefault("OWMProducerConnector.locations",
+                    PROPERTIES_MANAGER.getProperty("OWMProducerConnector.latitude") + ":" + PROPERTIES_MANAGER.getProperty("OWMProducerConnector.longitude")));
+            String allBoxes = PROPERTIES_MANAGER.getPropertyOrDefault("OWMProducerConnector.boxes", "");
+            this.boxes = allBoxes.trim().isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(
+                    Arrays.stream(allBoxes.split(";")).map(String::trim).collect(Collectors.toList()));
+            this.schedule = AdaptivePollingScheduler.getInstance().createSchedule(source, requestInterval);
         } catch (IllegalArgumentException e) {
             LOGGER.error(e.getMessage());
             throw new IllegalArgumentException("Invalid configuration\n" + e);
@@ -127,38 +202,121 @@ public class OWMProducerConnector implements IProducerConnector {
     }
 
     /**
-     * Get the current weather from OpenWeatherMap
+     * Parse a list of coordinates "lat:lon;lat:lon"
      *
-     * @param latitude Latitude to get weather
-     * @param longitude Longitude to get weather
-     * @return an Event which contains information about current weather
-     * @see OWMProducerConnector#openWeatherMap
-     * @see OWMProducerConnector#latitude
-     * @see OWMProducerConnector#longitude
-     * @see OWMProducerConnector#requestInterval
+     * @param value List of coordinates
+     * @return List of (latitude, longitude)
+     * @throws IllegalArgumentException if a coordinate is invalid
+     */
+    static List<double[]> parseCoordinates(String value) {
+        List<double[]> result = new ArrayList<>();
+        for (String coordinate : value.split(";")) {
+            if (coordinate.trim().isEmpty()) {
+                continue;
+            }
+            String[] latLon = coordinate.split(":");
+            if (latLon.length != 2) {
+                throw new IllegalArgumentException("Invalid coordinate " + coordinate);
+            }
+            result.add(new double[]{Double.parseDouble(latLon[0].trim()), Double.parseDouble(latLon[1].trim())});
+        }
+        return result;
+    }
+
+    /**
+     * Send a request to OpenWeatherMap
+     *
+     * @param query Endpoint and its parameters
+     * @return Response of OpenWeatherMap
+     * @throws IOException if the request failed
+     * @see OWMProducerConnector#OBJECT_MAPPER
+     */
+    private JsonNode request(String query) throws IOException {
+        long start = System.currentTimeMillis();
+        URLConnection connection = new URL(url + query + "&units=metric&lang=fr&appid=" + key).openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        try (InputStream is = connection.getInputStream()) {
+            JsonNode node = OBJECT_MAPPER.readTree(is);
+            METRICS_LOGGER.log("time_fetch_" + this.source, System.currentTimeMillis() - start);
+            return node;
+        }
+    }
+
+    /**
+     * Create an {@link Event} from the weather of a city. Weather fields are attached as {@link EventAttributes}.
+     *
+     * @param node Weather of a city
+     * @return {@link Event} or null if node is invalid
      * @see OWMProducerConnector#source
+     * @see OWMProducerConnector#requestInterval
      */
-    private Event getCurrentWeather(double latitude, double longitude) {
-        Objects.requireNonNull(latitude);
-        Objects.requireNonNull(longitude);
-        ObjectMapper objectMapper = new ObjectMapper();
-        CurrentWeather currentWeather = openWeatherMap.currentWeatherByCoordinates((float) this.latitude, (float) this.longitude);
+    private Event createEvent(JsonNode node) {
+        JsonNode coord = node.path("coord");
+        JsonNode main = node.path("main");
+        JsonNode weather = node.path("weather").path(0);
+        if (coord.isMissingNode() || main.isMissingNode() || !node.has("dt")) {
+            return null;
+        }
         try {
-            JsonNode jn = objectMapper.readTree(currentWeather.getRawResponse());
-            String description = currentWeather.getRawResponse();
-            LatLong latLong = new LatLong(Double.valueOf(jn.path("coord").path("lat").toString()), Double.valueOf(jn.path("coord").path("lon").toString()));
-            Date start = new Date(Long.valueOf(jn.path("dt").toString()) * 1000);
+            double lat = coord.has("lat") ? coord.path("lat").asDouble() : coord.path("Lat").asDouble();
+            double lon = coord.has("lon") ? coord.path("lon").asDouble() : coord.path("Lon").asDouble();
+            LatLong latLong = new LatLong(lat, lon);
+            Date start = new Date(node.path("dt").asLong() * 1000);
             Date end = new Date(start.getTime() + requestInterval - 1000);
-            return new Event(latLong, start, end, description, this.source, OpenNLP.langOptions.FRENCH);
-        } catch (NumberFormatException e) {
-            LOGGER.warn("value of() failed: {}", e.getMessage());
-            return null;
-        } catch (IOException e) {
-            LOGGER.warn("Current weather failed: {}", e.getMessage());
+            EventAttributes attributes = new EventAttributes()
+                    .put("city_id", node.path("id").asLong())
+                    .put("city_name", node.path("name").asText())
+                    .put("temperature", main.path("temp").asDouble())
+                    .put("pressure", main.path("pressure").asDouble())
+                    .put("humidity", main.path("humidity").asDouble())
+                    .put("wind_speed", node.path("wind").path("speed").asDouble())
+                    .put("weather", weather.path("main").asText())
+                    .put("weather_description", weather.path("description").asText());
+            return new Event(latLong, start, end, createDescription(attributes), this.source, OpenNLP.langOptions.FRENCH, attributes);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid weather: {}", e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Describe the weather of an {@link Event}
+     *
+     * @param attributes Weather fields
+     * @return Future string of {@link Event#getDescription()}
+     */
+    private static String createDescription(EventAttributes attributes) {
+        String weather = "Weather: " + attributes.getString("weather_description", "");
+        String temperature = "Temperature: " + attributes.getDouble("temperature", 0) + "°C";
+        String pressure = "Pressure: " + attributes.getDouble("pressure", 0) + "hPa";
+        String humidity = "Humidity: " + attributes.getDouble("humidity", 0) + "%";
+        String wind = "Wind: " + attributes.getDouble("wind_speed", 0) + "m/s";
+        return weather + "\\n" + temperature + "\\n" + pressure + "\\n" + humidity + "\\n" + wind;
+    }
+
+    /**
+     * Push weather of a city if it is a new observation
+     *
+     * @param node         Weather of a city
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @return 1 if an {@link Event} has been pushed, 0 otherwise
+     * @see OWMProducerConnector#lastObservations
+     */
+    int push(JsonNode node, IDataProducer dataProducer) {
+        Event event = createEvent(node);
+        if (event == null) {
+            return 0;
+        }
+        String zone = node.has("id") ? node.path("id").asText() : event.getGeometry().toString();
+        Long last = lastObservations.put(zone, event.getStart().getTime());
+        if (last != null && last == event.getStart().getTime()) {
+            return 0;
+        }
+        dataProducer.push(event);
+        return 1;
+    }
+
     /**
      * Check if this jar is active
      *
@@ -175,31 +333,147 @@ public class OWMProducerConnector implements IProducerConnector {
     }
 
     /**
-     * Listen {@link Event} from OWM
+     * Get current weather of all zones from OWM, an observation is pushed only once. Each request takes one token of
+     * the budget of requests, a cycle whose budget is exhausted goes on at next poll.
      *
      * @param dataProducer {@link IDataProducer} contains the data queue
-     * @see OWMProducerConnector#latitude
-     * @see OWMProducerConnector#longitude
-     * @see OWMProducerConnector#source
-     * @see OWMProducerConnector#requestInterval
+     * @return Number of {@link Event} pushed
+     * @throws NullPointerException if dataProducer is null
+     * @see OWMProducerConnector#schedule
+     * @see OWMProducerConnector#pending
      */
     @Override
-    public void load(IDataProducer dataProducer) {
+    public int poll(IDataProducer dataProducer) {
         Objects.requireNonNull(dataProducer);
-        while (!Thread.currentThread().isInterrupted()) {
+        if (pending.isEmpty()) {
+            pending.addAll(createQueries());
+            cyclePushed = 0;
+            cycleFailures = 0;
+        }
+        long start = System.currentTimeMillis();
+        int pushed = 0;
+        while (!pending.isEmpty()) {
+            if (!schedule.tryAcquire()) {
+                return pushed;
+            }
+            Query query = pending.poll();
             try {
-                long start = System.currentTimeMillis();
-                Event event = getCurrentWeather(this.latitude, this.longitude);
-                if (event != null) {
-                    dataProducer.push(event);
-                    long end = System.currentTimeMillis();
-                    long result = end - start;
-                    METRICS_LOGGER.log("time_process_" + this.source, result);
-                }
-                Thread.sleep(requestInterval);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                int count = send(query, dataProducer);
+                pushed += count;
+                cyclePushed += count;
+            } catch (IOException e) {
+                cycleFailures++;
+                LOGGER.warn("Weather of {} failed: {}", query.path, e.getMessage());
+            }
+        }
+        METRICS_LOGGER.log("time_process_" + this.source, System.currentTimeMillis() - start);
+        if (cycleFailures > 0 && cyclePushed == 0) {
+            schedule.failure();
+            return pushed;
+        }
+        schedule.success(cyclePushed);
+        return pushed;
+    }
+
+    /**
+     * Create requests of a cycle : each zone whose city is not known yet by its coordinates, known cities by groups of
+     * {@link OWMProducerConnector#GROUP_SIZE} and each box
+     *
+     * @return Requests to send
+     * @see OWMProducerConnector#coordinates
+     * @see OWMProducerConnector#cities
+     * @see OWMProducerConnector#boxes
+     */
+    private List<Query> createQueries() {
+        List<Query> queries = new ArrayList<>();
+        coordinates.forEach(coordinate ->
+                queries.add(new Query("weather?lat=" + coordinate[0] + "&lon=" + coordinate[1], coordinate)));
+        group(cities, GROUP_SIZE).forEach(ids -> queries.add(new Query("group?id=" + ids, null)));
+        boxes.forEach(box -> queries.add(new Query("box/city?bbox=" + box, null)));
+        return queries;
+    }
+
+    /**
+     * Send a request and push the weather it returns. A zone requested by its coordinates is requested by its city
+     * from next cycle.
+     *
+     * @param query        Request to send
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @return Number of {@link Event} pushed
+     * @throws IOException if the request failed
+     * @see OWMProducerConnector#coordinates
+     * @see OWMProducerConnector#cities
+     */
+    private int send(Query query, IDataProducer dataProducer) throws IOException {
+        JsonNode node = request(query.path);
+        if (query.coordinate == null) {
+            int pushed = 0;
+            for (JsonNode city : node.path("list")) {
+                pushed += push(city, dataProducer);
             }
+            return pushed;
+        }
+        int pushed = push(node, dataProducer);
+        long city = node.path("id").asLong();
+        if (city != 0) {
+            cities.add(city);
+            coordinates.remove(query.coordinate);
+        }
+        return pushed;
+    }
+
+    /**
+     * Split identifiers of cities into groups of at most size identifiers, a duplicated identifier is kept once
+     *
+     * @param cities Identifiers of cities
+     * @param size   Maximum number of identifiers in a group
+     * @return Identifiers of each group, separated by commas
+     * @see OWMProducerConnector#GROUP_SIZE
+     */
+    static List<String> group(Collection<Long> cities, int size) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(cities));
+        List<String> groups = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += size) {
+            groups.add(distinct.subList(i, Math.min(distinct.size(), i + size)).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+        }
+        return groups;
+    }
+
+    /**
+     * Delay until next request to OWM, it depends on previous results
+     *
+     * @return Delay in milliseconds
+     * @see OWMProducerConnector#schedule
+     */
+    @Override
+    public long getInterval() {
+        return schedule.getDelay();
+    }
+
+    /**
+     * Request to OpenWeatherMap
+     */
+    private static class Query {
+        /**
+         * Endpoint and its parameters
+         */
+        private final String path;
+        /**
+         * Coordinates of the zone requested, null if it is a group of cities or a box
+         */
+        private final double[] coordinate;
+
+        /**
+         * Create a request
+         *
+         * @param path       Endpoint and its parameters
+         * @param coordinate Coordinates of the zone requested, null if it is a group of cities or a box
+         */
+        private Query(String path, double[] coordinate) {
+            this.path = path;
+            this.coordinate = coordinate;
         }
     }
 }
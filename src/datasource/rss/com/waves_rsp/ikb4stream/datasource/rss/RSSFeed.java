@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.datasource.rss;
+
+import com.waves_rsp.ikb4stream.core.datasource.AdaptivePollingScheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * One RSS feed read by {@link RSSProducerConnector}, with its own schedule and HTTP validators
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see RSSProducerConnector
+ */
+class RSSFeed {
+    /**
+     * Source name of {@link com.waves_rsp.ikb4stream.core.model.Event Event} created from this feed
+     *
+     * @see RSSFeed#getSource()
+     */
+    private final String source;
+    /**
+     * Url of this feed
+     *
+     * @see RSSFeed#fetch(int)
+     */
+    private final URL url;
+    /**
+     * Adaptive schedule of this feed
+     *
+     * @see RSSFeed#getSchedule()
+     */
+    private final AdaptivePollingScheduler.Schedule schedule;
+    /**
+     * ETag sent by the server on last fetch
+     *
+     * @see RSSFeed#fetch(int)
+     */
+    private volatile String eTag;
+    /**
+     * Last-Modified sent by the server on last fetch
+     *
+     * @see RSSFeed#fetch(int)
+     */
+    private volatile String lastModified;
+
+    /**
+     * Create a feed which is due immediately
+     *
+     * @param source   Source name of this feed
+     * @param url      Url of this feed
+     * @param interval Configured interval time in milliseconds between two fetches
+     * @throws NullPointerException if source or url is null
+     * @throws IllegalArgumentException if interval is not positive
+     */
+    RSSFeed(String source, URL url, long interval) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(url);
+        this.source = source;
+        this.url = url;
+        this.schedule = AdaptivePollingScheduler.getInstance().createSchedule(url.toString(), interval);
+    }
+
+    /**
+     * Get source name of this feed
+     *
+     * @return Source name
+     * @see RSSFeed#source
+     */
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Get url of this feed
+     *
+     * @return Url
+     * @see RSSFeed#url
+     */
+    URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Get adaptive schedule of this feed
+     *
+     * @return {@link AdaptivePollingScheduler.Schedule}
+     * @see RSSFeed#schedule
+     */
+    AdaptivePollingScheduler.Schedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Download this feed, a conditional request is sent when the server gave validators on last fetch
+     *
+     * @param timeout Connect and read timeout in milliseconds
+     * @return {@link FetchResult} without content if the feed has not been modified since last fetch
+     * @throws IOException if the feed can't be read
+     * @see RSSFeed#eTag
+     * @see RSSFeed#lastModified
+     */
+    FetchResult fetch(int timeout) throws IOException {
+        long start = System.currentTimeMillis();
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            if (eTag != null) {
+                httpConnection.setRequestProperty("If-None-Match", eTag);
+            }
+            if (lastModified != null) {
+                httpConnection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+            int code = httpConnection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                httpConnection.disconnect();
+                return new FetchResult(null, null, System.currentTimeMillis() - start);
+            }
+            if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                httpConnection.disconnect();
+                throw new IOException("HTTP " + code + " from " + url);
+            }
+        }
+        byte[] content = read(connection);
+        eTag = connection.getHeaderField("ETag");
+        lastModified = connection.getHeaderField("Last-Modified");
+        return new FetchResult(content, connection.getContentType(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Read the whole body of a connection
+     *
+     * @param connection Opened connection
+     * @return Body, uncompressed if needed
+     * @throws IOException if the body can't be read
+     */
+    private static byte[] read(URLConnection connection) throws IOException {
+        try (InputStream raw = connection.getInputStream();
+             InputStream is = "gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(raw) : raw) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Result of {@link RSSFeed#fetch(int)}
+     */
+    static class FetchResult {
+        /**
+         * Body of the feed, null if not modified
+         */
+        private final byte[] content;
+        /**
+         * Content-Type sent by the server
+         */
+        private final String contentType;
+        /**
+         * Time in milliseconds spent to fetch the feed
+         */
+        private final long latency;
+
+        private FetchResult(byte[] content, String contentType, long latency) {
+            this.content = content;
+            this.contentType = contentType;
+            this.latency = latency;
+        }
+
+        boolean isModified() {
+            return content != null;
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        long getLatency() {
+            return latency;
+        }
+    }
+}
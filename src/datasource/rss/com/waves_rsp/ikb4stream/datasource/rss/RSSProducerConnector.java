@@ -20,23 +20,26 @@ package com.waves_rsp.ikb4stream.datasource.rss;
 
 import com.rometools.modules.georss.GeoRSSModule;
 import com.rometools.modules.georss.GeoRSSUtils;
+import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndFeed;
 import com.rometools.rome.io.FeedException;
 import com.rometools.rome.io.SyndFeedInput;
 import com.rometools.rome.io.XmlReader;
 import com.waves_rsp.ikb4stream.core.datasource.model.IDataProducer;
-import com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector;
+import com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.Event;
 import com.waves_rsp.ikb4stream.core.model.LatLong;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import com.waves_rsp.ikb4stream.core.util.Geocoder;
 import com.waves_rsp.ikb4stream.core.util.LanguageDetection;
+import com.waves_rsp.ikb4stream.core.util.WatermarkStore;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP.nerOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -45,15 +48,17 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Get data flow from RSS
  *
  * @author ikb4stream
  * @version 1.0
- * @see com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector
+ * @see com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector
  */
-public class RSSProducerConnector implements IProducerConnector {
+public class RSSProducerConnector implements IPollingProducerConnector {
     /**
      * Properties of this module
      *
@@ -80,41 +85,72 @@ public class RSSProducerConnector implements IProducerConnector {
      */
     private final OpenNLP openNLP = OpenNLP.getOpenNLP(Thread.currentThread());
     /**
-     * Source name of corresponding {@link Event}
+     * Default interval time between two fetches of a feed
      *
-     * @see RSSProducerConnector#geocodeRSS(String, String, OpenNLP.langOptions)
-     * @see RSSProducerConnector#load(IDataProducer)
+     * @see RSSProducerConnector#RSSProducerConnector()
      */
-    private final String[] sources;
+    private final int interval;
     /**
-     * Interval time between two batch
+     * Connect and read timeout of a feed, in milliseconds
      *
-     * @see RSSProducerConnector#load(IDataProducer)
+     * @see RSSProducerConnector#poll(IDataProducer)
      */
-    private final int interval;
+    private final int timeout;
     /**
-     * @see RSSProducerConnector#load(IDataProducer)
+     * All feeds to read
+     *
+     * @see RSSProducerConnector#poll(IDataProducer)
+     * @see RSSProducerConnector#getInterval()
      */
-    private final String[] urls;
+    private final List<RSSFeed> feeds;
+    /**
+     * Bounded pool of Thread which download feeds
+     *
+     * @see RSSProducerConnector#poll(IDataProducer)
+     * @see RSSProducerConnector#stop()
+     */
+    private final ExecutorService fetchers;
 
-    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection(Thread.currentThread());
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
 
+    /**
+     * Entries published before this date are ignored for feeds without watermark
+     *
+     * @see RSSProducerConnector#pushEntries(SyndFeed, RSSFeed, IDataProducer)
+     */
     private final Date lastLoading;
+    /**
+     * Last entries seen for each feed
+     *
+     * @see RSSProducerConnector#pushEntries(SyndFeed, RSSFeed, IDataProducer)
+     * @see RSSProducerConnector#stop()
+     */
+    private final WatermarkStore watermarkStore;
     private final DateFormat df = new SimpleDateFormat("EEE MMM dd kk:mm:ss ZZZ yyyy", Locale.ENGLISH);
     /**
      * Public constructor to init variable from {@link RSSProducerConnector#PROPERTIES_MANAGER}
      *
      * @throws IllegalStateException if invalid value in configuration file
-     * @see RSSProducerConnector#sources
+     * @see RSSProducerConnector#feeds
      * @see RSSProducerConnector#interval
-     * @see RSSProducerConnector#urls
+     * @see RSSProducerConnector#timeout
+     * @see RSSProducerConnector#lastLoading
+     * @see RSSProducerConnector#watermarkStore
+     * @see RSSProducerConnector#fetchers
      */
     public RSSProducerConnector() {
         try {
-            this.sources = PROPERTIES_MANAGER.getProperty("RSSProducerConnector.source").split(",");
+            String[] sources = PROPERTIES_MANAGER.getProperty("RSSProducerConnector.source").split(",");
+            String[] urls = PROPERTIES_MANAGER.getProperty("RSSProducerConnector.url").split(",");
             this.interval = Integer.parseInt(PROPERTIES_MANAGER.getProperty("RSSProducerConnector.interval"));
+            this.timeout = Integer.parseInt(PROPERTIES_MANAGER.getPropertyOrDefault("RSSProducerConnector.timeout", "10000"));
             this.lastLoading = df.parse(PROPERTIES_MANAGER.getProperty("RSSProducerConnector.lastLoading"));
-            this.urls = PROPERTIES_MANAGER.getProperty("RSSProducerConnector.url").split(",");
+            this.feeds = createFeeds(sources, urls);
+            this.watermarkStore = WatermarkStore.createWatermarkStore(
+                    PROPERTIES_MANAGER.getPropertyOrDefault("RSSProducerConnector.watermark", "resources/datasource/rss/watermarks.json"),
+                    Integer.parseInt(PROPERTIES_MANAGER.getPropertyOrDefault("RSSProducerConnector.watermark.ids", "500")),
+                    10000);
+            this.fetchers = createFetchers(Integer.parseInt(PROPERTIES_MANAGER.getPropertyOrDefault("RSSProducerConnector.thread", "8")));
         } catch (IllegalArgumentException | ParseException e) {
             LOGGER.error("Invalid configuration [] ", e);
             throw new IllegalStateException("Invalid configuration");
@@ -122,95 +158,213 @@ public class RSSProducerConnector implements IProducerConnector {
     }
 
     /**
-     * Listen {@link Event} from RSS
+     * Create each {@link RSSFeed}, the interval of a feed can be overridden with RSSProducerConnector.interval.[source]
+     *
+     * @param sources Source name of each feed
+     * @param urls    Url of each feed
+     * @return List of {@link RSSFeed}
+     * @throws IllegalStateException if an url is invalid or if there are not as many sources as urls
+     * @see RSSProducerConnector#interval
+     */
+    private List<RSSFeed> createFeeds(String[] sources, String[] urls) {
+        if (sources.length != urls.length) {
+            LOGGER.error("Invalid configuration : number of sources is different of number of urls");
+            throw new IllegalStateException("Invalid configuration");
+        }
+        List<RSSFeed> rssFeeds = new ArrayList<>(sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            String source = sources[i].trim();
+            long feedInterval = Long.parseLong(PROPERTIES_MANAGER.getPropertyOrDefault("RSSProducerConnector.interval." + source, String.valueOf(interval)));
+            try {
+                rssFeeds.add(new RSSFeed(source, new URL(urls[i].trim()), feedInterval));
+            } catch (MalformedURLException e) {
+                LOGGER.error("Invalid configuration [] ", e);
+                throw new IllegalStateException("Invalid configuration");
+            }
+        }
+        return Collections.unmodifiableList(rssFeeds);
+    }
+
+    /**
+     * Create the pool which downloads feeds, its Thread stop when they are idle
+     *
+     * @param nbThread Maximum number of feeds downloaded at the same time
+     * @return ExecutorService
+     */
+    private static ExecutorService createFetchers(int nbThread) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(nbThread, nbThread, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("RSS fetcher " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Download all due feeds concurrently, then push new {@link Event} of each one. A feed is not downloaded if the
+     * global budget of requests is exhausted.
      *
      * @param dataProducer {@link IDataProducer} contains the data queue
+     * @return Number of {@link Event} pushed
      * @throws NullPointerException if dataProducer is null
-     * @see RSSProducerConnector#sources
-     * @see RSSProducerConnector#urls
-     * @see RSSProducerConnector#interval
+     * @see RSSProducerConnector#feeds
+     * @see RSSProducerConnector#fetchers
+     * @see RSSProducerConnector#timeout
      */
     @Override
-    public void load(IDataProducer dataProducer) {
+    public int poll(IDataProducer dataProducer) {
         Objects.requireNonNull(dataProducer);
-        final int rssCount = countSources();
-        final boolean[] first = {true};
-        final Date[] lastTime = {Date.from(Instant.now())};
-        System.out.println("sleeping time : " + (this.interval/1000)/60);
-        while (!Thread.currentThread().isInterrupted()) {
-            LOGGER.info("BEFORE : LastLoading property : " + PROPERTIES_MANAGER.getProperty("RSSProducerConnector.lastLoading") + "\n");
-            PROPERTIES_MANAGER.setProperty("RSSProducerConnector.lastLoading", String.valueOf(Date.from(Instant.now())));
-            LOGGER.info("AFTER : LastLoading property : " + PROPERTIES_MANAGER.getProperty("RSSProducerConnector.lastLoading") + "\n");
-            for (int i = 0; i < rssCount; i++) {
-                LOGGER.info("\n*********************************************\n" + "*************" + sources[i] +  i  +"\n*********************************************\n" );
-                first[0] = true;
-                try {
-                    URL url = new URL(urls[i]);
-                    String source = sources[i];
+        long now = System.currentTimeMillis();
+        Map<RSSFeed, Future<RSSFeed.FetchResult>> fetches = new LinkedHashMap<>();
+        feeds.stream()
+                .filter(feed -> feed.getSchedule().isDue(now))
+                .filter(feed -> feed.getSchedule().tryAcquire())
+                .forEach(feed -> fetches.put(feed, fetchers.submit(() -> feed.fetch(timeout))));
+        int count = 0;
+        for (Map.Entry<RSSFeed, Future<RSSFeed.FetchResult>> fetch : fetches.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                fetch.getValue().cancel(true);
+                continue;
+            }
+            count += processFeed(fetch.getKey(), fetch.getValue(), dataProducer);
+        }
+        LOGGER.info("*** RSS loading is finish for {} feed(s) ***\n", fetches.size());
+        return count;
+    }
 
-                    long start = System.currentTimeMillis(); //metrics
-                    SyndFeedInput input = new SyndFeedInput();
-                    SyndFeed feed = input.build(new XmlReader(url));
-                    Date currentTime = Date.from(Instant.now());
-                    feed.getEntries().stream()
-                            .filter(entry -> first[0] || entry.getPublishedDate().after(lastTime[0]))
-                            .forEach(entry -> {
-                                lastTime[0] = currentTime;
-                                Date startDate = (entry.getPublishedDate() != null) ? entry.getPublishedDate() : currentTime;
-                                //check that RSS is not already in database
-                                if (startDate.after(lastLoading) ) {
-                                    String description = "";
-                                    if (entry.getDescription() != null) {
-                                        description = (entry.getDescription().getValue() != null) ? entry.getDescription().getValue() : "";
-                                    }
-                                    String completeDesc = entry.getTitle() + "\\n" + description + "\\nVoir plus: " + entry.getLink();
-                                    GeoRSSModule module = GeoRSSUtils.getGeoRSS(entry);
-                                    String tmpPost = description;
-                                    if (tmpPost.length() > 1250) {
-                                        tmpPost = description.substring(0, 1250);
-                                    }
-                                    OpenNLP.langOptions lang = languageDetection.detectLanguage(tmpPost);
-                                    LatLong latLong = getLatLong(module, completeDesc, source, lang);
-                                    if (latLong != null) {
-                                        Event event = new Event(latLong, startDate, currentTime, completeDesc, source, lang);
-                                        dataProducer.push(event);
-                                    }
-                                }});
-                    first[0] = false;
-                    long time = System.currentTimeMillis() - start;
-                    METRICS_LOGGER.log("time_process_" + source, time);
-                    if (i == this.sources.length -1) {
-                        LOGGER.info("*** RSS loading is finish for this interval. Next time in " + ((this.interval/1000)/60)/60 + " hours ***\n");
-                        Thread.sleep(interval);
-                    }
-                } catch (MalformedURLException e) {
-                    LOGGER.error("Invalid configuration [] ", e);
-                    throw new IllegalStateException("Invalid configuration");
-                } catch (IOException | FeedException e) {
-                    LOGGER.error("Can't parse RSS [] ", e);
-                    if (i == this.sources.length -1) {
-                        LOGGER.info("*** RSS loading is finish for this interval. Next time in " + ((this.interval/1000)/60)/60 + " hours ***\n");
-                        try {
-                            Thread.sleep(interval);
-                        } catch (InterruptedException e1) {
-                            Thread.currentThread().interrupt();
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+    /**
+     * Wait download of a feed, then push its new {@link Event} and adapt its schedule
+     *
+     * @param feed         {@link RSSFeed} downloaded
+     * @param fetch        Pending download of the feed
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @return Number of {@link Event} pushed
+     * @see RSSProducerConnector#METRICS_LOGGER
+     * @see RSSFeed#getSchedule()
+     */
+    private int processFeed(RSSFeed feed, Future<RSSFeed.FetchResult> fetch, IDataProducer dataProducer) {
+        String source = feed.getSource();
+        try {
+            RSSFeed.FetchResult result = fetch.get(timeout, TimeUnit.MILLISECONDS);
+            METRICS_LOGGER.log("time_fetch_" + source, result.getLatency());
+            if (!result.isModified()) {
+                LOGGER.info("{} has not been modified since last fetch", feed.getUrl());
+                feed.getSchedule().success(0);
+                return 0;
             }
+            METRICS_LOGGER.log("bytes_fetch_" + source, result.getContent().length);
+            long start = System.currentTimeMillis(); //metrics
+            SyndFeed syndFeed = new SyndFeedInput().build(new XmlReader(new ByteArrayInputStream(result.getContent()), result.getContentType(), true));
+            int count = pushEntries(syndFeed, feed, dataProducer);
+            METRICS_LOGGER.log("time_process_" + source, System.currentTimeMillis() - start);
+            feed.getSchedule().success(count);
+            return count;
+        } catch (TimeoutException e) {
+            fetch.cancel(true);
+            feed.getSchedule().failure();
+            LOGGER.warn("Timeout while fetching {}", feed.getUrl());
+        } catch (ExecutionException | IOException | FeedException e) {
+            feed.getSchedule().failure();
+            LOGGER.error("Can't parse RSS {} : {}", feed.getUrl(), e.getMessage());
+        } catch (InterruptedException e) {
+            fetch.cancel(true);
+            Thread.currentThread().interrupt();
         }
+        return 0;
     }
 
+    /**
+     * Push entries of a feed which have not been seen yet as {@link Event}. All entries are compared to the watermark
+     * of the previous fetches, its date is raised only once the whole feed has been processed since entries are not
+     * sorted by date.
+     *
+     * @param syndFeed     Parsed feed
+     * @param feed         {@link RSSFeed} which has been downloaded
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @return Number of {@link Event} pushed
+     * @see RSSProducerConnector#watermarkStore
+     * @see RSSProducerConnector#lastLoading
+     */
+    private int pushEntries(SyndFeed syndFeed, RSSFeed feed, IDataProducer dataProducer) {
+        final int[] count = {0};
+        final String key = feed.getUrl().toString();
+        final String source = feed.getSource();
+        final boolean hasWatermark = watermarkStore.getLastPublished(key) != null;
+        final Date[] lastPublished = {null};
+        Date currentTime = Date.from(Instant.now());
+        syndFeed.getEntries().forEach(entry -> {
+            Date startDate = (entry.getPublishedDate() != null) ? entry.getPublishedDate() : currentTime;
+            String id = getEntryId(entry);
+            //check that RSS has not already been processed
+            if ((hasWatermark || startDate.after(lastLoading)) && watermarkStore.isNew(key, id, entry.getPublishedDate())) {
+                watermarkStore.markSeen(key, id);
+                if (entry.getPublishedDate() != null
+                        && (lastPublished[0] == null || entry.getPublishedDate().after(lastPublished[0]))) {
+                    lastPublished[0] = entry.getPublishedDate();
+                }
+                String description = "";
+                if (entry.getDescription() != null) {
+                    description = (entry.getDescription().getValue() != null) ? entry.getDescription().getValue() : "";
+                }
+                String completeDesc = entry.getTitle() + "\\n" + description + "\\nVoir plus: " + entry.getLink();
+                GeoRSSModule module = GeoRSSUtils.getGeoRSS(entry);
+                String tmpPost = description;
+                if (tmpPost.length() > 1250) {
+                    tmpPost = description.substring(0, 1250);
+                }
+                OpenNLP.langOptions lang = languageDetection.detectLanguage(tmpPost);
+                LatLong latLong = getLatLong(module, completeDesc, source, lang);
+                if (latLong != null) {
+                    Event event = new Event(latLong, startDate, currentTime, completeDesc, source, lang);
+                    dataProducer.push(event);
+                    count[0]++;
+                }
+            }});
+        watermarkStore.advance(key, lastPublished[0]);
+        return count[0];
+    }
 
-    private int countSources() {
-        int count = sources.length;
-        if (count != urls.length) {
-            LOGGER.error("Invalid configuration : number of sources is different of number of urls");
-            throw new IllegalStateException("Invalid configuration");
+    /**
+     * Get an identifier of an entry : its guid, or its link if it has none
+     *
+     * @param entry Entry of a feed
+     * @return Identifier of the entry
+     */
+    private static String getEntryId(SyndEntry entry) {
+        if (entry.getUri() != null) {
+            return entry.getUri();
         }
-        return count;
+        if (entry.getLink() != null) {
+            return entry.getLink();
+        }
+        return String.valueOf(entry.getTitle());
+    }
+
+    /**
+     * Delay until the next feed must be fetched
+     *
+     * @return Delay in milliseconds
+     * @see RSSProducerConnector#feeds
+     */
+    @Override
+    public long getInterval() {
+        long nextFetch = feeds.stream().mapToLong(feed -> feed.getSchedule().getNextPoll()).min().orElse(System.currentTimeMillis() + interval);
+        return Math.max(1000, nextFetch - System.currentTimeMillis());
+    }
+
+    /**
+     * Stop downloads of feeds and write watermarks
+     *
+     * @see RSSProducerConnector#fetchers
+     * @see RSSProducerConnector#watermarkStore
+     */
+    @Override
+    public void stop() {
+        fetchers.shutdownNow();
+        watermarkStore.close();
     }
 
     /**
@@ -51,7 +51,7 @@ public class RSSMock implements IProducerConnector {
      */
     private final OpenNLP openNLP = OpenNLP.getOpenNLP(Thread.currentThread());
 
-    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection(Thread.currentThread());
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
 
     private List<File> mockfiles= new ArrayList<>();
     private File directory ;
@@ -21,7 +21,8 @@ package com.waves_rsp.ikb4stream.datasource.twitter;
 import com.waves_rsp.ikb4stream.core.datasource.model.IDataProducer;
 import com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector;
 import com.waves_rsp.ikb4stream.core.model.Event;
-import com.waves_rsp.ikb4stream.core.model.LatLong;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import com.waves_rsp.ikb4stream.core.util.LanguageDetection;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
@@ -31,6 +32,8 @@ import twitter4j.*;
 import twitter4j.conf.ConfigurationBuilder;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Listen any events provided by the twitter api and load them into a IDataProducer object.
@@ -67,25 +70,25 @@ public class TwitterProducerConnector implements IProducerConnector {
     /**
      * Latitude max of {@link com.waves_rsp.ikb4stream.core.communication.model.BoundingBox BoundingBox}
      *
-     * @see TwitterStreamListener#getLatLong(Status)
+     * @see TwitterStreamListener#getGeometry(Status)
      */
     private final double latitudeMax;
     /**
      * Latitude min of {@link com.waves_rsp.ikb4stream.core.communication.model.BoundingBox BoundingBox}
      *
-     * @see TwitterStreamListener#getLatLong(Status)
+     * @see TwitterStreamListener#getGeometry(Status)
      */
     private final double latitudeMin;
     /**
      * Longitude max of {@link com.waves_rsp.ikb4stream.core.communication.model.BoundingBox BoundingBox}
      *
-     * @see TwitterStreamListener#getLatLong(Status)
+     * @see TwitterStreamListener#getGeometry(Status)
      */
     private final double longitudeMax;
     /**
      * Longitude min of {@link com.waves_rsp.ikb4stream.core.communication.model.BoundingBox BoundingBox}
      *
-     * @see TwitterStreamListener#getLatLong(Status)
+     * @see TwitterStreamListener#getGeometry(Status)
      */
     private final double longitudeMin;
     /**
@@ -94,8 +97,28 @@ public class TwitterProducerConnector implements IProducerConnector {
      * @see TwitterProducerConnector#load(IDataProducer)
      */
     private final double[][] boundingBox;
+    /**
+     * Position of tweets without geolocation, it is shared by all their {@link Event} which are marked as not geolocated
+     *
+     * @see TwitterStreamListener#getGeometry(Status)
+     */
+    private final Geometry defaultGeometry;
 
-    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection(Thread.currentThread());
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
+    /**
+     * Time in milliseconds the stream waits for capacity of the pipeline before keeping a tweet in
+     * {@link TwitterProducerConnector#pending}
+     *
+     * @see TwitterProducerConnector#send(IDataProducer, Event)
+     */
+    private final long offerTimeout;
+    /**
+     * {@link Event} which could not be pushed while the pipeline was busy, they are pushed again before new ones
+     *
+     * @see TwitterProducerConnector#send(IDataProducer, Event)
+     * @see TwitterProducerConnector#flushPending(IDataProducer)
+     */
+    private final BlockingQueue<Event> pending;
 
     /**
      * Instantiate the {@link TwitterProducerConnector} object with load properties
@@ -105,6 +128,7 @@ public class TwitterProducerConnector implements IProducerConnector {
      * @see TwitterProducerConnector#longitudeMax
      * @see TwitterProducerConnector#longitudeMin
      * @see TwitterProducerConnector#boundingBox
+     * @see TwitterProducerConnector#defaultGeometry
      */
     public TwitterProducerConnector() {
         loadTwitterProperties();
@@ -117,6 +141,9 @@ public class TwitterProducerConnector implements IProducerConnector {
                     {longitudeMin, latitudeMin},
                     {longitudeMax, latitudeMax}
             };
+            defaultGeometry = Geometry.box(latitudeMin, longitudeMin, latitudeMax, longitudeMax);
+            offerTimeout = Long.parseLong(PROPERTIES_MANAGER.getPropertyOrDefault("twitter.offer.timeout", "100"));
+            pending = new ArrayBlockingQueue<>(Integer.parseInt(PROPERTIES_MANAGER.getPropertyOrDefault("twitter.buffer", "1000")));
         } catch (IllegalArgumentException e) {
             LOGGER.error("Invalid properties {}", e.getMessage());
             throw new IllegalStateException(e);
@@ -129,6 +156,7 @@ public class TwitterProducerConnector implements IProducerConnector {
      * @param dataProducer {@link IDataProducer} contains the data queue
      * @see TwitterProducerConnector#confBuilder
      * @see TwitterProducerConnector#boundingBox
+     * @see TwitterProducerConnector#flushPending(IDataProducer)
      */
     @Override
     public void load(IDataProducer dataProducer) {
@@ -141,7 +169,10 @@ public class TwitterProducerConnector implements IProducerConnector {
             filterQuery.locations(boundingBox);
             twitterStream.addListener(streamListener);
             twitterStream.filter(filterQuery);
-            Thread.currentThread().join();
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(1000);
+                flushPending(dataProducer);
+            }
         } catch (IllegalArgumentException | IllegalStateException err) {
             LOGGER.error("Error loading : " + err.getMessage());
             throw new IllegalStateException(err.getMessage());
@@ -157,6 +188,45 @@ public class TwitterProducerConnector implements IProducerConnector {
         }
     }
 
+    /**
+     * Push an {@link Event} after those kept in {@link TwitterProducerConnector#pending}, the stream waits at most
+     * {@link TwitterProducerConnector#offerTimeout} for capacity, then the {@link Event} is kept for later. It is
+     * dropped only if {@link TwitterProducerConnector#pending} is full.
+     *
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @param event        {@link Event} to push
+     * @see IDataProducer#offer(Event, long)
+     */
+    private void send(IDataProducer dataProducer, Event event) {
+        synchronized (pending) {
+            if (flushPending(dataProducer) && dataProducer.offer(event, offerTimeout)) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                LOGGER.warn("Pipeline is busy and buffer is full, tweet is dropped");
+            }
+        }
+    }
+
+    /**
+     * Push {@link Event} kept in {@link TwitterProducerConnector#pending} as long as the pipeline accepts them
+     *
+     * @param dataProducer {@link IDataProducer} contains the data queue
+     * @return true if {@link TwitterProducerConnector#pending} is empty
+     */
+    private boolean flushPending(IDataProducer dataProducer) {
+        synchronized (pending) {
+            Event event;
+            while ((event = pending.peek()) != null) {
+                if (!dataProducer.offer(event, 0)) {
+                    return false;
+                }
+                pending.poll();
+            }
+            return true;
+        }
+    }
+
     /**
      * Check if this jar is active
      *
@@ -225,71 +295,63 @@ public class TwitterProducerConnector implements IProducerConnector {
             Date start = status.getCreatedAt();
             Date end = status.getCreatedAt();
             User user = status.getUser();
-            LatLong[] latLong = getLatLong(status);
-            if (latLong.length > 0) {
-                JSONObject jsonObject = new JSONObject();
-                try {
-                    jsonObject.append("description", description);
-                    jsonObject.append("user_certified", user.isVerified());
-                    OpenNLP.langOptions lang = languageDetection.detectLanguage(description);
-                    Event event;
-                    if (latLong.length == 1) {
-                        event = new Event(latLong[0], start, end, jsonObject.toString(), source, lang);
-                    } else {
-                        event = new Event(latLong, start, end, jsonObject.toString(), source, lang);
-                    }
-                    this.dataProducer.push(event);
-                } catch (JSONException e) {
-                    LOGGER.error(e.getMessage());
-                }
+            Geometry geometry = getGeometry(status);
+            EventAttributes attributes = new EventAttributes().put("user_certified", user.isVerified());
+            if (geometry == defaultGeometry) {
+                attributes.put("geolocated", false);
             }
+            OpenNLP.langOptions lang = languageDetection.detectLanguage(description);
+            Event event = new Event(geometry, start, end, description, source, lang, attributes);
+            send(dataProducer, event);
         }
 
         /**
          * Get position of Tweet
          *
          * @param status Tweet to analyse
-         * @return {@link LatLong} to represent position of Tweet
+         * @return {@link Geometry} to represent position of Tweet
          * @see TwitterProducerConnector#longitudeMin
          * @see TwitterProducerConnector#longitudeMax
          * @see TwitterProducerConnector#latitudeMax
          * @see TwitterProducerConnector#latitudeMin
          */
-        private LatLong[] getLatLong(Status status) {
+        private Geometry getGeometry(Status status) {
             if (status.getGeoLocation() != null) {
                 LOGGER.info("Status geolocation found !");
-                return new LatLong[]{new LatLong(status.getGeoLocation().getLatitude(), status.getGeoLocation().getLongitude())};
+                return Geometry.point(status.getGeoLocation().getLatitude(), status.getGeoLocation().getLongitude());
             } else if (status.getPlace() != null && status.getPlace().getBoundingBoxCoordinates() != null) {
-                return getLatLongFromBoudingBox(status.getPlace().getBoundingBoxCoordinates());
+                return getGeometryFromBoudingBox(status.getPlace().getBoundingBoxCoordinates());
             } else {
                 LOGGER.info("Status geolocation cannot be found !");
-                return new LatLong[]{
-                        new LatLong(latitudeMin, longitudeMin),
-                        new LatLong(latitudeMax, longitudeMin),
-                        new LatLong(latitudeMax, longitudeMax),
-                        new LatLong(latitudeMin, longitudeMax),
-                        new LatLong(latitudeMin, longitudeMin)
-                };
+                return defaultGeometry;
             }
         }
 
         /**
-         * Get an array of {@link LatLong} from GeoLocation object of Status
+         * Get a closed {@link Geometry} from GeoLocation object of Status
          *
          * @param geoLocations Array of GeoLocation
-         * @return Array of {@link LatLong}
+         * @return {@link Geometry} whose last vertex is the first one
          */
-        private LatLong[] getLatLongFromBoudingBox(GeoLocation[][] geoLocations) {
-            List<LatLong> latLongList = new ArrayList<>();
-            Arrays.stream(geoLocations)
-                    .forEach(arrayGeo -> Arrays.stream(arrayGeo)
-                            .forEach(geo -> latLongList.add(new LatLong(geo.getLatitude(), geo.getLongitude()))));
-            LatLong[] latLong = new LatLong[latLongList.size() + 1];
-            for (int i = 0; i < latLongList.size(); i++) {
-                latLong[i] = latLongList.get(i);
+        private Geometry getGeometryFromBoudingBox(GeoLocation[][] geoLocations) {
+            int size = 0;
+            for (GeoLocation[] arrayGeo : geoLocations) {
+                size += arrayGeo.length;
+            }
+            if (size == 0) {
+                return defaultGeometry;
+            }
+            double[] coordinates = new double[size * 2 + 2];
+            int index = 0;
+            for (GeoLocation[] arrayGeo : geoLocations) {
+                for (GeoLocation geo : arrayGeo) {
+                    coordinates[index++] = geo.getLongitude();
+                    coordinates[index++] = geo.getLatitude();
+                }
             }
-            latLong[latLong.length - 1] = latLong[0];
-            return latLong;
+            coordinates[index++] = coordinates[0];
+            coordinates[index] = coordinates[1];
+            return Geometry.polygon(coordinates);
         }
 
         /**
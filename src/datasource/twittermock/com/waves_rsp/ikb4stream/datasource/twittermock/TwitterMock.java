@@ -23,6 +23,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.waves_rsp.ikb4stream.core.datasource.IProducerConnectorMock;
 import com.waves_rsp.ikb4stream.core.datasource.model.IDataProducer;
 import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
 import com.waves_rsp.ikb4stream.core.model.LatLong;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import com.waves_rsp.ikb4stream.core.util.LanguageDetection;
@@ -60,7 +61,7 @@ public class TwitterMock implements IProducerConnectorMock {
      * @see TwitterMock#getEventFromJson(ObjectNode)
      */
     private static final String SOURCE = "Twitter";
-    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection(Thread.currentThread());
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
     /**
      * Override default constructor
      */
@@ -104,11 +105,12 @@ public class TwitterMock implements IProducerConnectorMock {
         Date endDate = Date.from(Instant.now());
         JsonNode jsonNode = objectNode.findValue("place");
         JsonNode jsonCoordinates = jsonNode.findValue("coordinates");
-        String description = objectNode.findValue("text").toString();
+        String description = objectNode.findValue("text").asText();
         LatLong latLong = jsonToLatLong(jsonCoordinates);
-       OpenNLP.langOptions lang =languageDetection.detectLanguage(description);
+        OpenNLP.langOptions lang = languageDetection.detectLanguage(description);
+        EventAttributes attributes = new EventAttributes().put("user_certified", objectNode.path("user").path("verified").asBoolean());
         try {
-            return new Event(latLong, startDate, endDate, description, SOURCE, lang);
+            return new Event(latLong, startDate, endDate, description, SOURCE, lang, attributes);
         } catch (IllegalArgumentException | NullPointerException err) {
             LOGGER.error(err.getMessage());
             return null;
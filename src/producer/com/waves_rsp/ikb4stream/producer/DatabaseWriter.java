@@ -18,27 +18,43 @@
 
 package com.waves_rsp.ikb4stream.producer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.async.client.MongoClient;
 import com.mongodb.async.client.MongoClients;
 import com.mongodb.async.client.MongoCollection;
 import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.model.geojson.Point;
 import com.mongodb.client.model.geojson.Polygon;
 import com.mongodb.client.model.geojson.Position;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import com.waves_rsp.ikb4stream.core.util.GeoHash;
 import com.waves_rsp.ikb4stream.producer.model.DatabaseWriterCallback;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class writes data in mongodb database
@@ -73,12 +89,57 @@ public class DatabaseWriter {
      * @see DatabaseWriter#getInstance()
      */
     private static final DatabaseWriter DATABASE_WRITER = new DatabaseWriter();
+    /**
+     * Client of the database
+     *
+     * @see DatabaseWriter#close(long)
+     */
+    private final MongoClient mongoClient;
     /**
      * Mongo collection containing {@link Event}
      *
      * @see DatabaseWriter#insertEvent(Event, DatabaseWriterCallback)
      */
     private final MongoCollection<Document> mongoCollection;
+    /**
+     * Mongo collection containing pre-aggregated cells of the heatmap
+     *
+     * @see DatabaseWriter#flushHeatmap()
+     */
+    private final MongoCollection<Document> heatmapCollection;
+    /**
+     * Cells of the heatmap updated since last flush
+     *
+     * @see DatabaseWriter#insertEvent(Event, DatabaseWriterCallback)
+     * @see DatabaseWriter#flushHeatmap()
+     */
+    private final HeatmapAggregator heatmapAggregator;
+    /**
+     * Background Thread which writes the heatmap periodically
+     *
+     * @see DatabaseWriter#flushHeatmap()
+     */
+    private final ScheduledExecutorService heatmapWriter;
+    /**
+     * Maximum number of {@link Event} sent and not acknowledged yet
+     *
+     * @see DatabaseWriter#inFlight
+     */
+    private final int maxInFlight;
+    /**
+     * One permit for each {@link Event} which can be sent, a consumer Thread waits when there are not enough left
+     *
+     * @see DatabaseWriter#insertEvent(Event, DatabaseWriterCallback)
+     * @see DatabaseWriter#insertEvents(List, DatabaseWriterCallback)
+     * @see DatabaseWriter#awaitInserts(long)
+     */
+    private final Semaphore inFlight;
+    /**
+     * Number of {@link Event} sent and not acknowledged yet
+     *
+     * @see DatabaseWriter#getInFlight()
+     */
+    private final AtomicInteger pendingEvents = new AtomicInteger();
     /**
      * Constant value {@value LOCATION_FIELD}
      *
@@ -86,12 +147,11 @@ public class DatabaseWriter {
      */
     private static final String LOCATION_FIELD = "location";
     /**
-     * Mapper to read JSON
+     * Constant value {@value ATTRIBUTES_FIELD}
      *
-     * @see DatabaseWriter#insertEvent(Event, DatabaseWriterCallback)
+     * @see DatabaseWriter#createDocument(Event)
      */
-    private final ObjectMapper mapper = new ObjectMapper();
-
+    private static final String ATTRIBUTES_FIELD = "attributes";
     /**
      * DataWriter constructor
      *
@@ -99,16 +159,93 @@ public class DatabaseWriter {
      */
     private DatabaseWriter() {
         try {
-            final MongoClient mongoClient = MongoClients.create(PROPERTIES_MANAGER.getProperty("database.host"));
+            this.mongoClient = MongoClients.create(PROPERTIES_MANAGER.getProperty("database.host"));
             final MongoDatabase mongoDatabase = mongoClient.getDatabase(PROPERTIES_MANAGER.getProperty("database.datasource"));
             this.mongoCollection = mongoDatabase.getCollection(PROPERTIES_MANAGER.getProperty("database.collection"));
+            this.heatmapCollection = mongoDatabase.getCollection(getHeatmapCollectionName());
         } catch (IllegalArgumentException e) {
             LOGGER.error(e.getMessage());
             throw new IllegalStateException(e.getMessage());
         }
+        this.heatmapAggregator = new HeatmapAggregator(getHeatmapPrecisions());
+        this.maxInFlight = getMaxInFlight();
+        this.inFlight = new Semaphore(maxInFlight);
+        long flush = 5000;
+        try {
+            flush = Long.parseLong(PROPERTIES_MANAGER.getProperty("database.heatmap.flush"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for database.heatmap.flush");
+        }
+        this.heatmapWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("Heatmap writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heatmapWriter.scheduleWithFixedDelay(this::flushHeatmap, flush, flush, TimeUnit.MILLISECONDS);
         LOGGER.info("DatabaseWriter has been instantiate");
     }
 
+    /**
+     * Get name of the heatmap collection
+     *
+     * @return Value of database.heatmap.collection, "heatmap" by default
+     */
+    private static String getHeatmapCollectionName() {
+        try {
+            return PROPERTIES_MANAGER.getProperty("database.heatmap.collection");
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for database.heatmap.collection");
+            return "heatmap";
+        }
+    }
+
+    /**
+     * Get maximum number of {@link Event} sent and not acknowledged yet
+     *
+     * @return Value of database.inflight, 256 by default
+     * @throws IllegalStateException if database.inflight is not positive
+     */
+    private static int getMaxInFlight() {
+        int max = 256;
+        try {
+            max = Integer.parseInt(PROPERTIES_MANAGER.getProperty("database.inflight"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for database.inflight");
+        }
+        if (max < 1) {
+            throw new IllegalStateException("database.inflight must be positive");
+        }
+        return max;
+    }
+
+    /**
+     * Get geohash precisions maintained in the heatmap
+     *
+     * @return Value of database.heatmap.precisions, 3, 4, 5 and 6 by default
+     * @throws IllegalStateException if database.heatmap.precisions is invalid
+     */
+    private static int[] getHeatmapPrecisions() {
+        String precisions;
+        try {
+            precisions = PROPERTIES_MANAGER.getProperty("database.heatmap.precisions");
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for database.heatmap.precisions");
+            precisions = "3,4,5,6";
+        }
+        try {
+            int[] values = Arrays.stream(precisions.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+            for (int value : values) {
+                if (value < 1 || value > GeoHash.MAX_PRECISION) {
+                    throw new IllegalStateException("Invalid database.heatmap.precisions " + precisions);
+                }
+            }
+            return values;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid database.heatmap.precisions " + precisions);
+        }
+    }
+
     /**
      * Return an instance of {@link DatabaseWriter}
      *
@@ -120,40 +257,295 @@ public class DatabaseWriter {
     }
 
     /**
-     * This method inserts an {@link Event} in the database
+     * This method inserts an {@link Event} in the database. If database.inflight events are not acknowledged yet, the
+     * calling Thread waits until one of them is, so that consumers slow down with the database.
      *
      * @param event    {@link Event} to insert into database
-     * @param callback {@link DatabaseWriterCallback} called after inserting
+     * @param callback {@link DatabaseWriterCallback} called after inserting, or with an InterruptedException if the
+     *                 Thread is interrupted while waiting
      * @throws NullPointerException    if event or callback is null
      * @see DatabaseWriter#mongoCollection
-     * @see DatabaseWriter#LOCATION_FIELD
+     * @see DatabaseWriter#inFlight
      * @see DatabaseWriter#METRICS_LOGGER
-     * @see DatabaseWriter#mapper
      */
     public void insertEvent(Event event, DatabaseWriterCallback callback) {
         Objects.requireNonNull(event);
         Objects.requireNonNull(callback);
+        long start = System.currentTimeMillis();
+        Document document = createDocument(event);
+        if (!acquireInFlight(1, start, callback)) {
+            return;
+        }
+        pendingEvents.incrementAndGet();
+        this.mongoCollection.insertOne(document, (result, t) -> {
+            try {
+                if (t == null) {
+                    heatmapAggregator.add(event);
+                }
+                callback.onResult(t);
+            } finally {
+                pendingEvents.decrementAndGet();
+                inFlight.release();
+            }
+        });
+        long time = System.currentTimeMillis() - start;
+        METRICS_LOGGER.log("time_dbwriter_" + event.getSource(), time);
+    }
+
+    /**
+     * This method inserts a batch of {@link Event} in the database with a single unordered request. Each {@link Event}
+     * counts in database.inflight, a batch larger than database.inflight takes all permits. If some documents can't be
+     * inserted, the others are still added to the heatmap.
+     *
+     * @param events   List of {@link Event} to insert into database
+     * @param callback {@link DatabaseWriterCallback} called once after inserting the whole batch, with the error if one
+     *                 insert failed, or with an InterruptedException if the Thread is interrupted while waiting
+     * @throws NullPointerException if events or callback is null
+     * @see DatabaseWriter#insertEvent(Event, DatabaseWriterCallback)
+     * @see DatabaseWriter#inFlight
+     */
+    public void insertEvents(List<Event> events, DatabaseWriterCallback callback) {
+        Objects.requireNonNull(events);
+        Objects.requireNonNull(callback);
+        if (events.isEmpty()) {
+            callback.onResult(null);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Document> documents = new ArrayList<>(events.size());
+        events.forEach(event -> documents.add(createDocument(event)));
+        int permits = Math.min(events.size(), maxInFlight);
+        if (!acquireInFlight(permits, start, callback)) {
+            return;
+        }
+        pendingEvents.addAndGet(events.size());
+        this.mongoCollection.insertMany(documents, new InsertManyOptions().ordered(false), (result, t) -> {
+            try {
+                getInsertedEvents(events, t).forEach(heatmapAggregator::add);
+                callback.onResult(t);
+            } finally {
+                pendingEvents.addAndGet(-events.size());
+                inFlight.release(permits);
+            }
+        });
+        METRICS_LOGGER.log("time_dbwriter_batch", System.currentTimeMillis() - start);
+        METRICS_LOGGER.log("dbwriter_batch_size", events.size());
+    }
+
+    /**
+     * Get {@link Event} of a batch which have been inserted. As the batch is unordered, only documents reported in the
+     * errors of a {@link MongoBulkWriteException} have failed, any other error fails the whole batch.
+     *
+     * @param events {@link Event} sent, in the order of their documents
+     * @param t      Error of the batch, or null
+     * @return {@link Event} inserted
+     * @see DatabaseWriter#insertEvents(List, DatabaseWriterCallback)
+     */
+    static List<Event> getInsertedEvents(List<Event> events, Throwable t) {
+        if (t == null) {
+            return events;
+        }
+        if (!(t instanceof MongoBulkWriteException)) {
+            return Collections.emptyList();
+        }
+        Set<Integer> failed = new HashSet<>();
+        ((MongoBulkWriteException) t).getWriteErrors().forEach(error -> failed.add(error.getIndex()));
+        List<Event> inserted = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            if (!failed.contains(i)) {
+                inserted.add(events.get(i));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Take permits of {@link DatabaseWriter#inFlight}, waiting if database.inflight events are not acknowledged yet
+     *
+     * @param permits  Number of permits to take
+     * @param start    Time in milliseconds when the insert has been requested
+     * @param callback {@link DatabaseWriterCallback} called with an InterruptedException if the Thread is interrupted
+     * @return true if the permits have been taken
+     * @see DatabaseWriter#inFlight
+     */
+    private boolean acquireInFlight(int permits, long start, DatabaseWriterCallback callback) {
+        if (inFlight.tryAcquire(permits)) {
+            return true;
+        }
         try {
-            long start = System.currentTimeMillis();
-            Document document = Document.parse(mapper.writeValueAsString(event));
-            document.remove("start");
-            document.remove("end");
-            document.remove(LOCATION_FIELD);
-            document.append("start", event.getStart().getTime());
-            document.append("end", event.getEnd().getTime());
-            if (event.getLocation().length == 1) {
-                document.append(LOCATION_FIELD, new Point(new Position(
-                        event.getLocation()[0].getLongitude(), event.getLocation()[0].getLatitude())));
-            } else {
-                List<Position> positions = Arrays.stream(event.getLocation())
-                        .map(p -> new Position(p.getLongitude(), p.getLatitude())).collect(Collectors.toList());
-                document.append(LOCATION_FIELD, new Polygon(positions));
+            inFlight.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            callback.onResult(e);
+            return false;
+        }
+        METRICS_LOGGER.log("time_dbwriter_backpressure", System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * Write cells of the heatmap updated since last flush, with one unordered bulk of upserts
+     *
+     * @see DatabaseWriter#heatmapAggregator
+     * @see DatabaseWriter#heatmapCollection
+     */
+    void flushHeatmap() {
+        writeHeatmap();
+    }
+
+    /**
+     * Send cells of the heatmap updated since last flush. Cells whose upsert failed are given back to
+     * {@link DatabaseWriter#heatmapAggregator} so that their increments are written by the next flush.
+     *
+     * @return CountDownLatch released when the write is acknowledged
+     * @see DatabaseWriter#flushHeatmap()
+     * @see DatabaseWriter#close(long)
+     */
+    private CountDownLatch writeHeatmap() {
+        CountDownLatch written = new CountDownLatch(1);
+        if (heatmapAggregator.isEmpty()) {
+            written.countDown();
+            return written;
+        }
+        long start = System.currentTimeMillis();
+        Map<String, HeatmapAggregator.Cell> cells = heatmapAggregator.drainCells();
+        List<WriteModel<Document>> updates = HeatmapAggregator.toUpdates(cells);
+        heatmapCollection.bulkWrite(updates, new BulkWriteOptions().ordered(false), (result, t) -> {
+            if (t != null) {
+                Map<String, HeatmapAggregator.Cell> failed = getFailedCells(cells, t);
+                heatmapAggregator.merge(failed);
+                written.countDown();
+                LOGGER.error("Can't write {} cells of heatmap : {}", failed.size(), t.getMessage());
+                return;
             }
-            this.mongoCollection.insertOne(document, (result, t) -> callback.onResult(t));
-            long time = System.currentTimeMillis() - start;
-            METRICS_LOGGER.log("time_dbwriter_" + event.getSource(), time);
-        } catch (JsonProcessingException e) {
-            LOGGER.error("Invalid event format: event not inserted in database.");
+            written.countDown();
+            METRICS_LOGGER.log("time_heatmap_writer", System.currentTimeMillis() - start);
+            METRICS_LOGGER.log("heatmap_cells", updates.size());
+        });
+        return written;
+    }
+
+    /**
+     * Get cells whose upsert has not been applied. As the bulk is unordered, only cells reported in the errors of a
+     * {@link MongoBulkWriteException} have failed, any other error fails the whole bulk.
+     *
+     * @param cells Cells sent, in the order of their upserts
+     * @param t     Error of the bulk
+     * @return Cells to write again
+     * @see DatabaseWriter#writeHeatmap()
+     */
+    static Map<String, HeatmapAggregator.Cell> getFailedCells(Map<String, HeatmapAggregator.Cell> cells, Throwable t) {
+        if (!(t instanceof MongoBulkWriteException)) {
+            return cells;
+        }
+        List<String> keys = new ArrayList<>(cells.keySet());
+        Map<String, HeatmapAggregator.Cell> failed = new HashMap<>();
+        for (BulkWriteError error : ((MongoBulkWriteException) t).getWriteErrors()) {
+            String key = keys.get(error.getIndex());
+            failed.put(key, cells.get(key));
+        }
+        return failed;
+    }
+
+    /**
+     * Wait until all inserts are acknowledged, at most timeout
+     *
+     * @param timeout Time in milliseconds to wait
+     * @return Number of {@link Event} still not acknowledged
+     * @see DatabaseWriter#inFlight
+     */
+    int awaitInserts(long timeout) {
+        try {
+            if (inFlight.tryAcquire(maxInFlight, timeout, TimeUnit.MILLISECONDS)) {
+                inFlight.release(maxInFlight);
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return getInFlight();
+    }
+
+    /**
+     * Get number of {@link Event} sent and not acknowledged yet
+     *
+     * @return Number of {@link Event}
+     * @see DatabaseWriter#pendingEvents
+     */
+    public int getInFlight() {
+        return pendingEvents.get();
+    }
+
+    /**
+     * Close {@link DatabaseWriter} : wait pending inserts, write the last cells of the heatmap and close the connexion.
+     * The whole sequence doesn't last more than timeout.
+     *
+     * @param timeout Time in milliseconds to wait pending writes
+     * @return Number of {@link Event} not acknowledged before the connexion has been closed
+     * @see DatabaseWriter#awaitInserts(long)
+     * @see DatabaseWriter#writeHeatmap()
+     * @see DatabaseWriter#mongoClient
+     */
+    public int close(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        int pending = awaitInserts(timeout);
+        if (pending > 0) {
+            LOGGER.warn("{} events are not acknowledged after {} ms", pending, timeout);
+        }
+        heatmapWriter.shutdownNow();
+        try {
+            if (!writeHeatmap().await(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Last cells of the heatmap are not acknowledged");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mongoClient.close();
+        LOGGER.info("DatabaseWriter has been closed");
+        return pending;
+    }
+
+    /**
+     * Create the {@link Document} of an {@link Event}, fields are written directly without intermediate JSON. Typed
+     * attributes are stored as BSON numbers, booleans and strings in a sub-document.
+     *
+     * @param event {@link Event} to convert
+     * @return {@link Document} to insert
+     * @see DatabaseWriter#LOCATION_FIELD
+     * @see DatabaseWriter#ATTRIBUTES_FIELD
+     */
+    static Document createDocument(Event event) {
+        Document document = new Document()
+                .append("description", event.getDescription())
+                .append("source", event.getSource())
+                .append("score", (int) event.getScore())
+                .append("lang", event.getLang().name())
+                .append("start", event.getStart().getTime())
+                .append("end", event.getEnd().getTime())
+                .append(LOCATION_FIELD, createLocation(event.getGeometry()));
+        if (!event.getAttributes().isEmpty()) {
+            document.append(ATTRIBUTES_FIELD, new Document(event.getAttributes().asMap()));
+        }
+        return document;
+    }
+
+    /**
+     * Convert a {@link Geometry} into a GeoJSON {@link Point} or {@link Polygon}
+     *
+     * @param geometry {@link Geometry} of an {@link Event}
+     * @return GeoJSON geometry
+     */
+    private static com.mongodb.client.model.geojson.Geometry createLocation(Geometry geometry) {
+        if (geometry.isPoint()) {
+            return new Point(new Position(geometry.getLongitude(0), geometry.getLatitude(0)));
+        }
+        List<Position> positions = new ArrayList<>(geometry.size());
+        for (int i = 0; i < geometry.size(); i++) {
+            positions.add(new Position(geometry.getLongitude(i), geometry.getLatitude(i)));
         }
+        // Polygon takes its holes as varargs of List<Position>, the empty generic array it creates is never exposed
+        @SuppressWarnings("unchecked")
+        Polygon polygon = new Polygon(positions);
+        return polygon;
     }
 }
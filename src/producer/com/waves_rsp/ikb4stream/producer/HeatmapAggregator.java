@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.producer;
+
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.model.geojson.Point;
+import com.mongodb.client.model.geojson.Position;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+import com.waves_rsp.ikb4stream.core.util.GeoHash;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Updates.addEachToSet;
+import static com.mongodb.client.model.Updates.combine;
+import static com.mongodb.client.model.Updates.inc;
+import static com.mongodb.client.model.Updates.max;
+import static com.mongodb.client.model.Updates.setOnInsert;
+
+/**
+ * Accumulate {@link Event} in cells of the heatmap : for each geohash precision, cell and hour, the number of
+ * {@link Event}, their maximum score and their sources. Cells are merged in memory until
+ * {@link HeatmapAggregator#drainCells()} removes them to write their upserts, cells whose write failed are given back
+ * with {@link HeatmapAggregator#merge(Map)}.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see DatabaseWriter
+ */
+class HeatmapAggregator {
+    /**
+     * Duration of a time bucket in milliseconds
+     */
+    static final long HOUR = 3600000L;
+    /**
+     * Geohash precisions maintained in the heatmap
+     *
+     * @see HeatmapAggregator#add(Event)
+     */
+    private final int[] precisions;
+    /**
+     * Cells updated since last {@link HeatmapAggregator#drain()}
+     *
+     * @see HeatmapAggregator#add(Event)
+     */
+    private final Map<String, Cell> cells = new ConcurrentHashMap<>();
+
+    /**
+     * Create an aggregator
+     *
+     * @param precisions Geohash precisions maintained in the heatmap
+     * @throws NullPointerException     if precisions is null
+     * @throws IllegalArgumentException if a precision is invalid
+     */
+    HeatmapAggregator(int[] precisions) {
+        Objects.requireNonNull(precisions);
+        for (int precision : precisions) {
+            if (precision < 1 || precision > GeoHash.MAX_PRECISION) {
+                throw new IllegalArgumentException("Invalid heatmap precision " + precision);
+            }
+        }
+        this.precisions = Arrays.copyOf(precisions, precisions.length);
+    }
+
+    /**
+     * Add an {@link Event} to its cells, it is located at the center of its bounding box. An {@link Event} without
+     * known location (attribute "geolocated" set to false) is ignored.
+     *
+     * @param event {@link Event} written in database
+     * @throws NullPointerException if event is null
+     */
+    void add(Event event) {
+        Objects.requireNonNull(event);
+        if (!event.getAttributes().getBoolean("geolocated", true)) {
+            return;
+        }
+        Geometry geometry = event.getGeometry();
+        double latitude = (geometry.getMinLatitude() + geometry.getMaxLatitude()) / 2;
+        double longitude = (geometry.getMinLongitude() + geometry.getMaxLongitude()) / 2;
+        long hour = Math.floorDiv(event.getStart().getTime(), HOUR) * HOUR;
+        int score = Math.max(0, (int) event.getScore());
+        for (int precision : precisions) {
+            String geohash = GeoHash.encode(latitude, longitude, precision);
+            cells.compute(geohash + '_' + hour, (key, cell) -> {
+                Cell current = cell == null ? new Cell(precision, geohash, hour) : cell;
+                current.count++;
+                current.maxScore = Math.max(current.maxScore, score);
+                current.sources.add(event.getSource());
+                return current;
+            });
+        }
+    }
+
+    /**
+     * Check if there is no pending cell
+     *
+     * @return true if there is nothing to write
+     */
+    boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    /**
+     * Remove all pending cells and create their upserts
+     *
+     * @return One upsert by cell
+     * @see HeatmapAggregator#drainCells()
+     */
+    List<WriteModel<Document>> drain() {
+        return toUpdates(drainCells());
+    }
+
+    /**
+     * Remove all pending cells
+     *
+     * @return Pending cells by key, in the order of {@link HeatmapAggregator#toUpdates(Map)}
+     */
+    Map<String, Cell> drainCells() {
+        Map<String, Cell> drained = new LinkedHashMap<>();
+        for (String key : cells.keySet()) {
+            Cell cell = cells.remove(key);
+            if (cell != null) {
+                drained.put(key, cell);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Give back cells which have not been written, they are merged with cells updated since they have been drained
+     *
+     * @param failed Cells by key, as returned by {@link HeatmapAggregator#drainCells()}
+     * @throws NullPointerException if failed is null
+     */
+    void merge(Map<String, Cell> failed) {
+        Objects.requireNonNull(failed);
+        failed.forEach((key, cell) -> cells.merge(key, cell, (current, previous) -> {
+            current.count += previous.count;
+            current.maxScore = Math.max(current.maxScore, previous.maxScore);
+            current.sources.addAll(previous.sources);
+            return current;
+        }));
+    }
+
+    /**
+     * Create the upserts of cells
+     *
+     * @param drained Cells by key
+     * @return One upsert by cell, in the iteration order of drained
+     */
+    static List<WriteModel<Document>> toUpdates(Map<String, Cell> drained) {
+        List<WriteModel<Document>> updates = new ArrayList<>(drained.size());
+        for (Map.Entry<String, Cell> entry : drained.entrySet()) {
+            String key = entry.getKey();
+            Cell cell = entry.getValue();
+            double[] bounds = GeoHash.decodeBounds(cell.geohash);
+            Point center = new Point(new Position((bounds[1] + bounds[3]) / 2, (bounds[0] + bounds[2]) / 2));
+            updates.add(new UpdateOneModel<>(eq("_id", key), combine(
+                    setOnInsert("precision", cell.precision),
+                    setOnInsert("geohash", cell.geohash),
+                    setOnInsert("hour", cell.hour),
+                    setOnInsert("location", center),
+                    inc("count", cell.count),
+                    max("maxScore", cell.maxScore),
+                    addEachToSet("sources", new ArrayList<>(cell.sources))
+            ), new UpdateOptions().upsert(true)));
+        }
+        return updates;
+    }
+
+    /**
+     * Pending values of a cell
+     */
+    static class Cell {
+        private final int precision;
+        private final String geohash;
+        private final long hour;
+        private final Set<String> sources = new HashSet<>();
+        private int count;
+        private int maxScore;
+
+        private Cell(int precision, String geohash, long hour) {
+            this.precision = precision;
+            this.geohash = geohash;
+            this.hour = hour;
+        }
+    }
+}
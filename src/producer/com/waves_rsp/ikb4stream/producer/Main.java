@@ -18,6 +18,7 @@
 
 package com.waves_rsp.ikb4stream.producer;
 
+import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.producer.datasource.ProducerManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +64,7 @@ public class Main {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOGGER.info("IKB4Stream Producer Module stop");
             PRODUCER_MANAGER.stop();
+            MetricsLogger.getMetricsLogger().close();
         }));
     }
     
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.producer.datasource;
+
+import com.waves_rsp.ikb4stream.core.datasource.model.IDataProducer;
+import com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector;
+import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
+import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Run all {@link IPollingProducerConnector} on a shared pool of Thread instead of one Thread per module
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see ProducerManager
+ */
+class ConnectorRuntime {
+    /**
+     * Properties of this class
+     *
+     * @see PropertiesManager
+     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#getInstance(Class)
+     */
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(ConnectorRuntime.class);
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorRuntime.class);
+    /**
+     * Object to add metrics from this class
+     *
+     * @see ConnectorRuntime#run(ConnectorState)
+     * @see MetricsLogger#log(String, long)
+     * @see MetricsLogger#getMetricsLogger()
+     */
+    private static final MetricsLogger METRICS_LOGGER = MetricsLogger.getMetricsLogger();
+    /**
+     * Executor shared by all {@link IPollingProducerConnector}
+     *
+     * @see ConnectorRuntime#submit(IPollingProducerConnector, ClassLoader, IDataProducer)
+     * @see ConnectorRuntime#stop(long)
+     */
+    private final ScheduledExecutorService scheduler;
+    /**
+     * State of each running {@link IPollingProducerConnector}
+     *
+     * @see ConnectorRuntime#submit(IPollingProducerConnector, ClassLoader, IDataProducer)
+     * @see ConnectorRuntime#getUnhealthyConnectors()
+     */
+    private final Map<IPollingProducerConnector, ConnectorState> connectors = new ConcurrentHashMap<>();
+    /**
+     * Number of consecutive failed cycles before a module is reported as unhealthy
+     *
+     * @see ConnectorRuntime#run(ConnectorState)
+     */
+    private final int maxFailures;
+
+    /**
+     * Private constructor, you must use {@link ConnectorRuntime#createConnectorRuntime()}
+     *
+     * @param nbThread    Number of Thread shared by all modules
+     * @param maxFailures Number of consecutive failures before a module is unhealthy
+     * @see ConnectorRuntime#scheduler
+     * @see ConnectorRuntime#maxFailures
+     */
+    private ConnectorRuntime(int nbThread, int maxFailures) {
+        final AtomicInteger count = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(nbThread, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("Connector " + count.incrementAndGet());
+            return thread;
+        });
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Create a {@link ConnectorRuntime} configured with {@link ConnectorRuntime#PROPERTIES_MANAGER}
+     *
+     * @return {@link ConnectorRuntime}
+     * @see ConnectorRuntime#PROPERTIES_MANAGER
+     */
+    static ConnectorRuntime createConnectorRuntime() {
+        int nbThread = 4;
+        int maxFailures = 5;
+        try {
+            nbThread = Integer.parseInt(PROPERTIES_MANAGER.getProperty("producer.connector.thread"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.connector.thread");
+        }
+        try {
+            maxFailures = Integer.parseInt(PROPERTIES_MANAGER.getProperty("producer.connector.maxfailures"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.connector.maxfailures");
+        }
+        return new ConnectorRuntime(nbThread, maxFailures);
+    }
+
+    /**
+     * Start an {@link IPollingProducerConnector}, its first cycle is run as soon as a Thread is available
+     *
+     * @param connector    {@link IPollingProducerConnector} to run
+     * @param classLoader  ClassLoader of the module
+     * @param dataProducer {@link IDataProducer} given to each cycle
+     * @throws NullPointerException if one of params is null
+     * @see ConnectorRuntime#connectors
+     */
+    void submit(IPollingProducerConnector connector, ClassLoader classLoader, IDataProducer dataProducer) {
+        Objects.requireNonNull(connector);
+        Objects.requireNonNull(classLoader);
+        Objects.requireNonNull(dataProducer);
+        ConnectorState state = new ConnectorState(connector, classLoader, dataProducer);
+        connectors.put(connector, state);
+        schedule(state, 0);
+    }
+
+    /**
+     * Schedule next cycle of a module
+     *
+     * @param state {@link ConnectorState} of the module
+     * @param delay Delay in milliseconds before next cycle
+     * @see ConnectorRuntime#scheduler
+     */
+    private void schedule(ConnectorState state, long delay) {
+        try {
+            scheduler.schedule(() -> run(state), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("{} has not been rescheduled, runtime is stopped", state.name);
+        }
+    }
+
+    /**
+     * Run one cycle of a module with its own ClassLoader, then schedule the next one. Any Throwable thrown by
+     * the module is counted as a failure so that an Error does not stop its cycles
+     *
+     * @param state {@link ConnectorState} of the module
+     * @see ConnectorRuntime#maxFailures
+     * @see ConnectorRuntime#METRICS_LOGGER
+     */
+    private void run(ConnectorState state) {
+        Thread current = Thread.currentThread();
+        ClassLoader previous = current.getContextClassLoader();
+        current.setContextClassLoader(state.classLoader);
+        try {
+            if (!state.started) {
+                state.connector.start();
+                state.started = true;
+            }
+            long start = System.currentTimeMillis();
+            int count = state.connector.poll(state.dataProducer);
+            METRICS_LOGGER.log("time_poll_" + state.name, System.currentTimeMillis() - start);
+            METRICS_LOGGER.log("event_poll_" + state.name, count);
+            if (state.failures >= maxFailures) {
+                LOGGER.info("{} is healthy again", state.name);
+            }
+            state.failures = 0;
+        } catch (Throwable e) {
+            state.failures++;
+            LOGGER.error("Cycle of {} failed : {}", state.name, e.getMessage(), e);
+            if (state.failures == maxFailures) {
+                LOGGER.warn("{} failed {} times in a row, it is unhealthy", state.name, state.failures);
+                METRICS_LOGGER.log("connector_unhealthy_" + state.name, state.failures);
+            }
+        } finally {
+            current.setContextClassLoader(previous);
+        }
+        if (!current.isInterrupted()) {
+            schedule(state, state.connector.getInterval());
+        }
+    }
+
+    /**
+     * Get modules that are unhealthy
+     *
+     * @return Number of consecutive failures of each unhealthy module, by name
+     * @see ConnectorRuntime#maxFailures
+     * @see IPollingProducerConnector#isHealthy()
+     */
+    Map<String, Integer> getUnhealthyConnectors() {
+        return connectors.values().stream()
+                .filter(state -> state.failures >= maxFailures || !state.connector.isHealthy())
+                .collect(Collectors.toMap(state -> state.name, state -> state.failures, Integer::sum));
+    }
+
+    /**
+     * Stop all modules, running cycles are interrupted
+     *
+     * @param timeout Time in milliseconds to wait running cycles
+     * @see ConnectorRuntime#scheduler
+     * @see IPollingProducerConnector#stop()
+     */
+    void stop(long timeout) {
+        scheduler.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Some ProducerConnector are still running after {} ms", timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connectors.values().forEach(state -> {
+            try {
+                state.connector.stop();
+            } catch (Throwable e) {
+                LOGGER.error("Error during stop {} : {}", state.name, e.getMessage(), e);
+            }
+        });
+        connectors.clear();
+    }
+
+    /**
+     * Running state of an {@link IPollingProducerConnector}
+     */
+    private static class ConnectorState {
+        private final IPollingProducerConnector connector;
+        private final ClassLoader classLoader;
+        private final IDataProducer dataProducer;
+        private final String name;
+        private volatile boolean started;
+        private volatile int failures;
+
+        private ConnectorState(IPollingProducerConnector connector, ClassLoader classLoader, IDataProducer dataProducer) {
+            this.connector = connector;
+            this.classLoader = classLoader;
+            this.dataProducer = dataProducer;
+            this.name = connector.getClass().getSimpleName();
+        }
+    }
+}
@@ -26,6 +26,8 @@ import com.waves_rsp.ikb4stream.producer.score.ScoreProcessorManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -41,6 +43,12 @@ public class DataConsumer {
      * @see DataConsumer#consume()
      */
     private final ScoreProcessorManager scoreProcessorManger = new ScoreProcessorManager();
+    /**
+     * {@link ZoneFilter} applied to an {@link Event} before scoring
+     *
+     * @see DataConsumer#consume()
+     */
+    private final ZoneFilter zoneFilter = ZoneFilter.createZoneFilter();
     /**
      * Object to add metrics from this class
      *
@@ -62,7 +70,7 @@ public class DataConsumer {
     /**
      * Single instance of {@link DataQueue}
      *
-     * @see DataQueue#pop()
+     * @see DataQueue#drainTo(List, int, long)
      * @see DataConsumer#consume()
      * @see DataConsumer#createDataConsumer(DataQueue)
      */
@@ -74,18 +82,39 @@ public class DataConsumer {
      * @see DataConsumer#createDataConsumer(DataQueue)
      */
     private final int targetScore;
+    /**
+     * Maximum number of {@link Event} scored and written together
+     *
+     * @see DataConsumer#consume()
+     * @see DataConsumer#createDataConsumer(DataQueue)
+     */
+    private final int batchSize;
+    /**
+     * Maximum time in milliseconds to wait for a batch, {@link DataConsumer#dataQueue} is checked for closing after
+     * each empty batch
+     *
+     * @see DataConsumer#consume()
+     * @see DataConsumer#createDataConsumer(DataQueue)
+     */
+    private final long batchWait;
 
     /**
      * Private constructor, you must use {@link DataConsumer#createDataConsumer(DataQueue)}
      *
      * @param dataQueue   Single instance of {@link DataQueue}
      * @param targetScore Target score to reach
+     * @param batchSize   Maximum number of {@link Event} in a batch
+     * @param batchWait   Maximum time in milliseconds to wait for a batch
      * @see DataConsumer#dataQueue
      * @see DataConsumer#targetScore
+     * @see DataConsumer#batchSize
+     * @see DataConsumer#batchWait
      */
-    private DataConsumer(DataQueue dataQueue, int targetScore) {
+    private DataConsumer(DataQueue dataQueue, int targetScore, int batchSize, long batchWait) {
         this.dataQueue = dataQueue;
         this.targetScore = targetScore;
+        this.batchSize = batchSize;
+        this.batchWait = batchWait;
     }
 
     /**
@@ -93,21 +122,40 @@ public class DataConsumer {
      *
      * @param dataQueue Single instance of {@link DataQueue}
      * @return {@link DataConsumer}
-     * @throws NullPointerException if dataQueue is null
+     * @throws NullPointerException  if dataQueue is null
+     * @throws IllegalStateException if producer.batch.size is not positive
      * @see DataConsumer#dataQueue
      * @see DataConsumer#targetScore
+     * @see DataConsumer#batchSize
+     * @see DataConsumer#batchWait
      */
     public static DataConsumer createDataConsumer(DataQueue dataQueue) {
         Objects.requireNonNull(dataQueue);
+        PropertiesManager propertiesManager = PropertiesManager.getInstance(DataConsumer.class, "resources/config.properties");
         int targetScore = 25;
+        int batchSize = 32;
+        long batchWait = 50;
         try {
-            targetScore = Integer.parseInt(PropertiesManager.getInstance(DataConsumer.class, "resources/config.properties").getProperty("score.target"));
+            targetScore = Integer.parseInt(propertiesManager.getProperty("score.target"));
         } catch (NumberFormatException e) {
             LOGGER.warn("score.target is not a number, use default value");
         } catch (IllegalArgumentException e) {
             LOGGER.warn("Use default value for score.target");
         }
-        return new DataConsumer(dataQueue, targetScore);
+        try {
+            batchSize = Integer.parseInt(propertiesManager.getProperty("producer.batch.size"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.batch.size");
+        }
+        try {
+            batchWait = Long.parseLong(propertiesManager.getProperty("producer.batch.wait"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.batch.wait");
+        }
+        if (batchSize < 1) {
+            throw new IllegalStateException("producer.batch.size must be positive");
+        }
+        return new DataConsumer(dataQueue, targetScore, batchSize, batchWait);
     }
 
     /**
@@ -123,31 +171,75 @@ public class DataConsumer {
     }
 
     /**
-     * Consume Event in dataQueue and send to scoreProcessor
+     * Consume batches of Event in dataQueue and send them to scoreProcessor, {@link Event} outside monitored zones are
+     * dropped before. Kept events of a batch are written with a single insert. It returns when
+     * {@link DataConsumer#dataQueue} is closed and empty, or when the Thread is interrupted. A batch which fails is
+     * logged and counted as lost, next batches are still consumed.
      *
+     * @see DataConsumer#zoneFilter
      * @see DataConsumer#DATABASE_WRITER
      * @see DataConsumer#METRICS_LOGGER
      * @see DataConsumer#targetScore
      * @see DataConsumer#dataQueue
+     * @see DataConsumer#batchSize
+     * @see DataConsumer#batchWait
      */
     public void consume() {
+        List<Event> batch = new ArrayList<>(batchSize);
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                Event event = dataQueue.pop();
-                Event eventClone = scoreProcessorManger.processScore(event);
-                LOGGER.info("Event {} has been scored", eventClone);
-
-                if (filter(eventClone, targetScore)) {
-                    DATABASE_WRITER.insertEvent(eventClone, t -> {
-                        METRICS_LOGGER.log("event_scored_" + event.getSource(), eventClone.getScore());
-                        LOGGER.error(t.getMessage());
-                    });
-                } else {
-                    METRICS_LOGGER.log("scored_not_kept_" + event.getSource(), eventClone.getScore());
+                batch.clear();
+                if (dataQueue.drainTo(batch, batchSize, batchWait) == 0) {
+                    if (dataQueue.isClosed()) {
+                        return;
+                    }
+                    continue;
+                }
+                List<Event> events = new ArrayList<>(batch.size());
+                batch.forEach(popped -> {
+                    Event event = zoneFilter.apply(popped);
+                    if (event != null) {
+                        events.add(event);
+                    }
+                });
+                if (!events.isEmpty()) {
+                    write(scoreProcessorManger.processScores(events));
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOGGER.error("{} events lost : {}", batch.size(), e.getMessage(), e);
+                METRICS_LOGGER.log("event_lost_error", batch.size());
+            }
+        }
+    }
+
+    /**
+     * Insert scored {@link Event} which reach {@link DataConsumer#targetScore}
+     *
+     * @param scored List of {@link Event} with their score
+     * @see DataConsumer#filter(Event, int)
+     * @see DataConsumer#DATABASE_WRITER
+     */
+    private void write(List<Event> scored) {
+        List<Event> kept = new ArrayList<>(scored.size());
+        scored.forEach(event -> {
+            LOGGER.info("Event {} has been scored", event);
+            if (filter(event, targetScore)) {
+                kept.add(event);
+            } else {
+                METRICS_LOGGER.log("scored_not_kept_" + event.getSource(), event.getScore());
             }
+        });
+        if (kept.isEmpty()) {
+            return;
         }
+        DATABASE_WRITER.insertEvents(kept, t -> {
+            if (t != null) {
+                LOGGER.error(t.getMessage());
+                return;
+            }
+            kept.forEach(event -> METRICS_LOGGER.log("event_scored_" + event.getSource(), event.getScore()));
+        });
     }
 }
@@ -84,4 +84,28 @@ public class DataProducer implements IDataProducer {
         METRICS_LOGGER.log("time_process_" + event.getSource(), result);
         LOGGER.info("The event {} has been pushed into database.", event.getSource());
     }
+
+    /**
+     * Push an {@link Event} into DataQueue, waiting at most timeout while it is full
+     *
+     * @param event   {@link Event} to push in {@link DataQueue} to be analysed
+     * @param timeout Time in milliseconds to wait for capacity
+     * @return true if the {@link Event} has been pushed
+     * @throws NullPointerException if event is null
+     * @see DataProducer#dataQueue
+     * @see DataProducer#METRICS_LOGGER
+     */
+    @Override
+    public boolean offer(Event event, long timeout) {
+        Objects.requireNonNull(event);
+        long start = System.currentTimeMillis();
+        try {
+            boolean pushed = dataQueue.offer(event, timeout);
+            METRICS_LOGGER.log("time_process_" + event.getSource(), System.currentTimeMillis() - start);
+            return pushed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 }
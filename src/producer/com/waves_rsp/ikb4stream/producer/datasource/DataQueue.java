@@ -24,12 +24,21 @@ import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * This class stores and provides {@link Event} for {@link DataConsumer} and {@link DataProducer}
+ * This class stores and provides {@link Event} for {@link DataConsumer} and {@link DataProducer}. {@link Event} are
+ * provided in arrival order, or by {@link EventPriority} if producer.queue.mode is priority.
  *
  * @author ikb4stream
  * @version 1.0
@@ -62,32 +71,95 @@ class DataQueue {
      */
     private static final DataQueue DATA_QUEUE = new DataQueue();
     /**
-     * {@link Event} will be push in this {@link DataQueue#queue}
+     * {@link Event} will be push in this {@link DataQueue#queue}, its capacity is bounded by
+     * {@link DataQueue#capacity}
      *
      * @see DataQueue#push(Event)
      * @see DataQueue#isEmpty()
      * @see DataQueue#pop()
      */
     private final BlockingQueue<PackagedEvent> queue;
+    /**
+     * One permit for each free place in {@link DataQueue#queue}
+     *
+     * @see DataQueue#push(Event)
+     * @see DataQueue#offer(Event, long)
+     */
+    private final Semaphore capacity;
     /**
      * Size of {@link DataQueue#queue}
      *
      * @see DataQueue#isEmpty()
      */
     private final int size;
+    /**
+     * Priority of {@link Event}, null to keep arrival order
+     *
+     * @see PackagedEvent#rank
+     */
+    private final EventPriority eventPriority;
+    /**
+     * Arrival number of the next {@link Event}, used to keep arrival order between {@link Event} of same rank
+     *
+     * @see PackagedEvent#sequence
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * True if the {@link DataQueue} doesn't accept new {@link Event} anymore
+     *
+     * @see DataQueue#close()
+     */
+    private volatile boolean closed;
+    /**
+     * Number of {@link Event} refused because the {@link DataQueue} is closed
+     *
+     * @see DataQueue#push(Event)
+     */
+    private final AtomicInteger rejected = new AtomicInteger();
 
     /**
      * Private constructor to block instantiation, use {@link DataQueue#createDataQueue()} instead
      */
     private DataQueue() {
-        int defaultSize = 500;
+        this(getSizeQueue(), EventPriority.createEventPriority());
+    }
+
+    /**
+     * Create a {@link DataQueue} of a given capacity which keeps arrival order
+     *
+     * @param size Capacity of {@link DataQueue#queue}
+     */
+    DataQueue(int size) {
+        this(size, null);
+    }
+
+    /**
+     * Create a {@link DataQueue} of a given capacity
+     *
+     * @param size          Capacity of {@link DataQueue#queue}
+     * @param eventPriority Priority of {@link Event}, null to keep arrival order
+     */
+    DataQueue(int size, EventPriority eventPriority) {
+        this.eventPriority = eventPriority;
+        this.queue = eventPriority == null ? new LinkedBlockingQueue<>()
+                : new PriorityBlockingQueue<>(size, Comparator.<PackagedEvent>comparingLong(p -> p.rank).thenComparingLong(p -> p.sequence));
+        this.capacity = new Semaphore(size);
+        this.size = size;
+    }
+
+    /**
+     * Get capacity of {@link DataQueue#queue}
+     *
+     * @return Value of producer.sizequeue, 500 by default
+     * @see DataQueue#PROPERTIES_MANAGER
+     */
+    private static int getSizeQueue() {
         try {
-            defaultSize = Integer.parseInt(PROPERTIES_MANAGER.getProperty("producer.sizequeue"));
+            return Integer.parseInt(PROPERTIES_MANAGER.getProperty("producer.sizequeue"));
         } catch (IllegalArgumentException e) {
             LOGGER.warn(e.getMessage());
+            return 500;
         }
-        this.queue = new ArrayBlockingQueue<>(defaultSize);
-        this.size = defaultSize;
     }
 
     /**
@@ -101,23 +173,54 @@ class DataQueue {
     }
 
     /**
-     * Push a new {@link Event}, if {@link DataQueue#queue} is full the event is ignored
+     * Push a new {@link Event}, if {@link DataQueue#queue} is full or closed the event is ignored
      *
      * @param event {@link Event} to push in this {@link DataQueue}
      * @throws NullPointerException if event is null
      * @see DataQueue#METRICS_LOGGER
      * @see DataQueue#queue
+     * @see DataQueue#closed
      */
     public void push(Event event) {
         Objects.requireNonNull(event);
-        long arrivedTime = System.currentTimeMillis();
-        boolean inserted = queue.offer(new PackagedEvent(event, arrivedTime));
-        if (!inserted) {
+        if (closed) {
+            rejected.incrementAndGet();
+            METRICS_LOGGER.log("event_dropped_shutdown", event.getSource());
+            LOGGER.warn(event + " cannot be push, DataQueue is closed");
+            return;
+        }
+        boolean inserted = capacity.tryAcquire();
+        if (inserted) {
+            queue.add(new PackagedEvent(event, System.currentTimeMillis()));
+        } else {
             METRICS_LOGGER.log("event_dropped_fullqueue", event.getSource());
             LOGGER.warn(event + " cannot be push");
         }
     }
 
+    /**
+     * Push a new {@link Event}, waiting at most timeout while {@link DataQueue#queue} is full
+     *
+     * @param event   {@link Event} to push in this {@link DataQueue}
+     * @param timeout Time in milliseconds to wait for capacity
+     * @return true if the {@link Event} has been pushed, false if there was no capacity or {@link DataQueue} is closed
+     * @throws NullPointerException if event is null
+     * @throws InterruptedException if thread is interrupted while waiting
+     * @see DataQueue#queue
+     */
+    public boolean offer(Event event, long timeout) throws InterruptedException {
+        Objects.requireNonNull(event);
+        if (closed) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (!capacity.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        queue.add(new PackagedEvent(event, System.currentTimeMillis()));
+        return true;
+    }
+
     /**
      * Return the first {@link Event} in {@link DataQueue#queue}
      *
@@ -130,6 +233,7 @@ class DataQueue {
      */
     public Event pop() throws InterruptedException {
         PackagedEvent packEvent = queue.take();
+        capacity.release();
         Event popEvent = packEvent.event;
         long time = System.currentTimeMillis() - packEvent.arrivedTime;
         METRICS_LOGGER.log("life_in_queue_" + popEvent.getSource(), time);
@@ -137,12 +241,121 @@ class DataQueue {
     }
 
     /**
-     * @return Return true if the DataQueue is empty
+     * Return the first {@link Event} in {@link DataQueue#queue}, waiting at most timeout
+     *
+     * @param timeout Time in milliseconds to wait an {@link Event}
+     * @return {@link Event} in {@link DataQueue}, or null if there is none after timeout
+     * @throws InterruptedException if thread is interrupted during poll operation
      * @see DataQueue#queue
+     */
+    public Event poll(long timeout) throws InterruptedException {
+        PackagedEvent packEvent = queue.poll(timeout, TimeUnit.MILLISECONDS);
+        if (packEvent == null) {
+            return null;
+        }
+        capacity.release();
+        METRICS_LOGGER.log("life_in_queue_" + packEvent.event.getSource(), System.currentTimeMillis() - packEvent.arrivedTime);
+        return packEvent.event;
+    }
+
+    /**
+     * Move a batch of {@link Event} from {@link DataQueue#queue} into events. It returns as soon as maxSize events have
+     * been taken, or after maxWait if there are fewer.
+     *
+     * @param events  List where {@link Event} are added
+     * @param maxSize Maximum number of {@link Event} to take
+     * @param maxWait Maximum time in milliseconds to wait for the batch
+     * @return Number of {@link Event} added to events
+     * @throws NullPointerException     if events is null
+     * @throws IllegalArgumentException if maxSize is not positive
+     * @throws InterruptedException     if thread is interrupted while waiting
+     * @see DataQueue#queue
+     */
+    public int drainTo(List<Event> events, int maxSize, long maxWait) throws InterruptedException {
+        Objects.requireNonNull(events);
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        long deadline = System.currentTimeMillis() + maxWait;
+        List<PackagedEvent> packEvents = new ArrayList<>(maxSize);
+        queue.drainTo(packEvents, maxSize);
+        while (packEvents.size() < maxSize) {
+            long remaining = deadline - System.currentTimeMillis();
+            PackagedEvent packEvent = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+            if (packEvent == null) {
+                break;
+            }
+            packEvents.add(packEvent);
+            queue.drainTo(packEvents, maxSize - packEvents.size());
+        }
+        capacity.release(packEvents.size());
+        long now = System.currentTimeMillis();
+        packEvents.forEach(packEvent -> {
+            METRICS_LOGGER.log("life_in_queue_" + packEvent.event.getSource(), now - packEvent.arrivedTime);
+            events.add(packEvent.event);
+        });
+        return packEvents.size();
+    }
+
+    /**
+     * Stop accepting new {@link Event}, those already in {@link DataQueue#queue} can still be consumed
+     *
+     * @see DataQueue#closed
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Check if {@link DataQueue} is closed
+     *
+     * @return true if new {@link Event} are refused
+     * @see DataQueue#close()
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Get number of {@link Event} waiting in {@link DataQueue#queue}
+     *
+     * @return Number of {@link Event}
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Get number of {@link Event} refused since {@link DataQueue} has been closed
+     *
+     * @return Number of {@link Event}
+     * @see DataQueue#rejected
+     */
+    public int getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Remove all {@link Event} waiting in {@link DataQueue#queue}, used when they can't be consumed anymore
+     *
+     * @return Removed {@link Event}
+     */
+    public List<Event> clear() {
+        List<PackagedEvent> packEvents = new ArrayList<>();
+        queue.drainTo(packEvents);
+        capacity.release(packEvents.size());
+        List<Event> events = new ArrayList<>(packEvents.size());
+        packEvents.forEach(packEvent -> events.add(packEvent.event));
+        return events;
+    }
+
+    /**
+     * @return Return true if the DataQueue is empty
+     * @see DataQueue#capacity
      * @see DataQueue#size
      */
     public boolean isEmpty() {
-        return queue.remainingCapacity() == size;
+        return capacity.availablePermits() == size;
     }
 
     /**
@@ -166,6 +379,18 @@ class DataQueue {
          * @see DataQueue#pop()
          */
         private final Event event;
+        /**
+         * Rank given by {@link DataQueue#eventPriority}, arrival time if there is none
+         *
+         * @see EventPriority#getRank(Event, long)
+         */
+        private final long rank;
+        /**
+         * Arrival number in {@link DataQueue#queue}
+         *
+         * @see DataQueue#sequence
+         */
+        private final long sequence;
 
         /**
          * Create a {@link PackagedEvent} with {@link Event}
@@ -180,6 +405,8 @@ class DataQueue {
             Objects.requireNonNull(arrivedTime);
             this.event = event;
             this.arrivedTime = arrivedTime;
+            this.rank = eventPriority == null ? arrivedTime : eventPriority.getRank(event, arrivedTime);
+            this.sequence = DataQueue.this.sequence.getAndIncrement();
         }
     }
 }
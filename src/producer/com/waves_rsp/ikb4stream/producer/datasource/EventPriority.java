@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.producer.datasource;
+
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import com.waves_rsp.ikb4stream.core.util.KeywordMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Priority of an {@link Event} in {@link DataQueue} : priority of its source, plus a pre-score for each keyword of
+ * urgency found in its description. Each point of priority is worth {@link EventPriority#aging} milliseconds of waiting,
+ * so an {@link Event} of low priority can't wait forever.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see DataQueue
+ */
+class EventPriority {
+    /**
+     * Properties of this class
+     *
+     * @see PropertiesManager
+     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#getInstance(Class)
+     */
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(EventPriority.class);
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventPriority.class);
+    /**
+     * Maximum number of keywords counted in the pre-score, {@value MAX_KEYWORDS}
+     *
+     * @see EventPriority#getPriority(Event)
+     */
+    private static final int MAX_KEYWORDS = 3;
+    /**
+     * Priority of each source, 0 for other sources
+     *
+     * @see EventPriority#getPriority(Event)
+     */
+    private final Map<String, Integer> sourcePriorities;
+    /**
+     * Keywords of urgency
+     *
+     * @see EventPriority#getPriority(Event)
+     */
+    private final KeywordMatcher keywordMatcher;
+    /**
+     * Priority added for each keyword found
+     *
+     * @see EventPriority#getPriority(Event)
+     */
+    private final int keywordPriority;
+    /**
+     * Time in milliseconds of waiting equivalent to one point of priority
+     *
+     * @see EventPriority#getRank(Event, long)
+     */
+    private final long aging;
+
+    /**
+     * Create an {@link EventPriority}
+     *
+     * @param sourcePriorities Priority of each source
+     * @param keywordMatcher   Keywords of urgency
+     * @param keywordPriority  Priority added for each keyword found
+     * @param aging            Time in milliseconds equivalent to one point of priority
+     * @throws NullPointerException     if sourcePriorities or keywordMatcher is null
+     * @throws IllegalArgumentException if aging is negative
+     */
+    EventPriority(Map<String, Integer> sourcePriorities, KeywordMatcher keywordMatcher, int keywordPriority, long aging) {
+        Objects.requireNonNull(sourcePriorities);
+        Objects.requireNonNull(keywordMatcher);
+        if (aging < 0) {
+            throw new IllegalArgumentException("Aging must be positive");
+        }
+        this.sourcePriorities = Collections.unmodifiableMap(new HashMap<>(sourcePriorities));
+        this.keywordMatcher = keywordMatcher;
+        this.keywordPriority = keywordPriority;
+        this.aging = aging;
+    }
+
+    /**
+     * Create the {@link EventPriority} configured with {@link EventPriority#PROPERTIES_MANAGER}
+     *
+     * @return {@link EventPriority}, or null if producer.queue.mode is not priority
+     * @throws IllegalStateException if configuration is invalid
+     */
+    static EventPriority createEventPriority() {
+        String mode = PROPERTIES_MANAGER.getPropertyOrDefault("producer.queue.mode", "fifo").trim();
+        if ("fifo".equalsIgnoreCase(mode)) {
+            return null;
+        }
+        if (!"priority".equalsIgnoreCase(mode)) {
+            throw new IllegalStateException("Invalid producer.queue.mode " + mode);
+        }
+        try {
+            Map<String, Integer> sourcePriorities = parseSourcePriorities(PROPERTIES_MANAGER.getPropertyOrDefault("producer.queue.priority", ""));
+            KeywordMatcher keywordMatcher = KeywordMatcher.create(Arrays.asList(PROPERTIES_MANAGER.getPropertyOrDefault("producer.queue.keywords", "").split(",")));
+            int keywordPriority = Integer.parseInt(PROPERTIES_MANAGER.getPropertyOrDefault("producer.queue.keyword.priority", "5"));
+            long aging = Long.parseLong(PROPERTIES_MANAGER.getPropertyOrDefault("producer.queue.aging", "1000"));
+            LOGGER.info("DataQueue by priority : {} sources, {} keywords", sourcePriorities.size(), keywordMatcher.size());
+            return new EventPriority(sourcePriorities, keywordMatcher, keywordPriority, aging);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid priority of DataQueue : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse priorities of sources
+     *
+     * @param value List of source:priority separated by comma, e.g. "Twitter:10, OWM:0"
+     * @return Priority of each source
+     * @throws IllegalArgumentException if value is invalid
+     */
+    static Map<String, Integer> parseSourcePriorities(String value) {
+        Map<String, Integer> priorities = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid priority " + entry.trim());
+            }
+            priorities.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return priorities;
+    }
+
+    /**
+     * Get priority of an {@link Event}
+     *
+     * @param event {@link Event} to evaluate
+     * @return Priority of its source plus {@link EventPriority#keywordPriority} for each keyword found
+     * @see EventPriority#MAX_KEYWORDS
+     */
+    int getPriority(Event event) {
+        int keywords = keywordMatcher.count(event.getDescription(), MAX_KEYWORDS);
+        return sourcePriorities.getOrDefault(event.getSource(), 0) + keywords * keywordPriority;
+    }
+
+    /**
+     * Get rank of an {@link Event} in {@link DataQueue}, lowest rank is consumed first. The rank doesn't change while
+     * the {@link Event} waits, but {@link Event} arrived later get higher ranks.
+     *
+     * @param event       {@link Event} to evaluate
+     * @param arrivedTime Arrival time in {@link DataQueue}
+     * @return Rank of the {@link Event}
+     * @see EventPriority#aging
+     */
+    long getRank(Event event, long arrivedTime) {
+        return arrivedTime - getPriority(event) * aging;
+    }
+}
@@ -18,24 +18,19 @@
 
 package com.waves_rsp.ikb4stream.producer.datasource;
 
+import com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector;
 import com.waves_rsp.ikb4stream.core.datasource.model.IProducerConnector;
+import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import com.waves_rsp.ikb4stream.core.util.ClassManager;
-import com.waves_rsp.ikb4stream.core.util.JarLoader;
+import com.waves_rsp.ikb4stream.core.util.PluginRegistry;
+import com.waves_rsp.ikb4stream.producer.DatabaseWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
 
 /**
  * Object which manage all {@link IProducerConnector} and {@link DataConsumer}
@@ -56,6 +51,14 @@ public class ProducerManager {
      * Logger used to log all information in this class
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(ProducerManager.class);
+    /**
+     * Object to add metrics from this class
+     *
+     * @see ProducerManager#stop()
+     * @see MetricsLogger#log(String, long)
+     * @see MetricsLogger#getMetricsLogger()
+     */
+    private static final MetricsLogger METRICS_LOGGER = MetricsLogger.getMetricsLogger();
     /**
      * Single instance of {@link ProducerManager}
      *
@@ -63,22 +66,23 @@ public class ProducerManager {
      */
     private static final ProducerManager PRODUCER_MANAGER = new ProducerManager();
     /**
-     * ClassLoader of {@link ProducerManager}
+     * List of Thread for each {@link IProducerConnector}
      *
-     * @see ProducerManager#launchModule(JarLoader)
+     * @see ProducerManager#launchModule(PluginRegistry.Plugin)
+     * @see ProducerManager#stop()
      */
-    private final ClassLoader parent = ProducerManager.class.getClassLoader();
+    private final List<Thread> producerConnectors = new ArrayList<>();
     /**
-     * List of Thread for each {@link IProducerConnector}
+     * Shared executor which runs each {@link IPollingProducerConnector}
      *
-     * @see ProducerManager#launchModule(JarLoader)
+     * @see ProducerManager#launchModule(PluginRegistry.Plugin)
      * @see ProducerManager#stop()
      */
-    private final List<Thread> producerConnectors = new ArrayList<>();
+    private final ConnectorRuntime connectorRuntime = ConnectorRuntime.createConnectorRuntime();
     /**
      * Single instance of {@link DataQueue}
      *
-     * @see ProducerManager#launchModule(JarLoader)
+     * @see ProducerManager#launchModule(PluginRegistry.Plugin)
      * @see ProducerManager#stop()
      */
     private final DataQueue dataQueue = DataQueue.createDataQueue();
@@ -152,16 +156,7 @@ public class ProducerManager {
     private void launchDataProducer() {
         String stringPath = getPathProducerConnector();
         if (stringPath == null) return;
-        try (Stream<Path> paths = Files.walk(Paths.get(stringPath))) {
-            paths.forEach((Path filePath) -> {
-                if (Files.isRegularFile(filePath)) {
-                    JarLoader jarLoader = JarLoader.createJarLoader(filePath.toString());
-                    launchModule(jarLoader);
-                }
-            });
-        } catch (IOException e) {
-            LOGGER.error(e.getMessage());
-        }
+        PluginRegistry.getInstance().getPlugins(stringPath).forEach(this::launchModule);
     }
 
     /**
@@ -182,56 +177,94 @@ public class ProducerManager {
     /**
      * Launch module
      *
-     * @param jarLoader {@link JarLoader} that represents module
+     * @param plugin {@link PluginRegistry.Plugin} that represents module
      * @see ProducerManager#producerConnectors
+     * @see ProducerManager#connectorRuntime
      * @see ProducerManager#dataQueue
-     * @see ProducerManager#parent
-     */
-    private void launchModule(JarLoader jarLoader) {
-        if (jarLoader != null) {
-            List<URL> urls = jarLoader.getUrls();
-            ClassLoader classLoader = AccessController.doPrivileged((PrivilegedAction<ClassLoader>) () -> new URLClassLoader(urls.toArray(new URL[urls.size()]), parent));
-            jarLoader.getClasses().stream()
-                    .map(c -> ClassManager.loadClass(c, classLoader))
-                    .filter(c -> ClassManager.implementInterface(c, IProducerConnector.class))
-                    .forEach(clazz -> {
-                        try {
-                            IProducerConnector producerConnector = (IProducerConnector) ClassManager.newInstance(clazz);
-                            if (producerConnector.isActive()) {
-                                Thread thread = new Thread(() -> producerConnector.load(new DataProducer(dataQueue)));
-                                thread.setContextClassLoader(classLoader);
-                                thread.setName(producerConnector.getClass().getName());
-                                thread.start();
-                                producerConnectors.add(thread);
-                            }
-                        } catch (Exception e) {
-                            LOGGER.error("Error during instantiate {} : {}", clazz.getName(), e.getMessage());
-                        }
-                    });
-        }
+     */
+    private void launchModule(PluginRegistry.Plugin plugin) {
+        ClassLoader classLoader = plugin.getClassLoader();
+        plugin.getClasses(IProducerConnector.class).forEach(clazz -> {
+            try {
+                IProducerConnector producerConnector = (IProducerConnector) ClassManager.newInstance(clazz);
+                if (producerConnector.isActive() && producerConnector instanceof IPollingProducerConnector) {
+                    connectorRuntime.submit((IPollingProducerConnector) producerConnector, classLoader, new DataProducer(dataQueue));
+                } else if (producerConnector.isActive()) {
+                    Thread thread = new Thread(() -> producerConnector.load(new DataProducer(dataQueue)));
+                    thread.setContextClassLoader(classLoader);
+                    thread.setName(producerConnector.getClass().getName());
+                    thread.start();
+                    producerConnectors.add(thread);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error during instantiate {} : {}", clazz.getName(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Get {@link IPollingProducerConnector} which failed too many times in a row or report themselves as unhealthy
+     *
+     * @return Number of consecutive failures of each unhealthy module, by name
+     * @see ProducerManager#connectorRuntime
+     */
+    public Map<String, Integer> getUnhealthyConnectors() {
+        return connectorRuntime.getUnhealthyConnectors();
     }
 
     /**
-     * Stop producer and consumer when dataQueue is empty
+     * Stop producer and consumer properly : intake is stopped, {@link DataConsumer} drain the {@link DataQueue} and
+     * pending inserts are awaited. The whole sequence lasts at most producer.shutdown.timeout, events which can't be
+     * processed before are counted as lost.
      *
      * @see ProducerManager#producerConnectors
+     * @see ProducerManager#connectorRuntime
      * @see ProducerManager#dataConsumers
      * @see ProducerManager#dataQueue
+     * @see DatabaseWriter#close(long)
      */
     public void stop() {
+        long start = System.currentTimeMillis();
+        long timeout = getShutdownTimeout();
+        long deadline = start + timeout;
         producerConnectors.forEach(Thread::interrupt);
-        LOGGER.info("All producer has been stopped");
-        // Wait the DataQueue is Empty
-        LOGGER.info("Wait producers finished to clear the DataQueue");
-        while (!dataQueue.isEmpty()) {
+        connectorRuntime.stop(Math.min(5000, timeout));
+        dataQueue.close();
+        int pending = dataQueue.size();
+        LOGGER.info("All producer has been stopped, {} events to drain", pending);
+        for (Thread consumer : dataConsumers) {
             try {
-                Thread.sleep(500);
+                consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
             } catch (InterruptedException e) {
                 LOGGER.error(e.getMessage());
                 Thread.currentThread().interrupt();
+                break;
             }
         }
+        int lostInQueue = dataQueue.clear().size();
         dataConsumers.forEach(Thread::interrupt);
         LOGGER.info("All consumers has been stopped");
+        int lostInserts = DatabaseWriter.getInstance().close(Math.max(0, deadline - System.currentTimeMillis()));
+        int rejected = dataQueue.getRejected();
+        int drained = Math.max(0, pending - lostInQueue);
+        METRICS_LOGGER.log("shutdown_drained", drained);
+        METRICS_LOGGER.log("shutdown_lost", (long) lostInQueue + lostInserts + rejected);
+        LOGGER.info("Producer stopped in {} ms : {} events drained, {} left in queue, {} events not acknowledged, {} refused during shutdown",
+                System.currentTimeMillis() - start, drained, lostInQueue, lostInserts, rejected);
+    }
+
+    /**
+     * Get maximum time of {@link ProducerManager#stop()}
+     *
+     * @return Value of producer.shutdown.timeout, 30000 ms by default
+     * @see ProducerManager#PROPERTIES_MANAGER
+     */
+    private static long getShutdownTimeout() {
+        try {
+            return Long.parseLong(PROPERTIES_MANAGER.getProperty("producer.shutdown.timeout"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for producer.shutdown.timeout");
+            return 30000;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017 ikb4stream team
+ * ikb4stream is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ikb4stream is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301  USA
+ *
+ */
+
+package com.waves_rsp.ikb4stream.producer.datasource;
+
+import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
+import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import com.waves_rsp.ikb4stream.core.util.ZoneIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Stage applied before scoring : an {@link Event} inside monitored zones is tagged with their names, an {@link Event}
+ * which intersects no zone is dropped (or kept as is in tag mode). An {@link Event} whose location is not known
+ * (attribute "geolocated" set to false) is considered outside every zone.
+ *
+ * @author ikb4stream
+ * @version 1.0
+ * @see ZoneIndex
+ * @see DataConsumer
+ */
+class ZoneFilter {
+    /**
+     * Properties of this class
+     *
+     * @see PropertiesManager
+     * @see PropertiesManager#getProperty(String)
+     * @see PropertiesManager#getInstance(Class)
+     */
+    private static final PropertiesManager PROPERTIES_MANAGER = PropertiesManager.getInstance(ZoneFilter.class);
+    /**
+     * Object to add metrics from this class
+     *
+     * @see ZoneFilter#apply(Event)
+     */
+    private static final MetricsLogger METRICS_LOGGER = MetricsLogger.getMetricsLogger();
+    /**
+     * Logger used to log all information in this class
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZoneFilter.class);
+    /**
+     * Monitored zones, null if every {@link Event} is kept
+     *
+     * @see ZoneFilter#apply(Event)
+     */
+    private final ZoneIndex zoneIndex;
+    /**
+     * True if an {@link Event} outside zones is dropped, false if {@link Event} are only tagged
+     *
+     * @see ZoneFilter#apply(Event)
+     */
+    private final boolean drop;
+
+    /**
+     * Constructor, you should use {@link ZoneFilter#createZoneFilter()}
+     *
+     * @param zoneIndex Monitored zones, null if every {@link Event} is kept
+     * @param drop      True if an {@link Event} outside zones is dropped
+     */
+    ZoneFilter(ZoneIndex zoneIndex, boolean drop) {
+        this.zoneIndex = zoneIndex;
+        this.drop = drop;
+    }
+
+    /**
+     * Create a {@link ZoneFilter} with {@link ZoneFilter#PROPERTIES_MANAGER}, every {@link Event} is kept if
+     * zones.file is not set or invalid
+     *
+     * @return {@link ZoneFilter}
+     */
+    static ZoneFilter createZoneFilter() {
+        String path;
+        try {
+            path = PROPERTIES_MANAGER.getProperty("zones.file");
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("No zones.file, every event is scored");
+            return new ZoneFilter(null, false);
+        }
+        double cellSize = 0.5;
+        boolean drop = true;
+        try {
+            cellSize = Double.parseDouble(PROPERTIES_MANAGER.getProperty("zones.cellsize"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for zones.cellsize");
+        }
+        try {
+            drop = !"tag".equalsIgnoreCase(PROPERTIES_MANAGER.getProperty("zones.mode"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for zones.mode");
+        }
+        try {
+            return new ZoneFilter(ZoneIndex.createZoneIndex(path, cellSize), drop);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            LOGGER.error("Zones are disabled : {}", e.getMessage());
+            return new ZoneFilter(null, false);
+        }
+    }
+
+    /**
+     * Apply this stage to an {@link Event}
+     *
+     * @param event {@link Event} to check
+     * @return {@link Event} to score, tagged with attribute "zones" if it intersects zones, or null if it is dropped
+     * @throws NullPointerException if event is null
+     * @see ZoneFilter#zoneIndex
+     * @see ZoneFilter#drop
+     */
+    Event apply(Event event) {
+        Objects.requireNonNull(event);
+        if (zoneIndex == null) {
+            return event;
+        }
+        Set<String> zones = event.getAttributes().getBoolean("geolocated", true)
+                ? zoneIndex.findZones(event.getGeometry())
+                : Collections.emptySet();
+        if (zones.isEmpty()) {
+            if (drop) {
+                METRICS_LOGGER.log("event_outside_zones_" + event.getSource(), 1);
+                return null;
+            }
+            return event;
+        }
+        EventAttributes attributes = event.getAttributes().copy().put("zones", String.join(",", zones));
+        if (event.getScore() < 0) {
+            return new Event(event.getGeometry(), event.getStart(), event.getEnd(), event.getDescription(),
+                    event.getSource(), event.getLang(), attributes);
+        }
+        return new Event(event.getGeometry(), event.getStart(), event.getEnd(), event.getDescription(),
+                event.getScore(), event.getSource(), event.getLang(), attributes);
+    }
+}
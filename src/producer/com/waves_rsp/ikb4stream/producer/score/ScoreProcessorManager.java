@@ -19,23 +19,15 @@
 package com.waves_rsp.ikb4stream.producer.score;
 
 import com.waves_rsp.ikb4stream.core.datasource.model.IScoreProcessor;
+import com.waves_rsp.ikb4stream.core.datasource.model.ScoringContext;
 import com.waves_rsp.ikb4stream.core.model.Event;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import com.waves_rsp.ikb4stream.core.util.ClassManager;
-import com.waves_rsp.ikb4stream.core.util.JarLoader;
+import com.waves_rsp.ikb4stream.core.util.PluginRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * Object which manage all {@link IScoreProcessor}
@@ -60,15 +52,9 @@ public class ScoreProcessorManager {
      * Association {@link Event#source} to a list of {@link IScoreProcessor}
      *
      * @see ScoreProcessorManager#findIScoreProcessor(String)
-     * @see ScoreProcessorManager#launchModule(JarLoader)
+     * @see ScoreProcessorManager#launchModule(PluginRegistry.Plugin)
      */
     private final Map<String, List<IScoreProcessor>> scoreProcessors = new HashMap<>();
-    /**
-     * ClassLoader of {@link ScoreProcessorManager}
-     *
-     * @see ScoreProcessorManager#launchModule(JarLoader)
-     */
-    private final ClassLoader parent = ScoreProcessorManager.class.getClassLoader();
 
     /**
      * Override default constructor
@@ -94,6 +80,35 @@ public class ScoreProcessorManager {
         return process(sp, event);
     }
 
+    /**
+     * Process NLP Algorithm to a batch of events, each {@link IScoreProcessor} receives all events of its sources at
+     * once
+     *
+     * @param events List of {@link Event} to score
+     * @return Copies of {@link Event} with a new score, in the same order
+     * @throws NullPointerException if events is null
+     * @see ScoreProcessorManager#findIScoreProcessor(String)
+     * @see IScoreProcessor#process(List)
+     */
+    public List<Event> processScores(List<Event> events) {
+        Objects.requireNonNull(events);
+        List<ScoringContext> contexts = new ArrayList<>(events.size());
+        Map<String, List<ScoringContext>> bySource = new LinkedHashMap<>();
+        events.forEach(event -> {
+            ScoringContext context = new ScoringContext(event);
+            contexts.add(context);
+            bySource.computeIfAbsent(event.getSource(), s -> new ArrayList<>()).add(context);
+        });
+        bySource.forEach((source, sourceContexts) -> {
+            for (IScoreProcessor sp : findIScoreProcessor(source)) {
+                sp.process(sourceContexts);
+            }
+        });
+        List<Event> scored = new ArrayList<>(contexts.size());
+        contexts.forEach(context -> scored.add(context.toEvent()));
+        return scored;
+    }
+
     /**
      * Find {@link IScoreProcessor} to apply to a {@link Event#source}
      *
@@ -116,32 +131,28 @@ public class ScoreProcessorManager {
      * @param event          {@link Event} to process
      * @return Copy of {@link Event} with its {@link Event#score} process
      * @throws NullPointerException if scoreProcessor or event is null
+     * @see ScoringContext
      */
     private static Event process(List<IScoreProcessor> scoreProcessor, Event event) {
         Objects.requireNonNull(scoreProcessor);
         Objects.requireNonNull(event);
-        Event tmp = event;
+        ScoringContext context = new ScoringContext(event);
         for (IScoreProcessor sp : scoreProcessor) {
-            tmp = sp.processScore(tmp);
+            sp.process(context);
         }
-        return tmp;
+        return context.toEvent();
     }
 
     /**
-     * Get all {@link IScoreProcessor} associated to {@link Event#source}
+     * Get all {@link IScoreProcessor} associated to {@link Event#source}. Plugins are scanned once and shared by all
+     * {@link ScoreProcessorManager}, each one only creates its own instances of {@link IScoreProcessor}.
+     *
+     * @see PluginRegistry
      */
     private void instanciate() {
         String stringPath = getPathScoreProcessor();
         if (stringPath == null) return;
-        try (Stream<Path> paths = Files.walk(Paths.get(stringPath))) {
-            paths.forEach((Path filePath) -> {
-                if (Files.isRegularFile(filePath)) {
-                    launchModule(JarLoader.createJarLoader(filePath.toString()));
-                }
-            });
-        } catch (IOException e) {
-            LOGGER.error(e.getMessage());
-        }
+        PluginRegistry.getInstance().getPlugins(stringPath).forEach(this::launchModule);
     }
 
     /**
@@ -163,29 +174,21 @@ public class ScoreProcessorManager {
     /**
      * Launch module of {@link IScoreProcessor}
      *
-     * @param jarLoader {@link JarLoader} that represents module
+     * @param plugin {@link PluginRegistry.Plugin} that represents module
      * @see ScoreProcessorManager#scoreProcessors
-     * @see ScoreProcessorManager#parent
      * @see IScoreProcessor
      */
-    private void launchModule(JarLoader jarLoader) {
-        if (jarLoader != null) {
-            List<URL> urls = jarLoader.getUrls();
-            ClassLoader classLoader = AccessController.doPrivileged((PrivilegedAction<ClassLoader>) () -> new URLClassLoader(urls.toArray(new URL[urls.size()]), parent));
-            jarLoader.getClasses().stream()
-                    .map(c -> ClassManager.loadClass(c, classLoader))
-                    .filter(c -> ClassManager.implementInterface(c, IScoreProcessor.class))
-                    .forEach(clazz -> {
-                        try {
-                            IScoreProcessor iScoreProcessor = (IScoreProcessor) ClassManager.newInstance(clazz);
-                            iScoreProcessor.getSources().forEach(source -> {
-                                List<IScoreProcessor> iScoreProcessorList = scoreProcessors.computeIfAbsent(source, l -> new ArrayList<>());
-                                iScoreProcessorList.add(iScoreProcessor);
-                            });
-                        } catch (Exception e) {
-                            LOGGER.error("Error during instantiate {} : {}", clazz.getName(), e.getMessage());
-                        }
-                    });
-        }
+    private void launchModule(PluginRegistry.Plugin plugin) {
+        plugin.getClasses(IScoreProcessor.class).forEach(clazz -> {
+            try {
+                IScoreProcessor iScoreProcessor = (IScoreProcessor) ClassManager.newInstance(clazz);
+                iScoreProcessor.getSources().forEach(source -> {
+                    List<IScoreProcessor> iScoreProcessorList = scoreProcessors.computeIfAbsent(source, l -> new ArrayList<>());
+                    iScoreProcessorList.add(iScoreProcessor);
+                });
+            } catch (Exception e) {
+                LOGGER.error("Error during instantiate {} : {}", clazz.getName(), e.getMessage());
+            }
+        });
     }
 }
@@ -19,9 +19,11 @@
 package com.waves_rsp.ikb4stream.scoring.event;
 
 import com.waves_rsp.ikb4stream.core.datasource.model.IScoreProcessor;
+import com.waves_rsp.ikb4stream.core.datasource.model.ScoringContext;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.Event;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
+import com.waves_rsp.ikb4stream.core.util.RulesPrefilter;
 import com.waves_rsp.ikb4stream.core.util.RulesReader;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
 import org.slf4j.Logger;
@@ -60,39 +62,113 @@ public class EventScoreProcessor implements IScoreProcessor {
     /**
      * Single instance per thread of {@link OpenNLP}
      *
-     * @see EventScoreProcessor#processScore(Event)
+     * @see EventScoreProcessor#process(ScoringContext)
      */
     private final OpenNLP openNLP = OpenNLP.getOpenNLP(Thread.currentThread());
     /**
      * Max score to an {@link Event}
      *
-     * @see EventScoreProcessor#processScore(Event)
+     * @see EventScoreProcessor#process(ScoringContext)
      */
     private static final byte MAX = Event.getScoreMax();
     /**
-     * Map word, score
+     * Map word, score of each language, read from event.rules.code.file
      *
-     * @see EventScoreProcessor#processScore(Event)
+     * @see EventScoreProcessor#process(ScoringContext)
      */
-    private final Map<String, Integer> rulesMapFR;
-    private final Map<String, Integer> rulesMapEN;
+    private final Map<OpenNLP.langOptions, Map<String, Integer>> rulesMaps = new EnumMap<>(OpenNLP.langOptions.class);
+    /**
+     * First pass of each language which skips NLP of events below score.target, empty if event.tiered is disabled
+     *
+     * @see EventScoreProcessor#process(ScoringContext)
+     */
+    private final Map<OpenNLP.langOptions, RulesPrefilter> prefilters = new EnumMap<>(OpenNLP.langOptions.class);
 
     /**
-     * Default constructor to initialize {@link EventScoreProcessor#rulesMapFR} with a {@link PropertiesManager}
+     * Default constructor to initialize {@link EventScoreProcessor#rulesMaps} with a {@link PropertiesManager}, prefilters
+     * are enabled by event.tiered
      *
-     * @see EventScoreProcessor#rulesMapFR
+     * @see EventScoreProcessor#rulesMaps
+     * @see EventScoreProcessor#prefilters
      * @see EventScoreProcessor#PROPERTIES_MANAGER
      */
     public EventScoreProcessor() {
+        this(readStemLength());
+    }
+
+    /**
+     * Constructor to initialize {@link EventScoreProcessor#rulesMaps} and, if stemLength is positive,
+     * {@link EventScoreProcessor#prefilters}. Languages with the same code share their rules and prefilter.
+     *
+     * @param stemLength Maximum number of characters kept from each word of rules by prefilters, 0 to disable them
+     * @throws IllegalStateException if rules of a language can't be read
+     * @see EventScoreProcessor#rulesMaps
+     * @see EventScoreProcessor#prefilters
+     */
+    EventScoreProcessor(int stemLength) {
+        Map<String, Map<String, Integer>> rulesByCode = new HashMap<>();
         try {
-            String ruleFilenameFR = PROPERTIES_MANAGER.getProperty("event.rules.fr.file");
-            String ruleFilenameEN = PROPERTIES_MANAGER.getProperty("event.rules.en.file");
-            rulesMapFR = RulesReader.parseJSONRules(ruleFilenameFR);
-            rulesMapEN = RulesReader.parseJSONRules(ruleFilenameEN);
+            for (OpenNLP.langOptions lang : OpenNLP.langOptions.values()) {
+                rulesMaps.put(lang, rulesByCode.computeIfAbsent(lang.getCode(), code ->
+                        RulesReader.parseJSONRules(PROPERTIES_MANAGER.getProperty("event.rules." + code + ".file"))));
+            }
         } catch (IllegalArgumentException e) {
             LOGGER.error(e.getMessage());
             throw new IllegalStateException(e.getMessage());
         }
+        if (stemLength > 0) {
+            Map<String, RulesPrefilter> prefiltersByCode = new HashMap<>();
+            for (OpenNLP.langOptions lang : OpenNLP.langOptions.values()) {
+                prefilters.put(lang, prefiltersByCode.computeIfAbsent(lang.getCode(), code ->
+                        RulesPrefilter.create("event_" + code, rulesMaps.get(lang), stemLength)));
+            }
+        }
+    }
+
+    /**
+     * Read event.tiered and event.tiered.stem from {@link EventScoreProcessor#PROPERTIES_MANAGER}
+     *
+     * @return Maximum number of characters kept from each word of rules by prefilters, 0 if event.tiered is disabled
+     */
+    private static int readStemLength() {
+        boolean tiered = false;
+        int stemLength = 4;
+        try {
+            tiered = Boolean.parseBoolean(PROPERTIES_MANAGER.getProperty("event.tiered"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for event.tiered");
+        }
+        if (!tiered) {
+            return 0;
+        }
+        try {
+            stemLength = Integer.parseInt(PROPERTIES_MANAGER.getProperty("event.tiered.stem"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for event.tiered.stem");
+        }
+        return stemLength;
+    }
+
+    /**
+     * Get rules of a language
+     *
+     * @param lang Language of the text
+     * @return Map word, score
+     * @see EventScoreProcessor#rulesMaps
+     */
+    Map<String, Integer> getRules(OpenNLP.langOptions lang) {
+        return rulesMaps.get(lang);
+    }
+
+    /**
+     * Get prefilter of a language
+     *
+     * @param lang Language of the text
+     * @return {@link RulesPrefilter}, null if event.tiered is disabled
+     * @see EventScoreProcessor#prefilters
+     */
+    RulesPrefilter getPrefilter(OpenNLP.langOptions lang) {
+        return prefilters.get(lang);
     }
 
     /**
@@ -101,41 +177,53 @@ public class EventScoreProcessor implements IScoreProcessor {
      * @param event an {@link Event} without {@link Event#score}
      * @return Event with a score after {@link OpenNLP} processing
      * @throws NullPointerException if event is null
-     * @see EventScoreProcessor#rulesMapFR
-     * @see EventScoreProcessor#openNLP
-     * @see EventScoreProcessor#MAX
+     * @see EventScoreProcessor#process(ScoringContext)
      * @see Event
      */
     @Override
     public Event processScore(Event event) {
         Objects.requireNonNull(event);
+        ScoringContext context = new ScoringContext(event);
+        process(context);
+        return context.toEvent();
+    }
+
+    /**
+     * Score words of the description with rules of its language. If event.tiered is enabled, events which can't reach
+     * score.target get a score of 0 without NLP processing.
+     *
+     * @param context {@link ScoringContext} of the {@link Event}
+     * @throws NullPointerException if context is null
+     * @see EventScoreProcessor#rulesMaps
+     * @see EventScoreProcessor#prefilters
+     * @see EventScoreProcessor#openNLP
+     * @see EventScoreProcessor#MAX
+     */
+    @Override
+    public void process(ScoringContext context) {
+        Objects.requireNonNull(context);
         long start = System.currentTimeMillis();
-        Map<String, Integer> rulesMap;
-        switch (event.getLang().toString()) {
-            case "FRENCH":
-                rulesMap = rulesMapFR;
-                break;
-            case "ENGLISH":
-                rulesMap = rulesMapEN;
-                break;
-            default:
-                rulesMap = rulesMapEN;
-                break;
+        Map<String, Integer> rulesMap = rulesMaps.get(context.getEvent().getLang());
+        RulesPrefilter prefilter = prefilters.get(context.getEvent().getLang());
+        if (prefilter != null && prefilter.isBelowTarget(context.getDescription(), 1)) {
+            context.setScore(0);
+            METRICS_LOGGER.log("time_scoring_" + context.getEvent().getSource(), System.currentTimeMillis() - start);
+            return;
         }
-        String content = event.getDescription();
-        List<String> eventList = openNLP.applyNLPlemma(content, event.getLang());
-        byte score = 0;
+        long nlpStart = System.nanoTime();
+        List<String> eventList = context.getLemmas(openNLP);
+        if (prefilter != null) {
+            prefilter.recordNLP(System.nanoTime() - nlpStart);
+        }
+        int score = 0;
         for (String word : eventList) {
             if (rulesMap.containsKey(word)) {
                 score += rulesMap.get(word);
             }
         }
-        if (score > MAX) {
-            score = MAX;
-        }
+        context.setScore(Math.min(score, MAX));
         long time = System.currentTimeMillis() - start;
-        METRICS_LOGGER.log("time_scoring_" + event.getSource(), time);
-        return new Event(event.getLocation(), event.getStart(), event.getEnd(), event.getDescription(), score, event.getSource(), event.getLang());
+        METRICS_LOGGER.log("time_scoring_" + context.getEvent().getSource(), time);
     }
 
     /**
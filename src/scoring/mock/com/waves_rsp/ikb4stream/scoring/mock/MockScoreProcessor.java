@@ -19,6 +19,7 @@
 package com.waves_rsp.ikb4stream.scoring.mock;
 
 import com.waves_rsp.ikb4stream.core.datasource.model.IScoreProcessor;
+import com.waves_rsp.ikb4stream.core.datasource.model.ScoringContext;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.Event;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
@@ -68,19 +69,33 @@ public class MockScoreProcessor implements IScoreProcessor {
      * @param event an {@link Event} without {@link Event#score}
      * @return Event with a random score
      * @throws NullPointerException if event is null
-     * @see Event
-     * @see Event#getScoreMax()
+     * @see MockScoreProcessor#process(ScoringContext)
      */
     @Override
     public Event processScore(Event event) {
         Objects.requireNonNull(event);
+        ScoringContext context = new ScoringContext(event);
+        process(context);
+        return context.toEvent();
+    }
+
+    /**
+     * Give a random score
+     *
+     * @param context {@link ScoringContext} of the {@link Event}
+     * @throws NullPointerException if context is null
+     * @see Event#getScoreMax()
+     */
+    @Override
+    public void process(ScoringContext context) {
+        Objects.requireNonNull(context);
         long start = System.currentTimeMillis();
         Random rand = new Random();
         byte nombreAleatoire = (byte) rand.nextInt(Event.getScoreMax() + 1);
         LOGGER.info("Score aléatoire: " + nombreAleatoire);
+        context.setScore(nombreAleatoire);
         long time = System.currentTimeMillis() - start;
-        METRICS_LOGGER.log("time_scoring_" + event.getSource(), time);
-        return new Event(event.getLocation(), event.getStart(), event.getEnd(), event.getDescription(), nombreAleatoire, event.getSource(), event.getLang());
+        METRICS_LOGGER.log("time_scoring_" + context.getEvent().getSource(), time);
     }
 
     /**
@@ -21,7 +21,9 @@ package com.waves_rsp.ikb4stream.scoring.owm;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.waves_rsp.ikb4stream.core.datasource.model.IScoreProcessor;
+import com.waves_rsp.ikb4stream.core.datasource.model.ScoringContext;
 import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
 import org.slf4j.LoggerFactory;
 
@@ -147,26 +149,56 @@ public class OWMScoreProcessor implements IScoreProcessor {
      * @param event an {@link Event} without {@link Event#score}
      * @return Event with a score after temperature analysis
      * @throws NullPointerException if event is null
-     * @see OWMScoreProcessor#objectMapper
-     * @see Event
+     * @see OWMScoreProcessor#process(ScoringContext)
      */
     @Override
     public Event processScore(Event event) {
         Objects.requireNonNull(event);
-        String jsonString = event.getDescription();
-        try {
-            JsonNode jn = objectMapper.readTree(jsonString);
-            double temperature = jn.path("main").path("temp").asDouble();
-            //We suppose that if the T° < threshold, no one turn on fill up his pool
-            byte score1 = (byte) ((temperature - threshold) * factor);
-            //About the weather, if it rain or snow
-            byte score2 = weatherType(score1, jn.path("weather").get(0).path("main").asText());
-            String description = createDescription(jn);
-            return new Event(event.getLocation(), event.getStart(), event.getEnd(), description, verifyMaxScore(score2), event.getSource(), event.getLang());
-        } catch (IOException e) {
-            LOGGER.warn("objectMapper failed: {}", e);
-            return event;
+        ScoringContext context = new ScoringContext(event);
+        process(context);
+        return context.toEvent();
+    }
+
+    /**
+     * Score weather of an {@link Event}. Weather is read from {@link Event#getAttributes()}, or from the payload if
+     * the description is a raw OpenWeatherMap response.
+     *
+     * @param context {@link ScoringContext} of the {@link Event}
+     * @throws NullPointerException if context is null
+     * @see ScoringContext#getPayload()
+     */
+    @Override
+    public void process(ScoringContext context) {
+        Objects.requireNonNull(context);
+        EventAttributes attributes = context.getEvent().getAttributes();
+        if (attributes.has("temperature")) {
+            context.setScore(computeScore(attributes.getDouble("temperature", 0), attributes.getString("weather", "")));
+            return;
         }
+        JsonNode jn = context.getPayload();
+        if (jn == null || !jn.path("main").has("temp")) {
+            LOGGER.warn("Invalid weather from {}", context.getEvent().getSource());
+            return;
+        }
+        context.setScore(computeScore(jn.path("main").path("temp").asDouble(), jn.path("weather").path(0).path("main").asText()));
+        context.setDescription(createDescription(jn));
+    }
+
+    /**
+     * Compute score of a weather
+     *
+     * @param temperature Temperature in °C
+     * @param weather     Weather type
+     * @return Score between {@link OWMScoreProcessor#MIN_SCORE} and {@link OWMScoreProcessor#MAX_SCORE}
+     * @see OWMScoreProcessor#threshold
+     * @see OWMScoreProcessor#factor
+     */
+    private byte computeScore(double temperature, String weather) {
+        //We suppose that if the T° < threshold, no one turn on fill up his pool
+        byte score1 = (byte) ((temperature - threshold) * factor);
+        //About the weather, if it rain or snow
+        byte score2 = weatherType(score1, weather);
+        return verifyMaxScore(score2);
     }
 
     /**
@@ -176,7 +208,7 @@ public class OWMScoreProcessor implements IScoreProcessor {
      * @return Future string of {@link Event#description}
      */
     private static String createDescription(JsonNode node) {
-        String weather = "Weather: " + node.path("weather").get(0).path("description").asText();
+        String weather = "Weather: " + node.path("weather").path(0).path("description").asText();
         String temperature = "Temperature: " + node.path("main").path("temp").asDouble() + "°C";
         String pressure = "Pressure: " + node.path("main").path("pressure").asText() + "hPa";
         String humidity = "Humidity: " + node.path("main").path("humidity").asText() + "%";
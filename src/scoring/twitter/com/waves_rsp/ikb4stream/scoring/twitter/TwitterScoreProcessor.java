@@ -18,17 +18,16 @@
 
 package com.waves_rsp.ikb4stream.scoring.twitter;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.waves_rsp.ikb4stream.core.datasource.model.IScoreProcessor;
+import com.waves_rsp.ikb4stream.core.datasource.model.ScoringContext;
 import com.waves_rsp.ikb4stream.core.metrics.MetricsLogger;
 import com.waves_rsp.ikb4stream.core.model.Event;
-import com.waves_rsp.ikb4stream.core.model.LatLong;
 import com.waves_rsp.ikb4stream.core.model.PropertiesManager;
-import com.waves_rsp.ikb4stream.core.util.LanguageDetection;
+import com.waves_rsp.ikb4stream.core.util.RulesPrefilter;
 import com.waves_rsp.ikb4stream.core.util.RulesReader;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
 import org.slf4j.LoggerFactory;
-import twitter4j.JSONException;
-import twitter4j.JSONObject;
 
 import java.util.*;
 
@@ -62,13 +61,13 @@ public class TwitterScoreProcessor implements IScoreProcessor {
     /**
      * Single instance per thread of {@link OpenNLP}
      *
-     * @see TwitterScoreProcessor#processScore(Event)
+     * @see TwitterScoreProcessor#process(ScoringContext)
      */
     private final OpenNLP openNLP = OpenNLP.getOpenNLP(Thread.currentThread());
     /**
      * Max score to an {@link Event}
      *
-     * @see TwitterScoreProcessor#processScore(Event)
+     * @see TwitterScoreProcessor#process(ScoringContext)
      */
     private static final byte MAX_SCORE = Event.getScoreMax();
     /**
@@ -76,45 +75,107 @@ public class TwitterScoreProcessor implements IScoreProcessor {
      */
     private static final int COEFF_VERIFY_ACCOUNT = 2;
     /**
+     * Map word, score of each language, read from twitter.rules.code.file
      *
+     * @see TwitterScoreProcessor#scoreWords(List, OpenNLP.langOptions)
      */
-    private final Map<String, Integer> rulesMapFR;
-    private final Map<String, Integer> rulesMapEN;
+    private final Map<OpenNLP.langOptions, Map<String, Integer>> rulesMaps = new EnumMap<>(OpenNLP.langOptions.class);
+    /**
+     * First pass of each language which skips NLP of tweets below score.target, empty if twitter.tiered is disabled
+     *
+     * @see TwitterScoreProcessor#process(ScoringContext)
+     */
+    private final Map<OpenNLP.langOptions, RulesPrefilter> prefilters = new EnumMap<>(OpenNLP.langOptions.class);
     /**
      *
      */
     private static final int COEFF_HASHTAG = 2;
 
     /**
-     * Default constructor to initialize {@link TwitterScoreProcessor#rulesMapFR} with a {@link PropertiesManager}
+     * Default constructor to initialize {@link TwitterScoreProcessor#rulesMaps} with a {@link PropertiesManager}, prefilters
+     * are enabled by twitter.tiered
      *
-     * @see TwitterScoreProcessor#rulesMapFR
+     * @see TwitterScoreProcessor#rulesMaps
+     * @see TwitterScoreProcessor#prefilters
      * @see TwitterScoreProcessor#PROPERTIES_MANAGER
      */
     public TwitterScoreProcessor() {
+        this(readStemLength());
+    }
+
+    /**
+     * Constructor to initialize {@link TwitterScoreProcessor#rulesMaps} and, if stemLength is positive,
+     * {@link TwitterScoreProcessor#prefilters}. Languages with the same code share their rules and prefilter.
+     *
+     * @param stemLength Maximum number of characters kept from each word of rules by prefilters, 0 to disable them
+     * @throws IllegalStateException if rules of a language can't be read
+     * @see TwitterScoreProcessor#rulesMaps
+     * @see TwitterScoreProcessor#prefilters
+     */
+    TwitterScoreProcessor(int stemLength) {
+        Map<String, Map<String, Integer>> rulesByCode = new HashMap<>();
         try {
-            String filenameFR = PROPERTIES_MANAGER.getProperty("twitter.rules.fr.file");
-            String filenameEN = PROPERTIES_MANAGER.getProperty("twitter.rules.en.file");
-            rulesMapFR = RulesReader.parseJSONRules(filenameFR);
-            rulesMapEN = RulesReader.parseJSONRules(filenameEN);
+            for (OpenNLP.langOptions lang : OpenNLP.langOptions.values()) {
+                rulesMaps.put(lang, rulesByCode.computeIfAbsent(lang.getCode(), code ->
+                        RulesReader.parseJSONRules(PROPERTIES_MANAGER.getProperty("twitter.rules." + code + ".file"))));
+            }
         } catch (IllegalArgumentException e) {
             LOGGER.error(e.getMessage());
             throw new IllegalStateException(e.getMessage());
         }
+        if (stemLength > 0) {
+            Map<String, RulesPrefilter> prefiltersByCode = new HashMap<>();
+            for (OpenNLP.langOptions lang : OpenNLP.langOptions.values()) {
+                prefilters.put(lang, prefiltersByCode.computeIfAbsent(lang.getCode(), code ->
+                        RulesPrefilter.create("twitter_" + code, rulesMaps.get(lang), stemLength)));
+            }
+        }
     }
 
     /**
-     * Check that the score can't overtake {@link TwitterScoreProcessor#MAX_SCORE}
+     * Read twitter.tiered and twitter.tiered.stem from {@link TwitterScoreProcessor#PROPERTIES_MANAGER}
      *
-     * @param score calculated by OpenNLP processing
-     * @return score (max = {@link TwitterScoreProcessor#MAX_SCORE})
-     * @see TwitterScoreProcessor#MAX_SCORE
+     * @return Maximum number of characters kept from each word of rules by prefilters, 0 if twitter.tiered is disabled
      */
-    private byte verifyMaxScore(byte score) {
-        if (score > MAX_SCORE) {
-            return MAX_SCORE;
+    private static int readStemLength() {
+        boolean tiered = false;
+        int stemLength = 4;
+        try {
+            tiered = Boolean.parseBoolean(PROPERTIES_MANAGER.getProperty("twitter.tiered"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for twitter.tiered");
+        }
+        if (!tiered) {
+            return 0;
+        }
+        try {
+            stemLength = Integer.parseInt(PROPERTIES_MANAGER.getProperty("twitter.tiered.stem"));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Use default value for twitter.tiered.stem");
         }
-        return score;
+        return stemLength;
+    }
+
+    /**
+     * Get rules of a language
+     *
+     * @param lang Language of the text
+     * @return Map word, score
+     * @see TwitterScoreProcessor#rulesMaps
+     */
+    Map<String, Integer> getRules(OpenNLP.langOptions lang) {
+        return rulesMaps.get(lang);
+    }
+
+    /**
+     * Get prefilter of a language
+     *
+     * @param lang Language of the text
+     * @return {@link RulesPrefilter}, null if twitter.tiered is disabled
+     * @see TwitterScoreProcessor#prefilters
+     */
+    RulesPrefilter getPrefilter(OpenNLP.langOptions lang) {
+        return prefilters.get(lang);
     }
 
     /**
@@ -128,66 +189,79 @@ public class TwitterScoreProcessor implements IScoreProcessor {
     }
 
     /**
-     * Parse a JSONObject from a tweet and check if the twitter account is certified
+     * Read a field of a legacy tweet payload, where each value may be wrapped into an array
      *
-     * @param json JSONObject to parse
-     * @return true if the twitter account is certified
-     * @throws JSONException        if json is an invalid tweet
-     * @throws NullPointerException if json is null
+     * @param payload JSON payload of the tweet
+     * @param field   Name of the field
+     * @return Value of the field, missing node if it doesn't exist
+     * @throws NullPointerException if payload or field is null
      */
-    private boolean isCertified(JSONObject json) throws JSONException {
-        Objects.requireNonNull(json);
-        String isCertified = json.getString("user_certified");
-        isCertified = isCertified.substring(1, isCertified.length() - 1);
-        return "true".equalsIgnoreCase(isCertified);
+    private static JsonNode getField(JsonNode payload, String field) {
+        Objects.requireNonNull(payload);
+        Objects.requireNonNull(field);
+        JsonNode node = payload.path(field);
+        return node.isArray() ? node.path(0) : node;
     }
 
     /**
-     * Parse a JSONObject from a tweet and extract the tweet description
+     * Process score of an event from {@link com.waves_rsp.ikb4stream.datasource.twitter.TwitterProducerConnector TwitterProducerConnector}
      *
-     * @param json JSONObject to parse
-     * @return the description of a tweet
-     * @throws JSONException        if json is an invalid json
-     * @throws NullPointerException if json is null
+     * @param event an event without score
+     * @return Event with a score after OpenNLP processing
+     * @throws NullPointerException if event is null
+     * @see TwitterScoreProcessor#process(ScoringContext)
      */
-    private String getParseDescription(JSONObject json) throws JSONException {
-        Objects.requireNonNull(json);
-        return json.getString("description");
+    @Override
+    public Event processScore(Event event) {
+        Objects.requireNonNull(event);
+        ScoringContext context = new ScoringContext(event);
+        process(context);
+        return context.toEvent();
     }
 
-
     /**
-     * Process score of an event from {@link com.waves_rsp.ikb4stream.datasource.twitter.TwitterProducerConnector TwitterProducerConnector}
+     * Score words of the tweet. The account certification is read from {@link Event#getAttributes()}, or from the
+     * payload of events which still carry the tweet as JSON in their description. If twitter.tiered is enabled, tweets
+     * which can't reach score.target get a score of 0 without NLP processing.
      *
-     * @param event an event without score
-     * @return Event with a score after OpenNLP processing
-     * @throws NullPointerException     if event is null
-     * @throws IllegalArgumentException if event is invalid
+     * @param context {@link ScoringContext} of the tweet
+     * @throws NullPointerException if context is null
+     * @see TwitterScoreProcessor#prefilters
      * @see TwitterScoreProcessor#openNLP
      * @see TwitterScoreProcessor#COEFF_HASHTAG
+     * @see TwitterScoreProcessor#COEFF_VERIFY_ACCOUNT
      */
     @Override
-    public Event processScore(Event event) {
-        Objects.requireNonNull(event);
+    public void process(ScoringContext context) {
+        Objects.requireNonNull(context);
         long start = System.currentTimeMillis();
-        String tweet;
-        byte score = 0;
-        try {
-            JSONObject jsonTweet = new JSONObject(event.getDescription());
-            tweet = getParseDescription(jsonTweet);
-            List<String> tweetMap = openNLP.applyNLPlemma(tweet, event.getLang());
-            score = scoreWords(score, tweetMap, event.getLang());
-            //Score x COEFF_VERIFY_ACCOUNT if the twitter is certified
-            if (isCertified(jsonTweet)) {
-                score *= COEFF_VERIFY_ACCOUNT;
-            }
-        } catch (JSONException e) {
-            LOGGER.error("Wrong JsonObject from Twitter Connector\n" + e.getMessage());
-            throw new IllegalArgumentException("Wrong description of event");
+        Event event = context.getEvent();
+        boolean certified = event.getAttributes().getBoolean("user_certified", false);
+        JsonNode payload = context.getPayload();
+        if (payload != null && getField(payload, "description").isTextual()) {
+            context.setDescription(getField(payload, "description").asText());
+            certified = getField(payload, "user_certified").asBoolean();
+        }
+        RulesPrefilter prefilter = prefilters.get(event.getLang());
+        int coefficient = certified ? COEFF_HASHTAG * COEFF_VERIFY_ACCOUNT : COEFF_HASHTAG;
+        if (prefilter != null && prefilter.isBelowTarget(context.getDescription(), coefficient)) {
+            context.setScore(0);
+            METRICS_LOGGER.log("time_scoring_" + event.getSource(), System.currentTimeMillis() - start);
+            return;
+        }
+        long nlpStart = System.nanoTime();
+        List<String> lemmas = context.getLemmas(openNLP);
+        if (prefilter != null) {
+            prefilter.recordNLP(System.nanoTime() - nlpStart);
         }
+        int score = scoreWords(lemmas, event.getLang());
+        //Score x COEFF_VERIFY_ACCOUNT if the twitter is certified
+        if (certified) {
+            score *= COEFF_VERIFY_ACCOUNT;
+        }
+        context.setScore(Math.min(score, MAX_SCORE));
         long time = System.currentTimeMillis() - start;
         METRICS_LOGGER.log("time_scoring_" + event.getSource(), time);
-        return new Event(event.getLocation(), event.getStart(), event.getEnd(), tweet, verifyMaxScore(score), event.getSource(), event.getLang());
     }
 
     /**
@@ -209,29 +283,18 @@ public class TwitterScoreProcessor implements IScoreProcessor {
     }
 
     /**
-     * Score a tweet depending {@link TwitterScoreProcessor#rulesMapFR}
+     * Score a tweet depending {@link TwitterScoreProcessor#rulesMaps}
      *
-     * @param score    Actual score of {@link Event}
      * @param tweetMap List of word of tweet
-     * @return New score of {@link Event}
+     * @param lang     Language of tweet
+     * @return Score of {@link Event}
      * @throws NullPointerException if tweetMap is null
-     * @see TwitterScoreProcessor#rulesMapFR
+     * @see TwitterScoreProcessor#rulesMaps
      */
-    private byte scoreWords(byte score, List<String> tweetMap, OpenNLP.langOptions lang) {
+    private int scoreWords(List<String> tweetMap, OpenNLP.langOptions lang) {
         Objects.requireNonNull(tweetMap);
-        byte scoreTmp = score;
-        Map<String, Integer> rulesMap;
-        switch (lang.toString()) {
-            case "FRENCH":
-                rulesMap = rulesMapFR;
-                break;
-            case "ENGLISH":
-                rulesMap = rulesMapEN;
-                break;
-            default:
-                rulesMap = rulesMapEN;
-                break;
-        }
+        int scoreTmp = 0;
+        Map<String, Integer> rulesMap = rulesMaps.get(lang);
         for (String word : tweetMap) {
             boolean isHashtag = isHashtag(word);
             if (isHashtag(word)) {
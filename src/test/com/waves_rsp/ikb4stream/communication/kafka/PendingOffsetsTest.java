@@ -0,0 +1,55 @@
+package com.waves_rsp.ikb4stream.communication.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PendingOffsetsTest {
+    private final TopicPartition first = new TopicPartition("requests", 0);
+    private final TopicPartition second = new TopicPartition("requests", 1);
+
+    @Test
+    public void testCommitFirstPending() {
+        PendingOffsets offsets = new PendingOffsets();
+        offsets.add(first, 10);
+        offsets.add(first, 11);
+        offsets.add(first, 12);
+        offsets.ack(first, 11);
+        offsets.ack(first, 12);
+        assertEquals(10, offsets.committable().get(first).offset());
+        assertTrue(offsets.committable().isEmpty());
+        offsets.ack(first, 10);
+        assertEquals(13, offsets.committable().get(first).offset());
+    }
+
+    @Test
+    public void testPartitionsAreIndependent() {
+        PendingOffsets offsets = new PendingOffsets();
+        offsets.add(first, 5);
+        offsets.add(second, 7);
+        offsets.ack(second, 7);
+        Map<TopicPartition, OffsetAndMetadata> committable = offsets.committable();
+        assertEquals(5, committable.get(first).offset());
+        assertEquals(8, committable.get(second).offset());
+    }
+
+    @Test
+    public void testAwait() throws InterruptedException {
+        PendingOffsets offsets = new PendingOffsets();
+        assertTrue(offsets.await(0));
+        offsets.add(first, 1);
+        offsets.add(second, 1);
+        assertFalse(offsets.await(10));
+        offsets.ack(first, 1);
+        offsets.revoke(Collections.singleton(second));
+        assertTrue(offsets.await(10));
+        assertFalse(offsets.committable().containsKey(second));
+    }
+}
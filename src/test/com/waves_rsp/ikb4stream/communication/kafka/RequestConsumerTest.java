@@ -0,0 +1,206 @@
+package com.waves_rsp.ikb4stream.communication.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waves_rsp.ikb4stream.core.communication.DatabaseDocumentsCallback;
+import com.waves_rsp.ikb4stream.core.communication.DatabaseReaderCallback;
+import com.waves_rsp.ikb4stream.core.communication.EventListener;
+import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
+import com.waves_rsp.ikb4stream.core.communication.model.Request;
+import kafka.server.KafkaConfig;
+import kafka.server.KafkaServerStartable;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.zookeeper.server.NIOServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestConsumerTest {
+    private static final String REQUEST_TOPIC = "requests";
+    private static final String RESPONSE_TOPIC = "responses";
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger maxPending = new AtomicInteger();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final IDatabaseReader databaseReader = new IDatabaseReader() {
+        @Override
+        public void getEvent(Request request, DatabaseReaderCallback callback) {
+            maxPending.accumulateAndGet(pending.incrementAndGet(), Math::max);
+            executor.schedule(() -> {
+                pending.decrementAndGet();
+                callback.onResult(null, "[{\"search\":\"" + request.getSearch() + "\"}]");
+            }, 20, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void getEvents(Request request, Set<String> fields, DatabaseDocumentsCallback callback) {
+            callback.onResult(null, Collections.emptyList());
+        }
+
+        @Override
+        public void deleteEvent(String id) {
+            // Do nothing
+        }
+
+        @Override
+        public void getHeatmap(Request request, int precision, DatabaseReaderCallback callback) {
+            callback.onResult(null, "[]");
+        }
+
+        @Override
+        public void addEventListener(EventListener listener) {
+            // Do nothing
+        }
+
+        @Override
+        public void removeEventListener(EventListener listener) {
+            // Do nothing
+        }
+    };
+    private File directory;
+    private NIOServerCnxnFactory zookeeper;
+    private KafkaServerStartable kafka;
+    private String server;
+
+    @Before
+    public void startBroker() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("kafka").toFile();
+        zookeeper = new NIOServerCnxnFactory();
+        zookeeper.configure(new InetSocketAddress("localhost", 0), 16);
+        zookeeper.startup(new ZooKeeperServer(new File(directory, "zookeeper"), new File(directory, "zookeeper"), 500));
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Properties properties = new Properties();
+        properties.put("zookeeper.connect", "localhost:" + zookeeper.getLocalPort());
+        properties.put("broker.id", "0");
+        properties.put("listeners", "PLAINTEXT://localhost:" + port);
+        properties.put("log.dirs", new File(directory, "kafka").getAbsolutePath());
+        properties.put("num.partitions", "4");
+        properties.put("offsets.topic.replication.factor", "1");
+        properties.put("offsets.topic.num.partitions", "1");
+        kafka = new KafkaServerStartable(new KafkaConfig(properties));
+        kafka.startup();
+        server = "localhost:" + port;
+    }
+
+    @After
+    public void stopBroker() {
+        executor.shutdownNow();
+        kafka.shutdown();
+        kafka.awaitShutdown();
+        zookeeper.shutdown();
+        deleteRecursively(directory);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private KafkaConsumer<String, String> createConsumer(String group, int maxInFlight) {
+        Properties properties = KafkaCommunication.createConsumerProperties(server, group, maxInFlight);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new KafkaConsumer<>(properties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMissingField() throws IOException {
+        RequestConsumer.parseRequest("{\"start\": 0}");
+    }
+
+    @Test
+    public void testParseRequest() throws IOException {
+        Request request = RequestConsumer.parseRequest("{\"start\": 1000, \"end\": 2000, \"search\": \"fire\"}");
+        assertEquals(1000, request.getStart().getTime());
+        assertEquals(2000, request.getEnd().getTime());
+        assertEquals("fire", request.getSearch());
+        assertNull(request.getBoundingBox());
+    }
+
+    @Test
+    public void testResponsesByRequester() throws InterruptedException, IOException {
+        KafkaProducer<String, String> producer = new KafkaProducer<>(
+                KafkaCommunication.createProducerProperties(server, "test", "lz4", 5, 16384));
+        producer.partitionsFor(REQUEST_TOPIC);
+        producer.partitionsFor(RESPONSE_TOPIC);
+        RequestConsumer requestConsumer = new RequestConsumer(createConsumer("test", 2), producer, REQUEST_TOPIC,
+                RESPONSE_TOPIC, databaseReader, new Semaphore(2));
+        Thread thread = new Thread(requestConsumer);
+        thread.start();
+        for (int i = 0; i < 10; i++) {
+            String requester = i % 2 == 0 ? "alice" : "bob";
+            producer.send(new ProducerRecord<>(REQUEST_TOPIC, requester,
+                    "{\"id\": " + i + ", \"start\": 0, \"end\": 1000, \"search\": \"" + requester + i + "\"}"));
+        }
+        producer.send(new ProducerRecord<>(REQUEST_TOPIC, "carol", "not a request"));
+        producer.flush();
+
+        Map<String, List<ConsumerRecord<String, String>>> responses = new HashMap<>();
+        int count = 0;
+        long deadline = System.currentTimeMillis() + 60000;
+        try (KafkaConsumer<String, String> responseConsumer = createConsumer("reader", 100)) {
+            responseConsumer.subscribe(Collections.singletonList(RESPONSE_TOPIC));
+            while (count < 11 && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : responseConsumer.poll(100)) {
+                    responses.computeIfAbsent(record.key(), k -> new ArrayList<>()).add(record);
+                    count++;
+                }
+            }
+        }
+        requestConsumer.close(1000);
+        thread.join();
+        producer.close();
+
+        assertEquals(11, count);
+        assertEquals(5, responses.get("alice").size());
+        assertEquals(5, responses.get("bob").size());
+        Set<Integer> ids = new HashSet<>();
+        for (ConsumerRecord<String, String> record : responses.get("alice")) {
+            JsonNode response = mapper.readTree(record.value());
+            int id = response.get("id").asInt();
+            assertTrue(ids.add(id));
+            assertTrue(response.has("offset"));
+            assertEquals("alice" + id, response.get("events").get(0).get("search").asText());
+            assertEquals(responses.get("alice").get(0).partition(), record.partition());
+        }
+        JsonNode error = mapper.readTree(responses.get("carol").get(0).value());
+        assertTrue(error.has("error"));
+        assertTrue(error.has("offset"));
+        assertTrue(maxPending.get() <= 2);
+    }
+}
@@ -0,0 +1,55 @@
+package com.waves_rsp.ikb4stream.communication.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseEncoderTest {
+    private final List<Map<String, Object>> documents = Collections.singletonList(createDocument());
+
+    private static Map<String, Object> createDocument() {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("_id", "58c7f4a1e4b0a1b2c3d4e5f6");
+        document.put("description", "Pool party");
+        document.put("score", 42);
+        document.put("start", 1490000000000L);
+        document.put("location", Arrays.asList(2.3, 48.8));
+        return document;
+    }
+
+    @Test
+    public void testNegotiate() {
+        assertEquals(ResponseEncoder.JSON, ResponseEncoder.negotiate(null));
+        assertEquals(ResponseEncoder.JSON, ResponseEncoder.negotiate("application/json"));
+        assertEquals(ResponseEncoder.CBOR, ResponseEncoder.negotiate("application/cbor, application/json;q=0.5"));
+    }
+
+    @Test
+    public void testEncodeJson() {
+        String json = new String(ResponseEncoder.JSON.encode("events", documents), StandardCharsets.UTF_8);
+        assertEquals("{\"events\":[{\"_id\":\"58c7f4a1e4b0a1b2c3d4e5f6\",\"description\":\"Pool party\","
+                + "\"score\":42,\"start\":1490000000000,\"location\":[2.3,48.8]}]}", json);
+    }
+
+    @Test
+    public void testEncodeCbor() throws IOException {
+        byte[] cbor = ResponseEncoder.CBOR.encode("events", documents);
+        assertTrue(cbor.length < ResponseEncoder.JSON.encode("events", documents).length);
+        JsonNode events = new ObjectMapper(new CBORFactory()).readTree(cbor).get("events");
+        assertEquals("Pool party", events.get(0).get("description").asText());
+        assertEquals(1490000000000L, events.get(0).get("start").asLong());
+        assertEquals(48.8, events.get(0).get("location").get(1).asDouble(), 0);
+    }
+}
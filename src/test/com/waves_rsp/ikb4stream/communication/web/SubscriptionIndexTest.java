@@ -0,0 +1,87 @@
+package com.waves_rsp.ikb4stream.communication.web;
+
+import com.waves_rsp.ikb4stream.core.communication.model.BoundingBox;
+import com.waves_rsp.ikb4stream.core.communication.model.Request;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.LatLong;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SubscriptionIndexTest {
+    private static final BoundingBox PARIS = new BoundingBox(new LatLong[]{
+            new LatLong(48.8, 2.2), new LatLong(48.9, 2.2), new LatLong(48.9, 2.4), new LatLong(48.8, 2.4), new LatLong(48.8, 2.2)});
+    private final Date now = new Date();
+
+    private Event createEvent(double latitude, double longitude, String description, String source, byte score) {
+        return new Event(new LatLong(latitude, longitude), now, now, description, score, source, OpenNLP.langOptions.FRENCH);
+    }
+
+    private Request createRequest(String search, String source, BoundingBox boundingBox) {
+        Date end = new Date(Long.MAX_VALUE);
+        if (boundingBox == null) {
+            return new Request(new Date(0), end, search, source, now);
+        }
+        return new Request(new Date(0), end, search, source, boundingBox, now);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCellSize() {
+        new SubscriptionIndex(0);
+    }
+
+    @Test
+    public void testMatchArea() {
+        SubscriptionIndex index = new SubscriptionIndex(1);
+        List<String> received = new ArrayList<>();
+        index.add(new Subscription(createRequest("", "", PARIS), 0, received::add));
+        index.publish(createEvent(48.85, 2.3, "Fire", "twitter", (byte) 50), "paris");
+        index.publish(createEvent(43.3, 5.4, "Fire", "twitter", (byte) 50), "marseille");
+        index.publish(createEvent(48.95, 2.3, "Fire", "twitter", (byte) 50), "outside");
+        assertEquals(1, received.size());
+        assertEquals("paris", received.get(0));
+    }
+
+    @Test
+    public void testMatchFilters() {
+        SubscriptionIndex index = new SubscriptionIndex(1);
+        Subscription subscription = new Subscription(createRequest("fire flood", "twitter", null), 30, json -> { });
+        index.add(subscription);
+        assertEquals(1, index.match(createEvent(10, 10, "Big FIRE in town", "twitter", (byte) 50)).size());
+        assertEquals(0, index.match(createEvent(10, 10, "Big fire in town", "rss", (byte) 50)).size());
+        assertEquals(0, index.match(createEvent(10, 10, "Big fire in town", "twitter", (byte) 10)).size());
+        assertEquals(0, index.match(createEvent(10, 10, "Pool party", "twitter", (byte) 50)).size());
+    }
+
+    @Test
+    public void testMatchSources() {
+        SubscriptionIndex index = new SubscriptionIndex(1);
+        index.add(new Subscription(createRequest("", "twitter, rss", null), 0, json -> { }));
+        assertEquals(1, index.match(createEvent(10, 10, "Fire", "twitter", (byte) 50)).size());
+        assertEquals(1, index.match(createEvent(10, 10, "Fire", "rss", (byte) 50)).size());
+        assertEquals(0, index.match(createEvent(10, 10, "Fire", "facebook", (byte) 50)).size());
+    }
+
+    @Test
+    public void testRemove() {
+        SubscriptionIndex index = new SubscriptionIndex(0.1);
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Subscription subscription = new Subscription(createRequest("", "", PARIS), 0, json -> { });
+            subscriptions.add(subscription);
+            index.add(subscription);
+        }
+        index.add(new Subscription(createRequest("", "", null), 0, json -> { }));
+        assertEquals(1001, index.size());
+        assertEquals(1001, index.match(createEvent(48.85, 2.3, "Fire", "twitter", (byte) 50)).size());
+        subscriptions.forEach(index::remove);
+        assertEquals(1, index.size());
+        assertTrue(index.match(createEvent(48.85, 2.3, "Fire", "twitter", (byte) 50)).size() == 1);
+    }
+}
@@ -0,0 +1,168 @@
+package com.waves_rsp.ikb4stream.communication.web;
+
+import com.waves_rsp.ikb4stream.core.communication.DatabaseDocumentsCallback;
+import com.waves_rsp.ikb4stream.core.communication.DatabaseReaderCallback;
+import com.waves_rsp.ikb4stream.core.communication.EventListener;
+import com.waves_rsp.ikb4stream.core.communication.model.IDatabaseReader;
+import com.waves_rsp.ikb4stream.core.communication.model.Request;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VertxServerLoadTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VertxServerLoadTest.class);
+    private static final int REQUESTS = 400;
+    private static final int CLIENTS = 16;
+    private final Set<String> eventLoops = ConcurrentHashMap.newKeySet();
+    private final IDatabaseReader databaseReader = new IDatabaseReader() {
+        @Override
+        public void getEvent(Request request, DatabaseReaderCallback callback) {
+            eventLoops.add(Thread.currentThread().getName());
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1);
+            while (System.nanoTime() < end) {
+                // Simulate work done on the event loop
+            }
+            callback.onResult(null, "[]");
+        }
+
+        @Override
+        public void getEvents(Request request, Set<String> fields, DatabaseDocumentsCallback callback) {
+            callback.onResult(null, Collections.emptyList());
+        }
+
+        @Override
+        public void deleteEvent(String id) {
+            // Do nothing
+        }
+
+        @Override
+        public void getHeatmap(Request request, int precision, DatabaseReaderCallback callback) {
+            callback.onResult(null, "[]");
+        }
+
+        @Override
+        public void addEventListener(EventListener listener) {
+            // Do nothing
+        }
+
+        @Override
+        public void removeEventListener(EventListener listener) {
+            // Do nothing
+        }
+    };
+
+    private Vertx deploy(int instances, int port) throws InterruptedException {
+        Vertx vertx = Vertx.vertx();
+        vertx.registerVerticleFactory(new VertxServerFactory(databaseReader, new SubscriptionIndex(1)));
+        CountDownLatch deployed = new CountDownLatch(1);
+        vertx.deployVerticle(VertxServerFactory.VERTICLE_NAME, new DeploymentOptions()
+                .setInstances(instances)
+                .setConfig(new JsonObject().put("http.port", port)), result -> deployed.countDown());
+        assertTrue(deployed.await(10, TimeUnit.SECONDS));
+        return vertx;
+    }
+
+    private static void close(Vertx vertx) throws InterruptedException {
+        CountDownLatch closed = new CountDownLatch(1);
+        vertx.close(result -> closed.countDown());
+        closed.await(10, TimeUnit.SECONDS);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private double run(int instances) throws Exception {
+        int port = freePort();
+        Vertx vertx = deploy(instances, port);
+
+        URL url = new URL("http://localhost:" + port + "/anomaly");
+        byte[] body = "{\"start\": 0, \"end\": 1000, \"search\": \"\", \"location\": \"\", \"source\": \"\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<Integer>> responses = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(clients.submit(() -> post(url, body)));
+        }
+        for (Future<Integer> response : responses) {
+            assertEquals(200, (int) response.get());
+        }
+        double rate = REQUESTS / ((System.nanoTime() - start) / 1e9);
+        clients.shutdown();
+        close(vertx);
+        LOGGER.info("{} instance(s): {} requests/s", instances, Math.round(rate));
+        return rate;
+    }
+
+    private static int post(URL url, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Connection", "close");
+        connection.setDoOutput(true);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(body);
+        }
+        int code = connection.getResponseCode();
+        try (InputStream is = code < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            while (is != null && is.read() != -1) {
+                // Read whole response
+            }
+        }
+        connection.disconnect();
+        return code;
+    }
+
+    @Test
+    public void testInvalidTypes() throws Exception {
+        int port = freePort();
+        Vertx vertx = deploy(1, port);
+        URL url = new URL("http://localhost:" + port + "/anomaly");
+        try {
+            String request = "{\"start\": 0, \"end\": 1000, \"search\": \"\", \"location\": \"\", \"source\": \"\", ";
+            assertEquals(400, post(url, (request + "\"compact\": \"yes\"}").getBytes(StandardCharsets.UTF_8)));
+            assertEquals(400, post(url, (request + "\"fields\": \"score\"}").getBytes(StandardCharsets.UTF_8)));
+            assertEquals(200, post(url, (request + "\"compact\": true}").getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            close(vertx);
+        }
+    }
+
+    @Test
+    public void testScaleWithInstances() throws Exception {
+        double single = run(1);
+        assertEquals(1, eventLoops.size());
+        eventLoops.clear();
+        double multiple = run(4);
+        assertTrue("Requests must be spread over event loops", eventLoops.size() > 1);
+        // Throughput depends on the machine, it is only logged
+        LOGGER.info("1 instance: {} requests/s, 4 instances: {} requests/s", Math.round(single), Math.round(multiple));
+    }
+}
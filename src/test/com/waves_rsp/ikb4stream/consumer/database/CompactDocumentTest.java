@@ -0,0 +1,47 @@
+package com.waves_rsp.ikb4stream.consumer.database;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CompactDocumentTest {
+
+    @Test
+    public void testCompactPoint() {
+        ObjectId id = new ObjectId();
+        Document document = new Document("_id", id)
+                .append("description", "Pool party")
+                .append("start", 1000L)
+                .append("location", new Document("type", "Point").append("coordinates", Arrays.asList(2.3, 48.8)));
+        Map<String, Object> compact = CompactDocument.compact(document);
+        assertEquals(id.toHexString(), compact.get("_id"));
+        assertEquals("Pool party", compact.get("description"));
+        assertEquals(1000L, compact.get("start"));
+        assertEquals(Arrays.asList(2.3, 48.8), compact.get("location"));
+    }
+
+    @Test
+    public void testCompactPolygon() {
+        List<List<Double>> ring = Arrays.asList(Arrays.asList(2.0, 48.0), Arrays.asList(3.0, 48.0),
+                Arrays.asList(3.0, 49.0), Arrays.asList(2.0, 48.0));
+        Document document = new Document("location", new Document("type", "Polygon")
+                .append("coordinates", Collections.singletonList(ring)));
+        assertEquals(ring, CompactDocument.compact(document).get("location"));
+    }
+
+    @Test
+    public void testProjection() {
+        assertNull(CompactDocument.projection(Collections.emptySet()));
+        assertNotNull(CompactDocument.projection(new LinkedHashSet<>(Arrays.asList("description", "location"))));
+    }
+}
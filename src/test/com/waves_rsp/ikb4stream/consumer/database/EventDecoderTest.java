@@ -0,0 +1,61 @@
+package com.waves_rsp.ikb4stream.consumer.database;
+
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.bson.Document;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventDecoderTest {
+
+    private Document createDocument(Document location) {
+        return new Document("description", "Pool party")
+                .append("source", "twitter")
+                .append("score", 42)
+                .append("lang", "FRENCH")
+                .append("start", 1000L)
+                .append("end", 2000L)
+                .append("location", location);
+    }
+
+    @Test
+    public void testDecodePoint() {
+        Document document = createDocument(new Document("type", "Point").append("coordinates", Arrays.asList(2.3, 48.8)))
+                .append("attributes", new Document("user_certified", true).append("city_id", 2988507L));
+        Event event = EventDecoder.decode(document);
+        assertEquals("Pool party", event.getDescription());
+        assertEquals(42, event.getScore());
+        assertEquals(OpenNLP.langOptions.FRENCH, event.getLang());
+        assertEquals(1000, event.getStart().getTime());
+        assertEquals(2000, event.getEnd().getTime());
+        assertTrue(event.getGeometry().isPoint());
+        assertEquals(48.8, event.getGeometry().getLatitude(0), 0);
+        assertEquals(2.3, event.getGeometry().getLongitude(0), 0);
+        assertTrue(event.getAttributes().getBoolean("user_certified", false));
+        assertEquals(2988507L, event.getAttributes().getLong("city_id", 0));
+    }
+
+    @Test
+    public void testDecodePolygon() {
+        Document document = createDocument(new Document("type", "Polygon").append("coordinates", Collections.singletonList(Arrays.asList(
+                Arrays.asList(2.0, 48.0), Arrays.asList(3.0, 48.0), Arrays.asList(3.0, 49.0), Arrays.asList(2.0, 48.0)))))
+                .append("lang", "unknown");
+        Event event = EventDecoder.decode(document);
+        assertFalse(event.getGeometry().isPoint());
+        assertEquals(4, event.getGeometry().size());
+        assertEquals(49.0, event.getGeometry().getMaxLatitude(), 0);
+        assertEquals(OpenNLP.langOptions.DEFAULT, event.getLang());
+        assertTrue(event.getAttributes().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedLocation() {
+        EventDecoder.decode(createDocument(new Document("type", "LineString")));
+    }
+}
@@ -0,0 +1,64 @@
+package com.waves_rsp.ikb4stream.consumer.database;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NewEventsWindowTest {
+    private static ObjectId id(int second, int counter) {
+        return new ObjectId(second, 1, (short) 1, counter);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotPrimed() {
+        new NewEventsWindow(1000).getLowerBound();
+    }
+
+    @Test
+    public void testEmptyCollection() {
+        NewEventsWindow window = new NewEventsWindow(1000);
+        window.prime(null);
+        assertNull(window.getLowerBound());
+        assertTrue(window.accept(id(100, 1)));
+        assertEquals(99, window.getLowerBound().getTimestamp());
+    }
+
+    @Test
+    public void testExistingEventsAreSkipped() {
+        NewEventsWindow window = new NewEventsWindow(5000);
+        window.prime(id(100, 5));
+        assertEquals(95, window.getLowerBound().getTimestamp());
+        assertFalse(window.accept(id(100, 4)));
+        assertFalse(window.accept(id(100, 5)));
+        assertTrue(window.accept(id(100, 6)));
+    }
+
+    @Test
+    public void testLateEventIsNotSkipped() {
+        NewEventsWindow window = new NewEventsWindow(5000);
+        window.prime(null);
+        assertTrue(window.accept(id(100, 1)));
+        assertTrue(window.accept(id(103, 1)));
+        window.prune();
+        // An id created at 101 by another writer is committed after the one of 103
+        assertFalse(window.accept(id(100, 1)));
+        assertTrue(window.accept(id(101, 1)));
+        assertFalse(window.accept(id(103, 1)));
+    }
+
+    @Test
+    public void testPrune() {
+        NewEventsWindow window = new NewEventsWindow(2000);
+        window.prime(null);
+        window.accept(id(100, 1));
+        window.accept(id(101, 1));
+        window.accept(id(105, 1));
+        window.prune();
+        assertEquals(1, window.size());
+        assertEquals(11, window.getQueryLimit(10));
+    }
+}
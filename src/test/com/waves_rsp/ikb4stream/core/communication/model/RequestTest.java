@@ -2,10 +2,26 @@ package com.waves_rsp.ikb4stream.core.communication.model;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class RequestTest {
 
     @Test(expected = NullPointerException.class)
     public void nullRequest() {
         new Request(null, null, null, null, null);
     }
+
+    @Test
+    public void testSources() {
+        Date now = new Date();
+        assertTrue(new Request(now, now, "", "", now).getSources().isEmpty());
+        assertTrue(new Request(now, now, "", " , ", now).getSources().isEmpty());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("Twitter", "RSS")),
+                new Request(now, now, "", "Twitter, RSS,", now).getSources());
+    }
 }
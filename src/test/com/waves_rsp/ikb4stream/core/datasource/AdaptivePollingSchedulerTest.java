@@ -0,0 +1,60 @@
+package com.waves_rsp.ikb4stream.core.datasource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptivePollingSchedulerTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFactor() {
+        new AdaptivePollingScheduler(0, 8, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullName() {
+        AdaptivePollingScheduler.getInstance().createSchedule(null, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() {
+        AdaptivePollingScheduler.getInstance().createSchedule("feed", 0);
+    }
+
+    @Test
+    public void testSpeedup() {
+        AdaptivePollingScheduler.Schedule schedule = new AdaptivePollingScheduler(4, 8, 0).createSchedule("feed", 1000);
+        assertTrue(schedule.isDue(System.currentTimeMillis()));
+        schedule.success(3);
+        assertEquals(500, schedule.getInterval());
+        schedule.success(1);
+        schedule.success(1);
+        assertEquals(250, schedule.getInterval());
+        assertFalse(schedule.isDue(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testBackoff() {
+        AdaptivePollingScheduler.Schedule schedule = new AdaptivePollingScheduler(4, 8, 0).createSchedule("feed", 1000);
+        schedule.success(0);
+        assertEquals(2000, schedule.getInterval());
+        schedule.failure();
+        schedule.failure();
+        schedule.failure();
+        assertEquals(8000, schedule.getInterval());
+        assertTrue(schedule.getDelay() > 0);
+    }
+
+    @Test
+    public void testBudget() {
+        AdaptivePollingScheduler scheduler = new AdaptivePollingScheduler(4, 8, 2);
+        AdaptivePollingScheduler.Schedule schedule = scheduler.createSchedule("feed", 1000);
+        assertTrue(schedule.tryAcquire());
+        assertTrue(schedule.tryAcquire());
+        assertFalse(schedule.tryAcquire());
+        assertFalse(schedule.isDue(System.currentTimeMillis()));
+        assertTrue(scheduler.getBudgetDelay() > 0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.waves_rsp.ikb4stream.core.datasource.model;
+
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.LatLong;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ScoringContextTest {
+    private final Date date = new Date();
+    private final Event event = new Event(new LatLong(1, 1), date, date, "{\"description\": \"Fuite d'eau\"}", "twitter", OpenNLP.langOptions.FRENCH);
+
+    @Test(expected = NullPointerException.class)
+    public void testNullEvent() {
+        new ScoringContext(null);
+    }
+
+    @Test
+    public void testUnchangedEvent() {
+        ScoringContext context = new ScoringContext(event);
+        assertSame(event, context.toEvent());
+    }
+
+    @Test
+    public void testScore() {
+        ScoringContext context = new ScoringContext(event);
+        context.addScore(30);
+        context.addScore(20);
+        context.setDescription("Fuite d'eau");
+        Event scored = context.toEvent();
+        assertEquals(50, scored.getScore());
+        assertEquals("Fuite d'eau", scored.getDescription());
+        assertSame(event.getGeometry(), scored.getGeometry());
+        context.setScore(500);
+        assertEquals(Event.getScoreMax(), context.toEvent().getScore());
+    }
+
+    @Test
+    public void testPayload() {
+        ScoringContext context = new ScoringContext(event);
+        assertNotNull(context.getPayload());
+        assertSame(context.getPayload(), context.getPayload());
+        assertEquals("Fuite d'eau", context.getPayload().path("description").asText());
+        Event text = new Event(new LatLong(1, 1), date, date, "Fuite d'eau", "twitter", OpenNLP.langOptions.FRENCH);
+        assertNull(new ScoringContext(text).getPayload());
+        Event array = new Event(new LatLong(1, 1), date, date, "[1, 2]", "twitter", OpenNLP.langOptions.FRENCH);
+        assertNull(new ScoringContext(array).getPayload());
+        Event padded = new Event(new LatLong(1, 1), date, date, " \n{\"a\": 1}", "twitter", OpenNLP.langOptions.FRENCH);
+        assertEquals(1, new ScoringContext(padded).getPayload().path("a").asInt());
+    }
+
+    @Test
+    public void testDefaultProcess() {
+        IScoreProcessor scoreProcessor = new IScoreProcessor() {
+            @Override
+            public Event processScore(Event event) {
+                return new Event(event.getGeometry(), event.getStart(), event.getEnd(), "scored", (byte) 42, event.getSource(), event.getLang(), event.getAttributes());
+            }
+
+            @Override
+            public List<String> getSources() {
+                return Collections.singletonList("twitter");
+            }
+        };
+        ScoringContext context = new ScoringContext(event);
+        scoreProcessor.process(context);
+        assertEquals(42, context.getScore());
+        assertEquals("scored", context.getDescription());
+    }
+}
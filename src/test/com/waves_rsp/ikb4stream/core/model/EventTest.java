@@ -93,4 +93,37 @@ public class EventTest {
     public void testScoreMax() {
         assertEquals(100, Event.getScoreMax());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAttributes() {
+        Date date = new Date();
+        EventAttributes attributes = new EventAttributes().put("temperature", 21.5).put("certified", true);
+        Event event = new Event(new LatLong(1, 1), date, date, "WaterPony", "twitter", OpenNLP.langOptions.FRENCH, attributes);
+        assertEquals(21.5, event.getAttributes().getDouble("temperature", 0), 0);
+        assertEquals(true, event.getAttributes().getBoolean("certified", false));
+        assertEquals("none", event.getAttributes().getString("missing", "none"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSealedAttributes() {
+        Date date = new Date();
+        EventAttributes attributes = new EventAttributes();
+        new Event(new LatLong(1, 1), date, date, "WaterPony", "twitter", OpenNLP.langOptions.FRENCH, attributes);
+        attributes.put("temperature", 21.5);
+    }
+
+    @Test
+    public void testGeometry() {
+        Date date = new Date();
+        LatLong[] latLongs = {new LatLong(1, 1), new LatLong(2, 2), new LatLong(1, 1)};
+        Event event = new Event(latLongs, date, date, "WaterPony", "twitter", OpenNLP.langOptions.FRENCH);
+        assertEquals(Geometry.fromLatLongs(latLongs), event.getGeometry());
+        assertEquals(event, new Event(event.getGeometry(), date, date, "WaterPony", "twitter", OpenNLP.langOptions.FRENCH, EventAttributes.EMPTY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenGeometry() {
+        Date date = new Date();
+        new Event(Geometry.polygon(new double[]{1, 1, 2, 2}), date, date, "WaterPony", "twitter", OpenNLP.langOptions.FRENCH, EventAttributes.EMPTY);
+    }
+}
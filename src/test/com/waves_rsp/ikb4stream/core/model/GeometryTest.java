@@ -0,0 +1,50 @@
+package com.waves_rsp.ikb4stream.core.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeometryTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLatitude() {
+        Geometry.point(91, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddCoordinates() {
+        Geometry.polygon(new double[]{1, 2, 3});
+    }
+
+    @Test
+    public void testPoint() {
+        Geometry geometry = Geometry.point(48.8, 2.3);
+        assertTrue(geometry.isPoint());
+        assertTrue(geometry.isClosed());
+        assertEquals(48.8, geometry.getLatitude(0), 0);
+        assertEquals(2.3, geometry.getLongitude(0), 0);
+    }
+
+    @Test
+    public void testBox() {
+        Geometry geometry = Geometry.box(48, 2, 49, 3);
+        assertFalse(geometry.isPoint());
+        assertTrue(geometry.isClosed());
+        assertEquals(5, geometry.size());
+        assertEquals(48, geometry.getMinLatitude(), 0);
+        assertEquals(3, geometry.getMaxLongitude(), 0);
+        assertTrue(geometry.intersectsBoundingBox(Geometry.point(48.5, 2.5)));
+        assertFalse(geometry.intersectsBoundingBox(Geometry.point(50, 2.5)));
+    }
+
+    @Test
+    public void testLatLongs() {
+        LatLong[] latLongs = {new LatLong(1, 2), new LatLong(3, 4), new LatLong(1, 2)};
+        Geometry geometry = Geometry.fromLatLongs(latLongs);
+        assertArrayEquals(latLongs, geometry.toLatLongs());
+        assertEquals(geometry, Geometry.polygon(new double[]{2, 1, 4, 3, 2, 1}));
+    }
+}
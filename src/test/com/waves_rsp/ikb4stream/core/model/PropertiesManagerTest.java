@@ -0,0 +1,99 @@
+package com.waves_rsp.ikb4stream.core.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PropertiesManagerTest {
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        directory = Files.createTempDirectory("config");
+        file = directory.resolve("config.properties");
+        Files.write(file, "a = 1\nb = true\nc = text\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.walk(directory).sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullClass() {
+        PropertiesManager.getInstance(null, file.toString());
+    }
+
+    @Test
+    public void testSharedByPath() {
+        PropertiesManager first = PropertiesManager.getInstance(String.class, file.toString());
+        PropertiesManager second = PropertiesManager.getInstance(Integer.class, directory.resolve(".").resolve("config.properties").toString());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testTypedValues() {
+        ConfigSnapshot snapshot = PropertiesManager.getInstance(Long.class, file.toString()).getSnapshot();
+        assertEquals(1, snapshot.getInt("a", 0));
+        assertEquals(1L, snapshot.getLong("a", 0));
+        assertEquals(1.0, snapshot.getDouble("a", 0), 0);
+        assertTrue(snapshot.getBoolean("b", false));
+        assertEquals(5, snapshot.getInt("c", 5));
+        assertFalse(snapshot.getBoolean("c", false));
+        assertEquals(7, snapshot.getInt("missing", 7));
+        assertEquals("text", snapshot.getProperty("c"));
+    }
+
+    @Test
+    public void testReload() throws IOException {
+        PropertiesManager propertiesManager = PropertiesManager.getInstance(Short.class, file.toString());
+        ConfigSnapshot before = propertiesManager.getSnapshot();
+        assertFalse(propertiesManager.reload());
+        Files.write(file, "a = 2\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(before.getLastModified() + 2000));
+        assertTrue(propertiesManager.reload());
+        ConfigSnapshot after = propertiesManager.getSnapshot();
+        assertNotSame(before, after);
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals("2", propertiesManager.getProperty("a"));
+        assertEquals(1, before.getInt("a", 0));
+    }
+
+    @Test
+    public void testSetProperty() throws IOException, InterruptedException {
+        PropertiesManager propertiesManager = PropertiesManager.getInstance(Byte.class, file.toString());
+        propertiesManager.setProperty("d", "new");
+        assertEquals("new", propertiesManager.getProperty("d"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("d=new") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("d=new"));
+        assertEquals("1", propertiesManager.getProperty("a"));
+    }
+
+    @Test
+    public void testWriteIsNotReloaded() throws IOException {
+        PropertiesManager propertiesManager = PropertiesManager.getInstance(Character.class, file.toString());
+        propertiesManager.write();
+        ConfigSnapshot written = propertiesManager.getSnapshot();
+        assertEquals(Files.size(file), written.getSize());
+        assertFalse(propertiesManager.reload());
+        assertSame(written, propertiesManager.getSnapshot());
+        assertEquals("1", propertiesManager.getProperty("a"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AtomicFileWriterTest {
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("atomic");
+        file = directory.resolve("file.txt");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private long countFiles(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        AtomicFileWriter.write(file, stream -> stream.write("first".getBytes(StandardCharsets.UTF_8)));
+        AtomicFileWriter.write(file, stream -> stream.write("second".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("second", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        assertEquals(1, countFiles(directory));
+    }
+
+    @Test
+    public void testCreateDirectory() throws IOException {
+        Path nested = directory.resolve("nested").resolve("file.txt");
+        AtomicFileWriter.write(nested, stream -> stream.write(1));
+        assertEquals(1, Files.size(nested));
+    }
+
+    @Test
+    public void testFailureDeletesTemporaryFile() throws IOException {
+        AtomicFileWriter.write(file, stream -> stream.write("first".getBytes(StandardCharsets.UTF_8)));
+        try {
+            AtomicFileWriter.write(file, stream -> {
+                stream.write("partial".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("Disk full");
+            });
+            fail("Failure of content must be thrown");
+        } catch (IOException e) {
+            assertEquals("Disk full", e.getMessage());
+        }
+        assertEquals("first", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        assertEquals(1, countFiles(directory));
+    }
+}
@@ -0,0 +1,39 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeoHashTest {
+
+    @Test
+    public void testEncode() {
+        assertEquals("u09tv", GeoHash.encode(48.8566, 2.3522, 5));
+        assertEquals("u", GeoHash.encode(48.8566, 2.3522, 1));
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+    }
+
+    @Test
+    public void testDecodeBounds() {
+        double[] bounds = GeoHash.decodeBounds("u09tv");
+        assertTrue(bounds[0] <= 48.8566 && 48.8566 <= bounds[2]);
+        assertTrue(bounds[1] <= 2.3522 && 2.3522 <= bounds[3]);
+        assertEquals(360.0 / 8192, bounds[3] - bounds[1], 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPrecision() {
+        GeoHash.encode(48.8566, 2.3522, 13);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPosition() {
+        GeoHash.encode(91, 2.3522, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHash() {
+        GeoHash.decodeBounds("u09ta");
+    }
+}
@@ -0,0 +1,64 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeywordMatcherTest {
+    @Test(expected = NullPointerException.class)
+    public void testNullKeywords() {
+        KeywordMatcher.create(null);
+    }
+
+    @Test
+    public void testEmpty() {
+        KeywordMatcher matcher = KeywordMatcher.create(Arrays.asList("", " "));
+        assertEquals(0, matcher.size());
+        assertFalse(matcher.matches("Fuite d'eau"));
+        assertEquals(0, matcher.count("Fuite d'eau"));
+    }
+
+    @Test
+    public void testFind() {
+        KeywordMatcher matcher = KeywordMatcher.create(Arrays.asList("fuite", "Inond", "eau"));
+        assertTrue(matcher.matches("Grosse FUITE rue de Paris"));
+        assertFalse(matcher.matches("Concert ce soir"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("fuite", "eau", "inond")), matcher.find("Fuite d'eau, inondation du quartier"));
+        assertEquals(2, matcher.count("eau et eau"));
+    }
+
+    @Test
+    public void testOverlappingKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.create(Arrays.asList("he", "she", "his", "hers"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("she", "he", "hers")), matcher.find("ushers"));
+        assertEquals(3, matcher.count("ushers"));
+        assertEquals(Collections.singleton("his"), matcher.find("this"));
+    }
+
+    @Test
+    public void testCountLimit() {
+        KeywordMatcher matcher = KeywordMatcher.create(Arrays.asList("he", "she", "his", "hers"));
+        assertEquals(2, matcher.count("ushers", 2));
+        assertEquals(3, matcher.count("ushers", 10));
+        assertEquals(0, matcher.count("ushers", 0));
+    }
+
+    @Test
+    public void testDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr"));
+            KeywordMatcher matcher = KeywordMatcher.create(Collections.singletonList("FIRE"));
+            assertTrue(matcher.matches("Big fire in town"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
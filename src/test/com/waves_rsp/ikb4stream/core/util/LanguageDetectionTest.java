@@ -0,0 +1,34 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LanguageDetectionTest {
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
+
+    @Test
+    public void testSingleInstance() {
+        assertSame(languageDetection, LanguageDetection.getLanguageDetection());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullText() {
+        languageDetection.detectLanguage(null);
+    }
+
+    @Test
+    public void testShortText() {
+        assertEquals(OpenNLP.langOptions.FRENCH, languageDetection.detectLanguage("Il y a une inondation dans la rue de la mairie"));
+        assertEquals(OpenNLP.langOptions.ENGLISH, languageDetection.detectLanguage("There is a flood in the street near the town hall"));
+        assertEquals(OpenNLP.langOptions.DEFAULT, languageDetection.detectLanguage("Hay una inundación en la calle del ayuntamiento"));
+    }
+
+    @Test
+    public void testCachedText() {
+        String text = "Le feu a détruit un entrepôt près de la gare cette nuit";
+        assertEquals(languageDetection.detectLanguage(text), languageDetection.detectLanguage(text));
+    }
+}
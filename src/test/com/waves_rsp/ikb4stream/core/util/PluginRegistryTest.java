@@ -0,0 +1,109 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PluginRegistryTest {
+    private Path directory;
+    private PluginRegistry registry;
+
+    public static class Module implements Runnable {
+        @Override
+        public void run() {
+            // Do nothing
+        }
+    }
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("plugins");
+        registry = new PluginRegistry(PluginRegistryTest.class.getClassLoader());
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        Files.walk(directory).sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+
+    private Path createJar(String name, String moduleClass) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (moduleClass != null) {
+            manifest.getMainAttributes().putValue("Module-Class", moduleClass);
+        }
+        Path jar = directory.resolve(name);
+        try (OutputStream os = Files.newOutputStream(jar); JarOutputStream jos = new JarOutputStream(os, manifest)) {
+            jos.flush();
+        }
+        return jar;
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullDirectory() {
+        registry.getPlugins(null);
+    }
+
+    @Test
+    public void testGetPlugins() throws IOException {
+        createJar("module.jar", Module.class.getName());
+        createJar("empty.jar", null);
+        Files.createDirectory(directory.resolve("sub"));
+        Files.write(directory.resolve("sub").resolve("readme.txt"), new byte[]{1});
+        List<PluginRegistry.Plugin> plugins = registry.getPlugins(directory.toString());
+        assertEquals(1, plugins.size());
+        PluginRegistry.Plugin plugin = plugins.get(0);
+        assertEquals(1, plugin.getModuleClasses().size());
+        assertEquals(1, plugin.getClasses(Runnable.class).size());
+        assertSame(Module.class, plugin.getClasses(Runnable.class).get(0));
+        assertTrue(plugin.getClasses(Comparable.class).isEmpty());
+    }
+
+    @Test
+    public void testPluginIsShared() throws IOException {
+        createJar("module.jar", Module.class.getName());
+        PluginRegistry.Plugin first = registry.getPlugins(directory.toString()).get(0);
+        PluginRegistry.Plugin second = registry.getPlugins(directory.toString()).get(0);
+        assertSame(first, second);
+        assertSame(first.getClassLoader(), second.getClassLoader());
+    }
+
+    @Test
+    public void testModifiedJarIsReloaded() throws IOException {
+        Path jar = createJar("module.jar", Module.class.getName());
+        PluginRegistry.Plugin first = registry.getPlugins(directory.toString()).get(0);
+        URLClassLoader loader = (URLClassLoader) first.getClassLoader();
+        assertNotNull(loader.findResource("META-INF/MANIFEST.MF"));
+        createJar("module.jar", "unknown.Module");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+        PluginRegistry.Plugin second = registry.getPlugins(directory.toString()).get(0);
+        assertNotSame(first, second);
+        assertEquals("unknown.Module", second.getModuleClasses().get(0));
+        assertTrue(second.getClasses(Runnable.class).isEmpty());
+        assertNull(loader.findResource("META-INF/MANIFEST.MF"));
+    }
+
+    @Test
+    public void testMissingDirectory() {
+        assertTrue(registry.getPlugins(directory.resolve("missing").toString()).isEmpty());
+    }
+}
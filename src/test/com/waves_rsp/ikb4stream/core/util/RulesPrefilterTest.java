@@ -0,0 +1,78 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RulesPrefilterTest {
+    private static final Map<String, Integer> RULES = new HashMap<>();
+
+    static {
+        RULES.put("inondation", 5);
+        RULES.put("inonder", 10);
+        RULES.put("Séisme", 10);
+        RULES.put("calme", -5);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullRules() {
+        new RulesPrefilter("test", null, 4, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStemLength() {
+        new RulesPrefilter("test", RULES, 0, 10);
+    }
+
+    @Test
+    public void testBelowTarget() {
+        RulesPrefilter prefilter = new RulesPrefilter("test", RULES, 4, 10);
+        assertTrue(prefilter.isBelowTarget("Il fait beau et calme à Paris", 1));
+        assertFalse(prefilter.isBelowTarget("Les rues sont inondées", 1));
+        assertFalse(prefilter.isBelowTarget("Un SEISME a frappé la ville", 1));
+        assertEquals(3, prefilter.getChecked());
+        assertEquals(1, prefilter.getSkipped());
+    }
+
+    @Test
+    public void testCoefficient() {
+        Map<String, Integer> rules = new HashMap<>();
+        rules.put("fuite", 5);
+        RulesPrefilter prefilter = new RulesPrefilter("test", rules, 4, 10);
+        assertTrue(prefilter.isBelowTarget("une fuite", 1));
+        assertFalse(prefilter.isBelowTarget("une fuite", 2));
+        assertFalse(prefilter.isBelowTarget("une fuite puis une autre fuite", 1));
+    }
+
+    @Test
+    public void testStem() {
+        assertEquals("inon", RulesPrefilter.stem("inondation", 4));
+        assertEquals("ci", RulesPrefilter.stem("city", 4));
+        assertEquals("kni", RulesPrefilter.stem("knife", 4));
+        assertEquals("by", RulesPrefilter.stem("by", 4));
+    }
+
+    @Test
+    public void testIrregularPlurals() {
+        Map<String, Integer> rules = new HashMap<>();
+        rules.put("city", 10);
+        rules.put("knife", 10);
+        rules.put("cheval", 10);
+        RulesPrefilter prefilter = new RulesPrefilter("test", rules, 4, 10);
+        assertFalse(prefilter.isBelowTarget("Floods in several cities", 1));
+        assertFalse(prefilter.isBelowTarget("Two knives were found", 1));
+        assertFalse(prefilter.isBelowTarget("Des chevaux en fuite", 1));
+        assertTrue(prefilter.isBelowTarget("Nothing happened", 1));
+    }
+
+    @Test
+    public void testNoTarget() {
+        RulesPrefilter prefilter = new RulesPrefilter("test", RULES, 4, 0);
+        assertFalse(prefilter.isBelowTarget("rien", 1));
+    }
+}
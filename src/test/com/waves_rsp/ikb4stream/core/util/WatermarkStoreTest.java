@@ -0,0 +1,98 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WatermarkStoreTest {
+    private Path directory;
+    private String file;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("watermarks");
+        file = directory.resolve("watermarks.json").toString();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        Files.list(directory).forEach(path -> path.toFile().delete());
+        Files.delete(directory);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullPath() {
+        WatermarkStore.createWatermarkStore(null, 10, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxIds() {
+        WatermarkStore.createWatermarkStore(file, 0, 1000);
+    }
+
+    @Test
+    public void testMarkSeen() {
+        WatermarkStore store = WatermarkStore.createWatermarkStore(file, 10, 60000);
+        assertNull(store.getLastPublished("feed"));
+        assertTrue(store.isNew("feed", "a", new Date(1000)));
+        store.markSeen("feed", "a");
+        assertFalse(store.isNew("feed", "a", new Date(1000)));
+        assertTrue(store.isNew("feed", "b", new Date(1000)));
+        assertTrue(store.isNew("feed", "c", new Date(999)));
+        assertTrue(store.isNew("other", "a", new Date(1000)));
+        store.advance("feed", new Date(1000));
+        assertFalse(store.isNew("feed", "c", new Date(999)));
+        assertEquals(new Date(1000), store.getLastPublished("feed"));
+        store.close();
+    }
+
+    @Test
+    public void testOlderEntriesOfSameFetch() {
+        WatermarkStore store = WatermarkStore.createWatermarkStore(file, 10, 60000);
+        store.markSeen("feed", "old");
+        store.advance("feed", new Date(1000));
+        assertTrue(store.isNew("feed", "c", new Date(3000)));
+        store.markSeen("feed", "c");
+        assertTrue(store.isNew("feed", "b", new Date(2000)));
+        store.markSeen("feed", "b");
+        store.advance("feed", new Date(3000));
+        store.advance("feed", null);
+        assertFalse(store.isNew("feed", "b", new Date(2000)));
+        assertEquals(new Date(3000), store.getLastPublished("feed"));
+        store.close();
+    }
+
+    @Test
+    public void testMaxIds() {
+        WatermarkStore store = WatermarkStore.createWatermarkStore(file, 2, 60000);
+        store.markSeen("feed", "a");
+        store.markSeen("feed", "b");
+        store.markSeen("feed", "c");
+        assertTrue(store.isNew("feed", "a", null));
+        assertFalse(store.isNew("feed", "c", null));
+        store.close();
+    }
+
+    @Test
+    public void testPersistence() {
+        WatermarkStore store = WatermarkStore.createWatermarkStore(file, 10, 60000);
+        store.markSeen("http://feed", "a");
+        store.advance("http://feed", new Date(1000));
+        store.close();
+        assertTrue(Files.exists(directory.resolve("watermarks.json")));
+        WatermarkStore reloaded = WatermarkStore.createWatermarkStore(file, 10, 60000);
+        assertFalse(reloaded.isNew("http://feed", "a", new Date(1000)));
+        assertEquals(new Date(1000), reloaded.getLastPublished("http://feed"));
+        reloaded.close();
+    }
+}
@@ -0,0 +1,65 @@
+package com.waves_rsp.ikb4stream.core.util;
+
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ZoneIndexTest {
+    private static final String ZONES = "{\"type\": \"FeatureCollection\", \"features\": ["
+            + "{\"type\": \"Feature\", \"properties\": {\"name\": \"paris\"}, \"geometry\": {\"type\": \"Polygon\", "
+            + "\"coordinates\": [[[2.2, 48.8], [2.4, 48.8], [2.4, 48.9], [2.2, 48.9], [2.2, 48.8]]]}},"
+            + "{\"type\": \"Feature\", \"properties\": {\"name\": \"lyon\"}, \"geometry\": {\"type\": \"MultiPolygon\", "
+            + "\"coordinates\": [[[[4.8, 45.7], [4.9, 45.7], [4.9, 45.8], [4.8, 45.7]]]]}}]}";
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("zones", ".geojson");
+        Files.write(file, ZONES.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingFile() {
+        ZoneIndex.createZoneIndex(file.toString() + ".missing", 0.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCellSize() {
+        ZoneIndex.createZoneIndex(file.toString(), 0);
+    }
+
+    @Test
+    public void testPoint() {
+        ZoneIndex zoneIndex = ZoneIndex.createZoneIndex(file.toString(), 0.5);
+        assertEquals(2, zoneIndex.size());
+        assertEquals(Collections.singleton("paris"), zoneIndex.findZones(Geometry.point(48.85, 2.3)));
+        assertFalse(zoneIndex.intersects(Geometry.point(48.85, 2.5)));
+        assertTrue(zoneIndex.intersects(Geometry.point(45.72, 4.85)));
+    }
+
+    @Test
+    public void testPolygon() {
+        ZoneIndex zoneIndex = ZoneIndex.createZoneIndex(file.toString(), 0.05);
+        assertTrue(zoneIndex.intersects(Geometry.box(48.85, 2.35, 49, 2.5)));
+        assertTrue(zoneIndex.intersects(Geometry.box(48, 2, 49, 3)));
+        assertTrue(zoneIndex.intersects(Geometry.box(48.7, 2.3, 49, 2.32)));
+        assertFalse(zoneIndex.intersects(Geometry.box(47, 1, 47.5, 1.5)));
+        assertEquals(2, zoneIndex.findZones(Geometry.box(45, 2, 49, 5)).size());
+    }
+}
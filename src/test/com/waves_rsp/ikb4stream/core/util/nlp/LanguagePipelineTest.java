@@ -0,0 +1,25 @@
+package com.waves_rsp.ikb4stream.core.util.nlp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LanguagePipelineTest {
+
+    @Test
+    public void testNameFindersCreatedOnUse() {
+        LanguagePipeline pipeline = new LanguagePipeline("fr");
+        assertTrue(pipeline.hasNameFinder(OpenNLP.nerOptions.LOCATION));
+        assertFalse(pipeline.hasNameFinder(OpenNLP.nerOptions.PERSON));
+        assertFalse(pipeline.hasNameFinder(OpenNLP.nerOptions.ORGANIZATION));
+        assertFalse(LoaderNLP.isRequested("fr", "tokenname.person"));
+        assertFalse(LoaderNLP.isRequested("fr", "tokenname.organization"));
+
+        assertNotNull(pipeline.findNames(pipeline.tokenize("Emmanuel Macron est à Paris."), OpenNLP.nerOptions.PERSON));
+        assertTrue(pipeline.hasNameFinder(OpenNLP.nerOptions.PERSON));
+        assertFalse(pipeline.hasNameFinder(OpenNLP.nerOptions.ORGANIZATION));
+        assertFalse(LoaderNLP.isRequested("fr", "tokenname.organization"));
+    }
+}
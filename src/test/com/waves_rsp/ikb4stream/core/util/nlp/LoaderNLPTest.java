@@ -0,0 +1,32 @@
+package com.waves_rsp.ikb4stream.core.util.nlp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LoaderNLPTest {
+
+    @Test
+    public void testLazyLoading() {
+        assertNotNull(LoaderNLP.getSentenceModel("fr"));
+        assertTrue(LoaderNLP.isRequested("fr", "sentence"));
+        assertFalse(LoaderNLP.isRequested("fr", "tokenname.person"));
+        assertFalse(LoaderNLP.isRequested("fr", "tokenname.organization"));
+    }
+
+    @Test
+    public void testFailedLoadIsRetried() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                LoaderNLP.getSentenceModel("unknown");
+                fail("Model of an unknown language must not be loaded");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+            assertFalse(LoaderNLP.isRequested("unknown", "sentence"));
+        }
+    }
+}
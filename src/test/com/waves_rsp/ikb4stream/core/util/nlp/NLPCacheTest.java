@@ -0,0 +1,64 @@
+package com.waves_rsp.ikb4stream.core.util.nlp;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NLPCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        new NLPCache(-1);
+    }
+
+    @Test
+    public void testHit() {
+        NLPCache cache = new NLPCache(100);
+        AtomicInteger computed = new AtomicInteger();
+        List<String> first = cache.get("lemma", OpenNLP.langOptions.FRENCH, "Fuite  d'eau ", () -> {
+            computed.incrementAndGet();
+            return Collections.singletonList("fuite");
+        });
+        List<String> second = cache.get("lemma", OpenNLP.langOptions.FRENCH, "Fuite d'eau", () -> {
+            computed.incrementAndGet();
+            return Collections.singletonList("other");
+        });
+        assertSame(first, second);
+        assertEquals(1, computed.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testKey() {
+        NLPCache cache = new NLPCache(100);
+        cache.get("lemma", OpenNLP.langOptions.FRENCH, "text", () -> Collections.singletonList("a"));
+        assertEquals("b", cache.get("lemma", OpenNLP.langOptions.ENGLISH, "text", () -> Collections.singletonList("b")).get(0));
+        assertEquals("c", cache.get("ner_LOCATION", OpenNLP.langOptions.FRENCH, "text", () -> Collections.singletonList("c")).get(0));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        NLPCache cache = new NLPCache(16);
+        for (int i = 0; i < 1000; i++) {
+            cache.get("lemma", OpenNLP.langOptions.FRENCH, "text " + i, Collections::emptyList);
+        }
+        assertTrue(cache.size() <= 16);
+    }
+
+    @Test
+    public void testDisabled() {
+        NLPCache cache = new NLPCache(0);
+        cache.get("lemma", OpenNLP.langOptions.FRENCH, "text", Collections::emptyList);
+        cache.get("lemma", OpenNLP.langOptions.FRENCH, "text", Collections::emptyList);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+    }
+}
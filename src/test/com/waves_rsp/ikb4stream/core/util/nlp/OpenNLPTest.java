@@ -0,0 +1,27 @@
+package com.waves_rsp.ikb4stream.core.util.nlp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class OpenNLPTest {
+
+    @Test
+    public void testDefaultCode() {
+        assertEquals(OpenNLP.langOptions.ENGLISH.getCode(), OpenNLP.langOptions.DEFAULT.getCode());
+    }
+
+    @Test
+    public void testDefaultPipeline() {
+        OpenNLP openNLP = OpenNLP.getOpenNLP(Thread.currentThread());
+        assertSame(openNLP.getPipeline(OpenNLP.langOptions.ENGLISH), openNLP.getPipeline(OpenNLP.langOptions.DEFAULT));
+        assertNotSame(openNLP.getPipeline(OpenNLP.langOptions.FRENCH), openNLP.getPipeline(OpenNLP.langOptions.DEFAULT));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullPipeline() {
+        OpenNLP.getOpenNLP(Thread.currentThread()).getPipeline(null);
+    }
+}
@@ -1,8 +1,20 @@
 package com.waves_rsp.ikb4stream.datasource.owm;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
 public class OWMProducerConnectorTest {
 
     private OWMProducerConnector owm = new OWMProducerConnector();
@@ -13,6 +25,49 @@ public class OWMProducerConnectorTest {
         owm = new OWMProducerConnector();
     }
 
+    @Test
+    public void testParseCoordinates() {
+        List<double[]> coordinates = OWMProducerConnector.parseCoordinates("17.68:9.29; 13.51 : 2.11;");
+        assertEquals(2, coordinates.size());
+        assertArrayEquals(new double[]{17.68, 9.29}, coordinates.get(0), 0);
+        assertArrayEquals(new double[]{13.51, 2.11}, coordinates.get(1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalidCoordinates() {
+        OWMProducerConnector.parseCoordinates("17.68:9.29;13.51");
+    }
+
+    @Test
+    public void testGroup() {
+        List<Long> cities = LongStream.rangeClosed(1, 45).boxed().collect(Collectors.toList());
+        List<String> groups = OWMProducerConnector.group(cities, 20);
+        assertEquals(3, groups.size());
+        assertEquals(20, groups.get(0).split(",").length);
+        assertEquals("41,42,43,44,45", groups.get(2));
+        assertEquals(Collections.emptyList(), OWMProducerConnector.group(Collections.emptyList(), 20));
+    }
+
+    @Test
+    public void testGroupDeduplicatesCities() {
+        List<String> groups = OWMProducerConnector.group(Arrays.asList(1L, 2L, 1L, 3L, 2L), 2);
+        assertEquals(Arrays.asList("1,2", "3"), groups);
+    }
+
+    @Test
+    public void testPushSameObservationOnce() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode first = mapper.readTree("{\"id\":42,\"name\":\"Agadez\",\"dt\":1000,"
+                + "\"coord\":{\"lat\":17.68,\"lon\":9.29},\"main\":{\"temp\":30}}");
+        JsonNode next = mapper.readTree("{\"id\":42,\"name\":\"Agadez\",\"dt\":2000,"
+                + "\"coord\":{\"lat\":17.68,\"lon\":9.29},\"main\":{\"temp\":31}}");
+        int[] pushed = {0};
+        assertEquals(1, owm.push(first, event -> pushed[0]++));
+        assertEquals(0, owm.push(first, event -> pushed[0]++));
+        assertEquals(1, owm.push(next, event -> pushed[0]++));
+        assertEquals(2, pushed[0]);
+    }
+
     @Test(expected = NullPointerException.class)
     public void checkNullDataProducer() {
         owm.load(null);
@@ -0,0 +1,76 @@
+package com.waves_rsp.ikb4stream.datasource.rss;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RSSFeedTest {
+    private static final byte[] CONTENT = "<rss version=\"2.0\"><channel></channel></rss>".getBytes(StandardCharsets.UTF_8);
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/feed", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(CONTENT);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/feed");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullUrl() {
+        new RSSFeed("source", null, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() {
+        new RSSFeed("source", url, 0);
+    }
+
+    @Test
+    public void testConditionalFetch() throws IOException {
+        RSSFeed feed = new RSSFeed("source", url, 1000);
+        RSSFeed.FetchResult first = feed.fetch(1000);
+        assertTrue(first.isModified());
+        assertArrayEquals(CONTENT, first.getContent());
+        RSSFeed.FetchResult second = feed.fetch(1000);
+        assertFalse(second.isModified());
+    }
+
+    @Test
+    public void testSchedule() {
+        RSSFeed feed = new RSSFeed("source", url, 1000);
+        assertTrue(feed.getSchedule().isDue(System.currentTimeMillis()));
+        feed.getSchedule().success(0);
+        assertFalse(feed.getSchedule().isDue(System.currentTimeMillis()));
+        assertEquals(2000, feed.getSchedule().getInterval());
+    }
+}
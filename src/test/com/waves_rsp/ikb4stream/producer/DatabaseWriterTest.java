@@ -0,0 +1,98 @@
+package com.waves_rsp.ikb4stream.producer;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
+import com.mongodb.client.model.geojson.Point;
+import com.mongodb.client.model.geojson.Polygon;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+import com.waves_rsp.ikb4stream.core.model.LatLong;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DatabaseWriterTest {
+    private final Date date = new Date();
+
+    @Test
+    public void testPointDocument() {
+        Event event = new Event(new LatLong(48.8, 2.3), date, date, "Pool party", (byte) 10, "twitter", OpenNLP.langOptions.ENGLISH);
+        Document document = DatabaseWriter.createDocument(event);
+        assertEquals("Pool party", document.getString("description"));
+        assertEquals("twitter", document.getString("source"));
+        assertEquals(10, (int) document.getInteger("score"));
+        assertEquals("ENGLISH", document.getString("lang"));
+        assertEquals(date.getTime(), (long) document.getLong("start"));
+        assertEquals(date.getTime(), (long) document.getLong("end"));
+        Point point = (Point) document.get("location");
+        assertEquals(2.3, point.getPosition().getValues().get(0), 0);
+        assertEquals(48.8, point.getPosition().getValues().get(1), 0);
+    }
+
+    @Test
+    public void testPolygonDocument() {
+        Event event = new Event(Geometry.box(48, 2, 49, 3), date, date, "Pool party", "twitter", OpenNLP.langOptions.FRENCH, EventAttributes.EMPTY);
+        Document document = DatabaseWriter.createDocument(event);
+        assertTrue(document.get("location") instanceof Polygon);
+        assertEquals(5, ((Polygon) document.get("location")).getExterior().size());
+    }
+
+    @Test
+    public void testAttributesDocument() {
+        EventAttributes attributes = new EventAttributes().put("user_certified", true).put("temperature", 21.5).put("city_id", 2988507L);
+        Event event = new Event(new LatLong(48.8, 2.3), date, date, "Pool party", "twitter", OpenNLP.langOptions.FRENCH, attributes);
+        Document document = (Document) DatabaseWriter.createDocument(event).get("attributes");
+        assertEquals(true, document.getBoolean("user_certified"));
+        assertEquals(21.5, document.getDouble("temperature"), 0);
+        assertEquals(2988507L, (long) document.getLong("city_id"));
+    }
+
+    @Test
+    public void testFailedCells() {
+        HeatmapAggregator aggregator = new HeatmapAggregator(new int[]{3, 5});
+        aggregator.add(new Event(new LatLong(48.8, 2.3), date, date, "Pool party", "twitter", OpenNLP.langOptions.FRENCH));
+        Map<String, HeatmapAggregator.Cell> cells = aggregator.drainCells();
+        String second = cells.keySet().stream().skip(1).findFirst().orElse(null);
+        MongoBulkWriteException partial = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(WriteRequest.Type.UPDATE, 1, Collections.emptyList()),
+                Collections.singletonList(new BulkWriteError(11000, "Duplicate key", new BsonDocument(), 1)),
+                null, new ServerAddress());
+        assertEquals(Collections.singleton(second), DatabaseWriter.getFailedCells(cells, partial).keySet());
+        assertEquals(cells, DatabaseWriter.getFailedCells(cells, new IllegalStateException("Timeout")));
+    }
+
+    @Test
+    public void testInsertedEvents() {
+        Event first = new Event(new LatLong(48.8, 2.3), date, date, "Pool party", "twitter", OpenNLP.langOptions.FRENCH);
+        Event second = new Event(new LatLong(48.8, 2.3), date, date, "Flood", "twitter", OpenNLP.langOptions.ENGLISH);
+        List<Event> events = Arrays.asList(first, second);
+        MongoBulkWriteException partial = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(WriteRequest.Type.INSERT, 1, Collections.emptyList()),
+                Collections.singletonList(new BulkWriteError(11000, "Duplicate key", new BsonDocument(), 0)),
+                null, new ServerAddress());
+        assertEquals(events, DatabaseWriter.getInsertedEvents(events, null));
+        assertEquals(Collections.singletonList(second), DatabaseWriter.getInsertedEvents(events, partial));
+        assertTrue(DatabaseWriter.getInsertedEvents(events, new IllegalStateException("Timeout")).isEmpty());
+    }
+
+    @Test
+    public void testNoAttributesDocument() {
+        Event event = new Event(new LatLong(48.8, 2.3), date, date, "Pool party", "twitter", OpenNLP.langOptions.FRENCH);
+        assertFalse(DatabaseWriter.createDocument(event).containsKey("attributes"));
+    }
+}
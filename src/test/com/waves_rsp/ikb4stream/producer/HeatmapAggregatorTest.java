@@ -0,0 +1,78 @@
+package com.waves_rsp.ikb4stream.producer;
+
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
+import com.waves_rsp.ikb4stream.core.model.Geometry;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static com.mongodb.async.client.MongoClients.getDefaultCodecRegistry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HeatmapAggregatorTest {
+    private static final CodecRegistry REGISTRY = getDefaultCodecRegistry();
+    private final Date date = new Date(1490000000000L);
+
+    private Event createEvent(byte score, String source, EventAttributes attributes) {
+        return new Event(Geometry.point(48.8566, 2.3522), date, date, "Pool party", score, source, OpenNLP.langOptions.FRENCH, attributes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPrecision() {
+        new HeatmapAggregator(new int[]{0});
+    }
+
+    @Test
+    public void testMergeCells() {
+        HeatmapAggregator aggregator = new HeatmapAggregator(new int[]{3, 5});
+        aggregator.add(createEvent((byte) 10, "twitter", EventAttributes.EMPTY));
+        aggregator.add(createEvent((byte) 40, "rss", EventAttributes.EMPTY));
+        List<WriteModel<Document>> updates = aggregator.drain();
+        assertEquals(2, updates.size());
+        assertTrue(aggregator.isEmpty());
+        for (WriteModel<Document> update : updates) {
+            UpdateOneModel<Document> upsert = (UpdateOneModel<Document>) update;
+            assertTrue(upsert.getOptions().isUpsert());
+            BsonDocument filter = upsert.getFilter().toBsonDocument(Document.class, REGISTRY);
+            assertTrue(filter.getString("_id").getValue().endsWith("_1489996800000"));
+            BsonDocument values = upsert.getUpdate().toBsonDocument(Document.class, REGISTRY);
+            assertEquals(2, values.getDocument("$inc").getInt32("count").getValue());
+            assertEquals(40, values.getDocument("$max").getInt32("maxScore").getValue());
+            assertEquals(2, values.getDocument("$addToSet").getDocument("sources").getArray("$each").size());
+        }
+    }
+
+    @Test
+    public void testMergeFailedCells() {
+        HeatmapAggregator aggregator = new HeatmapAggregator(new int[]{5});
+        aggregator.add(createEvent((byte) 10, "twitter", EventAttributes.EMPTY));
+        Map<String, HeatmapAggregator.Cell> failed = aggregator.drainCells();
+        assertTrue(aggregator.isEmpty());
+        aggregator.add(createEvent((byte) 40, "rss", EventAttributes.EMPTY));
+        aggregator.merge(failed);
+        List<WriteModel<Document>> updates = aggregator.drain();
+        assertEquals(1, updates.size());
+        BsonDocument values = ((UpdateOneModel<Document>) updates.get(0)).getUpdate().toBsonDocument(Document.class, REGISTRY);
+        assertEquals(2, values.getDocument("$inc").getInt32("count").getValue());
+        assertEquals(40, values.getDocument("$max").getInt32("maxScore").getValue());
+        assertEquals(2, values.getDocument("$addToSet").getDocument("sources").getArray("$each").size());
+    }
+
+    @Test
+    public void testIgnoreNotGeolocated() {
+        HeatmapAggregator aggregator = new HeatmapAggregator(new int[]{5});
+        aggregator.add(createEvent((byte) 10, "twitter", new EventAttributes().put("geolocated", false)));
+        assertTrue(aggregator.isEmpty());
+        assertTrue(aggregator.drain().isEmpty());
+    }
+}
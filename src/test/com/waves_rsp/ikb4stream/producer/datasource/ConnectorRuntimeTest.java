@@ -0,0 +1,93 @@
+package com.waves_rsp.ikb4stream.producer.datasource;
+
+import com.waves_rsp.ikb4stream.core.datasource.model.IDataProducer;
+import com.waves_rsp.ikb4stream.core.datasource.model.IPollingProducerConnector;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectorRuntimeTest {
+
+    private static class FakeConnector implements IPollingProducerConnector {
+        private final AtomicInteger cycles = new AtomicInteger();
+        private final AtomicInteger starts = new AtomicInteger();
+        private final boolean fail;
+        private final boolean error;
+
+        private FakeConnector(boolean fail) {
+            this(fail, false);
+        }
+
+        private FakeConnector(boolean fail, boolean error) {
+            this.fail = fail;
+            this.error = error;
+        }
+
+        @Override
+        public int poll(IDataProducer dataProducer) {
+            cycles.incrementAndGet();
+            if (error) {
+                throw new NoClassDefFoundError("Missing class");
+            }
+            if (fail) {
+                throw new IllegalStateException("Fetch failed");
+            }
+            return 0;
+        }
+
+        @Override
+        public long getInterval() {
+            return 5;
+        }
+
+        @Override
+        public void start() {
+            starts.incrementAndGet();
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testSubmitNull() {
+        ConnectorRuntime.createConnectorRuntime().submit(null, getClass().getClassLoader(), event -> {});
+    }
+
+    @Test
+    public void testCyclesAreScheduled() throws InterruptedException {
+        ConnectorRuntime runtime = ConnectorRuntime.createConnectorRuntime();
+        FakeConnector connector = new FakeConnector(false);
+        runtime.submit(connector, getClass().getClassLoader(), event -> {});
+        Thread.sleep(200);
+        runtime.stop(1000);
+        assertTrue(connector.cycles.get() > 1);
+        assertTrue(connector.starts.get() == 1);
+    }
+
+    @Test
+    public void testErrorKeepsScheduling() throws InterruptedException {
+        ConnectorRuntime runtime = ConnectorRuntime.createConnectorRuntime();
+        FakeConnector connector = new FakeConnector(false, true);
+        runtime.submit(connector, getClass().getClassLoader(), event -> {});
+        Thread.sleep(200);
+        runtime.stop(1000);
+        assertTrue(connector.cycles.get() > 1);
+    }
+
+    @Test
+    public void testUnhealthyConnector() throws InterruptedException {
+        ConnectorRuntime runtime = ConnectorRuntime.createConnectorRuntime();
+        runtime.submit(new FakeConnector(true), getClass().getClassLoader(), event -> {});
+        runtime.submit(new FakeConnector(false), getClass().getClassLoader(), event -> {});
+        Thread.sleep(200);
+        assertTrue(runtime.getUnhealthyConnectors().containsKey(FakeConnector.class.getSimpleName()));
+        runtime.stop(1000);
+        assertFalse(runtime.getUnhealthyConnectors().containsKey(FakeConnector.class.getSimpleName()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.waves_rsp.ikb4stream.producer.datasource;
+
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.LatLong;
+import com.waves_rsp.ikb4stream.core.util.KeywordMatcher;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DataQueueTest {
+    private final Date date = new Date();
+    private final Event event = new Event(new LatLong(48.85, 2.3), date, date, "Fuite d'eau", "Twitter", OpenNLP.langOptions.FRENCH);
+
+    @Test
+    public void testPoll() throws InterruptedException {
+        DataQueue dataQueue = new DataQueue(10);
+        assertNull(dataQueue.poll(10));
+        dataQueue.push(event);
+        assertEquals(1, dataQueue.size());
+        assertSame(event, dataQueue.poll(10));
+        assertTrue(dataQueue.isEmpty());
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        DataQueue dataQueue = new DataQueue(10);
+        dataQueue.push(event);
+        assertFalse(dataQueue.isClosed());
+        dataQueue.close();
+        assertTrue(dataQueue.isClosed());
+        dataQueue.push(event);
+        assertEquals(1, dataQueue.getRejected());
+        assertEquals(1, dataQueue.size());
+        assertSame(event, dataQueue.poll(10));
+    }
+
+    @Test
+    public void testOffer() throws InterruptedException {
+        DataQueue dataQueue = new DataQueue(1);
+        assertTrue(dataQueue.offer(event, 0));
+        long start = System.currentTimeMillis();
+        assertFalse(dataQueue.offer(event, 50));
+        assertTrue(System.currentTimeMillis() - start >= 50);
+        assertSame(event, dataQueue.poll(10));
+        assertTrue(new DataProducer(dataQueue).offer(event, 0));
+        dataQueue.close();
+        assertFalse(dataQueue.offer(event, 0));
+    }
+
+    @Test
+    public void testPriority() throws InterruptedException {
+        Event reading = new Event(new LatLong(48.85, 2.3), date, date, "Temperature 21", "OWM", OpenNLP.langOptions.FRENCH);
+        Event concert = new Event(new LatLong(48.85, 2.3), date, date, "Concert ce soir", "Twitter", OpenNLP.langOptions.FRENCH);
+        EventPriority eventPriority = new EventPriority(Collections.singletonMap("Twitter", 1),
+                KeywordMatcher.create(Arrays.asList("fuite", "eau")), 5, 60000);
+        DataQueue dataQueue = new DataQueue(10, eventPriority);
+        dataQueue.push(reading);
+        dataQueue.push(concert);
+        dataQueue.push(event);
+        assertSame(event, dataQueue.poll(10));
+        assertSame(concert, dataQueue.poll(10));
+        assertSame(reading, dataQueue.poll(10));
+        assertTrue(dataQueue.isEmpty());
+    }
+
+    @Test
+    public void testAging() {
+        EventPriority eventPriority = new EventPriority(Collections.singletonMap("Twitter", 2), KeywordMatcher.create(Collections.emptyList()), 5, 1000);
+        assertEquals(2, eventPriority.getPriority(event));
+        assertEquals(8000, eventPriority.getRank(event, 10000));
+        Event other = new Event(new LatLong(48.85, 2.3), date, date, "Fuite d'eau", "OWM", OpenNLP.langOptions.FRENCH);
+        assertTrue(eventPriority.getRank(other, 7999) < eventPriority.getRank(event, 10000));
+    }
+
+    @Test
+    public void testParseSourcePriorities() {
+        Map<String, Integer> priorities = EventPriority.parseSourcePriorities("Twitter:10, OWM : 0,");
+        assertEquals(2, priorities.size());
+        assertEquals(10, (int) priorities.get("Twitter"));
+        assertEquals(0, (int) priorities.get("OWM"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSourcePriorities() {
+        EventPriority.parseSourcePriorities("Twitter");
+    }
+
+    @Test
+    public void testDrainTo() throws InterruptedException {
+        DataQueue dataQueue = new DataQueue(10);
+        List<Event> events = new ArrayList<>();
+        assertEquals(0, dataQueue.drainTo(events, 5, 10));
+        for (int i = 0; i < 7; i++) {
+            dataQueue.push(event);
+        }
+        assertEquals(5, dataQueue.drainTo(events, 5, 1000));
+        assertEquals(2, dataQueue.drainTo(events, 5, 10));
+        assertEquals(7, events.size());
+        assertTrue(dataQueue.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        DataQueue dataQueue = new DataQueue(10);
+        dataQueue.push(event);
+        dataQueue.push(event);
+        assertEquals(2, dataQueue.clear().size());
+        assertTrue(dataQueue.isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testConsumerStopsWhenClosed() throws InterruptedException {
+        DataQueue dataQueue = new DataQueue(10);
+        Thread thread = new Thread(() -> DataConsumer.createDataConsumer(dataQueue).consume());
+        thread.start();
+        dataQueue.close();
+        thread.join();
+        assertFalse(thread.isAlive());
+    }
+}
@@ -0,0 +1,69 @@
+package com.waves_rsp.ikb4stream.producer.datasource;
+
+import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
+import com.waves_rsp.ikb4stream.core.model.LatLong;
+import com.waves_rsp.ikb4stream.core.util.ZoneIndex;
+import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ZoneFilterTest {
+    private static final String ZONES = "{\"type\": \"FeatureCollection\", \"features\": ["
+            + "{\"type\": \"Feature\", \"properties\": {\"name\": \"paris\"}, \"geometry\": {\"type\": \"Polygon\", "
+            + "\"coordinates\": [[[2.2, 48.8], [2.4, 48.8], [2.4, 48.9], [2.2, 48.9], [2.2, 48.8]]]}}]}";
+    private final Date date = new Date();
+    private final Event inside = new Event(new LatLong(48.85, 2.3), date, date, "Fuite d'eau", "Twitter", OpenNLP.langOptions.FRENCH);
+    private final Event outside = new Event(new LatLong(45, 2.3), date, date, "Fuite d'eau", "Twitter", OpenNLP.langOptions.FRENCH);
+    private Path file;
+    private ZoneIndex zoneIndex;
+
+    @Before
+    public void createIndex() throws IOException {
+        file = Files.createTempFile("zones", ".geojson");
+        Files.write(file, ZONES.getBytes(StandardCharsets.UTF_8));
+        zoneIndex = ZoneIndex.createZoneIndex(file.toString(), 0.5);
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Test
+    public void testDisabled() {
+        assertSame(outside, new ZoneFilter(null, true).apply(outside));
+    }
+
+    @Test
+    public void testDrop() {
+        ZoneFilter zoneFilter = new ZoneFilter(zoneIndex, true);
+        assertNull(zoneFilter.apply(outside));
+        assertEquals("paris", zoneFilter.apply(inside).getAttributes().getString("zones", ""));
+    }
+
+    @Test
+    public void testTag() {
+        ZoneFilter zoneFilter = new ZoneFilter(zoneIndex, false);
+        assertSame(outside, zoneFilter.apply(outside));
+        assertEquals("paris", zoneFilter.apply(inside).getAttributes().getString("zones", ""));
+    }
+
+    @Test
+    public void testNotGeolocated() {
+        Event event = new Event(new LatLong(48.85, 2.3), date, date, "Fuite d'eau", "Twitter", OpenNLP.langOptions.FRENCH,
+                new EventAttributes().put("geolocated", false));
+        assertNull(new ZoneFilter(zoneIndex, true).apply(event));
+    }
+}
@@ -9,6 +9,12 @@ import twitter4j.JSONException;
 import java.util.Calendar;
 import java.util.Date;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
 
 public class EventScoreProcessorTest {
     private final LatLong latlong = new LatLong(2, 3);
@@ -37,4 +43,29 @@ public class EventScoreProcessorTest {
     public void testSourceExist() {
         assert (tsp.getSources().contains("Facebook"));
     }
+
+    @Test
+    public void testRulesByLanguage() {
+        assertFalse(tsp.getRules(OpenNLP.langOptions.FRENCH).isEmpty());
+        assertFalse(tsp.getRules(OpenNLP.langOptions.ENGLISH).isEmpty());
+        assertNotSame(tsp.getRules(OpenNLP.langOptions.FRENCH), tsp.getRules(OpenNLP.langOptions.ENGLISH));
+        assertSame(tsp.getRules(OpenNLP.langOptions.ENGLISH), tsp.getRules(OpenNLP.langOptions.DEFAULT));
+    }
+
+    @Test
+    public void testPrefiltersByLanguage() {
+        EventScoreProcessor tiered = new EventScoreProcessor(4);
+        assertNotNull(tiered.getPrefilter(OpenNLP.langOptions.FRENCH));
+        assertNotNull(tiered.getPrefilter(OpenNLP.langOptions.ENGLISH));
+        assertNotSame(tiered.getPrefilter(OpenNLP.langOptions.FRENCH), tiered.getPrefilter(OpenNLP.langOptions.ENGLISH));
+        assertSame(tiered.getPrefilter(OpenNLP.langOptions.ENGLISH), tiered.getPrefilter(OpenNLP.langOptions.DEFAULT));
+    }
+
+    @Test
+    public void testPrefiltersDisabled() {
+        EventScoreProcessor notTiered = new EventScoreProcessor(0);
+        for (OpenNLP.langOptions lang : OpenNLP.langOptions.values()) {
+            assertNull(notTiered.getPrefilter(lang));
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.waves_rsp.ikb4stream.scoring.owm;
 
 import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
 import com.waves_rsp.ikb4stream.core.model.LatLong;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
 import org.junit.Test;
@@ -57,4 +58,13 @@ public class OWMScoreProcessorTest {
         Event clone = tsp.processScore(event);
         assert (clone.getScore() != -1);
     }
+
+    @Test
+    public void checkScoreFromAttributes() {
+        EventAttributes attributes = new EventAttributes().put("temperature", 48.0).put("weather", "rain");
+        Event event = new Event(latlong, date, date, "Weather: Il pleut", source, OpenNLP.langOptions.DEFAULT, attributes);
+        Event clone = tsp.processScore(event);
+        assert (clone.getScore() != -1);
+        assert ("Weather: Il pleut".equals(clone.getDescription()));
+    }
 }
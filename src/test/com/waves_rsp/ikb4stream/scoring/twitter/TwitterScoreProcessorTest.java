@@ -1,6 +1,7 @@
 package com.waves_rsp.ikb4stream.scoring.twitter;
 
 import com.waves_rsp.ikb4stream.core.model.Event;
+import com.waves_rsp.ikb4stream.core.model.EventAttributes;
 import com.waves_rsp.ikb4stream.core.model.LatLong;
 import com.waves_rsp.ikb4stream.core.util.LanguageDetection;
 import com.waves_rsp.ikb4stream.core.util.nlp.OpenNLP;
@@ -10,12 +11,18 @@ import twitter4j.JSONException;
 import java.util.Calendar;
 import java.util.Date;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
 public class TwitterScoreProcessorTest {
     private final TwitterScoreProcessor tsp = new TwitterScoreProcessor();
     private final Date date = Calendar.getInstance().getTime();
     private final String source = "Twitter";
     private final LatLong latlong = new LatLong(2, 3);
-    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection(Thread.currentThread());
+    private final LanguageDetection languageDetection = LanguageDetection.getLanguageDetection();
     @Test(expected = NullPointerException.class)
     public void nullProcessScore() {
         tsp.processScore(null);
@@ -38,4 +45,39 @@ public class TwitterScoreProcessorTest {
         Event event = new Event(latlong, date, date, description, source, lang);
         assert (tsp.processScore(event).getScore() != -1);
     }
+
+    @Test
+    public void calculScoreFromAttributes() {
+        String description = "Roger, il y a une fuite d'eau à Paris #eau";
+        OpenNLP.langOptions lang = languageDetection.detectLanguage(description);
+        Event event = new Event(latlong, date, date, description, source, lang, new EventAttributes().put("user_certified", true));
+        Event scored = tsp.processScore(event);
+        assert (scored.getScore() != -1);
+        assert (description.equals(scored.getDescription()));
+    }
+
+    @Test
+    public void testRulesByLanguage() {
+        assertFalse(tsp.getRules(OpenNLP.langOptions.FRENCH).isEmpty());
+        assertFalse(tsp.getRules(OpenNLP.langOptions.ENGLISH).isEmpty());
+        assertNotSame(tsp.getRules(OpenNLP.langOptions.FRENCH), tsp.getRules(OpenNLP.langOptions.ENGLISH));
+        assertSame(tsp.getRules(OpenNLP.langOptions.ENGLISH), tsp.getRules(OpenNLP.langOptions.DEFAULT));
+    }
+
+    @Test
+    public void testPrefiltersByLanguage() {
+        TwitterScoreProcessor tiered = new TwitterScoreProcessor(4);
+        assertNotNull(tiered.getPrefilter(OpenNLP.langOptions.FRENCH));
+        assertNotNull(tiered.getPrefilter(OpenNLP.langOptions.ENGLISH));
+        assertNotSame(tiered.getPrefilter(OpenNLP.langOptions.FRENCH), tiered.getPrefilter(OpenNLP.langOptions.ENGLISH));
+        assertSame(tiered.getPrefilter(OpenNLP.langOptions.ENGLISH), tiered.getPrefilter(OpenNLP.langOptions.DEFAULT));
+    }
+
+    @Test
+    public void testPrefiltersDisabled() {
+        TwitterScoreProcessor notTiered = new TwitterScoreProcessor(0);
+        for (OpenNLP.langOptions lang : OpenNLP.langOptions.values()) {
+            assertNull(notTiered.getPrefilter(lang));
+        }
+    }
 }